@@ -0,0 +1,298 @@
+/**
+ * AsyncLog - 异步环形缓冲日志输出
+ *
+ * System.out是同步的PrintStream，多个线程同时打印时会在它的锁上排队，
+ * 压测时这把锁往往比被测代码本身更拥挤。AsyncLog把打印拆成两步：
+ *   1. 生产者：用CAS在预分配的环形缓冲中抢占一个槽位写入日志行，不获取任何锁
+ *   2. 写出线程：唯一的后台线程按批取出日志行，拼接后一次性写到stdout或文件
+ *
+ * 错误行（errPrintln）与普通行进入同一个环形缓冲，由同一个写出线程按写入顺序输出到stderr：
+ * 相邻的同类行合并成一批，遇到另一类行时先写出当前批，因此错误行不会跑到引出它的普通行前面。
+ * 错误行在缓冲区满时总是等待，DROP策略只丢弃普通行
+ *
+ * 缓冲区满时的策略：
+ *   BLOCK - 生产者让出CPU并短暂休眠，直到有空位（默认，演示输出不丢失）
+ *   DROP  - 直接丢弃该行并计数，生产者永不等待（适合压测）
+ *
+ * 默认实例通过系统属性配置：
+ *   -Dasynclog.capacity=8192  环形缓冲容量（向上取整为2的幂）
+ *   -Dasynclog.policy=DROP    缓冲区满时的策略（BLOCK/DROP）
+ *   -Dasynclog.file=out.log   写入文件而不是stdout
+ *
+ * @author Java Learning Tutorial
+ * @version 1.0
+ * @date 2024
+ */
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+public class AsyncLog {
+
+    /**
+     * 缓冲区满时的处理策略
+     */
+    public enum OverflowPolicy { BLOCK, DROP }
+
+    private static final int MAX_BATCH_SIZE = 256;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    // 环形缓冲 - 每个槽位的序号决定当前归生产者还是写出线程所有
+    private final String[] slots;
+    private final boolean[] errorSlots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong(0);
+    private long head = 0;  // 只由写出线程访问
+    private boolean batchError = false;  // 当前批是否写到stderr，只由写出线程访问
+
+    private final PrintStream out;
+    private final PrintStream err;
+    private final OverflowPolicy policy;
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    // 统计指标
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder blockedOffers = new LongAdder();
+    private final AtomicLong written = new AtomicLong(0);
+    private final AtomicLong batches = new AtomicLong(0);
+    private final AtomicLong maxBatchSize = new AtomicLong(0);
+
+    public AsyncLog(int capacity, OverflowPolicy policy, PrintStream out) {
+        this(capacity, policy, out, System.err);
+    }
+
+    public AsyncLog(int capacity, OverflowPolicy policy, PrintStream out, PrintStream err) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.slots = new String[size];
+        this.errorSlots = new boolean[size];
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        this.mask = size - 1;
+        this.policy = policy;
+        this.out = out;
+        this.err = err;
+        this.writer = new Thread(this::drainLoop, "async-log-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    // ==================== 共享的默认实例 ====================
+
+    private static final class Holder {
+        static final AsyncLog INSTANCE = createDefault();
+    }
+
+    private static AsyncLog createDefault() {
+        int capacity = Integer.getInteger("asynclog.capacity", 8192);
+        OverflowPolicy policy = OverflowPolicy.valueOf(
+            System.getProperty("asynclog.policy", OverflowPolicy.BLOCK.name()).toUpperCase());
+        PrintStream target = System.out;
+        String file = System.getProperty("asynclog.file");
+        if (file != null) {
+            try {
+                target = new PrintStream(new FileOutputStream(file, true), false, "UTF-8");
+            } catch (IOException e) {
+                System.err.println("⚠️ 无法打开日志文件 " + file + "，改为输出到stdout: " + e.getMessage());
+            }
+        }
+        final AsyncLog log = new AsyncLog(capacity, policy, target);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> log.flush(2, TimeUnit.SECONDS), "async-log-flush"));
+        return log;
+    }
+
+    /**
+     * 所有演示共享的日志实例
+     */
+    public static AsyncLog shared() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * 写入一行到共享实例，用法同System.out.println
+     */
+    public static void println(String line) {
+        Holder.INSTANCE.log(line);
+    }
+
+    public static void println(Object value) {
+        Holder.INSTANCE.log(String.valueOf(value));
+    }
+
+    /**
+     * 写入一行错误到共享实例，用法同System.err.println，与println的输出保持写入顺序
+     */
+    public static void errPrintln(String line) {
+        Holder.INSTANCE.logError(line);
+    }
+
+    // ==================== 生产者 ====================
+
+    /**
+     * 写入一行日志
+     * @return 写入缓冲区返回true；DROP策略下缓冲区满被丢弃返回false
+     */
+    public boolean log(String line) {
+        return publish(line, false);
+    }
+
+    /**
+     * 写入一行错误日志，写出到stderr；缓冲区满时总是等待
+     * @return 写入缓冲区返回true；已停止时被丢弃返回false
+     */
+    public boolean logError(String line) {
+        return publish(line, true);
+    }
+
+    private boolean publish(String line, boolean error) {
+        if (tryPublish(line, error)) {
+            return true;
+        }
+        if ((policy == OverflowPolicy.DROP && !error) || !running) {
+            dropped.increment();
+            return false;
+        }
+        blockedOffers.increment();
+        int spins = 0;
+        while (!tryPublish(line, error)) {
+            if (++spins < 256) {
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(50_000);
+            }
+        }
+        return true;
+    }
+
+    private boolean tryPublish(String line, boolean error) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots[index] = line;
+                    errorSlots[index] = error;
+                    sequences.lazySet(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                return false;  // 写出线程还没取走一圈之前的数据，缓冲区已满
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    // ==================== 写出线程 ====================
+
+    private void drainLoop() {
+        StringBuilder batch = new StringBuilder(16 * 1024);
+        while (running || head < tail.get()) {
+            int count = drainBatch(batch);
+            if (count == 0) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+            PrintStream target = batchError ? err : out;
+            try {
+                target.print(batch);
+                target.flush();
+            } catch (RuntimeException e) {
+                // 输出失败不能让写出线程退出，否则BLOCK策略下生产者会一直等待
+            }
+            batch.setLength(0);
+            batches.incrementAndGet();
+            long currentMax = maxBatchSize.get();
+            while (count > currentMax && !maxBatchSize.compareAndSet(currentMax, count)) {
+                currentMax = maxBatchSize.get();
+            }
+            written.addAndGet(count);
+        }
+    }
+
+    private int drainBatch(StringBuilder batch) {
+        int count = 0;
+        while (count < MAX_BATCH_SIZE) {
+            int index = (int) head & mask;
+            if (sequences.get(index) != head + 1) {
+                break;  // 该槽位还没有发布
+            }
+            // 本批的目标流由第一行决定，只取出同类的连续行
+            if (count == 0) {
+                batchError = errorSlots[index];
+            } else if (errorSlots[index] != batchError) {
+                break;  // 输出流切换，先写出当前批
+            }
+            batch.append(slots[index]).append(System.lineSeparator());
+            slots[index] = null;
+            sequences.lazySet(index, head + mask + 1);
+            head++;
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * 等待调用时已写入缓冲区的日志全部写出
+     * @return 在超时前全部写出返回true
+     */
+    public boolean flush(long timeout, TimeUnit unit) {
+        long target = tail.get();
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (written.get() < target) {
+            if (System.nanoTime() >= deadline) {
+                return false;
+            }
+            LockSupport.parkNanos(100_000);
+        }
+        return true;
+    }
+
+    /**
+     * 写出剩余日志后停止写出线程
+     */
+    public void shutdown() {
+        flush(2, TimeUnit.SECONDS);
+        running = false;
+        try {
+            writer.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ==================== 统计指标 ====================
+
+    public long getWrittenCount() { return written.get(); }
+    public long getDroppedCount() { return dropped.sum(); }
+    public long getBlockedCount() { return blockedOffers.sum(); }
+    public long getBatchCount() { return batches.get(); }
+    public long getMaxBatchSize() { return maxBatchSize.get(); }
+    public int getCapacity() { return slots.length; }
+    public OverflowPolicy getPolicy() { return policy; }
+
+    public double getAverageBatchSize() {
+        long count = batches.get();
+        return count > 0 ? (double) written.get() / count : 0;
+    }
+
+    /**
+     * 一行统计摘要，供各演示的性能日志使用
+     */
+    public String formatStats() {
+        return String.format("写出 %d 行，%d 批（平均 %.1f，最大 %d），丢弃 %d 行，满时等待 %d 次 [%s, 容量 %d]",
+                             getWrittenCount(), getBatchCount(), getAverageBatchSize(), getMaxBatchSize(),
+                             getDroppedCount(), getBlockedCount(), policy, getCapacity());
+    }
+}
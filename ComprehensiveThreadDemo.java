@@ -21,10 +21,17 @@
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
 import java.util.*;
 import java.util.stream.*;
 import java.util.stream.Collectors;
+import java.util.function.Function;
+import java.lang.reflect.Method;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
@@ -55,60 +62,801 @@ public class ComprehensiveThreadDemo {
         return sb.toString();
     }
     
+    /**
+     * 以分为单位的金额格式化为"元.角分"，例如 12345 -> "123.45"
+     */
+    static String formatCents(long cents) {
+        String sign = cents < 0 ? "-" : "";
+        long abs = Math.abs(cents);
+        return sign + (abs / 100) + "." + (abs % 100 < 10 ? "0" : "") + (abs % 100);
+    }
+    
+    /**
+     * 已支付的订单计入Top-K统计：客户按营业额（分），SKU按订单数（同一订单中重复的SKU只计一次）
+     */
+    static void recordHeavyHitters(Order order) {
+        topCustomersByRevenue.add(order.getCustomerId(), order.getTotalAmountCents());
+        for (int i = 0; i < order.getProductCount(); i++) {
+            int skuId = order.getProductId(i);
+            boolean seen = false;
+            for (int j = 0; j < i && !seen; j++) {
+                seen = order.getProductId(j) == skuId;
+            }
+            if (!seen) {
+                topSkusByOrders.add(skuId, 1);
+            }
+        }
+    }
+    
+    /**
+     * 格式化Top-K估计结果，例如 "客户-12 1234.56元(±3.20)"；amountInCents为false时按次数输出
+     */
+    static String formatTopK(HeavyHitters sketch, StringDictionary dictionary, int k, boolean amountInCents) {
+        List<HeavyHitters.Entry> top = sketch.top(k);
+        if (top.isEmpty()) {
+            return "暂无数据";
+        }
+        StringBuilder sb = new StringBuilder();
+        for (HeavyHitters.Entry entry : top) {
+            if (sb.length() > 0) {
+                sb.append("，");
+            }
+            sb.append(dictionary.lookup(entry.getId())).append(' ');
+            if (amountInCents) {
+                sb.append(formatCents(entry.getEstimate())).append("元");
+            } else {
+                sb.append(entry.getEstimate()).append("单");
+            }
+            if (entry.getMaxError() > 0) {
+                sb.append("(±").append(amountInCents ? formatCents(entry.getMaxError()) : String.valueOf(entry.getMaxError()))
+                  .append(')');
+            }
+        }
+        return sb.toString();
+    }
+    
     // 全局计数器 - 用于统计系统性能
     private static final AtomicInteger totalOrdersProcessed = new AtomicInteger(0);
     private static final AtomicInteger totalPaymentsProcessed = new AtomicInteger(0);
     private static final AtomicInteger totalNotificationsSent = new AtomicInteger(0);
-    private static final AtomicLong totalProcessingTime = new AtomicLong(0);
+    private static final AtomicInteger totalOrdersTimedOut = new AtomicInteger(0);
     private static final AtomicInteger systemStartTime = new AtomicInteger((int) System.currentTimeMillis());
     
+    // SKU和客户名字典 - 订单只保存int编号，每个不同的字符串在堆中只有一份
+    // 必须在恢复订单之前初始化：恢复出的订单在构造时就要查字典
+    static final StringDictionary skuDictionary = new StringDictionary("SKU");
+    static final StringDictionary customerDictionary = new StringDictionary("客户");
+    
+    // 营业额台账 - 订单转为PAID时记入，已支付的订单取消时冲减；同样必须在恢复订单之前初始化
+    static final RevenueLedger revenueLedger = new RevenueLedger(Runtime.getRuntime().availableProcessors() * 2);
+    
+    // Top-K统计 - 固定内存持续跟踪营业额最高的客户和订单最多的SKU，日志每个周期打印，不扫描订单列表
+    // 订单转为PAID时计入；Space-Saving只支持正权重，已支付订单取消后不冲减（精确值以营业额台账为准）
+    private static final int TOP_K = Integer.getInteger("topk", 5);
+    static final HeavyHitters topCustomersByRevenue = new HeavyHitters("客户营业额",
+        Integer.getInteger("topk.capacity", 256), Runtime.getRuntime().availableProcessors() * 2);
+    static final HeavyHitters topSkusByOrders = new HeavyHitters("SKU订单数",
+        Integer.getInteger("topk.capacity", 256), Runtime.getRuntime().availableProcessors() * 2);
+    
+    // 各状态的订单数 - 由Order.setStatus维护，读取为O(1)
+    private static final OrderStatusCounters orderStatusCounters = new OrderStatusCounters();
+    
+    // 启动时从订单日志恢复的订单（最新快照 + 之后的日志段），并已计入状态计数器、营业额台账和Top-K；未启用日志时为null
+    // 必须在打开日志之前恢复：日志打开后从新段开始追加，恢复只读取已有的段
+    private static final OrderJournalRecovery.Result recoveredOrders = recoverOrders();
+    
+    // 订单预写日志 - 记录订单创建和状态转换，未配置 -Dorder.journal=目录 时为null
+    private static final OrderJournal orderJournal = OrderJournal.openFromSystemProperties();
+    
+    // 延迟直方图 - 订单端到端及各阶段的延迟分布，记录时不分配对象
+    private static final LatencyHistogram orderLatency = new LatencyHistogram("订单端到端");
+    private static final LatencyHistogram validationLatency = new LatencyHistogram("验证");
+    private static final LatencyHistogram inventoryLatency = new LatencyHistogram("库存检查");
+    private static final LatencyHistogram paymentLatency = new LatencyHistogram("支付");
+    private static final LatencyHistogram notificationLatency = new LatencyHistogram("通知");
+    private static final LatencyHistogram[] latencyHistograms = {
+        orderLatency, validationLatency, inventoryLatency, paymentLatency, notificationLatency
+    };
+    
     // 系统锁 - 用于模拟共享资源竞争
-    private static final ReentrantLock inventoryLock = new ReentrantLock();
+    // 库存按SKU分条带加锁，只有涉及相同商品的订单才会互相竞争
+    private static final StripedInventoryLocks inventoryLocks = new StripedInventoryLocks(64);
+    
+    // 内存库存引擎 - 各SKU库存计数用CAS更新，无全局锁
+    private static final StockReservationEngine stockEngine = new StockReservationEngine();
+    
+    // 库存更新的自适应并发上限 - 所有InventoryManagementService共享，最大值为库存线程数+队列容量
+    private static final AdaptiveConcurrencyLimiter inventoryLimiter = new AdaptiveConcurrencyLimiter(4, 1, 104);
+    
+    // 订单时间预算 - 订单进入系统时设置截止时间（-Dorder.deadline.millis），到期仍未处理完的订单被取消
+    private static final long ORDER_DEADLINE_MILLIS = Long.getLong("order.deadline.millis", 10_000);
+    private static final ScheduledThreadPoolExecutor deadlineTimer = newDeadlineTimer();
+    
+    // 通知中心 - 每个渠道一个长期存在的有界线程池，所有订单共享；带对冲请求和熔断器
+    private static final NotificationHub notificationHub = newNotificationHub();
     private static final ReentrantLock paymentLock = new ReentrantLock();
     private static final ReentrantLock notificationLock = new ReentrantLock();
     
+    // 电商系统执行模式 - 通过命令行第一个参数选择
+    private static final String MODE_SEQUENTIAL = "sequential";
+    private static final String MODE_PIPELINE = "pipeline";
+    private static final String MODE_WORKFLOW = "workflow";
+    private static final String MODE_VIRTUAL = "virtual";
+    private static final String MODE_LOAD = "load";
+    private static final String MODE_PARTITIONED = "partitioned";
+    private static final String MODE_RING = "ringbuffer";
+    
     // 订单状态枚举
     enum OrderStatus {
-        PENDING, PROCESSING, PAID, SHIPPED, DELIVERED, CANCELLED
+        PENDING, PROCESSING, PAID, SHIPPED, DELIVERED, CANCELLED;
+        
+        /**
+         * 已支付（计入营业额）的状态
+         */
+        public boolean isPaid() {
+            return this == PAID || this == SHIPPED || this == DELIVERED;
+        }
+        
+        // 允许的状态转换：正常流程逐级前进，任何尚未取消的状态都可以转为CANCELLED
+        private static final Map<OrderStatus, Set<OrderStatus>> ALLOWED_TRANSITIONS = new EnumMap<>(OrderStatus.class);
+        
+        static {
+            ALLOWED_TRANSITIONS.put(PENDING, EnumSet.of(PROCESSING, CANCELLED));
+            ALLOWED_TRANSITIONS.put(PROCESSING, EnumSet.of(PAID, CANCELLED));
+            ALLOWED_TRANSITIONS.put(PAID, EnumSet.of(SHIPPED, CANCELLED));
+            ALLOWED_TRANSITIONS.put(SHIPPED, EnumSet.of(DELIVERED, CANCELLED));
+            ALLOWED_TRANSITIONS.put(DELIVERED, EnumSet.of(CANCELLED));
+            ALLOWED_TRANSITIONS.put(CANCELLED, EnumSet.noneOf(OrderStatus.class));
+        }
+        
+        public boolean canTransitionTo(OrderStatus target) {
+            return ALLOWED_TRANSITIONS.get(this).contains(target);
+        }
+    }
+    
+    /**
+     * 订单状态计数器 - 每个状态一个LongAdder（内部分条带，多线程同时累加互不争用）
+     * 订单创建时对应状态加一，状态变化时旧状态减一、新状态加一
+     * 读取某个状态的订单数与订单总量无关；各状态之间不是同一时刻的快照
+     */
+    static final class OrderStatusCounters {
+        private final LongAdder[] counters = new LongAdder[OrderStatus.values().length];
+        
+        OrderStatusCounters() {
+            for (int i = 0; i < counters.length; i++) {
+                counters[i] = new LongAdder();
+            }
+        }
+        
+        void onCreated(OrderStatus status) {
+            counters[status.ordinal()].increment();
+        }
+        
+        void onTransition(OrderStatus from, OrderStatus to) {
+            counters[from.ordinal()].decrement();
+            counters[to.ordinal()].increment();
+        }
+        
+        /**
+         * 计入从日志恢复的订单
+         */
+        void restore(OrderStatus status, long count) {
+            counters[status.ordinal()].add(count);
+        }
+        
+        public long get(OrderStatus status) {
+            return counters[status.ordinal()].sum();
+        }
+        
+        /**
+         * 处理中的订单数（PROCESSING + PAID）
+         */
+        public long getActive() {
+            return get(OrderStatus.PROCESSING) + get(OrderStatus.PAID);
+        }
+        
+        public Map<OrderStatus, Long> snapshot() {
+            Map<OrderStatus, Long> snapshot = new EnumMap<>(OrderStatus.class);
+            for (OrderStatus status : OrderStatus.values()) {
+                snapshot.put(status, get(status));
+            }
+            return snapshot;
+        }
+    }
+    
+    /**
+     * 营业额台账 - 条带化累加，按客户和SKU细分
+     * 
+     * 金额一律用long保存（单位：分），加减没有浮点误差
+     * 每个条带有自己的总额、订单数以及按客户编号、按SKU编号下标的金额数组，由一把StampedLock保护：
+     *   - 写：支付线程从按线程号选定的条带开始tryWriteLock，条带被占用就换下一个，几乎不会排队
+     *   - 读：乐观读取条带后校验版本，期间有写入才退回读锁，读取不会阻塞支付线程
+     * 每笔订单只记入一个条带，所以任何时刻读到的快照中，每笔订单要么全部计入、要么全部未计入：
+     * 总额始终等于客户细分之和，也等于SKU细分之和
+     * 订单金额按商品条目平分给各SKU，除不尽的余数记入第一个商品，分摊之和恰好等于订单金额
+     */
+    static final class RevenueLedger {
+        
+        /**
+         * 一个条带，前后填充避免相邻条带伪共享
+         */
+        private static final class Stripe {
+            long p1, p2, p3, p4, p5, p6, p7;
+            final StampedLock lock = new StampedLock();
+            // 以下字段由lock保护
+            long totalCents;
+            long orderCount;
+            long[] customerCents = new long[0];
+            long[] skuCents = new long[0];
+            long p9, p10, p11, p12, p13, p14, p15;
+        }
+        
+        private final Stripe[] stripes;
+        private final int mask;
+        private final LongAdder contendedWrites = new LongAdder();
+        
+        /**
+         * @param stripeCount 条带数，向上取整为2的幂；通常取CPU核数的2倍
+         */
+        public RevenueLedger(int stripeCount) {
+            int size = Integer.highestOneBit(Math.max(2, stripeCount) - 1) << 1;
+            this.stripes = new Stripe[size];
+            for (int i = 0; i < size; i++) {
+                stripes[i] = new Stripe();
+            }
+            this.mask = size - 1;
+        }
+        
+        /**
+         * 记入一笔已支付的订单
+         */
+        public void recordPayment(Order order) {
+            add(order, 1);
+        }
+        
+        /**
+         * 已支付的订单被取消：按原金额冲减
+         */
+        public void recordRefund(Order order) {
+            add(order, -1);
+        }
+        
+        private void add(Order order, int sign) {
+            int h = (int) Thread.currentThread().getId() * 0x9E3779B9;
+            int start = h ^ (h >>> 16);
+            Stripe stripe = null;
+            long stamp = 0;
+            for (int i = 0; i <= mask && stamp == 0; i++) {
+                stripe = stripes[(start + i) & mask];
+                stamp = stripe.lock.tryWriteLock();
+            }
+            if (stamp == 0) {
+                // 所有条带都被占用，在首选条带上排队
+                contendedWrites.increment();
+                stripe = stripes[start & mask];
+                stamp = stripe.lock.writeLock();
+            }
+            try {
+                long cents = sign * order.getTotalAmountCents();
+                stripe.totalCents += cents;
+                stripe.orderCount += sign;
+                
+                int customerId = order.getCustomerId();
+                if (customerId >= stripe.customerCents.length) {
+                    stripe.customerCents = Arrays.copyOf(stripe.customerCents,
+                                                         Math.max(customerId + 1, stripe.customerCents.length * 2));
+                }
+                stripe.customerCents[customerId] += cents;
+                
+                // 没有商品的订单只计入总额和客户，不按SKU分摊
+                int productCount = order.getProductCount();
+                long share = productCount > 0 ? cents / productCount : 0;
+                for (int i = 0; i < productCount; i++) {
+                    int skuId = order.getProductId(i);
+                    if (skuId >= stripe.skuCents.length) {
+                        stripe.skuCents = Arrays.copyOf(stripe.skuCents,
+                                                        Math.max(skuId + 1, stripe.skuCents.length * 2));
+                    }
+                    stripe.skuCents[skuId] += i == 0 ? cents - share * (productCount - 1) : share;
+                }
+            } finally {
+                stripe.lock.unlockWrite(stamp);
+            }
+        }
+        
+        /**
+         * 当前营业额（分），只读取各条带的总额
+         */
+        public long getTotalCents() {
+            long total = 0;
+            for (Stripe stripe : stripes) {
+                long stamp = stripe.lock.tryOptimisticRead();
+                long cents = stripe.totalCents;
+                if (!stripe.lock.validate(stamp)) {
+                    stamp = stripe.lock.readLock();
+                    try {
+                        cents = stripe.totalCents;
+                    } finally {
+                        stripe.lock.unlockRead(stamp);
+                    }
+                }
+                total += cents;
+            }
+            return total;
+        }
+        
+        /**
+         * 与getTotalCents相同，但校验失败时只重试乐观读、从不获取读锁，读取方永远不会让写入方等待；
+         * 用于指标抓取等不能影响支付线程的场景
+         */
+        public long getTotalCentsWithoutLocking() {
+            long total = 0;
+            for (Stripe stripe : stripes) {
+                while (true) {
+                    long stamp = stripe.lock.tryOptimisticRead();
+                    long cents = stripe.totalCents;
+                    if (stamp != 0 && stripe.lock.validate(stamp)) {
+                        total += cents;
+                        break;
+                    }
+                    Thread.yield();
+                }
+            }
+            return total;
+        }
+        
+        /**
+         * 汇总全部条带，得到总额与细分一致的快照
+         */
+        public Snapshot snapshot() {
+            long total = 0;
+            long orders = 0;
+            long[] customers = new long[0];
+            long[] skus = new long[0];
+            for (Stripe stripe : stripes) {
+                long stamp = stripe.lock.tryOptimisticRead();
+                long stripeTotal = stripe.totalCents;
+                long stripeOrders = stripe.orderCount;
+                long[] stripeCustomers = stripe.customerCents.clone();
+                long[] stripeSkus = stripe.skuCents.clone();
+                if (!stripe.lock.validate(stamp)) {
+                    stamp = stripe.lock.readLock();
+                    try {
+                        stripeTotal = stripe.totalCents;
+                        stripeOrders = stripe.orderCount;
+                        stripeCustomers = stripe.customerCents.clone();
+                        stripeSkus = stripe.skuCents.clone();
+                    } finally {
+                        stripe.lock.unlockRead(stamp);
+                    }
+                }
+                total += stripeTotal;
+                orders += stripeOrders;
+                customers = addInto(customers, stripeCustomers);
+                skus = addInto(skus, stripeSkus);
+            }
+            return new Snapshot(total, orders, customers, skus);
+        }
+        
+        private static long[] addInto(long[] target, long[] values) {
+            if (values.length > target.length) {
+                target = Arrays.copyOf(target, values.length);
+            }
+            for (int i = 0; i < values.length; i++) {
+                target[i] += values[i];
+            }
+            return target;
+        }
+        
+        /**
+         * 所有条带都被占用、只能排队等待的写入次数
+         */
+        public long getContendedWriteCount() { return contendedWrites.sum(); }
+        public int getStripeCount() { return stripes.length; }
+        
+        /**
+         * 台账快照：总额、已支付订单数，以及按客户编号、按SKU编号下标的金额（分）
+         */
+        static final class Snapshot {
+            private final long totalCents;
+            private final long orderCount;
+            private final long[] customerCents;
+            private final long[] skuCents;
+            
+            Snapshot(long totalCents, long orderCount, long[] customerCents, long[] skuCents) {
+                this.totalCents = totalCents;
+                this.orderCount = orderCount;
+                this.customerCents = customerCents;
+                this.skuCents = skuCents;
+            }
+            
+            public long getTotalCents() { return totalCents; }
+            public long getOrderCount() { return orderCount; }
+            
+            public long getCustomerCents(int customerId) {
+                return customerId < customerCents.length ? customerCents[customerId] : 0;
+            }
+            
+            public long getSkuCents(int skuId) {
+                return skuId < skuCents.length ? skuCents[skuId] : 0;
+            }
+            
+            /**
+             * 有营业额的客户数
+             */
+            public int getCustomerCount() {
+                int count = 0;
+                for (long cents : customerCents) {
+                    if (cents != 0) {
+                        count++;
+                    }
+                }
+                return count;
+            }
+            
+            /**
+             * 总额是否等于客户细分之和与SKU细分之和
+             */
+            public boolean isConsistent() {
+                long customers = 0;
+                for (long cents : customerCents) {
+                    customers += cents;
+                }
+                long skus = 0;
+                for (long cents : skuCents) {
+                    skus += cents;
+                }
+                return customers == totalCents && skus == totalCents;
+            }
+            
+            public String format() {
+                return formatCents(totalCents) + "元，" + orderCount + " 笔，客单价 " +
+                       formatCents(orderCount > 0 ? totalCents / orderCount : 0) + "元，" +
+                       getCustomerCount() + " 个客户" + (isConsistent() ? "（细分一致 ✓）" : "（细分不一致 ✗）");
+            }
+        }
     }
     
     /**
      * 电商订单类 - 展示多线程系统中的数据模型
      */
     static class Order {
+        private static final AtomicReferenceFieldUpdater<Order, OrderStatus> STATUS_UPDATER =
+            AtomicReferenceFieldUpdater.newUpdater(Order.class, OrderStatus.class, "status");
+        
         private final int orderId;
-        private final String customerName;
-        private final List<String> products;
-        private final double totalAmount;
+        // 客户名和商品只保存字典编号，字符串本身在字典中共享
+        private final int customerId;
+        private final int[] productIds;
+        // 金额以分为单位，避免浮点误差
+        private final long totalAmountCents;
         private volatile OrderStatus status;
         private volatile long startTime;
         private volatile long endTime;
         
-        public Order(int orderId, String customerName, List<String> products, double totalAmount) {
+        // 截止时间（System.nanoTime()），未设置时不限时
+        private volatile long deadlineNanos;
+        private volatile boolean hasDeadline;
+        private volatile boolean timedOut;
+        // 以下字段由this保护：处理结束或超时后不再接受子任务
+        private boolean finished;
+        private List<Future<?>> subTasks;
+        private Future<?> deadlineTimer;
+        
+        public Order(int orderId, String customerName, List<String> products, long totalAmountCents) {
+            this(orderId, customerName, products, totalAmountCents, OrderStatus.PENDING);
+            // 先写日志：记录超出日志上限时构造失败，订单不计入状态计数器
+            if (orderJournal != null) {
+                orderJournal.logCreated(this);
+            }
+            orderStatusCounters.onCreated(OrderStatus.PENDING);
+        }
+        
+        /**
+         * 以指定的初始状态还原存储中的已有订单：只查字典和赋值，不计入状态计数器、营业额台账和Top-K，也不写入日志
+         * 存储中的订单在恢复时已统一计入（见recoverOrders），还原为对象时不能再计一次
+         */
+        Order(int orderId, String customerName, List<String> products, long totalAmountCents, OrderStatus initialStatus) {
             this.orderId = orderId;
-            this.customerName = customerName;
-            this.products = new ArrayList<>(products);
-            this.totalAmount = totalAmount;
-            this.status = OrderStatus.PENDING;
+            this.customerId = customerDictionary.intern(customerName);
+            this.productIds = new int[products.size()];
+            for (int i = 0; i < productIds.length; i++) {
+                productIds[i] = skuDictionary.intern(products.get(i));
+            }
+            this.totalAmountCents = totalAmountCents;
+            this.status = initialStatus;
             this.startTime = System.currentTimeMillis();
         }
         
         public int getOrderId() { return orderId; }
-        public String getCustomerName() { return customerName; }
-        public List<String> getProducts() { return products; }
-        public double getTotalAmount() { return totalAmount; }
+        public String getCustomerName() { return customerDictionary.lookup(customerId); }
+        public int getCustomerId() { return customerId; }
+        public int getProductCount() { return productIds.length; }
+        public int getProductId(int index) { return productIds[index]; }
+        
+        /**
+         * 商品名的只读视图，按需从字典反查；热点路径应使用getProductId
+         */
+        public List<String> getProducts() {
+            return new AbstractList<String>() {
+                @Override
+                public String get(int index) {
+                    return skuDictionary.lookup(productIds[index]);
+                }
+                
+                @Override
+                public int size() {
+                    return productIds.length;
+                }
+            };
+        }
+        public long getTotalAmountCents() { return totalAmountCents; }
         public OrderStatus getStatus() { return status; }
-        public void setStatus(OrderStatus status) { this.status = status; }
+        
+        /**
+         * 状态机转换：仅当当前状态为expected且转换表允许时改为target，同步维护状态计数器
+         * 启用订单日志时，成功的转换按刷盘策略写入日志后才返回
+         * 失败时不做任何修改，调用方可据此判断订单已被其他阶段推进或取消，重试是安全的
+         * @return 转换成功返回true
+         */
+        public boolean compareAndSetStatus(OrderStatus expected, OrderStatus target) {
+            if (!expected.canTransitionTo(target) || !STATUS_UPDATER.compareAndSet(this, expected, target)) {
+                return false;
+            }
+            orderStatusCounters.onTransition(expected, target);
+            if (target == OrderStatus.PAID) {
+                revenueLedger.recordPayment(this);
+                recordHeavyHitters(this);
+            } else if (target == OrderStatus.CANCELLED && expected.isPaid()) {
+                revenueLedger.recordRefund(this);
+            }
+            if (orderJournal != null) {
+                orderJournal.logTransition(this, expected, target);
+            }
+            return true;
+        }
+        
+        /**
+         * 从当前状态（无论是哪个）转换到target，例如取消订单
+         * @return 转换成功返回true；当前状态不允许转到target时返回false
+         */
+        public boolean transitionTo(OrderStatus target) {
+            while (true) {
+                OrderStatus current = status;
+                if (!current.canTransitionTo(target)) {
+                    return false;
+                }
+                if (compareAndSetStatus(current, target)) {
+                    return true;
+                }
+            }
+        }
+        
         public long getStartTime() { return startTime; }
         public void setStartTime(long startTime) { this.startTime = startTime; }
         public long getEndTime() { return endTime; }
         public void setEndTime(long endTime) { this.endTime = endTime; }
         
+        /**
+         * 设置截止时间：从现在起timeout之后，到达时在timer上执行onExpiry（通常是取消订单）
+         * 订单处理结束（finish）时定时器随之取消
+         */
+        public void armDeadline(long timeout, TimeUnit unit, ScheduledExecutorService timer, Runnable onExpiry) {
+            deadlineNanos = System.nanoTime() + unit.toNanos(timeout);
+            hasDeadline = true;
+            Future<?> expiry = timer.schedule(onExpiry, timeout, unit);
+            synchronized (this) {
+                if (!finished) {
+                    deadlineTimer = expiry;
+                    return;
+                }
+            }
+            expiry.cancel(false);
+        }
+        
+        public boolean hasDeadline() { return hasDeadline; }
+        public boolean isTimedOut() { return timedOut; }
+        
+        /**
+         * 距截止时间还剩多少纳秒，已过期为0，未设置截止时间为Long.MAX_VALUE
+         */
+        public long remainingNanos() {
+            return hasDeadline ? Math.max(0, deadlineNanos - System.nanoTime()) : Long.MAX_VALUE;
+        }
+        
+        public boolean isExpired() {
+            return hasDeadline && deadlineNanos - System.nanoTime() <= 0;
+        }
+        
+        /**
+         * 模拟耗时操作，但最多睡到截止时间为止，不让一个慢步骤拖过订单的时间预算
+         * @return 睡满millis返回true；截止时间先到返回false
+         */
+        public boolean sleepBeforeDeadline(long millis) throws InterruptedException {
+            long requested = TimeUnit.MILLISECONDS.toNanos(millis);
+            long remaining = remainingNanos();
+            if (requested <= remaining) {
+                TimeUnit.NANOSECONDS.sleep(requested);
+                return true;
+            }
+            TimeUnit.NANOSECONDS.sleep(remaining);
+            return false;
+        }
+        
+        /**
+         * 登记一个属于本订单的子任务（支付步骤、通知、库存更新），订单超时时它会被取消
+         * 订单已经超时则立即取消该子任务
+         */
+        public void registerSubTask(Future<?> task) {
+            synchronized (this) {
+                if (finished) {
+                    return;
+                }
+                if (!timedOut) {
+                    if (subTasks == null) {
+                        subTasks = new ArrayList<>(4);
+                    }
+                    subTasks.removeIf(Future::isDone);
+                    subTasks.add(task);
+                    return;
+                }
+            }
+            task.cancel(true);
+        }
+        
+        /**
+         * 标记订单超时；只有第一次调用、且订单尚未处理完也未被取消时成功
+         * 多个阶段和截止时间定时器可能同时发现超时，由这里保证只处理一次
+         */
+        boolean markTimedOut() {
+            synchronized (this) {
+                if (timedOut || finished || status == OrderStatus.CANCELLED) {
+                    return false;
+                }
+                timedOut = true;
+                return true;
+            }
+        }
+        
+        /**
+         * 取消全部已登记、尚未完成的子任务（在markTimedOut之后调用）
+         */
+        void cancelSubTasks() {
+            List<Future<?>> pending;
+            synchronized (this) {
+                pending = subTasks;
+                subTasks = null;
+            }
+            if (pending != null) {
+                for (Future<?> task : pending) {
+                    task.cancel(true);
+                }
+            }
+        }
+        
+        /**
+         * 订单处理结束（完成、取消或超时）：记录结束时间，停止截止时间定时器
+         */
+        public void finish() {
+            Future<?> expiry;
+            synchronized (this) {
+                finished = true;
+                expiry = deadlineTimer;
+                deadlineTimer = null;
+                subTasks = null;
+            }
+            if (expiry != null) {
+                expiry.cancel(false);
+            }
+            endTime = System.currentTimeMillis();
+        }
+        
         @Override
         public String toString() {
-            return String.format("订单#%d [%s] - %.2f元 - %s", 
-                               orderId, customerName, totalAmount, status);
+            return String.format("订单#%d [%s] - %s元 - %s", 
+                               orderId, getCustomerName(), formatCents(totalAmountCents), status);
+        }
+    }
+    
+    /**
+     * 按SKU分条带的库存锁表
+     * SKU字典编号映射到固定数量的ReentrantLock上，不同商品的订单大多落在不同条带，互不阻塞；
+     * 编号是连续的，直接取低位即可均匀分布，不需要对商品名散列
+     * 多商品订单按条带编号升序加锁，所有线程加锁顺序一致，因此不会形成循环等待（死锁）
+     */
+    static class StripedInventoryLocks {
+        private final ReentrantLock[] stripes;
+        private final int mask;
+        private final LongAdder acquisitions = new LongAdder();
+        private final LongAdder contendedAcquisitions = new LongAdder();
+        
+        public StripedInventoryLocks(int stripeCount) {
+            // 条带数取不小于stripeCount的2的幂，便于用位运算取模
+            int size = 1;
+            while (size < stripeCount) {
+                size <<= 1;
+            }
+            this.stripes = new ReentrantLock[size];
+            for (int i = 0; i < size; i++) {
+                stripes[i] = new ReentrantLock();
+            }
+            this.mask = size - 1;
+        }
+        
+        /**
+         * 计算商品所在的条带编号
+         */
+        public int stripeFor(int skuId) {
+            return skuId & mask;
+        }
+        
+        public int stripeFor(String sku) {
+            return stripeFor(skuDictionary.intern(sku));
         }
+        
+        /**
+         * 锁住订单涉及的所有条带
+         * @return 已加锁的条带编号（升序去重），解锁时原样传给unlockAll
+         */
+        public int[] lockAll(Order order) {
+            int[] indexes = new int[order.getProductCount()];
+            for (int i = 0; i < indexes.length; i++) {
+                indexes[i] = stripeFor(order.getProductId(i));
+            }
+            return lockStripes(indexes);
+        }
+        
+        /**
+         * 锁住一组商品涉及的所有条带
+         * @param skus 商品名
+         */
+        public int[] lockAll(Collection<String> skus) {
+            int[] indexes = new int[skus.size()];
+            int n = 0;
+            for (String sku : skus) {
+                indexes[n++] = stripeFor(sku);
+            }
+            return lockStripes(indexes);
+        }
+        
+        private int[] lockStripes(int[] indexes) {
+            int n = indexes.length;
+            Arrays.sort(indexes);
+            
+            // 同一条带只锁一次
+            int distinct = 0;
+            for (int i = 0; i < n; i++) {
+                if (distinct == 0 || indexes[distinct - 1] != indexes[i]) {
+                    indexes[distinct++] = indexes[i];
+                }
+            }
+            if (distinct != n) {
+                indexes = Arrays.copyOf(indexes, distinct);
+            }
+            
+            for (int index : indexes) {
+                ReentrantLock stripe = stripes[index];
+                acquisitions.increment();
+                if (!stripe.tryLock()) {
+                    contendedAcquisitions.increment();
+                    stripe.lock();
+                }
+            }
+            return indexes;
+        }
+        
+        /**
+         * 按加锁的逆序释放条带
+         */
+        public void unlockAll(int[] indexes) {
+            for (int i = indexes.length - 1; i >= 0; i--) {
+                stripes[indexes[i]].unlock();
+            }
+        }
+        
+        public int getStripeCount() { return stripes.length; }
+        public long getAcquisitions() { return acquisitions.sum(); }
+        public long getContendedAcquisitions() { return contendedAcquisitions.sum(); }
     }
     
     // ==================== 继承Thread方式的实现 ====================
@@ -129,50 +877,212 @@ public class ComprehensiveThreadDemo {
         
         @Override
         public void run() {
-            System.out.println("🛒 " + getName() + " 开始处理 " + order);
+            AsyncLog.println("🛒 " + getName() + " 开始处理 " + order);
             
             try {
                 // 步骤1: 验证订单
-                order.setStatus(OrderStatus.PROCESSING);
-                System.out.println("📋 " + getName() + " 正在验证订单...");
-                Thread.sleep(500 + (int)(Math.random() * 500));
+                if (!validateOrder(order, getName())) {
+                    return;
+                }
                 
-                // 步骤2: 检查库存（模拟资源竞争）
-                inventoryLock.lock();
-                try {
-                    System.out.println("📦 " + getName() + " 正在检查库存...");
-                    Thread.sleep(300);
-                    System.out.println("✅ " + getName() + " 库存检查完成");
-                } finally {
-                    inventoryLock.unlock();
+                // 步骤2: 检查并预留库存（模拟资源竞争），库存不足时订单已被取消
+                if (!checkInventory(order, getName())) {
+                    return;
                 }
                 
                 // 步骤3: 处理支付
-                processPayment();
+                if (!processPayment(order, getName())) {
+                    return;
+                }
                 
                 // 步骤4: 更新订单状态
-                order.setStatus(OrderStatus.SHIPPED);
-                System.out.println("📦 " + getName() + " 订单处理完成");
-                
-                totalOrdersProcessed.incrementAndGet();
+                markShipped(order, getName());
                 
             } catch (InterruptedException e) {
-                System.err.println("❌ " + getName() + " 处理被中断: " + e.getMessage());
-                order.setStatus(OrderStatus.CANCELLED);
+                AsyncLog.errPrintln("❌ " + getName() + " 处理被中断: " + e.getMessage());
+                cancelOrder(order);
                 Thread.currentThread().interrupt();
             }
         }
         
-        private void processPayment() throws InterruptedException {
-            paymentLock.lock();
+        /**
+         * 步骤1: 验证订单
+         * 订单处理线程和流水线的验证阶段共用同一实现
+         * 重复执行是安全的：订单已处于PROCESSING时视为已开始验证
+         * @return 订单可以继续处理返回true；订单已被取消或已越过验证阶段返回false
+         */
+        static boolean validateOrder(Order order, String worker) throws InterruptedException {
+            long begin = System.nanoTime();
+            FlightEvents.OrderStage event = new FlightEvents.OrderStage();
+            event.begin();
+            boolean passed = false;
+            try {
+                if (!order.compareAndSetStatus(OrderStatus.PENDING, OrderStatus.PROCESSING) &&
+                    order.getStatus() != OrderStatus.PROCESSING) {
+                    AsyncLog.println("⚠️ " + worker + " 订单#" + order.getOrderId() + " 状态为 " + order.getStatus() + "，跳过验证");
+                    return false;
+                }
+                AsyncLog.println("📋 " + worker + " 正在验证订单...");
+                passed = workBeforeDeadline(order, 500 + (int)(Math.random() * 500), "验证");
+                return passed;
+            } finally {
+                validationLatency.recordNanos(System.nanoTime() - begin);
+                commitStage(event, order, "验证", passed);
+            }
+        }
+        
+        /**
+         * 结束并提交订单阶段事件；未录制JFR时shouldCommit()为false，不做任何赋值
+         */
+        private static void commitStage(FlightEvents.OrderStage event, Order order, String stage, boolean succeeded) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.orderId = order.getOrderId();
+                event.stage = stage;
+                event.succeeded = succeeded;
+                event.commit();
+            }
+        }
+        
+        /**
+         * 结束并提交支付步骤事件
+         */
+        static void commitPaymentStep(FlightEvents.PaymentStep event, int orderId, String step, int batchSize) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.orderId = orderId;
+                event.step = step;
+                event.batchSize = batchSize;
+                event.commit();
+            }
+        }
+        
+        /**
+         * 步骤2: 检查库存（模拟资源竞争）并预留订单中的全部商品
+         * 持锁检查最多持续到截止时间，超时的订单立即释放条带锁，不拖住同条带的其他订单
+         * @return 预留成功返回true；任一商品缺货或超过截止时间时订单被取消并返回false
+         */
+        static boolean checkInventory(Order order, String worker) throws InterruptedException {
+            long begin = System.nanoTime();
+            FlightEvents.OrderStage stageEvent = new FlightEvents.OrderStage();
+            stageEvent.begin();
+            boolean inTime;
+            FlightEvents.InventoryLockWait waitEvent = new FlightEvents.InventoryLockWait();
+            waitEvent.begin();
+            int[] stripes = inventoryLocks.lockAll(order);
+            waitEvent.end();
+            FlightEvents.InventoryLockHold holdEvent = new FlightEvents.InventoryLockHold();
+            holdEvent.begin();
+            try {
+                AsyncLog.println("📦 " + worker + " 正在检查库存...");
+                inTime = workBeforeDeadline(order, 300, "库存检查");
+            } finally {
+                inventoryLocks.unlockAll(stripes);
+                holdEvent.end();
+                if (waitEvent.shouldCommit()) {
+                    waitEvent.orderId = order.getOrderId();
+                    waitEvent.stripeCount = stripes.length;
+                    waitEvent.commit();
+                }
+                if (holdEvent.shouldCommit()) {
+                    holdEvent.orderId = order.getOrderId();
+                    holdEvent.stripeCount = stripes.length;
+                    holdEvent.commit();
+                }
+            }
+            if (!inTime) {
+                inventoryLatency.recordNanos(System.nanoTime() - begin);
+                commitStage(stageEvent, order, "库存检查", false);
+                return false;
+            }
+            
+            StockReservationEngine.ReservationResult result = stockEngine.reserve(order);
+            inventoryLatency.recordNanos(System.nanoTime() - begin);
+            boolean reserved = result.isReserved() && order.getStatus() != OrderStatus.CANCELLED;
+            commitStage(stageEvent, order, "库存检查", reserved);
+            if (!result.isReserved()) {
+                AsyncLog.println("❌ " + worker + " 库存不足: " + result.getOutOfStockSku() + "，订单取消");
+                cancelOrder(order);
+                return false;
+            }
+            if (order.getStatus() == OrderStatus.CANCELLED) {
+                // 预留期间订单被截止时间定时器取消，取消时还没有预留可归还，这里补上
+                stockEngine.release(order);
+                return false;
+            }
+            AsyncLog.println("✅ " + worker + " 库存检查完成，已预留");
+            return true;
+        }
+        
+        /**
+         * 步骤3: 处理支付 - 持全局支付锁逐单扣款，用于没有批量提交器的基线模式；
+         * 流水线、工作流和虚拟线程模式只由PaymentBatcher扣款，不调用本方法
+         * 扣款期间订单可能被取消，此时PROCESSING→PAID的CAS失败，支付作废而不会覆盖CANCELLED
+         * @return 订单转为PAID返回true
+         */
+        static boolean processPayment(Order order, String worker) throws InterruptedException {
+            long begin = System.nanoTime();
+            FlightEvents.OrderStage stageEvent = new FlightEvents.OrderStage();
+            stageEvent.begin();
+            // 支付锁是全局的，排队等锁也不能超过订单的截止时间
+            FlightEvents.PaymentStep lockEvent = new FlightEvents.PaymentStep();
+            lockEvent.begin();
+            boolean locked = paymentLock.tryLock(order.remainingNanos(), TimeUnit.NANOSECONDS);
+            commitPaymentStep(lockEvent, order.getOrderId(), "等待支付锁", 1);
+            if (!locked) {
+                expireOrder(order, "等待支付锁");
+                paymentLatency.recordNanos(System.nanoTime() - begin);
+                commitStage(stageEvent, order, "支付", false);
+                return false;
+            }
+            boolean paid = false;
             try {
-                System.out.println("💳 " + getName() + " 正在处理支付...");
-                Thread.sleep(400 + (int)(Math.random() * 600));
-                order.setStatus(OrderStatus.PAID);
-                System.out.println("💰 " + getName() + " 支付处理完成: " + order.getTotalAmount() + "元");
+                try {
+                    if (order.getStatus() != OrderStatus.PROCESSING) {
+                        AsyncLog.println("⚠️ " + worker + " 订单#" + order.getOrderId() + " 状态为 " + order.getStatus() + "，跳过支付");
+                        return false;
+                    }
+                    AsyncLog.println("💳 " + worker + " 正在处理支付...");
+                    FlightEvents.PaymentStep chargeEvent = new FlightEvents.PaymentStep();
+                    chargeEvent.begin();
+                    boolean charged = workBeforeDeadline(order, 400 + (int)(Math.random() * 600), "支付");
+                    commitPaymentStep(chargeEvent, order.getOrderId(), "执行扣款", 1);
+                    if (!charged) {
+                        return false;
+                    }
+                } finally {
+                    paymentLock.unlock();
+                }
+                // 释放支付锁之后再转换状态：启用日志时转换要等日志刷盘，持锁等待会让其他订单的支付排队，组提交也无法合并
+                if (!order.compareAndSetStatus(OrderStatus.PROCESSING, OrderStatus.PAID)) {
+                    AsyncLog.println("↩️ " + worker + " 订单#" + order.getOrderId() + " 已变为 " + order.getStatus() + "，本次支付作废");
+                    return false;
+                }
+                AsyncLog.println("💰 " + worker + " 支付处理完成: " + formatCents(order.getTotalAmountCents()) + "元");
+                paid = true;
+                return true;
             } finally {
-                paymentLock.unlock();
+                paymentLatency.recordNanos(System.nanoTime() - begin);
+                commitStage(stageEvent, order, "支付", paid);
+            }
+        }
+        
+        /**
+         * 步骤4: 更新订单状态为已发货，只有PAID且未超过截止时间的订单可以发货
+         * @return 转为SHIPPED返回true
+         */
+        static boolean markShipped(Order order, String worker) {
+            if (order.isExpired() && expireOrder(order, "发货")) {
+                return false;
+            }
+            if (!order.compareAndSetStatus(OrderStatus.PAID, OrderStatus.SHIPPED)) {
+                AsyncLog.println("⚠️ " + worker + " 订单#" + order.getOrderId() + " 状态为 " + order.getStatus() + "，无法发货");
+                return false;
             }
+            AsyncLog.println("📦 " + worker + " 订单处理完成");
+            
+            totalOrdersProcessed.incrementAndGet();
+            return true;
         }
     }
     
@@ -194,27 +1104,39 @@ public class ComprehensiveThreadDemo {
         @Override
         public void run() {
             try {
-                System.out.println("💳 支付处理开始: 订单#" + order.getOrderId());
+                AsyncLog.println("💳 支付处理开始: 订单#" + order.getOrderId());
                 
                 // 模拟支付流程
                 String[] paymentSteps = {"验证用户", "检查余额", "执行扣款", "更新账户", "生成支付凭证"};
                 
                 for (int i = 0; i < paymentSteps.length; i++) {
-                    System.out.println("  📝 支付步骤 " + (i+1) + ": " + paymentSteps[i]);
-                    Thread.sleep(200 + (int)(Math.random() * 300));
+                    AsyncLog.println("  📝 支付步骤 " + (i+1) + ": " + paymentSteps[i]);
+                    // 超过截止时间后剩余的支付步骤不再执行
+                    FlightEvents.PaymentStep stepEvent = new FlightEvents.PaymentStep();
+                    stepEvent.begin();
+                    boolean inTime = workBeforeDeadline(order, 200 + (int)(Math.random() * 300), "支付步骤 " + (i+1));
+                    OrderProcessorThread.commitPaymentStep(stepEvent, order.getOrderId(), paymentSteps[i], 1);
+                    if (!inTime) {
+                        return;
+                    }
                     
                     // 显示进度
                     int progress = (i + 1) * 100 / paymentSteps.length;
                     if ((i + 1) % 2 == 0 || i == paymentSteps.length - 1) {
-                        System.out.println("    📊 支付进度: " + progress + "%");
+                        AsyncLog.println("    📊 支付进度: " + progress + "%");
                     }
                 }
                 
                 totalPaymentsProcessed.incrementAndGet();
-                System.out.println("✅ 支付处理完成: 订单#" + order.getOrderId());
+                AsyncLog.println("✅ 支付处理完成: 订单#" + order.getOrderId());
                 
             } catch (InterruptedException e) {
-                System.err.println("❌ 支付处理被中断: 订单#" + order.getOrderId());
+                // 订单超时时登记的支付任务被cancel(true)中断
+                if (order.isTimedOut()) {
+                    AsyncLog.println("⏰ 支付处理已停止: 订单#" + order.getOrderId() + " 超过截止时间");
+                } else {
+                    AsyncLog.errPrintln("❌ 支付处理被中断: 订单#" + order.getOrderId());
+                }
                 Thread.currentThread().interrupt();
             } finally {
                 if (completionLatch != null) {
@@ -225,10 +1147,268 @@ public class ComprehensiveThreadDemo {
     }
     
     /**
-     * 通知服务线程 - 实现Runnable方式
-     * 展示匿名内部类和Lambda表达式的使用
+     * 支付批量提交器 - 组提交（group commit）
+     * 待支付订单先进入队列，由单个提交线程凑满maxBatchSize笔或等满maxWait后一次性结算
+     * 支付网关按往返次数计费，N笔支付只付出一次往返的代价
+     * 扣款只在这里进行：批次结算成功后订单才由PROCESSING转为PAID，提交前不需要支付锁
+     * 每笔支付返回一个future，所在批次结算完成时完成
      */
-    static class NotificationServiceRunnable implements Runnable {
+    static class PaymentBatcher {
+        
+        /**
+         * 支付网关 - 一次调用结算一整批订单
+         */
+        interface PaymentGateway {
+            void settle(List<Order> batch) throws InterruptedException;
+            
+            /**
+             * 退还已扣款、但结算期间被取消的订单；模拟网关不需要做任何事
+             */
+            default void refund(List<Order> orders) throws InterruptedException {
+            }
+        }
+        
+        private static final class PendingPayment {
+            final Order order;
+            final CompletableFuture<Order> future = new CompletableFuture<>();
+            final long enqueueNanos = System.nanoTime();
+            final FlightEvents.OrderStage stageEvent = new FlightEvents.OrderStage();
+            
+            PendingPayment(Order order) {
+                this.order = order;
+                stageEvent.begin();
+            }
+        }
+        
+        private final int maxBatchSize;
+        private final long maxWaitNanos;
+        private final PaymentGateway gateway;
+        private final BlockingQueue<PendingPayment> queue = new LinkedBlockingQueue<>();
+        private final Thread flusher;
+        private volatile boolean running = true;
+        
+        // 批次统计
+        private final LongAdder batchCount = new LongAdder();
+        private final LongAdder paymentCount = new LongAdder();
+        private final LongAdder voidedCount = new LongAdder();
+        private final AtomicInteger maxBatchObserved = new AtomicInteger(0);
+        private final LongAdder totalBatchLatencyNanos = new LongAdder();
+        private final AtomicLong maxBatchLatencyNanos = new AtomicLong(0);
+        private final LongAdder totalSettleNanos = new LongAdder();
+        
+        public PaymentBatcher(int maxBatchSize, long maxWait, TimeUnit unit, PaymentGateway gateway) {
+            this.maxBatchSize = maxBatchSize;
+            this.maxWaitNanos = unit.toNanos(maxWait);
+            this.gateway = gateway;
+            this.flusher = new Thread(this::flushLoop, "PaymentBatcher-Flusher");
+            this.flusher.setDaemon(true);
+            this.flusher.start();
+        }
+        
+        /**
+         * 提交一笔PROCESSING状态的支付，返回的future在所在批次结算完成时完成，此时订单已转为PAID；
+         * 结算期间订单被取消时支付作废，future仍然完成，订单保持CANCELLED
+         * future登记为订单的子任务：订单在结算前超时则future被取消，这笔支付不再进入批次
+         */
+        public CompletableFuture<Order> submit(Order order) {
+            PendingPayment pending = new PendingPayment(order);
+            order.registerSubTask(pending.future);
+            if (!running) {
+                pending.future.completeExceptionally(new RejectedExecutionException("支付批量提交器已关闭"));
+                return pending.future;
+            }
+            queue.add(pending);
+            return pending.future;
+        }
+        
+        private void flushLoop() {
+            List<PendingPayment> batch = new ArrayList<>(maxBatchSize);
+            try {
+                while (running || !queue.isEmpty()) {
+                    PendingPayment first = queue.poll(100, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    
+                    // 从第一笔到达开始计时，凑满一批或超时即提交
+                    long deadline = first.enqueueNanos + maxWaitNanos;
+                    while (batch.size() < maxBatchSize) {
+                        queue.drainTo(batch, maxBatchSize - batch.size());
+                        long remaining = deadline - System.nanoTime();
+                        if (batch.size() >= maxBatchSize || remaining <= 0) {
+                            break;
+                        }
+                        PendingPayment next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                        if (next == null) {
+                            break;
+                        }
+                        batch.add(next);
+                    }
+                    
+                    settle(batch);
+                    batch.clear();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                // 被中断时未结算的支付全部失败
+                queue.drainTo(batch);
+                for (PendingPayment pending : batch) {
+                    pending.future.completeExceptionally(new CancellationException("支付批量提交器已停止"));
+                }
+            }
+        }
+        
+        private void settle(List<PendingPayment> batch) throws InterruptedException {
+            // 排队期间订单超时、future已被取消的支付不再结算
+            for (Iterator<PendingPayment> it = batch.iterator(); it.hasNext(); ) {
+                PendingPayment pending = it.next();
+                if (pending.future.isDone()) {
+                    OrderProcessorThread.commitStage(pending.stageEvent, pending.order, "支付", false);
+                    it.remove();
+                }
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            List<Order> orders = new ArrayList<>(batch.size());
+            for (PendingPayment pending : batch) {
+                orders.add(pending.order);
+            }
+            
+            long settleStart = System.nanoTime();
+            try {
+                gateway.settle(orders);
+            } catch (InterruptedException e) {
+                throw e;
+            } catch (RuntimeException e) {
+                for (PendingPayment pending : batch) {
+                    OrderProcessorThread.commitStage(pending.stageEvent, pending.order, "支付", false);
+                    pending.future.completeExceptionally(e);
+                }
+                return;
+            }
+            long committed = System.nanoTime();
+            
+            // 网关调用期间订单可能超时或被取消，此时PROCESSING→PAID失败：这笔支付作废并退款，不计入统计
+            int paid = 0;
+            List<Order> voided = new ArrayList<>();
+            for (PendingPayment pending : batch) {
+                boolean settled = pending.order.compareAndSetStatus(OrderStatus.PROCESSING, OrderStatus.PAID);
+                paymentLatency.recordNanos(committed - pending.enqueueNanos);
+                OrderProcessorThread.commitStage(pending.stageEvent, pending.order, "支付", settled);
+                if (settled) {
+                    paid++;
+                } else {
+                    voided.add(pending.order);
+                }
+            }
+            if (!voided.isEmpty()) {
+                voidedCount.add(voided.size());
+                gateway.refund(voided);
+                AsyncLog.println("↩️ 结算期间已取消的订单支付作废并退款: " +
+                                 voided.stream().map(o -> "#" + o.getOrderId()).collect(Collectors.joining(",")));
+            }
+            
+            totalSettleNanos.add(committed - settleStart);
+            batchCount.increment();
+            paymentCount.add(paid);
+            maxBatchObserved.accumulateAndGet(batch.size(), Math::max);
+            long batchLatency = committed - batch.get(0).enqueueNanos;
+            totalBatchLatencyNanos.add(batchLatency);
+            maxBatchLatencyNanos.accumulateAndGet(batchLatency, Math::max);
+            totalPaymentsProcessed.addAndGet(paid);
+            
+            for (PendingPayment pending : batch) {
+                pending.future.complete(pending.order);
+            }
+        }
+        
+        public long getBatchCount() { return batchCount.sum(); }
+        public long getPaymentCount() { return paymentCount.sum(); }
+        
+        /**
+         * 网关已扣款、但结算完成前订单被取消而作废退款的支付数
+         */
+        public long getVoidedCount() { return voidedCount.sum(); }
+        public int getMaxBatchSize() { return maxBatchObserved.get(); }
+        
+        public double getAverageBatchSize() {
+            long batches = batchCount.sum();
+            return batches > 0 ? (double) paymentCount.sum() / batches : 0;
+        }
+        
+        /**
+         * 平均批次延迟：批内第一笔入队到整批结算完成（毫秒）
+         */
+        public double getAverageBatchLatencyMillis() {
+            long batches = batchCount.sum();
+            return batches > 0 ? totalBatchLatencyNanos.sum() / 1_000_000.0 / batches : 0;
+        }
+        
+        public double getMaxBatchLatencyMillis() {
+            return maxBatchLatencyNanos.get() / 1_000_000.0;
+        }
+        
+        /**
+         * 平均每次网关调用耗时（毫秒）
+         */
+        public double getAverageSettleMillis() {
+            long batches = batchCount.sum();
+            return batches > 0 ? totalSettleNanos.sum() / 1_000_000.0 / batches : 0;
+        }
+        
+        public void printStats() {
+            AsyncLog.println("💳 支付批量提交统计 (最大批量 " + maxBatchSize + "，最长等待 " +
+                             TimeUnit.NANOSECONDS.toMillis(maxWaitNanos) + "ms):");
+            AsyncLog.println("  批次数 " + getBatchCount() + " | 支付数 " + getPaymentCount() +
+                             " | 作废 " + getVoidedCount() +
+                             " | 平均批量 " + String.format("%.2f", getAverageBatchSize()) +
+                             " | 最大批量 " + getMaxBatchSize());
+            AsyncLog.println("  平均批次延迟 " + String.format("%.1f", getAverageBatchLatencyMillis()) + "ms" +
+                             " | 最大批次延迟 " + String.format("%.1f", getMaxBatchLatencyMillis()) + "ms" +
+                             " | 平均网关调用 " + String.format("%.1f", getAverageSettleMillis()) + "ms");
+        }
+        
+        /**
+         * 停止接收新支付，结算完队列中剩余的支付后退出
+         */
+        public void shutdown() {
+            running = false;
+            try {
+                flusher.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            flusher.interrupt();
+        }
+        
+        /**
+         * 演示用网关：一次往返走完五个支付步骤，耗时与批量大小基本无关
+         */
+        static PaymentGateway simulatedGateway() {
+            return batch -> {
+                AsyncLog.println("💳 批量结算开始: " + batch.size() + " 笔订单 " +
+                                 batch.stream().map(o -> "#" + o.getOrderId()).collect(Collectors.joining(",")));
+                String[] paymentSteps = {"验证用户", "检查余额", "执行扣款", "更新账户", "生成支付凭证"};
+                for (int i = 0; i < paymentSteps.length; i++) {
+                    AsyncLog.println("  📝 批量支付步骤 " + (i + 1) + ": " + paymentSteps[i]);
+                    FlightEvents.PaymentStep stepEvent = new FlightEvents.PaymentStep();
+                    stepEvent.begin();
+                    Thread.sleep(60 + (int)(Math.random() * 40));
+                    OrderProcessorThread.commitPaymentStep(stepEvent, batch.get(0).getOrderId(), paymentSteps[i], batch.size());
+                }
+                AsyncLog.println("✅ 批量结算完成: " + batch.size() + " 笔");
+            };
+        }
+    }
+    
+    /**
+     * 通知服务线程 - 实现Runnable方式
+     * 展示匿名内部类和Lambda表达式的使用
+     */
+    static class NotificationServiceRunnable implements Runnable {
         private final Order order;
         private final String notificationType;
         
@@ -240,10 +1420,10 @@ public class ComprehensiveThreadDemo {
         @Override
         public void run() {
             try {
-                System.out.println("📧 " + notificationType + " 发送开始: " + order.getCustomerName());
+                AsyncLog.println("📧 " + notificationType + " 发送开始: " + order.getCustomerName());
                 
                 // 模拟发送通知
-                Thread.sleep(300 + (int)(Math.random() * 400));
+                notifyStep(order, 300 + (int)(Math.random() * 400));
                 
                 // 根据通知类型模拟不同的发送效果
                 switch (notificationType) {
@@ -258,37 +1438,36 @@ public class ComprehensiveThreadDemo {
                         break;
                 }
                 
-                totalNotificationsSent.incrementAndGet();
-                System.out.println("✅ " + notificationType + " 发送完成: " + order.getCustomerName());
+                AsyncLog.println("✅ " + notificationType + " 发送完成: " + order.getCustomerName());
                 
             } catch (InterruptedException e) {
-                System.err.println("❌ " + notificationType + " 发送被中断");
+                AsyncLog.errPrintln("❌ " + notificationType + " 发送被中断");
                 Thread.currentThread().interrupt();
             }
         }
         
         private void simulateEmailSending() throws InterruptedException {
-            System.out.println("    📧 正在连接邮件服务器...");
-            Thread.sleep(100);
-            System.out.println("    📨 正在发送邮件内容...");
-            Thread.sleep(150);
-            System.out.println("    ✅ 邮件发送成功");
+            AsyncLog.println("    📧 正在连接邮件服务器...");
+            notifyStep(order, 100);
+            AsyncLog.println("    📨 正在发送邮件内容...");
+            notifyStep(order, 150);
+            AsyncLog.println("    ✅ 邮件发送成功");
         }
         
         private void simulateSMS() throws InterruptedException {
-            System.out.println("    📱 正在连接短信网关...");
-            Thread.sleep(80);
-            System.out.println("    📲 正在发送短信内容...");
-            Thread.sleep(120);
-            System.out.println("    ✅ 短信发送成功");
+            AsyncLog.println("    📱 正在连接短信网关...");
+            notifyStep(order, 80);
+            AsyncLog.println("    📲 正在发送短信内容...");
+            notifyStep(order, 120);
+            AsyncLog.println("    ✅ 短信发送成功");
         }
         
         private void simulatePushNotification() throws InterruptedException {
-            System.out.println("    🔔 正在连接推送服务器...");
-            Thread.sleep(60);
-            System.out.println("    📡 正在发送推送消息...");
-            Thread.sleep(100);
-            System.out.println("    ✅ 推送消息发送成功");
+            AsyncLog.println("    🔔 正在连接推送服务器...");
+            notifyStep(order, 60);
+            AsyncLog.println("    📡 正在发送推送消息...");
+            notifyStep(order, 100);
+            AsyncLog.println("    ✅ 推送消息发送成功");
         }
     }
     
@@ -299,38 +1478,175 @@ public class ComprehensiveThreadDemo {
      * 展示线程池在批量任务处理中的优势
      */
     static class InventoryManagementService {
-        private final ThreadPoolExecutor inventoryPool;
+        // 被限流拒绝后的重试：第n次重试前等待 n × 20ms，最多重试20次
+        private static final int MAX_DEFER_ATTEMPTS = 20;
+        private static final long DEFER_BASE_MILLIS = 20;
+        
+        private final InstrumentedThreadPool inventoryPool;
+        private final StockReservationEngine stockEngine;
+        private final AdaptiveConcurrencyLimiter limiter;
+        private final ScheduledExecutorService retryScheduler;
+        private final AtomicInteger pendingUpdates = new AtomicInteger(0);
+        private final LongAdder deferredUpdates = new LongAdder();
+        private final LongAdder failedUpdates = new LongAdder();
         
         public InventoryManagementService() {
-            inventoryPool = new ThreadPoolExecutor(
+            this(ComprehensiveThreadDemo.stockEngine, inventoryLimiter);
+        }
+        
+        public InventoryManagementService(StockReservationEngine stockEngine) {
+            this(stockEngine, inventoryLimiter);
+        }
+        
+        public InventoryManagementService(StockReservationEngine stockEngine, AdaptiveConcurrencyLimiter limiter) {
+            this.stockEngine = stockEngine;
+            this.limiter = limiter;
+            // 在途任务数由limiter限制在线程数+队列容量以内，线程池本身不会饱和；
+            // 仍改用AbortPolicy兜底，避免库存更新悄悄回到调用方线程上执行
+            inventoryPool = new InstrumentedThreadPool("inventory",
                 2, 4, 60L, TimeUnit.SECONDS,
                 new LinkedBlockingQueue<>(100),
                 r -> new Thread(r, "InventoryPool-Worker"),
-                new ThreadPoolExecutor.CallerRunsPolicy()
+                new ThreadPoolExecutor.AbortPolicy()
             );
+            retryScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "InventoryRetry");
+                thread.setDaemon(true);
+                return thread;
+            });
         }
         
         public void processInventoryUpdate(Order order) {
-            inventoryPool.submit(() -> {
-                try {
-                    System.out.println("📦 库存更新开始: 订单#" + order.getOrderId());
-                    
-                    // 模拟库存检查和更新
-                    for (String product : order.getProducts()) {
-                        System.out.println("  📋 检查库存: " + product);
-                        Thread.sleep(200);
-                        System.out.println("  ✅ " + product + " 库存充足");
-                    }
-                    
-                    System.out.println("✅ 库存更新完成: 订单#" + order.getOrderId());
-                    
-                } catch (InterruptedException e) {
-                    System.err.println("❌ 库存更新被中断");
+            updateInventoryAsync(order).whenComplete((ignored, error) -> {
+                if (error != null && !order.isTimedOut()) {
+                    AsyncLog.errPrintln("❌ 订单#" + order.getOrderId() + " 库存更新失败: " + error);
                 }
             });
         }
         
+        /**
+         * 经过自适应限流后在inventoryPool上异步执行库存更新
+         * 超过当前并发上限时立即返回，稍后重试；调用线程永远不会被阻塞或借去执行库存更新
+         * 返回的future登记为订单的子任务，订单超时时被取消，尚未执行的更新和重试随之放弃
+         * @return 库存更新完成时完成的future；多次重试仍被拒绝时以RejectedExecutionException失败
+         */
+        public CompletableFuture<Void> updateInventoryAsync(Order order) {
+            CompletableFuture<Void> result = new CompletableFuture<>();
+            pendingUpdates.incrementAndGet();
+            result.whenComplete((ignored, error) -> pendingUpdates.decrementAndGet());
+            order.registerSubTask(result);
+            submitLimited(order, result, 0);
+            return result;
+        }
+        
+        private void submitLimited(Order order, CompletableFuture<Void> result, int attempt) {
+            if (result.isDone()) {
+                return;  // 已被取消（订单超时），不再占用并发额度
+            }
+            if (!limiter.tryAcquire()) {
+                defer(order, result, attempt);
+                return;
+            }
+            long startNanos = System.nanoTime();
+            try {
+                inventoryPool.execute(() -> {
+                    boolean succeeded = false;
+                    try {
+                        updateInventory(order);
+                        succeeded = true;
+                        result.complete(null);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        result.completeExceptionally(new CompletionException(e));
+                    } catch (RuntimeException e) {
+                        result.completeExceptionally(e);
+                    } finally {
+                        limiter.release(startNanos, succeeded);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                limiter.release(startNanos, false);
+                defer(order, result, attempt);
+            }
+        }
+        
+        private void defer(Order order, CompletableFuture<Void> result, int attempt) {
+            if (attempt >= MAX_DEFER_ATTEMPTS) {
+                failedUpdates.increment();
+                result.completeExceptionally(new RejectedExecutionException(
+                    "库存更新被限流拒绝: 订单#" + order.getOrderId()));
+                return;
+            }
+            deferredUpdates.increment();
+            retryScheduler.schedule(() -> submitLimited(order, result, attempt + 1),
+                                    DEFER_BASE_MILLIS * (attempt + 1), TimeUnit.MILLISECONDS);
+        }
+        
+        /**
+         * 在调用线程上同步执行库存更新
+         * 流水线的库存更新阶段已有自己的工作线程，直接调用此方法而不再经过inventoryPool
+         * 未经过库存检查的订单在这里补做预留，随后把预留确认为实际出库
+         * 已取消或已超过截止时间的订单不出库
+         */
+        public void updateInventory(Order order) throws InterruptedException {
+            if (order.isExpired()) {
+                expireOrder(order, "库存更新");
+            }
+            if (order.getStatus() == OrderStatus.CANCELLED) {
+                AsyncLog.println("⚠️ 订单#" + order.getOrderId() + " 已取消，跳过库存更新");
+                return;
+            }
+            AsyncLog.println("📦 库存更新开始: 订单#" + order.getOrderId());
+            
+            if (!stockEngine.isReserved(order)) {
+                StockReservationEngine.ReservationResult result = stockEngine.reserve(order);
+                if (!result.isReserved()) {
+                    AsyncLog.println("  ❌ " + result.getOutOfStockSku() + " 库存不足，订单#" + order.getOrderId() + " 取消");
+                    cancelOrder(order);
+                    return;
+                }
+            }
+            stockEngine.commit(order);
+            
+            for (int i = 0; i < order.getProductCount(); i++) {
+                int skuId = order.getProductId(i);
+                AsyncLog.println("  ✅ " + skuDictionary.lookup(skuId) + " 已出库，剩余库存 " + stockEngine.getAvailable(skuId));
+            }
+            
+            AsyncLog.println("✅ 库存更新完成: 订单#" + order.getOrderId());
+        }
+        
+        public long getDeferredCount() { return deferredUpdates.sum(); }
+        public long getFailedCount() { return failedUpdates.sum(); }
+        public AdaptiveConcurrencyLimiter getLimiter() { return limiter; }
+        
+        /**
+         * 登记库存更新计数、限流器状态和库存线程池
+         */
+        public void registerMetrics(MetricsServer metrics) {
+            metrics.gauge("inventory_pending_updates", "已提交未完成（含等待重试）的库存更新数", () -> (long) pendingUpdates.get());
+            metrics.counter("inventory_deferred_updates_total", "被限流推迟重试的库存更新次数", deferredUpdates::sum);
+            metrics.counter("inventory_failed_updates_total", "多次重试仍被拒绝的库存更新数", failedUpdates::sum);
+            metrics.gauge("inventory_limiter_limit", "库存更新当前并发上限", () -> (long) limiter.getLimit());
+            metrics.gauge("inventory_limiter_in_flight", "正在执行的库存更新数", () -> (long) limiter.getInFlight());
+            metrics.counter("inventory_limiter_accepted_total", "限流器放行次数", limiter::getAcceptedCount);
+            metrics.counter("inventory_limiter_rejected_total", "限流器拒绝次数", limiter::getRejectedCount);
+            metrics.threadPool(inventoryPool);
+        }
+        
+        /**
+         * 等待已提交（包括正在等待重试）的库存更新全部完成后关闭线程池
+         */
         public void shutdown() {
+            long deadline = System.currentTimeMillis() + 30_000;
+            try {
+                while (pendingUpdates.get() > 0 && System.currentTimeMillis() < deadline) {
+                    Thread.sleep(10);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            retryScheduler.shutdownNow();
             inventoryPool.shutdown();
             try {
                 inventoryPool.awaitTermination(30, TimeUnit.SECONDS);
@@ -341,103 +1657,1744 @@ public class ComprehensiveThreadDemo {
     }
     
     /**
-     * 日志记录服务 - 线程池方式
-     * 展示线程池处理日志和监控任务
+     * 自适应并发限制器 - 基于延迟的AIMD（加性增、乘性减）
+     * 
+     * 1. 在途请求数达到当前上限时tryAcquire立即返回false，由调用方决定拒绝还是稍后重试
+     * 2. 每个请求完成时比较其延迟与观测到的最小延迟：
+     *    - 超过 最小延迟 × 2 + 1ms，或请求失败 → 上限 × 0.9（排队已经开始累积）
+     *    - 否则，若上限已被用满一半以上 → 上限 + 1/上限（大约每完成"上限"个请求加1）
+     * 3. 一次降低之前就已开始的请求不再触发降低，避免同一波排队把上限连续压到最低
+     * 4. 最小延迟每1000个样本重新测量一次，允许基线随负载变化漂移
+     * 
+     * 上限以千分之一为单位存放在AtomicLong中，全部更新都是CAS，没有锁
      */
-    static class LoggingService {
-        private final ScheduledExecutorService scheduledLogger = 
-            Executors.newScheduledThreadPool(1);
+    static final class AdaptiveConcurrencyLimiter {
+        private static final double LATENCY_TOLERANCE = 2.0;
+        private static final long LATENCY_SLACK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+        private static final double BACKOFF_RATIO = 0.9;
+        private static final int MIN_LATENCY_WINDOW = 1000;
+        private static final long SCALE = 1000;
         
-        public void startPerformanceLogging() {
-            // 每3秒记录一次系统性能
-            scheduledLogger.scheduleAtFixedRate(this::logSystemPerformance, 3, 3, TimeUnit.SECONDS);
+        private final int minLimit;
+        private final int maxLimit;
+        private final AtomicLong scaledLimit;
+        private final AtomicInteger inFlight = new AtomicInteger(0);
+        private final AtomicLong minLatencyNanos = new AtomicLong(Long.MAX_VALUE);
+        private final AtomicLong samplesInWindow = new AtomicLong(0);
+        private volatile long lastDecreaseNanos = System.nanoTime();
+        
+        private final LongAdder accepted = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder increases = new LongAdder();
+        private final LongAdder decreases = new LongAdder();
+        
+        public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit) {
+            this.minLimit = minLimit;
+            this.maxLimit = maxLimit;
+            this.scaledLimit = new AtomicLong(Math.max(minLimit, Math.min(maxLimit, initialLimit)) * SCALE);
         }
         
-        private void logSystemPerformance() {
-            long currentTime = System.currentTimeMillis();
-            long runningTime = (currentTime - systemStartTime.get()) / 1000;
+        /**
+         * 尝试占用一个并发名额
+         * @return 未超过当前上限返回true，调用方完成后必须调用release
+         */
+        public boolean tryAcquire() {
+            while (true) {
+                int current = inFlight.get();
+                if (current >= getLimit()) {
+                    rejected.increment();
+                    return false;
+                }
+                if (inFlight.compareAndSet(current, current + 1)) {
+                    accepted.increment();
+                    return true;
+                }
+            }
+        }
+        
+        /**
+         * 归还名额并用本次请求的延迟调整上限
+         * @param startNanos tryAcquire成功时记录的System.nanoTime()
+         * @param succeeded 请求是否成功完成
+         */
+        public void release(long startNanos, boolean succeeded) {
+            int inFlightBefore = inFlight.getAndDecrement();
+            long now = System.nanoTime();
+            long latency = now - startNanos;
             
-            System.out.println("\n📊 === 系统性能日志 (运行" + runningTime + "秒) ===");
-            System.out.println("  🛒 总订单处理数: " + totalOrdersProcessed.get());
-            System.out.println("  💳 总支付处理数: " + totalPaymentsProcessed.get());
-            System.out.println("  📧 总通知发送数: " + totalNotificationsSent.get());
-            System.out.println("  ⏱️ 系统运行时间: " + runningTime + "秒");
-            System.out.println("  📈 平均每秒处理订单: " + 
-                             (runningTime > 0 ? totalOrdersProcessed.get() / runningTime : 0));
-            System.out.println("================================================\n");
+            if (samplesInWindow.incrementAndGet() % MIN_LATENCY_WINDOW == 0) {
+                minLatencyNanos.set(latency);
+            } else {
+                minLatencyNanos.accumulateAndGet(latency, Math::min);
+            }
+            
+            long threshold = (long) (minLatencyNanos.get() * LATENCY_TOLERANCE) + LATENCY_SLACK_NANOS;
+            if (!succeeded || latency > threshold) {
+                if (startNanos - lastDecreaseNanos > 0) {
+                    lastDecreaseNanos = now;
+                    scaledLimit.updateAndGet(limit -> Math.max(minLimit * SCALE, (long) (limit * BACKOFF_RATIO)));
+                    decreases.increment();
+                }
+            } else if (inFlightBefore * 2 >= getLimit()) {
+                scaledLimit.updateAndGet(limit -> Math.min(maxLimit * SCALE, limit + SCALE * SCALE / limit));
+                increases.increment();
+            }
         }
         
-        public void stopLogging() {
-            scheduledLogger.shutdown();
-            try {
-                scheduledLogger.awaitTermination(5, TimeUnit.SECONDS);
+        public int getLimit() { return (int) (scaledLimit.get() / SCALE); }
+        public int getInFlight() { return inFlight.get(); }
+        public long getAcceptedCount() { return accepted.sum(); }
+        public long getRejectedCount() { return rejected.sum(); }
+        public long getIncreaseCount() { return increases.sum(); }
+        public long getDecreaseCount() { return decreases.sum(); }
+        
+        public double getMinLatencyMillis() {
+            long min = minLatencyNanos.get();
+            return min == Long.MAX_VALUE ? 0 : min / 1_000_000.0;
+        }
+        
+        public String formatStats() {
+            return String.format("上限 %d（%d ~ %d），在途 %d，接受 %d，拒绝 %d，增 %d / 减 %d，最小延迟 %.2fms",
+                                 getLimit(), minLimit, maxLimit, getInFlight(), getAcceptedCount(), getRejectedCount(),
+                                 getIncreaseCount(), getDecreaseCount(), getMinLatencyMillis());
+        }
+    }
+    
+    /**
+     * 内存库存引擎 - 无锁库存预留
+     * 每个SKU一个AtomicInteger库存计数，按SKU字典编号存放在数组中，查找不需要散列；预留时用CAS逐个扣减
+     * 订单内任一商品缺货则回滚已扣减的商品，实现"全部成功或全部不扣"
+     * 回滚前其他线程可能短暂看到偏低的库存，只会导致保守的缺货判断，不会超卖
+     */
+    static class StockReservationEngine {
+        
+        /**
+         * 预留结果 - 成功，或指出第一个缺货的商品
+         */
+        static final class ReservationResult {
+            static final ReservationResult RESERVED = new ReservationResult(null);
+            
+            private final String outOfStockSku;
+            
+            private ReservationResult(String outOfStockSku) {
+                this.outOfStockSku = outOfStockSku;
+            }
+            
+            static ReservationResult outOfStock(String sku) {
+                return new ReservationResult(sku);
+            }
+            
+            public boolean isReserved() { return outOfStockSku == null; }
+            public String getOutOfStockSku() { return outOfStockSku; }
+            
+            @Override
+            public String toString() {
+                return isReserved() ? "RESERVED" : "OUT_OF_STOCK(" + outOfStockSku + ")";
+            }
+        }
+        
+        // 下标为SKU编号；新SKU补货时加锁复制扩容，复制的是同一批计数器对象，扩容期间的扣减不会丢失
+        private volatile AtomicInteger[] stock = new AtomicInteger[0];
+        // 已预留但尚未出库的订单，保证释放和确认都只生效一次
+        private final Set<Integer> reservedOrders = ConcurrentHashMap.newKeySet();
+        private final LongAdder reservationCount = new LongAdder();
+        private final LongAdder outOfStockCount = new LongAdder();
+        private final LongAdder releaseCount = new LongAdder();
+        
+        /**
+         * 补充库存，SKU不存在时自动创建
+         */
+        public void restock(String sku, int quantity) {
+            restock(skuDictionary.intern(sku), quantity);
+        }
+        
+        public void restock(int skuId, int quantity) {
+            AtomicInteger counter = counterFor(skuId);
+            if (counter == null) {
+                synchronized (this) {
+                    AtomicInteger[] current = stock;
+                    if (skuId >= current.length) {
+                        current = Arrays.copyOf(current, Math.max(skuId + 1, current.length * 2));
+                    }
+                    if (current[skuId] == null) {
+                        current[skuId] = new AtomicInteger(0);
+                    }
+                    counter = current[skuId];
+                    stock = current;
+                }
+            }
+            counter.addAndGet(quantity);
+        }
+        
+        private AtomicInteger counterFor(int skuId) {
+            AtomicInteger[] current = stock;
+            return skuId < current.length ? current[skuId] : null;
+        }
+        
+        public int getAvailable(String sku) {
+            int skuId = skuDictionary.idOf(sku);
+            return skuId < 0 ? 0 : getAvailable(skuId);
+        }
+        
+        public int getAvailable(int skuId) {
+            AtomicInteger counter = counterFor(skuId);
+            return counter == null ? 0 : counter.get();
+        }
+        
+        /**
+         * 预留订单中的全部商品（每个商品条目数量为1，重复条目按多件处理）
+         */
+        public ReservationResult reserve(Order order) {
+            // 先占用订单号再扣减：并发重复预留同一订单时只有一个线程能占用成功，库存不会被扣两次
+            if (!reservedOrders.add(order.getOrderId())) {
+                return ReservationResult.RESERVED;
+            }
+            
+            AtomicInteger[] current = stock;
+            int productCount = order.getProductCount();
+            for (int i = 0; i < productCount; i++) {
+                int skuId = order.getProductId(i);
+                AtomicInteger counter = skuId < current.length ? current[skuId] : null;
+                if (counter == null || !tryDecrement(counter)) {
+                    // 回滚本订单已扣减的商品
+                    for (int j = 0; j < i; j++) {
+                        current[order.getProductId(j)].incrementAndGet();
+                    }
+                    reservedOrders.remove(order.getOrderId());
+                    outOfStockCount.increment();
+                    return ReservationResult.outOfStock(skuDictionary.lookup(skuId));
+                }
+            }
+            
+            reservationCount.increment();
+            return ReservationResult.RESERVED;
+        }
+        
+        private static boolean tryDecrement(AtomicInteger counter) {
+            int current;
+            do {
+                current = counter.get();
+                if (current <= 0) {
+                    return false;
+                }
+            } while (!counter.compareAndSet(current, current - 1));
+            return true;
+        }
+        
+        public boolean isReserved(Order order) {
+            return reservedOrders.contains(order.getOrderId());
+        }
+        
+        /**
+         * 订单取消时归还预留的库存，重复调用或未预留的订单不做任何事
+         */
+        public boolean release(Order order) {
+            if (!reservedOrders.remove(order.getOrderId())) {
+                return false;
+            }
+            for (int i = 0; i < order.getProductCount(); i++) {
+                counterFor(order.getProductId(i)).incrementAndGet();
+            }
+            releaseCount.increment();
+            return true;
+        }
+        
+        /**
+         * 预留转为实际出库，之后取消订单不再归还库存
+         */
+        public boolean commit(Order order) {
+            return reservedOrders.remove(order.getOrderId());
+        }
+        
+        public long getReservationCount() { return reservationCount.sum(); }
+        public long getOutOfStockCount() { return outOfStockCount.sum(); }
+        public long getReleaseCount() { return releaseCount.sum(); }
+    }
+    
+    /**
+     * 通知渠道
+     */
+    enum NotificationChannel {
+        EMAIL("邮件"), SMS("短信"), PUSH("推送");
+        
+        private final String displayName;
+        
+        NotificationChannel(String displayName) {
+            this.displayName = displayName;
+        }
+        
+        public String getDisplayName() { return displayName; }
+    }
+    
+    /**
+     * 通知中心 - 线程池方式
+     * 每个渠道一个长期存在的有界线程池，由所有订单共享，避免每个订单创建和销毁线程池
+     * 队列满时与熔断器打开一样快速失败（RejectedExecutionException），发送从不在提交线程上执行
+     *
+     * 每个渠道还有两层保护，防止一个慢或坏的渠道拖住整个订单流程：
+     *   1. 对冲请求：一条通知超过该渠道历史延迟的指定分位数（如p95）仍未完成时，再发一次相同的请求，
+     *      先成功的为准，另一次被取消；对冲数不超过请求数的10%，避免渠道整体变慢时把负载翻倍
+     *   2. 熔断器：连续失败达到阈值后打开，打开期间直接快速失败，不再占用渠道线程
+     */
+    static class NotificationHub {
+        // 样本数达到5个后才开始对冲；前64个成功样本每次都重算阈值，之后每16个重算一次
+        private static final int MIN_HEDGE_SAMPLES = 5;
+        private static final int HEDGE_REFRESH_WARMUP = 64;
+        private static final int HEDGE_REFRESH_INTERVAL = 16;
+        private static final int MAX_HEDGE_PERCENT = 10;
+        
+        /**
+         * 单个渠道的线程池、熔断器、延迟分布和计数
+         */
+        private static final class ChannelState {
+            final NotificationChannel channel;
+            final InstrumentedThreadPool executor;
+            final CircuitBreaker breaker = new CircuitBreaker(5, 2, TimeUnit.SECONDS);
+            final LatencyHistogram latency;
+            final LongAdder sent = new LongAdder();
+            final LongAdder failed = new LongAdder();
+            final LongAdder queueRejected = new LongAdder();
+            final AtomicLong requests = new AtomicLong(0);
+            final AtomicLong hedges = new AtomicLong(0);
+            final LongAdder hedgeWins = new LongAdder();
+            final AtomicLong successes = new AtomicLong(0);
+            // 对冲等待时间，0表示样本不足或未启用对冲
+            volatile long hedgeDelayNanos;
+            // 故障注入 - 每次尝试以failureRate的概率失败，以stallRate的概率额外卡住stallMillis
+            volatile double failureRate;
+            volatile double stallRate;
+            volatile long stallMillis;
+            
+            ChannelState(NotificationChannel channel, InstrumentedThreadPool executor) {
+                this.channel = channel;
+                this.executor = executor;
+                this.latency = new LatencyHistogram("通知-" + channel.getDisplayName());
+            }
+            
+            void injectFaults() throws InterruptedException {
+                if (stallRate > 0 && ThreadLocalRandom.current().nextDouble() < stallRate) {
+                    Thread.sleep(stallMillis);
+                }
+                if (failureRate > 0 && ThreadLocalRandom.current().nextDouble() < failureRate) {
+                    throw new IllegalStateException(channel.getDisplayName() + "渠道模拟故障");
+                }
+            }
+        }
+        
+        /**
+         * 一次发送尝试 - 记录执行线程：完成通知的尝试会在自己的线程上触发取消回调，不能中断自己
+         */
+        private static final class Attempt extends FutureTask<Void> {
+            private volatile Thread runner;
+            
+            Attempt(Runnable body) {
+                super(body, null);
+            }
+            
+            @Override
+            public void run() {
+                runner = Thread.currentThread();
+                try {
+                    super.run();
+                } finally {
+                    runner = null;
+                }
+            }
+            
+            void cancelFromOtherThread() {
+                if (runner != Thread.currentThread()) {
+                    cancel(true);
+                }
+            }
+        }
+        
+        private final Map<NotificationChannel, ChannelState> channels = new EnumMap<>(NotificationChannel.class);
+        private final ScheduledExecutorService hedgeTimer;
+        private final double hedgePercentile;
+        private final int queueCapacity;
+        private final long startTime = System.currentTimeMillis();
+        
+        public NotificationHub(int threadsPerChannel, int queueCapacity) {
+            this(threadsPerChannel, queueCapacity, 95);
+        }
+        
+        /**
+         * @param hedgePercentile 对冲阈值取渠道历史延迟的哪个分位数，0表示不对冲
+         */
+        public NotificationHub(int threadsPerChannel, int queueCapacity, double hedgePercentile) {
+            for (NotificationChannel channel : NotificationChannel.values()) {
+                AtomicInteger threadCounter = new AtomicInteger(0);
+                InstrumentedThreadPool executor = new InstrumentedThreadPool("notify-" + channel.name().toLowerCase(),
+                    threadsPerChannel, threadsPerChannel, 60L, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity),
+                    r -> {
+                        Thread thread = new Thread(r, "Notify-" + channel + "-" + threadCounter.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    },
+                    new ThreadPoolExecutor.AbortPolicy()
+                );
+                channels.put(channel, new ChannelState(channel, executor));
+            }
+            this.hedgePercentile = hedgePercentile;
+            this.queueCapacity = queueCapacity;
+            this.hedgeTimer = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "Notify-Hedge");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        
+        /**
+         * 为渠道注入模拟故障，用于观察对冲和熔断的效果；两个概率都为0时恢复正常
+         */
+        public void injectFaults(NotificationChannel channel, double failureRate, double stallRate, long stallMillis) {
+            ChannelState state = channels.get(channel);
+            state.stallMillis = stallMillis;
+            state.stallRate = stallRate;
+            state.failureRate = failureRate;
+        }
+        
+        /**
+         * 在指定渠道的线程池上发送一条通知
+         * 熔断器打开时立即以RejectedExecutionException失败；超过对冲阈值仍未完成时再发一次
+         * 同一条通知可能被执行两次，task应当是幂等的（例如按订单号去重的通知）
+         * @return 通知发送完成时完成的future；取消它会中断仍在执行的尝试
+         */
+        public CompletableFuture<Void> submit(NotificationChannel channel, Runnable task) {
+            return submit(channel, -1, task);
+        }
+        
+        /**
+         * 同submit(channel, task)，orderId记入每次发送尝试的JFR事件（shop.NotificationSend）
+         */
+        public CompletableFuture<Void> submit(NotificationChannel channel, int orderId, Runnable task) {
+            ChannelState state = channels.get(channel);
+            CompletableFuture<Void> result = new CompletableFuture<>();
+            state.requests.incrementAndGet();
+            CircuitBreaker.Phase permit = state.breaker.tryAcquire();
+            if (permit == null) {
+                result.completeExceptionally(new RejectedExecutionException(
+                    channel.getDisplayName() + "渠道熔断中，快速失败"));
+                return result;
+            }
+            
+            long submitNanos = System.nanoTime();
+            AtomicInteger outstanding = new AtomicInteger(0);
+            Attempt primary = attempt(state, permit, orderId, task, result, outstanding, submitNanos, false);
+            if (primary != null) {
+                result.whenComplete((ignored, error) -> primary.cancelFromOtherThread());
+            }
+            
+            long hedgeDelay = state.hedgeDelayNanos;
+            if (hedgeDelay > 0 && !result.isDone()) {
+                ScheduledFuture<?> hedgeTimeout = hedgeTimer.schedule(() -> {
+                    if (result.isDone() || !tryStartHedge(state)) {
+                        return;
+                    }
+                    Attempt hedge = attempt(state, permit, orderId, task, result, outstanding, System.nanoTime(), true);
+                    if (hedge != null) {
+                        result.whenComplete((ignored, error) -> hedge.cancelFromOtherThread());
+                    }
+                }, hedgeDelay, TimeUnit.NANOSECONDS);
+                result.whenComplete((ignored, error) -> hedgeTimeout.cancel(false));
+            }
+            return result;
+        }
+        
+        private static void commitSend(FlightEvents.NotificationSend event, ChannelState state, int orderId,
+                                       boolean hedge, String outcome) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.orderId = orderId;
+                event.channel = state.channel.name();
+                event.hedge = hedge;
+                event.outcome = outcome;
+                event.commit();
+            }
+        }
+        
+        /**
+         * 对冲前检查：熔断器关闭、队列有空位、对冲数未超过请求数的MAX_HEDGE_PERCENT
+         * 排队数读取线程池的预聚合计数，不获取队列锁
+         */
+        private boolean tryStartHedge(ChannelState state) {
+            if (state.breaker.getState() != CircuitBreaker.State.CLOSED ||
+                state.executor.getQueuedCount() >= queueCapacity ||
+                state.hedges.get() * 100 >= state.requests.get() * MAX_HEDGE_PERCENT) {
+                return false;
+            }
+            state.hedges.incrementAndGet();
+            return true;
+        }
+        
+        /**
+         * 提交一次发送尝试；先成功的尝试完成result，其余尝试的结果被忽略
+         * 所有尝试都失败时result以最后一次失败的异常完成
+         * @param permit 熔断器放行时给出的凭证，尝试结束时原样交回
+         * @return 可取消的尝试；线程池拒绝（队列已满或已关闭）时返回null
+         */
+        private Attempt attempt(ChannelState state, CircuitBreaker.Phase permit, int orderId, Runnable task,
+                                CompletableFuture<Void> result, AtomicInteger outstanding, long startNanos,
+                                boolean hedge) {
+            outstanding.incrementAndGet();
+            Attempt attempt = new Attempt(() -> {
+                if (result.isDone()) {
+                    outstanding.decrementAndGet();
+                    return;  // 另一次尝试已经成功，或通知已被取消
+                }
+                FlightEvents.NotificationSend event = new FlightEvents.NotificationSend();
+                event.begin();
+                try {
+                    state.injectFaults();
+                    task.run();
+                } catch (InterruptedException e) {
+                    outstanding.decrementAndGet();
+                    commitSend(event, state, orderId, hedge, "中断");
+                    return;  // 尝试被取消
+                } catch (CancellationException e) {
+                    // 订单超过截止时间，不算渠道故障
+                    outstanding.decrementAndGet();
+                    commitSend(event, state, orderId, hedge, "订单超时");
+                    result.completeExceptionally(e);
+                    return;
+                } catch (RuntimeException e) {
+                    state.breaker.onFailure(permit);
+                    state.failed.increment();
+                    commitSend(event, state, orderId, hedge, "失败");
+                    if (outstanding.decrementAndGet() == 0) {
+                        result.completeExceptionally(e);
+                    }
+                    return;
+                }
+                outstanding.decrementAndGet();
+                if (Thread.currentThread().isInterrupted()) {
+                    commitSend(event, state, orderId, hedge, "中断");
+                    return;  // 发送方自己捕获了中断后提前返回，这次尝试作废
+                }
+                commitSend(event, state, orderId, hedge, "成功");
+                state.breaker.onSuccess(permit);
+                recordSuccess(state, System.nanoTime() - startNanos);
+                if (result.complete(null)) {
+                    state.sent.increment();
+                    if (hedge) {
+                        state.hedgeWins.increment();
+                    }
+                }
+            });
+            
+            try {
+                state.executor.execute(attempt);
+                return attempt;
+            } catch (RejectedExecutionException e) {
+                outstanding.decrementAndGet();
+                if (hedge) {
+                    return null;
+                }
+                // 队列已满与熔断器打开一样快速失败，发送从不在提交线程上执行：
+                // 提交线程可能是工作流阶段线程、分区线程或流水线线程，不能被渠道的卡顿拖住
+                if (state.executor.isShutdown()) {
+                    result.completeExceptionally(e);
+                } else {
+                    state.queueRejected.increment();
+                    result.completeExceptionally(new RejectedExecutionException(
+                        state.channel.getDisplayName() + "渠道队列已满，快速失败"));
+                }
+                return null;
+            }
+        }
+        
+        private void recordSuccess(ChannelState state, long nanos) {
+            state.latency.recordNanos(nanos);
+            long samples = state.successes.incrementAndGet();
+            if (hedgePercentile > 0 && samples >= MIN_HEDGE_SAMPLES &&
+                (samples <= HEDGE_REFRESH_WARMUP || samples % HEDGE_REFRESH_INTERVAL == 0)) {
+                state.hedgeDelayNanos = state.latency.snapshot().valueAtPercentile(hedgePercentile) * 1000;
+            }
+        }
+        
+        public long getSentCount(NotificationChannel channel) {
+            return channels.get(channel).sent.sum();
+        }
+        
+        public long getFailedCount(NotificationChannel channel) {
+            return channels.get(channel).failed.sum();
+        }
+        
+        /**
+         * 渠道队列已满而快速失败的通知数
+         */
+        public long getQueueRejectedCount(NotificationChannel channel) {
+            return channels.get(channel).queueRejected.sum();
+        }
+        
+        public long getHedgeCount(NotificationChannel channel) {
+            return channels.get(channel).hedges.get();
+        }
+        
+        public long getHedgeWinCount(NotificationChannel channel) {
+            return channels.get(channel).hedgeWins.sum();
+        }
+        
+        public CircuitBreaker getCircuitBreaker(NotificationChannel channel) {
+            return channels.get(channel).breaker;
+        }
+        
+        public int getQueueDepth(NotificationChannel channel) {
+            return (int) channels.get(channel).executor.getQueuedCount();
+        }
+        
+        /**
+         * 渠道吞吐量（条/秒），按通知中心启动以来的平均值计算
+         */
+        public double getThroughput(NotificationChannel channel) {
+            long elapsed = System.currentTimeMillis() - startTime;
+            return elapsed > 0 ? getSentCount(channel) * 1000.0 / elapsed : 0;
+        }
+        
+        /**
+         * 登记各渠道的发送、失败、对冲和熔断计数，延迟分布和渠道线程池
+         */
+        public void registerMetrics(MetricsServer metrics) {
+            for (ChannelState state : channels.values()) {
+                String channel = state.channel.name().toLowerCase();
+                metrics.counter("notification_sent_total", "发送成功的通知数", state.sent::sum, "channel", channel);
+                metrics.counter("notification_failed_total", "全部尝试都失败的通知数", state.failed::sum, "channel", channel);
+                metrics.counter("notification_queue_rejected_total", "渠道队列已满而快速失败的通知数",
+                                state.queueRejected::sum, "channel", channel);
+                metrics.counter("notification_hedges_total", "发出的对冲请求数", state.hedges::get, "channel", channel);
+                metrics.counter("notification_hedge_wins_total", "对冲请求先完成的次数", state.hedgeWins::sum,
+                                "channel", channel);
+                metrics.gauge("notification_hedge_delay_seconds", "当前对冲等待时间，0表示未启用",
+                              () -> state.hedgeDelayNanos / 1e9, "channel", channel);
+                metrics.gauge("notification_circuit_open", "熔断器是否处于打开或半开状态",
+                              () -> state.breaker.getState() == CircuitBreaker.State.CLOSED ? 0L : 1L, "channel", channel);
+                metrics.counter("notification_circuit_trips_total", "熔断器打开次数", state.breaker::getTripCount,
+                                "channel", channel);
+                metrics.counter("notification_circuit_rejected_total", "熔断器快速失败次数",
+                                state.breaker::getRejectedCount, "channel", channel);
+                metrics.histogram("notification_send_seconds", "单次发送尝试的延迟", state.latency, "channel", channel);
+                metrics.threadPool(state.executor);
+            }
+        }
+        
+        /**
+         * 打印各渠道的发送数、队列深度、吞吐量、熔断器状态和对冲次数
+         */
+        public void printChannelStats(String indent) {
+            for (ChannelState state : channels.values()) {
+                NotificationChannel channel = state.channel;
+                long hedgeDelay = state.hedgeDelayNanos;
+                AsyncLog.println(indent + channel.getDisplayName() +
+                                 ": 已发送 " + getSentCount(channel) +
+                                 " | 失败 " + getFailedCount(channel) +
+                                 " | 队列 " + state.executor.getQueuedCount() +
+                                 "（满拒绝 " + getQueueRejectedCount(channel) + "）" +
+                                 " | 活跃线程 " + state.executor.getBusyThreadCount() +
+                                 " | " + String.format("%.2f", getThroughput(channel)) + " 条/秒" +
+                                 " | 熔断器 " + state.breaker.formatStats() +
+                                 " | 对冲 " + getHedgeCount(channel) + " 次（胜出 " + getHedgeWinCount(channel) +
+                                 "，阈值 " + (hedgeDelay > 0
+                                     ? String.format("p%s=%.1fms", formatPercentile(), hedgeDelay / 1e6)
+                                     : "未启用") + "）");
+            }
+        }
+        
+        private String formatPercentile() {
+            return hedgePercentile == Math.rint(hedgePercentile)
+                ? String.valueOf((long) hedgePercentile)
+                : String.valueOf(hedgePercentile);
+        }
+        
+        public void shutdown() {
+            hedgeTimer.shutdownNow();
+            channels.values().forEach(state -> state.executor.shutdown());
+            try {
+                for (ChannelState state : channels.values()) {
+                    state.executor.awaitTermination(10, TimeUnit.SECONDS);
+                }
+            } catch (InterruptedException e) {
+                channels.values().forEach(state -> state.executor.shutdownNow());
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+    
+    /**
+     * 无锁熔断器 - CLOSED → OPEN → HALF_OPEN → CLOSED
+     * 
+     * 1. CLOSED：正常放行，连续失败达到failureThreshold次后打开
+     * 2. OPEN：直接拒绝（快速失败），不再把请求压给已经出问题的下游；打开openTime后进入HALF_OPEN
+     * 3. HALF_OPEN：只放行一个试探请求，成功则关闭，失败则重新打开；
+     *    试探请求迟迟没有结果（例如被取消）时，再过openTime放行下一个试探
+     * 
+     * 状态和进入该状态的时间放在同一个不可变对象里，用AtomicReference整体CAS切换，没有锁
+     * tryAcquire返回放行时的Phase作为凭证，请求结束时原样交回onSuccess/onFailure：
+     * 只有持有当前HALF_OPEN凭证的试探请求能关闭或重新打开熔断器，打开前发出的请求晚到的结果不改变状态
+     */
+    static final class CircuitBreaker {
+        
+        enum State { CLOSED, OPEN, HALF_OPEN }
+        
+        static final class Phase {
+            final State state;
+            final long sinceNanos;
+            
+            Phase(State state, long sinceNanos) {
+                this.state = state;
+                this.sinceNanos = sinceNanos;
+            }
+        }
+        
+        private static final Phase CLOSED = new Phase(State.CLOSED, 0);
+        
+        private final int failureThreshold;
+        private final long openNanos;
+        private final AtomicReference<Phase> phase = new AtomicReference<>(CLOSED);
+        private final AtomicInteger consecutiveFailures = new AtomicInteger(0);
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder trips = new LongAdder();
+        
+        public CircuitBreaker(int failureThreshold, long openTime, TimeUnit unit) {
+            this.failureThreshold = failureThreshold;
+            this.openNanos = unit.toNanos(openTime);
+        }
+        
+        /**
+         * 请求是否可以发往下游
+         * @return 放行凭证，请求结束时交给onSuccess/onFailure；返回null时调用方应立即失败
+         */
+        public Phase tryAcquire() {
+            while (true) {
+                Phase current = phase.get();
+                if (current.state == State.CLOSED) {
+                    return current;
+                }
+                long now = System.nanoTime();
+                if (now - current.sinceNanos < openNanos) {
+                    rejected.increment();
+                    return null;
+                }
+                // OPEN冷却结束，或上一个试探请求超时未返回：抢到CAS的线程发出新的试探请求
+                Phase probe = new Phase(State.HALF_OPEN, now);
+                if (phase.compareAndSet(current, probe)) {
+                    return probe;
+                }
+            }
+        }
+        
+        public void onSuccess(Phase permit) {
+            if (permit.state == State.HALF_OPEN) {
+                // 只有当前试探请求自己的成功能关闭熔断器
+                if (phase.compareAndSet(permit, CLOSED)) {
+                    consecutiveFailures.set(0);
+                }
+                return;
+            }
+            // 熔断器未关闭时，打开之前发出的请求晚到的成功不清零失败计数
+            if (phase.get().state == State.CLOSED) {
+                consecutiveFailures.set(0);
+            }
+        }
+        
+        public void onFailure(Phase permit) {
+            if (permit.state == State.HALF_OPEN) {
+                if (phase.compareAndSet(permit, new Phase(State.OPEN, System.nanoTime()))) {
+                    trips.increment();
+                }
+                return;
+            }
+            Phase current = phase.get();
+            if (current.state == State.CLOSED && consecutiveFailures.incrementAndGet() >= failureThreshold &&
+                phase.compareAndSet(current, new Phase(State.OPEN, System.nanoTime()))) {
+                trips.increment();
+            }
+        }
+        
+        public State getState() { return phase.get().state; }
+        public long getRejectedCount() { return rejected.sum(); }
+        public long getTripCount() { return trips.sum(); }
+        
+        public String formatStats() {
+            return getState() + "（打开 " + getTripCount() + " 次，快速失败 " + getRejectedCount() + "）";
+        }
+    }
+    
+    /**
+     * 日志记录服务 - 线程池方式
+     * 展示线程池处理日志和监控任务
+     */
+    static class LoggingService {
+        private final ScheduledExecutorService scheduledLogger = 
+            Executors.newScheduledThreadPool(1);
+        
+        public void startPerformanceLogging() {
+            // 每3秒记录一次系统性能
+            scheduledLogger.scheduleAtFixedRate(this::logSystemPerformance, 3, 3, TimeUnit.SECONDS);
+        }
+        
+        private void logSystemPerformance() {
+            long currentTime = System.currentTimeMillis();
+            long runningTime = (currentTime - systemStartTime.get()) / 1000;
+            
+            AsyncLog.println("\n📊 === 系统性能日志 (运行" + runningTime + "秒) ===");
+            AsyncLog.println("  🛒 总订单处理数: " + totalOrdersProcessed.get());
+            AsyncLog.println("  💳 总支付处理数: " + totalPaymentsProcessed.get());
+            AsyncLog.println("  💰 营业额: " + revenueLedger.snapshot().format());
+            AsyncLog.println("  🏆 营业额Top" + TOP_K + "客户: " +
+                             formatTopK(topCustomersByRevenue, customerDictionary, TOP_K, true));
+            AsyncLog.println("  🏆 订单数Top" + TOP_K + " SKU: " + formatTopK(topSkusByOrders, skuDictionary, TOP_K, false));
+            AsyncLog.println("  📧 总通知发送数: " + totalNotificationsSent.get());
+            AsyncLog.println("  ⏰ 超时取消订单数: " + totalOrdersTimedOut.get() +
+                             "（截止时间 " + ORDER_DEADLINE_MILLIS + "ms）");
+            notificationHub.printChannelStats("    • ");
+            AsyncLog.println("  ⏱️ 本周期延迟分布:");
+            for (LatencyHistogram histogram : latencyHistograms) {
+                LatencyHistogram.Snapshot interval = histogram.intervalSnapshot();
+                if (interval.getCount() > 0) {
+                    AsyncLog.println("    • " + padEnd(histogram.getName(), 6, ' ') + interval.format());
+                }
+            }
+            AsyncLog.println("  📦 库存限流: " + inventoryLimiter.formatStats());
+            if (orderJournal != null) {
+                AsyncLog.println("  💾 订单日志: " + orderJournal.formatStats());
+            }
+            AsyncLog.println("  📝 异步日志: " + AsyncLog.shared().formatStats());
+            AsyncLog.println("  ⏱️ 系统运行时间: " + runningTime + "秒");
+            AsyncLog.println("  📈 平均每秒处理订单: " + 
+                             (runningTime > 0 ? totalOrdersProcessed.get() / runningTime : 0));
+            AsyncLog.println("================================================\n");
+        }
+        
+        public void stopLogging() {
+            scheduledLogger.shutdown();
+            try {
+                scheduledLogger.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                scheduledLogger.shutdownNow();
+            }
+        }
+    }
+    
+    /**
+     * 系统监控器 - 展示线程池监控功能
+     */
+    static class SystemMonitor {
+        private final InstrumentedThreadPool monitoringPool;
+        private final long sampleIntervalMillis;
+        
+        public SystemMonitor() {
+            this(1000);
+        }
+        
+        /**
+         * @param sampleIntervalMillis 采样间隔；状态计数为O(1)读取，可以降到毫秒级
+         */
+        public SystemMonitor(long sampleIntervalMillis) {
+            this.sampleIntervalMillis = sampleIntervalMillis;
+            monitoringPool = new InstrumentedThreadPool("monitoring",
+                1, 2, 30L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(50)
+            );
+        }
+        
+        public void monitorOrderProcessing(List<Order> orders) {
+            monitoringPool.submit(() -> {
+                try {
+                    AsyncLog.println("\n🔍 开始监控系统状态（共 " + orders.size() + " 个订单，采样间隔 " +
+                                     sampleIntervalMillis + "ms）...");
+                    
+                    // 按采样间隔读取状态计数，每秒汇报一次最新值和这一秒内的峰值
+                    for (int i = 0; i < 10; i++) {
+                        long reportAt = System.currentTimeMillis() + 1000;
+                        long peakActive = 0;
+                        int samples = 0;
+                        long activeOrders;
+                        do {
+                            Thread.sleep(Math.max(1, Math.min(sampleIntervalMillis, reportAt - System.currentTimeMillis())));
+                            activeOrders = orderStatusCounters.getActive();
+                            peakActive = Math.max(peakActive, activeOrders);
+                            samples++;
+                        } while (System.currentTimeMillis() < reportAt);
+                        
+                        AsyncLog.println("📊 监控点 " + (i+1) + ": 活跃订单 " + activeOrders + 
+                                         " 个（峰值 " + peakActive + "，采样 " + samples + " 次），已完成 " +
+                                         totalOrdersProcessed.get() + " 个");
+                    }
+                    
+                    AsyncLog.println("✅ 监控任务完成\n");
+                    
+                } catch (InterruptedException e) {
+                    AsyncLog.errPrintln("❌ 监控系统被中断");
+                }
+            });
+        }
+        
+        public void registerMetrics(MetricsServer metrics) {
+            metrics.threadPool(monitoringPool);
+        }
+        
+        public void shutdown() {
+            monitoringPool.shutdown();
+            try {
+                monitoringPool.awaitTermination(15, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                monitoringPool.shutdownNow();
+            }
+        }
+    }
+    
+    /**
+     * 订单处理步骤 - 流水线阶段和异步工作流共用的处理逻辑
+     */
+    interface OrderStep {
+        void apply(Order order) throws InterruptedException;
+    }
+    
+    /**
+     * 订单流水线 - 分阶段并发处理订单
+     * 验证 → 库存检查 → 支付 → 通知 → 库存更新，每个阶段拥有独立的有界队列和工作线程
+     * 队列满时上游阻塞（背压），多个订单可以同时处于不同阶段
+     */
+    static class OrderPipeline {
+        
+        /**
+         * 流水线阶段 - 一个有界队列加一组工作线程
+         */
+        static class PipelineStage {
+            private final String name;
+            private final int workerCount;
+            private final BlockingQueue<Order> queue;
+            private final OrderStep handler;
+            private final List<Thread> workers = new ArrayList<>();
+            private final AtomicInteger processedCount = new AtomicInteger(0);
+            private final AtomicInteger maxQueueDepth = new AtomicInteger(0);
+            private final AtomicLong busyTimeNanos = new AtomicLong(0);
+            private PipelineStage next;
+            private OrderPipeline pipeline;
+            
+            PipelineStage(String name, int workerCount, int queueCapacity, OrderStep handler) {
+                this.name = name;
+                this.workerCount = workerCount;
+                this.queue = new ArrayBlockingQueue<>(queueCapacity);
+                this.handler = handler;
+            }
+            
+            /**
+             * 放入本阶段队列，队列已满时阻塞调用者
+             */
+            void submit(Order order) throws InterruptedException {
+                queue.put(order);
+                maxQueueDepth.accumulateAndGet(queue.size(), Math::max);
+            }
+            
+            void start() {
+                for (int i = 1; i <= workerCount; i++) {
+                    Thread worker = new Thread(this::workLoop, "Pipeline-" + name + "-" + i);
+                    worker.setDaemon(true);
+                    workers.add(worker);
+                    worker.start();
+                }
+            }
+            
+            private void workLoop() {
+                try {
+                    while (!Thread.currentThread().isInterrupted()) {
+                        Order order = queue.take();
+                        long begin = System.nanoTime();
+                        try {
+                            handler.apply(order);
+                        } catch (RuntimeException e) {
+                            // 单个订单出错只取消该订单，工作线程继续处理后续订单
+                            AsyncLog.errPrintln("❌ 订单 #" + order.getOrderId() + " 在" + name + "阶段出错: " + e);
+                            cancelOrder(order);
+                        } finally {
+                            busyTimeNanos.addAndGet(System.nanoTime() - begin);
+                            processedCount.incrementAndGet();
+                        }
+                        
+                        // 取消的订单不再进入后续阶段
+                        if (next != null && order.getStatus() != OrderStatus.CANCELLED) {
+                            next.submit(order);
+                        } else {
+                            pipeline.complete(order);
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            
+            void stop() {
+                workers.forEach(Thread::interrupt);
+            }
+            
+            public String getName() { return name; }
+            public int getQueueDepth() { return queue.size(); }
+            public int getMaxQueueDepth() { return maxQueueDepth.get(); }
+            public int getProcessedCount() { return processedCount.get(); }
+            
+            /**
+             * 平均单个订单在本阶段的处理耗时（毫秒）
+             */
+            public double getAverageServiceMillis() {
+                int processed = processedCount.get();
+                return processed > 0 ? busyTimeNanos.get() / 1_000_000.0 / processed : 0;
+            }
+            
+            /**
+             * 阶段利用率 = 总忙碌时间 / (工作线程数 × 运行时间)
+             */
+            public double getUtilization(long elapsedNanos) {
+                return elapsedNanos > 0 ? (double) busyTimeNanos.get() / (workerCount * elapsedNanos) : 0;
+            }
+        }
+        
+        private static final long COMPLETION_GRACE_MILLIS = 30_000;
+        
+        private final int queueCapacity;
+        private final List<PipelineStage> stages = new ArrayList<>();
+        private final AtomicInteger completedOrders = new AtomicInteger(0);
+        private final ScheduledExecutorService depthReporter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "Pipeline-Reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        private volatile CountDownLatch completionLatch;
+        private long startNanos;
+        private long endNanos;
+        
+        public OrderPipeline(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+        
+        /**
+         * 追加一个阶段，阶段按添加顺序串联
+         */
+        public OrderPipeline addStage(String name, int workerCount, OrderStep handler) {
+            PipelineStage stage = new PipelineStage(name, workerCount, queueCapacity, handler);
+            stage.pipeline = this;
+            if (!stages.isEmpty()) {
+                stages.get(stages.size() - 1).next = stage;
+            }
+            stages.add(stage);
+            return this;
+        }
+        
+        /**
+         * 把所有订单送入流水线并等待全部完成
+         */
+        public void process(List<Order> orders) throws InterruptedException {
+            completionLatch = new CountDownLatch(orders.size());
+            startNanos = System.nanoTime();
+            
+            stages.forEach(PipelineStage::start);
+            depthReporter.scheduleAtFixedRate(this::printQueueDepths, 1, 1, TimeUnit.SECONDS);
+            
+            PipelineStage first = stages.get(0);
+            for (Order order : orders) {
+                armDeadline(order);
+                first.submit(order);
+            }
+            
+            // 每个订单都有截止时间，超时取消的订单会直接流出流水线；再留出排空各阶段队列的余量
+            long waitMillis = ORDER_DEADLINE_MILLIS + COMPLETION_GRACE_MILLIS;
+            if (!completionLatch.await(waitMillis, TimeUnit.MILLISECONDS)) {
+                AsyncLog.errPrintln("❌ 流水线等待 " + waitMillis + "ms 后仍有 " + completionLatch.getCount() +
+                                   " 个订单未完成");
+            }
+            endNanos = System.nanoTime();
+        }
+        
+        private void complete(Order order) {
+            finishOrder(order);
+            completedOrders.incrementAndGet();
+            completionLatch.countDown();
+        }
+        
+        private void printQueueDepths() {
+            StringBuilder sb = new StringBuilder("📊 流水线队列深度:");
+            for (PipelineStage stage : stages) {
+                sb.append(" ").append(stage.getName()).append("=").append(stage.getQueueDepth());
+            }
+            sb.append(" | 已完成 ").append(completedOrders.get());
+            AsyncLog.println(sb);
+        }
+        
+        /**
+         * 打印各阶段统计和端到端吞吐量，利用率最高的阶段即为瓶颈
+         */
+        public void printReport() {
+            long elapsedNanos = endNanos - startNanos;
+            PipelineStage bottleneck = null;
+            
+            AsyncLog.println("\n📊 流水线阶段统计:");
+            for (PipelineStage stage : stages) {
+                double utilization = stage.getUtilization(elapsedNanos);
+                AsyncLog.println("  " + padEnd(stage.getName(), 8, ' ') +
+                                 " 线程 " + stage.workerCount +
+                                 " | 处理 " + stage.getProcessedCount() +
+                                 " | 最大队列深度 " + stage.getMaxQueueDepth() + "/" + queueCapacity +
+                                 " | 平均耗时 " + String.format("%.1f", stage.getAverageServiceMillis()) + "ms" +
+                                 " | 利用率 " + String.format("%.0f%%", utilization * 100));
+                if (bottleneck == null || utilization > bottleneck.getUtilization(elapsedNanos)) {
+                    bottleneck = stage;
+                }
+            }
+            
+            double seconds = elapsedNanos / 1_000_000_000.0;
+            AsyncLog.println("  🚀 端到端吞吐量: " + String.format("%.2f", completedOrders.get() / seconds) + " 订单/秒");
+            if (bottleneck != null) {
+                AsyncLog.println("  🐢 瓶颈阶段: " + bottleneck.getName());
+            }
+        }
+        
+        public void shutdown() {
+            depthReporter.shutdownNow();
+            stages.forEach(PipelineStage::stop);
+        }
+    }
+    
+    /**
+     * 异步订单工作流 - 基于CompletableFuture组合各个阶段
+     * 验证 → 库存检查 → 支付 → 批量结算 → (通知 ∥ 库存更新)
+     * 阶段之间通过future回调衔接，没有线程调用join/await等待另一个阶段；
+     * 通知和库存更新互不依赖，并行执行
+     */
+    static class OrderWorkflow {
+        private final InstrumentedThreadPool stageExecutor;
+        private final InventoryManagementService inventoryService;
+        private final PaymentBatcher paymentBatcher;
+        private final AtomicInteger inFlightOrders = new AtomicInteger(0);
+        private final AtomicInteger completedOrders = new AtomicInteger(0);
+        private final AtomicInteger cancelledOrders = new AtomicInteger(0);
+        private final AtomicInteger timedOutOrders = new AtomicInteger(0);
+        
+        public OrderWorkflow(int stageThreads, InventoryManagementService inventoryService,
+                             PaymentBatcher paymentBatcher) {
+            AtomicInteger threadCounter = new AtomicInteger(0);
+            this.stageExecutor = new InstrumentedThreadPool("order-workflow",
+                stageThreads, stageThreads, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                r -> {
+                    Thread thread = new Thread(r, "OrderWorkflow-" + threadCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            );
+            this.inventoryService = inventoryService;
+            this.paymentBatcher = paymentBatcher;
+        }
+        
+        /**
+         * 提交订单，立即返回；订单走完全部阶段（或被取消）时future完成
+         * 订单超过截止时间时未完成的子任务被取消，future随即完成，订单状态为CANCELLED
+         */
+        public CompletableFuture<Order> submit(Order order) {
+            inFlightOrders.incrementAndGet();
+            armDeadline(order);
+            
+            return runStep(order, o -> OrderProcessorThread.validateOrder(o, currentWorker()))
+                .thenCompose(ifActive(o -> runStep(o, step -> OrderProcessorThread.checkInventory(step, currentWorker()))))
+                .thenCompose(ifActive(this::pay))
+                .thenCompose(ifActive(this::fulfil))
+                .handle((o, error) -> {
+                    // 超时的订单已由expireOrder取消，子任务被取消导致的异常不算工作流失败
+                    if (error != null && !order.isTimedOut()) {
+                        AsyncLog.errPrintln("❌ 订单 #" + order.getOrderId() + " 工作流失败: " + error.getCause());
+                        cancelOrder(order);
+                    }
+                    finish(order);
+                    return order;
+                });
+        }
+        
+        /**
+         * 支付：交给批量提交器扣款，批次结算后订单转为PAID，再在工作流线程上标记发货
+         */
+        private CompletableFuture<Order> pay(Order order) {
+            CompletableFuture<Order> settled = order.getStatus() == OrderStatus.PROCESSING
+                ? paymentBatcher.submit(order)
+                : CompletableFuture.completedFuture(order);
+            return settled
+                .thenApplyAsync(o -> {
+                    OrderProcessorThread.markShipped(o, currentWorker());
+                    return o;
+                }, stageExecutor);
+        }
+        
+        /**
+         * 发货后的两个独立步骤：通知和库存更新并行执行
+         * 通知失败（渠道故障或熔断）只记录，不影响已发货的订单
+         */
+        private CompletableFuture<Order> fulfil(Order order) {
+            CompletableFuture<Void> notifications = dispatchNotifications(order).handle((ignored, error) -> {
+                if (error != null && !order.isTimedOut()) {
+                    AsyncLog.errPrintln("❌ 订单 #" + order.getOrderId() + " 通知发送失败: " + error.getCause());
+                }
+                return null;
+            });
+            CompletableFuture<Void> inventory = inventoryService.updateInventoryAsync(order);
+            return CompletableFuture.allOf(notifications, inventory).thenApply(v -> order);
+        }
+        
+        /**
+         * 在工作流线程池上执行一个步骤
+         */
+        private CompletableFuture<Order> runStep(Order order, OrderStep step) {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    step.apply(order);
+                    return order;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new CompletionException(e);
+                }
+            }, stageExecutor);
+        }
+        
+        /**
+         * 订单已取消时跳过后续阶段
+         */
+        private static Function<Order, CompletableFuture<Order>> ifActive(Function<Order, CompletableFuture<Order>> next) {
+            return order -> order.getStatus() == OrderStatus.CANCELLED
+                ? CompletableFuture.completedFuture(order)
+                : next.apply(order);
+        }
+        
+        private void finish(Order order) {
+            finishOrder(order);
+            if (order.isTimedOut()) {
+                timedOutOrders.incrementAndGet();
+            } else if (order.getStatus() == OrderStatus.CANCELLED) {
+                cancelledOrders.incrementAndGet();
+            } else {
+                completedOrders.incrementAndGet();
+            }
+            inFlightOrders.decrementAndGet();
+        }
+        
+        private static String currentWorker() {
+            return Thread.currentThread().getName();
+        }
+        
+        public int getInFlightCount() { return inFlightOrders.get(); }
+        public int getCompletedCount() { return completedOrders.get(); }
+        public int getCancelledCount() { return cancelledOrders.get(); }
+        public int getTimedOutCount() { return timedOutOrders.get(); }
+        
+        /**
+         * 登记工作流的在途/完成/取消/超时订单数和阶段线程池
+         */
+        public void registerMetrics(MetricsServer metrics) {
+            metrics.gauge("workflow_in_flight_orders", "工作流中在途的订单数", () -> (long) inFlightOrders.get());
+            metrics.counter("workflow_completed_orders_total", "工作流完成的订单数", () -> (long) completedOrders.get());
+            metrics.counter("workflow_cancelled_orders_total", "工作流取消的订单数", () -> (long) cancelledOrders.get());
+            metrics.counter("workflow_timed_out_orders_total", "工作流超时的订单数", () -> (long) timedOutOrders.get());
+            metrics.threadPool(stageExecutor);
+        }
+        
+        public void shutdown() {
+            stageExecutor.shutdown();
+            try {
+                stageExecutor.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                stageExecutor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+    
+    /**
+     * 环形缓冲中的订单事件槽位 - 启动时预分配，发布订单时只改写字段
+     */
+    static final class OrderEvent {
+        Order order;
+        
+        static void set(OrderEvent event, Order order) {
+            event.order = order;
+        }
+        
+        void clear() {
+            order = null;
+        }
+    }
+    
+    /**
+     * 按客户分区的单写者订单处理 - actor风格
+     * 
+     * 订单按客户编号（客户名字典编号）分配到N个分区，每个分区只有一个线程，独占自己的状态，不加任何锁：
+     *   - 客户侧：订单的验证、支付、发货、通知以及客户统计，都在下单客户所在的分区完成
+     *   - 商品侧：每个SKU的库存归它的编号分配到的分区所有，预留和归还只由该分区执行
+     * 订单涉及其他分区的商品时，向商品所在分区的邮箱发送预留消息，对方处理后把结果发回客户分区；
+     * 分区之间只交换消息、不共享可变状态，没有全局锁，吞吐量随分区数（CPU核数）增长
+     * 
+     * 邮箱是多生产者单消费者的无锁队列，分区线程空闲时park，投递消息的线程负责unpark
+     * 分区内的计数器只由分区线程写入（单写者），其他线程读取volatile值即可，不需要原子操作
+     */
+    static class PartitionedOrderProcessor {
+        
+        /**
+         * 订单处理中的模拟耗时（验证、支付），在分区线程上执行
+         */
+        interface StageWork {
+            void perform(Order order, String stage) throws InterruptedException;
+        }
+        
+        /**
+         * 等待库存预留结果的订单 - 只由客户分区访问
+         */
+        private static final class PendingOrder {
+            final Order order;
+            final CompletableFuture<Order> future;
+            final int[] reservedSkuIds;
+            int reservedCount;
+            int awaitingReplies;
+            boolean outOfStock;
+            
+            PendingOrder(Order order, CompletableFuture<Order> future) {
+                this.order = order;
+                this.future = future;
+                this.awaitingReplies = order.getProductCount();
+                this.reservedSkuIds = new int[awaitingReplies];
+            }
+        }
+        
+        /**
+         * 一个分区：邮箱 + 单个线程 + 只由该线程读写的状态
+         */
+        final class Partition implements Runnable {
+            private final int index;
+            private final ConcurrentLinkedQueue<Runnable> mailbox = new ConcurrentLinkedQueue<>();
+            private final Thread thread;
+            private volatile boolean parked;
+            
+            // 分区独占的状态，只由分区线程访问；库存和客户统计按字典编号直接下标访问
+            private int[] stock = new int[0];
+            private final Map<Integer, PendingOrder> pending = new HashMap<>();
+            private long[] customerOrders = new long[0];
+            private long[] customerCents = new long[0];
+            
+            // 单写者计数器
+            private volatile long shippedOrders;
+            private volatile long cancelledOrders;
+            private volatile long notificationsSent;
+            private volatile long reservationsHandled;
+            private volatile long crossPartitionMessages;
+            
+            Partition(int index) {
+                this.index = index;
+                this.thread = new Thread(this, "Partition-" + index);
+                this.thread.setDaemon(true);
+            }
+            
+            /**
+             * 投递一条消息，任何线程都可以调用
+             */
+            void send(Runnable message) {
+                mailbox.offer(message);
+                if (parked) {
+                    LockSupport.unpark(thread);
+                }
+            }
+            
+            @Override
+            public void run() {
+                while (!Thread.currentThread().isInterrupted()) {
+                    Runnable message = mailbox.poll();
+                    if (message == null) {
+                        if (!running) {
+                            return;
+                        }
+                        // 先声明要park再检查邮箱：投递方要么在检查之前放入消息，要么看到parked并unpark
+                        parked = true;
+                        if (mailbox.isEmpty()) {
+                            LockSupport.park(this);
+                        }
+                        parked = false;
+                        continue;
+                    }
+                    try {
+                        message.run();
+                    } catch (RuntimeException e) {
+                        AsyncLog.errPrintln("❌ " + thread.getName() + " 处理消息失败: " + e);
+                    }
+                }
+            }
+            
+            // ==================== 客户侧 ====================
+            
+            private void startOrder(Order order, CompletableFuture<Order> future) {
+                PendingOrder pendingOrder = new PendingOrder(order, future);
+                try {
+                    // 没有商品的订单不会收到任何预留回复，直接取消
+                    if (order.getProductCount() == 0) {
+                        cancel(pendingOrder);
+                        return;
+                    }
+                    if (!order.compareAndSetStatus(OrderStatus.PENDING, OrderStatus.PROCESSING)) {
+                        future.complete(order);
+                        return;
+                    }
+                    work.perform(order, "验证");
+                    
+                    pending.put(order.getOrderId(), pendingOrder);
+                    int orderId = order.getOrderId();
+                    for (int i = 0; i < order.getProductCount(); i++) {
+                        int skuId = order.getProductId(i);
+                        Partition owner = partitionFor(skuId);
+                        if (owner == this) {
+                            onReserved(orderId, skuId, reserve(skuId));
+                        } else {
+                            crossPartitionMessages++;
+                            owner.send(() -> {
+                                boolean reserved = owner.reserve(skuId);
+                                send(() -> onReserved(orderId, skuId, reserved));
+                            });
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    future.completeExceptionally(e);
+                } catch (RuntimeException e) {
+                    fail(pendingOrder, e);
+                }
+            }
+            
+            private void onReserved(int orderId, int skuId, boolean reserved) {
+                PendingOrder pendingOrder = pending.get(orderId);
+                if (pendingOrder == null) {
+                    // 订单已因出错被取消，迟到的预留直接归还
+                    if (reserved) {
+                        returnStock(skuId);
+                    }
+                    return;
+                }
+                try {
+                    if (reserved) {
+                        pendingOrder.reservedSkuIds[pendingOrder.reservedCount++] = skuId;
+                    } else {
+                        pendingOrder.outOfStock = true;
+                    }
+                    if (--pendingOrder.awaitingReplies == 0) {
+                        pending.remove(orderId);
+                        if (pendingOrder.outOfStock) {
+                            cancel(pendingOrder);
+                        } else {
+                            complete(pendingOrder);
+                        }
+                    }
+                } catch (RuntimeException e) {
+                    fail(pendingOrder, e);
+                }
+            }
+            
+            /**
+             * 处理订单的消息抛出异常：订单取消并归还已预留的商品，future一定完成，等待它的调用方不会挂起
+             */
+            private void fail(PendingOrder pendingOrder, RuntimeException error) {
+                AsyncLog.errPrintln("❌ " + thread.getName() + " 处理订单 #" + pendingOrder.order.getOrderId() +
+                                   " 失败: " + error);
+                pending.remove(pendingOrder.order.getOrderId());
+                if (pendingOrder.future.isDone()) {
+                    return;
+                }
+                try {
+                    cancel(pendingOrder);
+                } catch (RuntimeException e) {
+                    pendingOrder.future.completeExceptionally(error);
+                }
+            }
+            
+            /**
+             * 缺货：把已预留的商品发回各自的分区归还，订单取消
+             */
+            private void cancel(PendingOrder pendingOrder) {
+                for (int i = 0; i < pendingOrder.reservedCount; i++) {
+                    returnStock(pendingOrder.reservedSkuIds[i]);
+                }
+                pendingOrder.order.transitionTo(OrderStatus.CANCELLED);
+                cancelledOrders++;
+                pendingOrder.future.complete(pendingOrder.order);
+            }
+            
+            private void returnStock(int skuId) {
+                Partition owner = partitionFor(skuId);
+                if (owner == this) {
+                    release(skuId);
+                } else {
+                    crossPartitionMessages++;
+                    owner.send(() -> owner.release(skuId));
+                }
+            }
+            
+            /**
+             * 支付、发货、通知，全部在客户分区上完成，不需要支付锁和通知锁
+             */
+            private void complete(PendingOrder pendingOrder) {
+                Order order = pendingOrder.order;
+                try {
+                    work.perform(order, "支付");
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    pendingOrder.future.completeExceptionally(e);
+                    return;
+                }
+                if (!order.compareAndSetStatus(OrderStatus.PROCESSING, OrderStatus.PAID) ||
+                    !order.compareAndSetStatus(OrderStatus.PAID, OrderStatus.SHIPPED)) {
+                    cancel(pendingOrder);
+                    return;
+                }
+                int customerId = order.getCustomerId();
+                if (customerId >= customerOrders.length) {
+                    int size = Math.max(customerId + 1, customerOrders.length * 2);
+                    customerOrders = Arrays.copyOf(customerOrders, size);
+                    customerCents = Arrays.copyOf(customerCents, size);
+                }
+                customerOrders[customerId]++;
+                customerCents[customerId] += order.getTotalAmountCents();
+                notificationsSent += NotificationChannel.values().length;
+                shippedOrders++;
+                pendingOrder.future.complete(order);
+            }
+            
+            // ==================== 商品侧 ====================
+            
+            private boolean reserve(int skuId) {
+                reservationsHandled++;
+                if (skuId >= stock.length || stock[skuId] <= 0) {
+                    return false;
+                }
+                stock[skuId]--;
+                return true;
+            }
+            
+            private void release(int skuId) {
+                stock[skuId]++;
+            }
+            
+            private void restock(int skuId, int quantity) {
+                if (skuId >= stock.length) {
+                    stock = Arrays.copyOf(stock, Math.max(skuId + 1, stock.length * 2));
+                }
+                stock[skuId] += quantity;
+            }
+            
+            public int getIndex() { return index; }
+            public long getShippedCount() { return shippedOrders; }
+            public long getCancelledCount() { return cancelledOrders; }
+            public long getNotificationCount() { return notificationsSent; }
+            public long getReservationCount() { return reservationsHandled; }
+            public long getCrossPartitionMessageCount() { return crossPartitionMessages; }
+        }
+        
+        private final Partition[] partitions;
+        private final StageWork work;
+        private volatile boolean running = true;
+        
+        /**
+         * @param partitionCount 分区数，通常等于CPU核数
+         * @param work 验证和支付的模拟耗时
+         */
+        public PartitionedOrderProcessor(int partitionCount, StageWork work) {
+            this.partitions = new Partition[partitionCount];
+            for (int i = 0; i < partitionCount; i++) {
+                partitions[i] = new Partition(i);
+            }
+            this.work = work;
+            for (Partition partition : partitions) {
+                partition.thread.start();
+            }
+        }
+        
+        /**
+         * 客户编号或SKU编号所在的分区；字典编号是连续的，取模即可均匀分布
+         */
+        Partition partitionFor(int dictionaryId) {
+            return partitions[dictionaryId % partitions.length];
+        }
+        
+        /**
+         * 补充库存：发给SKU所在的分区执行
+         */
+        public void restock(String sku, int quantity) {
+            int skuId = skuDictionary.intern(sku);
+            Partition owner = partitionFor(skuId);
+            owner.send(() -> owner.restock(skuId, quantity));
+        }
+        
+        /**
+         * 提交订单到下单客户所在的分区，立即返回；订单发货或取消时future完成
+         */
+        public CompletableFuture<Order> submit(Order order) {
+            CompletableFuture<Order> future = new CompletableFuture<>();
+            Partition partition = partitionFor(order.getCustomerId());
+            partition.send(() -> partition.startOrder(order, future));
+            return future;
+        }
+        
+        /**
+         * 查询剩余库存：作为消息发到SKU所在的分区读取，读到的是该分区处理完之前消息后的值
+         */
+        public CompletableFuture<Integer> getAvailable(String sku) {
+            CompletableFuture<Integer> result = new CompletableFuture<>();
+            int skuId = skuDictionary.intern(sku);
+            Partition owner = partitionFor(skuId);
+            owner.send(() -> result.complete(skuId < owner.stock.length ? owner.stock[skuId] : 0));
+            return result;
+        }
+        
+        public List<Partition> getPartitions() { return Arrays.asList(partitions); }
+        
+        public long getShippedCount() {
+            long total = 0;
+            for (Partition partition : partitions) {
+                total += partition.getShippedCount();
+            }
+            return total;
+        }
+        
+        public long getCancelledCount() {
+            long total = 0;
+            for (Partition partition : partitions) {
+                total += partition.getCancelledCount();
+            }
+            return total;
+        }
+        
+        public long getNotificationCount() {
+            long total = 0;
+            for (Partition partition : partitions) {
+                total += partition.getNotificationCount();
+            }
+            return total;
+        }
+        
+        public long getCrossPartitionMessageCount() {
+            long total = 0;
+            for (Partition partition : partitions) {
+                total += partition.getCrossPartitionMessageCount();
+            }
+            return total;
+        }
+        
+        /**
+         * 打印各分区处理的订单、库存预留和跨分区消息数
+         */
+        public void printReport() {
+            AsyncLog.println("\n📊 分区统计（" + partitions.length + " 个分区，按客户编号分配）:");
+            for (Partition partition : partitions) {
+                AsyncLog.println("  分区 " + partition.getIndex() +
+                                 " | 发货 " + partition.getShippedCount() +
+                                 " | 取消 " + partition.getCancelledCount() +
+                                 " | 库存预留 " + partition.getReservationCount() +
+                                 " | 跨分区消息 " + partition.getCrossPartitionMessageCount());
+            }
+        }
+        
+        /**
+         * 处理完邮箱中已有的消息后停止全部分区线程
+         */
+        public void shutdown() {
+            running = false;
+            for (Partition partition : partitions) {
+                LockSupport.unpark(partition.thread);
+            }
+            try {
+                for (Partition partition : partitions) {
+                    partition.thread.join(TimeUnit.SECONDS.toMillis(10));
+                }
             } catch (InterruptedException e) {
-                scheduledLogger.shutdownNow();
+                Thread.currentThread().interrupt();
             }
         }
     }
     
     /**
-     * 系统监控器 - 展示线程池监控功能
+     * 虚拟线程支持 - 通过反射调用JDK 21+的Executors.newVirtualThreadPerTaskExecutor()
+     * 源码保持Java 8兼容；运行在不支持虚拟线程的JDK上时回退为每任务一个平台线程
+     *
+     * 订单路径上的临界区使用ReentrantLock而非synchronized：虚拟线程在ReentrantLock上等待、
+     * 或持有它时sleep，都会让出载体线程，不会发生pinning
      */
-    static class SystemMonitor {
-        private final ThreadPoolExecutor monitoringPool;
+    static final class VirtualThreadSupport {
+        private static final Method NEW_VIRTUAL_EXECUTOR = findVirtualExecutorFactory();
+        private static final boolean AVAILABLE = probeVirtualThreads();
         
-        public SystemMonitor() {
-            monitoringPool = new ThreadPoolExecutor(
-                1, 2, 30L, TimeUnit.SECONDS,
-                new LinkedBlockingQueue<>(50)
-            );
+        private static Method findVirtualExecutorFactory() {
+            try {
+                return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            } catch (NoSuchMethodException e) {
+                return null;
+            }
         }
         
-        public void monitorOrderProcessing(List<Order> orders) {
-            monitoringPool.submit(() -> {
-                try {
-                    System.out.println("\n🔍 开始监控系统状态...");
-                    
-                    // 模拟监控过程
-                    for (int i = 0; i < 10; i++) {
-                        Thread.sleep(1000);
-                        
-                        int activeOrders = (int) orders.stream()
-                            .filter(o -> o.getStatus() == OrderStatus.PROCESSING || 
-                                        o.getStatus() == OrderStatus.PAID)
-                            .count();
-                        
-                        System.out.println("📊 监控点 " + (i+1) + ": 活跃订单 " + activeOrders + 
-                                         " 个，已完成 " + totalOrdersProcessed.get() + " 个");
-                    }
-                    
-                    System.out.println("✅ 监控任务完成\n");
-                    
-                } catch (InterruptedException e) {
-                    System.err.println("❌ 监控系统被中断");
-                }
-            });
+        private VirtualThreadSupport() {
         }
         
-        public void shutdown() {
-            monitoringPool.shutdown();
+        /**
+         * 当前JDK是否可以创建虚拟线程
+         */
+        static boolean isAvailable() {
+            return AVAILABLE;
+        }
+        
+        private static boolean probeVirtualThreads() {
+            if (NEW_VIRTUAL_EXECUTOR == null) {
+                return false;
+            }
+            // JDK 19/20中虚拟线程是预览特性，未开启--enable-preview时调用会失败
             try {
-                monitoringPool.awaitTermination(15, TimeUnit.SECONDS);
-            } catch (InterruptedException e) {
-                monitoringPool.shutdownNow();
+                ((ExecutorService) NEW_VIRTUAL_EXECUTOR.invoke(null)).shutdown();
+                return true;
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                return false;
+            }
+        }
+        
+        /**
+         * 每个任务一个虚拟线程；不支持时回退为每个任务一个平台线程
+         */
+        static ExecutorService newThreadPerTaskExecutor(String platformNamePrefix) {
+            if (AVAILABLE) {
+                try {
+                    return (ExecutorService) NEW_VIRTUAL_EXECUTOR.invoke(null);
+                } catch (ReflectiveOperationException | RuntimeException e) {
+                    // 回退到平台线程
+                }
             }
+            return newPlatformThreadPerTaskExecutor(platformNamePrefix);
+        }
+        
+        /**
+         * 每个任务一个平台线程（无界线程池，空闲线程60秒后回收）
+         */
+        static ExecutorService newPlatformThreadPerTaskExecutor(String namePrefix) {
+            AtomicInteger counter = new AtomicInteger(0);
+            return Executors.newCachedThreadPool(r -> new Thread(r, namePrefix + "-" + counter.incrementAndGet()));
         }
     }
     
     // ==================== 主方法和综合演示 ====================
     
     public static void main(String[] args) {
-        System.out.println(repeat("=", 80));
-        System.out.println("🎓 ComprehensiveThreadDemo - Java多线程综合应用演示");
-        System.out.println("模拟真实电商订单系统的完整多线程架构");
-        System.out.println(repeat("=", 80));
+        String mode = args.length > 0 ? args[0] : MODE_SEQUENTIAL;
+        
+        AsyncLog.println(repeat("=", 80));
+        AsyncLog.println("🎓 ComprehensiveThreadDemo - Java多线程综合应用演示");
+        AsyncLog.println("模拟真实电商订单系统的完整多线程架构");
+        AsyncLog.println(repeat("=", 80));
         
         try {
             // 显示系统开始信息
             showSystemStartInfo();
             
+            // 可选：-Dmetrics.port 启动指标端点
+            startMetricsEndpoint();
+            
+            // 初始化商品库存
+            initializeStock();
+            
             // 演示1: 基础概念展示
             demonstrateBasicConcepts();
             
@@ -445,7 +3402,7 @@ public class ComprehensiveThreadDemo {
             demonstrateThreadCreationMethods();
             
             // 演示3: 真实应用场景模拟
-            demonstrateEcommerceSystem();
+            demonstrateEcommerceSystem(mode);
             
             // 演示4: 性能监控和统计分析
             demonstratePerformanceMonitoring();
@@ -454,61 +3411,115 @@ public class ComprehensiveThreadDemo {
             demonstrateBestPractices();
             
         } catch (Exception e) {
-            System.err.println("❌ 系统运行出现错误: " + e.getMessage());
+            AsyncLog.errPrintln("❌ 系统运行出现错误: " + e.getMessage());
             e.printStackTrace();
         } finally {
-            System.out.println("\n🎉 综合演示完成！");
+            notificationHub.shutdown();
+            if (orderJournal != null) {
+                orderJournal.close();
+            }
+            MetricsServer.shared().stop();
+            AsyncLog.println("\n🎉 综合演示完成！");
             printFinalSummary();
         }
     }
     
+    /**
+     * 按-Dmetrics.port启动Prometheus指标端点，登记全局计数器、状态计数、延迟直方图和通知中心
+     * 各演示创建的库存服务、工作流和监控器在创建后各自登记
+     */
+    private static void startMetricsEndpoint() {
+        MetricsServer metrics = MetricsServer.shared();
+        metrics.counter("orders_processed_total", "处理完成的订单数", () -> (long) totalOrdersProcessed.get());
+        metrics.counter("payments_processed_total", "处理完成的支付数", () -> (long) totalPaymentsProcessed.get());
+        metrics.counter("notifications_sent_total", "发送的通知数", () -> (long) totalNotificationsSent.get());
+        metrics.counter("orders_timed_out_total", "超过截止时间被取消的订单数", () -> (long) totalOrdersTimedOut.get());
+        for (OrderStatus status : OrderStatus.values()) {
+            metrics.gauge("orders", "各状态的订单数", () -> orderStatusCounters.get(status),
+                          "status", status.name().toLowerCase());
+        }
+        metrics.gauge("orders_active", "尚未到达终态的订单数", orderStatusCounters::getActive);
+        metrics.gauge("revenue_cents", "营业额（分），已支付订单取消时冲减", revenueLedger::getTotalCentsWithoutLocking);
+        String[] stages = {"end_to_end", "validation", "inventory", "payment", "notification"};
+        for (int i = 0; i < latencyHistograms.length; i++) {
+            metrics.histogram("order_stage_seconds", "订单端到端及各阶段延迟", latencyHistograms[i], "stage", stages[i]);
+        }
+        metrics.gauge("dictionary_entries", "字典中的字符串数", () -> (long) skuDictionary.size(), "dictionary", "sku");
+        metrics.gauge("dictionary_entries", "字典中的字符串数", () -> (long) customerDictionary.size(),
+                      "dictionary", "customer");
+        AsyncLog log = AsyncLog.shared();
+        metrics.counter("asynclog_written_total", "异步日志写出的行数", log::getWrittenCount);
+        metrics.counter("asynclog_dropped_total", "缓冲区满时丢弃的行数", log::getDroppedCount);
+        metrics.counter("asynclog_blocked_total", "缓冲区满时等待的次数", log::getBlockedCount);
+        if (orderJournal != null) {
+            metrics.counter("journal_records_total", "写入订单日志的记录数", orderJournal::getRecordCount);
+            metrics.counter("journal_bytes_total", "写入订单日志的字节数", orderJournal::getByteCount);
+            metrics.counter("journal_forces_total", "订单日志刷盘次数", orderJournal::getForceCount);
+        }
+        notificationHub.registerMetrics(metrics);
+        
+        String endpoint = metrics.startFromSystemProperty();
+        if (endpoint != null) {
+            AsyncLog.println("  📡 指标端点: " + endpoint + "（Prometheus文本格式）");
+        }
+    }
+    
     /**
      * 显示系统开始信息
      */
     private static void showSystemStartInfo() {
-        System.out.println("\n📋 系统启动信息:");
-        System.out.println("  🖥️ 操作系统: " + System.getProperty("os.name"));
-        System.out.println("  ☕ Java版本: " + System.getProperty("java.version"));
-        System.out.println("  💻 CPU核心数: " + Runtime.getRuntime().availableProcessors());
-        System.out.println("  📊 最大内存: " + (Runtime.getRuntime().maxMemory() / 1024 / 1024) + "MB");
-        System.out.println("  ⏰ 启动时间: " + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
+        AsyncLog.println("\n📋 系统启动信息:");
+        AsyncLog.println("  🖥️ 操作系统: " + System.getProperty("os.name"));
+        AsyncLog.println("  ☕ Java版本: " + System.getProperty("java.version"));
+        AsyncLog.println("  💻 CPU核心数: " + Runtime.getRuntime().availableProcessors());
+        AsyncLog.println("  📊 最大内存: " + (Runtime.getRuntime().maxMemory() / 1024 / 1024) + "MB");
+        AsyncLog.println("  ⏰ 启动时间: " + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
+        AsyncLog.println("  ⏰ 订单截止时间: " + ORDER_DEADLINE_MILLIS + "ms（-Dorder.deadline.millis 调整）");
+        AsyncLog.println("  💾 订单日志: " + (orderJournal == null
+            ? "未启用（-Dorder.journal=目录 启用）"
+            : orderJournal.getDirectory() + "，刷盘策略 " + orderJournal.getPolicy()));
+        if (orderJournal != null) {
+            AsyncLog.println("  ♻️ 订单恢复: " + (recoveredOrders == null
+                ? "无历史日志"
+                : recoveredOrders.format() + "，状态分布 " + recoveredOrders.getStatusCounts()));
+        }
     }
     
     /**
      * 演示1: 基础概念展示
      */
     private static void demonstrateBasicConcepts() {
-        System.out.println("\n" + padEnd("🔸 演示1: 多线程基础概念回顾", 70, ' '));
-        System.out.println(repeat("-", 70));
+        AsyncLog.println("\n" + padEnd("🔸 演示1: 多线程基础概念回顾", 70, ' '));
+        AsyncLog.println(repeat("-", 70));
         
-        System.out.println("📚 进程 vs 线程:");
-        System.out.println("  • 进程: 程序执行的基本单位，拥有独立内存空间");
-        System.out.println("  • 线程: CPU调度的基本单位，同一进程内共享内存");
+        AsyncLog.println("📚 进程 vs 线程:");
+        AsyncLog.println("  • 进程: 程序执行的基本单位，拥有独立内存空间");
+        AsyncLog.println("  • 线程: CPU调度的基本单位，同一进程内共享内存");
         
-        System.out.println("\n🏗️ 线程创建方式对比:");
-        System.out.println("  1️⃣ 继承Thread: 代码简单，但类无法再继承其他类");
-        System.out.println("  2️⃣ 实现Runnable: 更灵活，任务与线程分离");
-        System.out.println("  3️⃣ 线程池: 高效管理，适合大量并发任务");
+        AsyncLog.println("\n🏗️ 线程创建方式对比:");
+        AsyncLog.println("  1️⃣ 继承Thread: 代码简单，但类无法再继承其他类");
+        AsyncLog.println("  2️⃣ 实现Runnable: 更灵活，任务与线程分离");
+        AsyncLog.println("  3️⃣ 线程池: 高效管理，适合大量并发任务");
         
-        System.out.println("\n⚡ 并发优势:");
-        System.out.println("  • 提高系统吞吐量");
-        System.out.println("  • 提升用户体验");
-        System.out.println("  • 充分利用多核CPU");
-        System.out.println("  • 异步处理耗时任务");
+        AsyncLog.println("\n⚡ 并发优势:");
+        AsyncLog.println("  • 提高系统吞吐量");
+        AsyncLog.println("  • 提升用户体验");
+        AsyncLog.println("  • 充分利用多核CPU");
+        AsyncLog.println("  • 异步处理耗时任务");
     }
     
     /**
      * 演示2: 三种线程创建方式对比
      */
     private static void demonstrateThreadCreationMethods() {
-        System.out.println("\n" + padEnd("🔸 演示2: 三种线程创建方式实际对比", 70, ' '));
-        System.out.println(repeat("-", 70));
+        AsyncLog.println("\n" + padEnd("🔸 演示2: 三种线程创建方式实际对比", 70, ' '));
+        AsyncLog.println(repeat("-", 70));
         
         // 创建测试订单
         List<Order> testOrders = createTestOrders(6);
         
-        System.out.println("🧪 创建" + testOrders.size() + "个测试订单用于对比演示");
-        testOrders.forEach(order -> System.out.println("  📝 " + order));
+        AsyncLog.println("🧪 创建" + testOrders.size() + "个测试订单用于对比演示");
+        testOrders.forEach(order -> AsyncLog.println("  📝 " + order));
         
         // 方式1: 继承Thread
         demonstrateThreadExtends(testOrders.subList(0, 2));
@@ -524,7 +3535,7 @@ public class ComprehensiveThreadDemo {
      * 演示Thread继承方式
      */
     private static void demonstrateThreadExtends(List<Order> orders) {
-        System.out.println("\n🔹 方式1: 继承Thread方式");
+        AsyncLog.println("\n🔹 方式1: 继承Thread方式");
         
         List<Thread> threads = new ArrayList<>();
         for (Order order : orders) {
@@ -539,14 +3550,14 @@ public class ComprehensiveThreadDemo {
         });
         long endTime = System.currentTimeMillis();
         
-        System.out.println("✅ 继承Thread方式完成，耗时: " + (endTime - startTime) + "ms");
+        AsyncLog.println("✅ 继承Thread方式完成，耗时: " + (endTime - startTime) + "ms");
     }
     
     /**
      * 演示Runnable实现方式
      */
     private static void demonstrateRunnable(List<Order> orders) {
-        System.out.println("\n🔹 方式2: 实现Runnable方式");
+        AsyncLog.println("\n🔹 方式2: 实现Runnable方式");
         
         ExecutorService executor = Executors.newFixedThreadPool(2);
         List<Future<?>> futures = new ArrayList<>();
@@ -565,14 +3576,14 @@ public class ComprehensiveThreadDemo {
         executor.shutdown();
         long endTime = System.currentTimeMillis();
         
-        System.out.println("✅ 实现Runnable方式完成，耗时: " + (endTime - startTime) + "ms");
+        AsyncLog.println("✅ 实现Runnable方式完成，耗时: " + (endTime - startTime) + "ms");
     }
     
     /**
      * 演示线程池方式
      */
     private static void demonstrateThreadPool(List<Order> orders) {
-        System.out.println("\n🔹 方式3: 线程池方式");
+        AsyncLog.println("\n🔹 方式3: 线程池方式");
         
         InventoryManagementService inventoryService = new InventoryManagementService();
         
@@ -583,25 +3594,37 @@ public class ComprehensiveThreadDemo {
         inventoryService.shutdown();
         long endTime = System.currentTimeMillis();
         
-        System.out.println("✅ 线程池方式完成，耗时: " + (endTime - startTime) + "ms");
+        AsyncLog.println("✅ 线程池方式完成，耗时: " + (endTime - startTime) + "ms");
     }
     
     /**
      * 演示3: 真实电商系统模拟
+     * @param mode 执行模式：sequential 逐个处理订单，pipeline 分阶段流水线并发处理，
+     *             workflow 基于CompletableFuture的异步工作流，virtual 每个订单一个虚拟线程，
+     *             load 以开环负载驱动异步工作流并输出吞吐量-延迟曲线，
+     *             partitioned 按客户散列到单线程分区、分区间通过消息预留库存，
+     *             ringbuffer 订单写入预分配的环形缓冲，各阶段消费者按依赖顺序读取同一槽位
      */
-    private static void demonstrateEcommerceSystem() {
-        System.out.println("\n" + padEnd("🔸 演示3: 真实电商订单系统模拟", 70, ' '));
-        System.out.println(repeat("-", 70));
+    private static void demonstrateEcommerceSystem(String mode) {
+        AsyncLog.println("\n" + padEnd("🔸 演示3: 真实电商订单系统模拟 (" + mode + ")", 70, ' '));
+        AsyncLog.println(repeat("-", 70));
+        
+        if (MODE_LOAD.equals(mode)) {
+            demonstrateOpenLoopLoad();
+            return;
+        }
         
         // 初始化系统组件
         InventoryManagementService inventoryService = new InventoryManagementService();
         LoggingService loggingService = new LoggingService();
-        SystemMonitor systemMonitor = new SystemMonitor();
+        SystemMonitor systemMonitor = new SystemMonitor(10);
+        inventoryService.registerMetrics(MetricsServer.shared());
+        systemMonitor.registerMetrics(MetricsServer.shared());
         
         // 创建测试订单
         List<Order> orders = createTestOrders(10);
         
-        System.out.println("🏪 电商系统启动，处理" + orders.size() + "个订单...");
+        AsyncLog.println("🏪 电商系统启动，处理" + orders.size() + "个订单...");
         
         // 启动性能日志记录
         loggingService.startPerformanceLogging();
@@ -611,9 +3634,94 @@ public class ComprehensiveThreadDemo {
         
         long systemStartTime = System.currentTimeMillis();
         
-        // 处理每个订单
+        if (MODE_PIPELINE.equals(mode)) {
+            processOrdersPipelined(orders, inventoryService);
+        } else if (MODE_WORKFLOW.equals(mode)) {
+            processOrdersWithWorkflow(orders, inventoryService);
+        } else if (MODE_VIRTUAL.equals(mode)) {
+            processOrdersOnVirtualThreads(orders, inventoryService);
+        } else if (MODE_PARTITIONED.equals(mode)) {
+            processOrdersPartitioned(orders);
+        } else if (MODE_RING.equals(mode)) {
+            processOrdersWithRingBuffer(orders, inventoryService);
+        } else {
+            processOrdersSequentially(orders, inventoryService);
+        }
+        
+        // 等待库存服务完成
+        inventoryService.shutdown();
+        
+        // 停止日志记录
+        loggingService.stopLogging();
+        
+        // 停止监控
+        systemMonitor.shutdown();
+        
+        long systemEndTime = System.currentTimeMillis();
+        
+        AsyncLog.println("\n🏁 电商系统处理完成，总耗时: " + (systemEndTime - systemStartTime) + "ms");
+        printOrderStatistics(orders);
+    }
+    
+    /**
+     * 开环负载测试：按一组目标速率持续向异步工作流发送订单，输出吞吐量-延迟曲线
+     * 速率和每档持续时间可通过 -Dload.rates=0.5,1,1.5,2 和 -Dload.seconds=8 调整
+     */
+    private static void demonstrateOpenLoopLoad() {
+        String[] rateValues = System.getProperty("load.rates", "0.5,1,1.5,2").split(",");
+        long seconds = Long.getLong("load.seconds", 8);
+        
+        // 负载测试关注延迟，库存充足，避免订单因缺货被提前取消
+        for (String product : PRODUCT_CATALOG) {
+            stockEngine.restock(product, 100_000);
+        }
+        
+        InventoryManagementService inventoryService = new InventoryManagementService();
+        PaymentBatcher paymentBatcher = new PaymentBatcher(8, 200, TimeUnit.MILLISECONDS,
+                                                           PaymentBatcher.simulatedGateway());
+        OrderWorkflow workflow = new OrderWorkflow(16, inventoryService, paymentBatcher);
+        inventoryService.registerMetrics(MetricsServer.shared());
+        workflow.registerMetrics(MetricsServer.shared());
+        OrderLoadGenerator generator = newOrderGenerator(1000, 7);
+        
+        List<OrderLoadGenerator.RunResult> curve = new ArrayList<>();
+        try {
+            for (String value : rateValues) {
+                double rate = Double.parseDouble(value.trim());
+                AsyncLog.println("\n🚦 开环负载: 泊松到达 " + rate + " 订单/秒，持续 " + seconds + " 秒");
+                curve.add(generator.run(rate, OrderLoadGenerator.ArrivalPattern.POISSON, 1,
+                                        seconds * 1000, 60_000, workflow::submit));
+            }
+            double burstRate = Double.parseDouble(rateValues[0].trim());
+            AsyncLog.println("\n🚦 开环负载: 突发到达（平均每批4单） " + burstRate + " 订单/秒，持续 " + seconds + " 秒");
+            curve.add(generator.run(burstRate, OrderLoadGenerator.ArrivalPattern.BURSTY, 4,
+                                    seconds * 1000, 60_000, workflow::submit));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        
+        AsyncLog.println("\n📈 吞吐量-延迟曲线（延迟从计划到达时间算起，服务p99从实际发送算起）:");
+        AsyncLog.println(OrderLoadGenerator.RunResult.formatHeader());
+        for (OrderLoadGenerator.RunResult point : curve) {
+            AsyncLog.println(point.formatRow());
+        }
+        AsyncLog.println("⏰ 超过截止时间（" + ORDER_DEADLINE_MILLIS + "ms）被取消: " + workflow.getTimedOutCount() +
+                         " 个，计入上表的完成数");
+        paymentBatcher.printStats();
+        
+        paymentBatcher.shutdown();
+        workflow.shutdown();
+        inventoryService.shutdown();
+    }
+    
+    /**
+     * 逐个处理订单：每个订单走完全部步骤后才开始下一个
+     * 截止时间从订单开始处理时算起，排在后面的订单不会因为等待前面的订单而超时
+     */
+    private static void processOrdersSequentially(List<Order> orders, InventoryManagementService inventoryService) {
         for (Order order : orders) {
-            System.out.println("\n🛍️ ===== 开始处理订单 #" + order.getOrderId() + " =====");
+            AsyncLog.println("\n🛍️ ===== 开始处理订单 #" + order.getOrderId() + " =====");
+            armDeadline(order);
             
             try {
                 // 订单处理（继承Thread方式）
@@ -621,72 +3729,368 @@ public class ComprehensiveThreadDemo {
                 processor.start();
                 processor.join();
                 
-                // 支付处理（实现Runnable方式）
+                if (order.getStatus() == OrderStatus.CANCELLED) {
+                    AsyncLog.println("⛔ 订单 #" + order.getOrderId() + (order.isTimedOut() ? " 已超时" : " 已取消") +
+                                     "，跳过后续步骤");
+                    finishOrder(order);
+                    continue;
+                }
+                
+                // 支付处理（实现Runnable方式），支付任务登记为订单的子任务，超时时被中断
                 CountDownLatch paymentLatch = new CountDownLatch(1);
                 ExecutorService paymentExecutor = Executors.newSingleThreadExecutor();
-                paymentExecutor.submit(new PaymentProcessorRunnable(order, paymentLatch));
-                paymentLatch.await();
+                order.registerSubTask(paymentExecutor.submit(new PaymentProcessorRunnable(order, paymentLatch)));
+                if (!paymentLatch.await(order.remainingNanos(), TimeUnit.NANOSECONDS)) {
+                    expireOrder(order, "支付");
+                }
                 paymentExecutor.shutdown();
                 
-                // 通知发送（匿名Runnable和Lambda）
-                sendNotifications(order);
-                
-                // 库存管理（线程池方式）
-                inventoryService.processInventoryUpdate(order);
+                if (order.getStatus() != OrderStatus.CANCELLED) {
+                    // 通知发送（匿名Runnable和Lambda）
+                    sendNotifications(order);
+                    
+                    // 库存管理（线程池方式）
+                    inventoryService.processInventoryUpdate(order);
+                }
                 
-                order.setEndTime(System.currentTimeMillis());
+                finishOrder(order);
                 long processingTime = order.getEndTime() - order.getStartTime();
-                totalProcessingTime.addAndGet(processingTime);
                 
-                System.out.println("✅ 订单 #" + order.getOrderId() + " 处理完成，耗时: " + processingTime + "ms");
+                if (order.isTimedOut()) {
+                    AsyncLog.println("⏰ 订单 #" + order.getOrderId() + " 超过截止时间被取消，耗时: " + processingTime + "ms");
+                } else {
+                    AsyncLog.println("✅ 订单 #" + order.getOrderId() + " 处理完成，耗时: " + processingTime + "ms");
+                }
                 
             } catch (InterruptedException e) {
-                System.err.println("❌ 订单 #" + order.getOrderId() + " 处理被中断");
-                order.setStatus(OrderStatus.CANCELLED);
+                AsyncLog.errPrintln("❌ 订单 #" + order.getOrderId() + " 处理被中断");
+                cancelOrder(order);
+                finishOrder(order);
             }
         }
+    }
+    
+    /**
+     * 流水线处理订单：验证 → 库存检查 → 支付 → 通知 → 库存更新
+     * 每个阶段有独立的有界队列和线程，多个订单同时在途
+     */
+    private static void processOrdersPipelined(List<Order> orders, InventoryManagementService inventoryService) {
+        PaymentBatcher paymentBatcher = new PaymentBatcher(8, 500, TimeUnit.MILLISECONDS,
+                                                           PaymentBatcher.simulatedGateway());
+        OrderPipeline pipeline = new OrderPipeline(16)
+            .addStage("验证", 4, order ->
+                OrderProcessorThread.validateOrder(order, Thread.currentThread().getName()))
+            .addStage("库存检查", 2, order ->
+                OrderProcessorThread.checkInventory(order, Thread.currentThread().getName()))
+            .addStage("支付", 8, order -> {
+                String worker = Thread.currentThread().getName();
+                if (order.getStatus() != OrderStatus.PROCESSING) {
+                    return;
+                }
+                
+                // 扣款只在批量提交器中进行：与同时在途的其他订单合并为一次网关调用，结算后订单转为PAID
+                try {
+                    paymentBatcher.submit(order).get(order.remainingNanos(), TimeUnit.NANOSECONDS);
+                } catch (TimeoutException e) {
+                    expireOrder(order, "批量结算");
+                    return;
+                } catch (CancellationException e) {
+                    return;  // 订单已超时，结算被取消
+                } catch (ExecutionException e) {
+                    AsyncLog.errPrintln("❌ 订单 #" + order.getOrderId() + " 结算失败: " + e.getCause());
+                    cancelOrder(order);
+                    return;
+                }
+                
+                OrderProcessorThread.markShipped(order, worker);
+            })
+            .addStage("通知", 4, ComprehensiveThreadDemo::sendNotifications)
+            .addStage("库存更新", 2, inventoryService::updateInventory);
+        
+        try {
+            pipeline.process(orders);
+            pipeline.printReport();
+            paymentBatcher.printStats();
+        } catch (InterruptedException e) {
+            AsyncLog.errPrintln("❌ 流水线处理被中断");
+            Thread.currentThread().interrupt();
+        } finally {
+            pipeline.shutdown();
+            paymentBatcher.shutdown();
+        }
+    }
+    
+    /**
+     * 异步工作流处理订单：提交后立即返回future，阶段之间由回调衔接
+     */
+    private static void processOrdersWithWorkflow(List<Order> orders, InventoryManagementService inventoryService) {
+        PaymentBatcher paymentBatcher = new PaymentBatcher(8, 200, TimeUnit.MILLISECONDS,
+                                                           PaymentBatcher.simulatedGateway());
+        OrderWorkflow workflow = new OrderWorkflow(8, inventoryService, paymentBatcher);
+        workflow.registerMetrics(MetricsServer.shared());
+        
+        long startNanos = System.nanoTime();
+        List<CompletableFuture<Order>> futures = new ArrayList<>();
+        for (Order order : orders) {
+            futures.add(workflow.submit(order));
+        }
+        AsyncLog.println("📨 已提交 " + futures.size() + " 个订单，在途 " + workflow.getInFlightCount() + " 个");
         
-        // 等待库存服务完成
-        inventoryService.shutdown();
+        // 只有演示主线程在最后等待全部订单完成
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+        double seconds = (System.nanoTime() - startNanos) / 1_000_000_000.0;
         
-        // 停止日志记录
-        loggingService.stopLogging();
+        AsyncLog.println("\n📊 异步工作流统计:");
+        AsyncLog.println("  ✅ 完成 " + workflow.getCompletedCount() + " 个，⛔ 取消 " + workflow.getCancelledCount() +
+                         " 个，⏰ 超时 " + workflow.getTimedOutCount() + " 个");
+        AsyncLog.println("  🚀 端到端吞吐量: " + String.format("%.2f", orders.size() / seconds) + " 订单/秒");
+        paymentBatcher.printStats();
         
-        // 停止监控
-        systemMonitor.shutdown();
+        paymentBatcher.shutdown();
+        workflow.shutdown();
+    }
+    
+    /**
+     * 每个订单一个虚拟线程：订单在自己的线程上按顺序阻塞执行全部步骤
+     * 阻塞等待（sleep、锁、future.get）只挂起虚拟线程，不占用载体线程
+     */
+    private static void processOrdersOnVirtualThreads(List<Order> orders, InventoryManagementService inventoryService) {
+        boolean virtual = VirtualThreadSupport.isAvailable();
+        AsyncLog.println(virtual
+            ? "🧵 使用虚拟线程，每个订单一个线程"
+            : "⚠️ 当前JDK不支持虚拟线程（需要JDK 21+），回退为每个订单一个平台线程");
         
-        long systemEndTime = System.currentTimeMillis();
+        PaymentBatcher paymentBatcher = new PaymentBatcher(8, 200, TimeUnit.MILLISECONDS,
+                                                           PaymentBatcher.simulatedGateway());
+        ExecutorService orderExecutor = VirtualThreadSupport.newThreadPerTaskExecutor("OrderTask");
         
-        System.out.println("\n🏁 电商系统处理完成，总耗时: " + (systemEndTime - systemStartTime) + "ms");
-        printOrderStatistics(orders);
+        long startNanos = System.nanoTime();
+        for (Order order : orders) {
+            orderExecutor.execute(() -> processOrderBlocking(order, inventoryService, paymentBatcher));
+        }
+        orderExecutor.shutdown();
+        try {
+            orderExecutor.awaitTermination(5, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            orderExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        double seconds = (System.nanoTime() - startNanos) / 1_000_000_000.0;
+        
+        AsyncLog.println("\n📊 " + (virtual ? "虚拟线程" : "平台线程") + "模式统计:");
+        AsyncLog.println("  🚀 端到端吞吐量: " + String.format("%.2f", orders.size() / seconds) + " 订单/秒");
+        paymentBatcher.printStats();
+        paymentBatcher.shutdown();
+    }
+    
+    /**
+     * 分区模式处理订单：按客户编号分配到单线程分区，分区独占自己的状态，跨分区的库存预留通过消息完成
+     * 不使用全局库存锁、支付锁和通知锁；分区线程不能被计时器打断，此模式不设置订单截止时间
+     * 分区的库存从当前库存复制一份，分区内的预留不回写全局库存引擎
+     */
+    private static void processOrdersPartitioned(List<Order> orders) {
+        int partitionCount = Integer.getInteger("partitions", Math.max(2, Runtime.getRuntime().availableProcessors()));
+        PartitionedOrderProcessor processor = new PartitionedOrderProcessor(partitionCount, (order, stage) -> {
+            AsyncLog.println("🧩 " + Thread.currentThread().getName() + " 订单#" + order.getOrderId() + " " + stage);
+            Thread.sleep("验证".equals(stage) ? 100 : 200);
+        });
+        for (String product : PRODUCT_CATALOG) {
+            processor.restock(product, stockEngine.getAvailable(product));
+        }
+        AsyncLog.println("🧩 " + partitionCount + " 个分区，订单按客户编号分配，商品库存按SKU编号分配");
+        
+        long startNanos = System.nanoTime();
+        List<CompletableFuture<Order>> futures = new ArrayList<>();
+        for (Order order : orders) {
+            futures.add(processor.submit(order).whenComplete((done, error) -> {
+                finishOrder(order);
+                AsyncLog.println((order.getStatus() == OrderStatus.SHIPPED ? "✅ 订单 #" : "⛔ 订单 #") +
+                                 order.getOrderId() + " " + order.getStatus() + "，耗时: " +
+                                 (order.getEndTime() - order.getStartTime()) + "ms");
+            }));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+        double seconds = (System.nanoTime() - startNanos) / 1_000_000_000.0;
+        processor.shutdown();
+        
+        // 分区计数器是单写者的，全部处理完后汇总到全局统计
+        totalOrdersProcessed.addAndGet((int) processor.getShippedCount());
+        totalPaymentsProcessed.addAndGet((int) processor.getShippedCount());
+        totalNotificationsSent.addAndGet((int) processor.getNotificationCount());
+        
+        processor.printReport();
+        AsyncLog.println("  ✅ 发货 " + processor.getShippedCount() + " 个，⛔ 取消 " + processor.getCancelledCount() +
+                         " 个，📨 跨分区消息 " + processor.getCrossPartitionMessageCount() + " 条");
+        AsyncLog.println("  🚀 端到端吞吐量: " + String.format("%.2f", orders.size() / seconds) + " 订单/秒");
+    }
+    
+    /**
+     * 环形缓冲模式处理订单：订单写入预分配的槽位，验证 → 支付 → 通知 三个消费者按依赖顺序读取同一个槽位
+     * 每个消费者一个线程，槽位中的订单不在阶段之间搬运；等待策略通过 -Dring.wait=BUSY_SPIN/YIELD/PARK 选择
+     */
+    private static void processOrdersWithRingBuffer(List<Order> orders, InventoryManagementService inventoryService) {
+        OrderRingBuffer.WaitStrategy waitStrategy = OrderRingBuffer.WaitStrategy.valueOf(
+            System.getProperty("ring.wait", OrderRingBuffer.WaitStrategy.PARK.name()).toUpperCase());
+        OrderRingBuffer<OrderEvent> ring = new OrderRingBuffer<>(16, OrderEvent::new, waitStrategy);
+        CountDownLatch completed = new CountDownLatch(orders.size());
+        
+        OrderRingBuffer<OrderEvent>.EventProcessor validation = ring.handleEventsWith("验证", (event, sequence, endOfBatch) -> {
+            String worker = Thread.currentThread().getName();
+            if (OrderProcessorThread.validateOrder(event.order, worker)) {
+                OrderProcessorThread.checkInventory(event.order, worker);
+            }
+        });
+        OrderRingBuffer<OrderEvent>.EventProcessor payment = ring.handleEventsWith("支付", (event, sequence, endOfBatch) -> {
+            String worker = Thread.currentThread().getName();
+            if (event.order.getStatus() == OrderStatus.PROCESSING &&
+                OrderProcessorThread.processPayment(event.order, worker)) {
+                OrderProcessorThread.markShipped(event.order, worker);
+            }
+        }, validation);
+        ring.handleEventsWith("通知", (event, sequence, endOfBatch) -> {
+            Order order = event.order;
+            try {
+                if (order.getStatus() == OrderStatus.SHIPPED) {
+                    sendNotifications(order);
+                    inventoryService.updateInventory(order);
+                }
+            } finally {
+                // 最后一个消费者处理完后槽位可以被下一圈复用
+                event.clear();
+                finishOrder(order);
+                completed.countDown();
+            }
+        }, payment);
+        ring.start();
+        AsyncLog.println("💍 环形缓冲: " + ring.getCapacity() + " 个槽位，等待策略 " + waitStrategy +
+                         "，消费者 验证 → 支付 → 通知");
+        
+        long startNanos = System.nanoTime();
+        for (Order order : orders) {
+            armDeadline(order);
+            ring.publishEvent(OrderEvent::set, order);
+        }
+        try {
+            completed.await();
+            ring.shutdown(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            AsyncLog.errPrintln("❌ 环形缓冲处理被中断");
+            Thread.currentThread().interrupt();
+        }
+        double seconds = (System.nanoTime() - startNanos) / 1_000_000_000.0;
+        
+        AsyncLog.println("\n📊 环形缓冲统计:");
+        for (OrderRingBuffer<OrderEvent>.EventProcessor processor : ring.getProcessors()) {
+            AsyncLog.println("  " + processor.getName() + ": 处理到序号 " + processor.getSequence() +
+                             "，" + processor.getBatchCount() + " 批，平均每批 " +
+                             String.format("%.1f", processor.getAverageBatchSize()) + " 个，最大 " +
+                             processor.getMaxBatchSize() + " 个");
+        }
+        AsyncLog.println("  ⏳ 生产者因缓冲区满等待 " + ring.getProducerWaitCount() + " 次");
+        AsyncLog.println("  🚀 端到端吞吐量: " + String.format("%.2f", orders.size() / seconds) + " 订单/秒");
+    }
+    
+    /**
+     * 在当前线程上阻塞式地处理一个订单的全部步骤
+     */
+    static void processOrderBlocking(Order order, InventoryManagementService inventoryService,
+                                     PaymentBatcher paymentBatcher) {
+        // 虚拟线程默认没有名字，用订单号标识
+        String worker = "OrderTask-" + order.getOrderId();
+        armDeadline(order);
+        try {
+            if (OrderProcessorThread.validateOrder(order, worker) &&
+                OrderProcessorThread.checkInventory(order, worker) &&
+                order.getStatus() == OrderStatus.PROCESSING) {
+                // 扣款只在批量提交器中进行，结算后订单转为PAID
+                paymentBatcher.submit(order).get(order.remainingNanos(), TimeUnit.NANOSECONDS);
+                if (OrderProcessorThread.markShipped(order, worker)) {
+                    sendNotifications(order);
+                    inventoryService.updateInventory(order);
+                }
+            }
+        } catch (InterruptedException e) {
+            AsyncLog.errPrintln("❌ " + worker + " 处理被中断");
+            cancelOrder(order);
+            Thread.currentThread().interrupt();
+        } catch (TimeoutException e) {
+            expireOrder(order, "批量结算");
+        } catch (CancellationException e) {
+            // 订单已超时，结算被取消
+        } catch (ExecutionException e) {
+            AsyncLog.errPrintln("❌ 订单 #" + order.getOrderId() + " 结算失败: " + e.getCause());
+            cancelOrder(order);
+        } finally {
+            finishOrder(order);
+        }
     }
     
     /**
      * 发送通知（演示匿名类和Lambda的使用）
+     * 最多等到订单的截止时间，超时的订单被取消，尚未完成的通知随之取消
      */
     private static void sendNotifications(Order order) throws InterruptedException {
-        ExecutorService notificationExecutor = Executors.newFixedThreadPool(3);
+        if (order.getStatus() == OrderStatus.CANCELLED) {
+            return;
+        }
+        try {
+            dispatchNotifications(order).get(order.remainingNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            expireOrder(order, "通知");
+        } catch (CancellationException e) {
+            // 订单超时时通知被取消，超时已由expireOrder记录
+        } catch (ExecutionException e) {
+            if (!order.isTimedOut()) {
+                AsyncLog.errPrintln("❌ 订单 #" + order.getOrderId() + " 通知发送失败: " + e.getCause());
+            }
+        }
+    }
+    
+    /**
+     * 把订单的三条通知分发到共享的渠道线程池
+     * 每条通知都登记为订单的子任务：订单超时时还在排队的通知不再发送
+     * @return 三条通知全部发送完成时完成的future
+     */
+    static CompletableFuture<Void> dispatchNotifications(Order order) {
+        long begin = System.nanoTime();
         
         // 使用匿名内部类
-        notificationExecutor.submit(new NotificationServiceRunnable(order, "邮件通知"));
+        CompletableFuture<Void> email = notificationHub.submit(NotificationChannel.EMAIL, order.getOrderId(),
+            new NotificationServiceRunnable(order, "邮件通知"));
         
         // 使用Lambda表达式
-        notificationExecutor.submit(() -> {
+        CompletableFuture<Void> push = notificationHub.submit(NotificationChannel.PUSH, order.getOrderId(), () -> {
             try {
-                System.out.println("📱 手机推送开始: " + order.getCustomerName());
-                Thread.sleep(200);
-                System.out.println("✅ 手机推送完成: " + order.getCustomerName());
-                totalNotificationsSent.incrementAndGet();
+                AsyncLog.println("📱 手机推送开始: " + order.getCustomerName());
+                notifyStep(order, 200);
+                AsyncLog.println("✅ 手机推送完成: " + order.getCustomerName());
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
             }
         });
         
         // 使用方法引用
-        notificationExecutor.submit(createSMSTask(order));
+        CompletableFuture<Void> sms = notificationHub.submit(NotificationChannel.SMS, order.getOrderId(), createSMSTask(order));
+        
+        // 渠道可能对同一条通知发出对冲请求，发送数按通知而不是按尝试统计
+        for (CompletableFuture<Void> notification : Arrays.asList(email, push, sms)) {
+            order.registerSubTask(notification);
+            notification.thenRun(totalNotificationsSent::incrementAndGet);
+        }
         
-        notificationExecutor.shutdown();
-        notificationExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        CompletableFuture<Void> all = CompletableFuture.allOf(email, push, sms);
+        all.whenComplete((ignored, error) -> notificationLatency.recordNanos(System.nanoTime() - begin));
+        return all;
+    }
+    
+    /**
+     * 通知中的一段模拟耗时操作，最多执行到订单的截止时间
+     * 超时后使订单超时取消，并抛出CancellationException结束这条通知，对应渠道的future以异常完成，不计入已发送
+     */
+    static void notifyStep(Order order, long millis) throws InterruptedException {
+        if (!workBeforeDeadline(order, millis, "通知")) {
+            throw new CancellationException("订单 #" + order.getOrderId() + " 已超过截止时间，停止发送通知");
+        }
     }
     
     /**
@@ -695,10 +4099,9 @@ public class ComprehensiveThreadDemo {
     private static Runnable createSMSTask(Order order) {
         return () -> {
             try {
-                System.out.println("📲 短信发送开始: " + order.getCustomerName());
-                Thread.sleep(150);
-                System.out.println("✅ 短信发送完成: " + order.getCustomerName());
-                totalNotificationsSent.incrementAndGet();
+                AsyncLog.println("📲 短信发送开始: " + order.getCustomerName());
+                notifyStep(order, 150);
+                AsyncLog.println("✅ 短信发送完成: " + order.getCustomerName());
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
             }
@@ -709,144 +4112,289 @@ public class ComprehensiveThreadDemo {
      * 演示4: 性能监控
      */
     private static void demonstratePerformanceMonitoring() {
-        System.out.println("\n" + padEnd("🔸 演示4: 性能监控与统计分析", 70, ' '));
-        System.out.println(repeat("-", 70));
+        AsyncLog.println("\n" + padEnd("🔸 演示4: 性能监控与统计分析", 70, ' '));
+        AsyncLog.println(repeat("-", 70));
         
-        System.out.println("📊 系统性能指标:");
-        System.out.println("  🛒 订单处理量: " + totalOrdersProcessed.get() + " 个");
-        System.out.println("  💳 支付处理量: " + totalPaymentsProcessed.get() + " 个");
-        System.out.println("  📧 通知发送量: " + totalNotificationsSent.get() + " 条");
+        AsyncLog.println("📊 系统性能指标:");
+        AsyncLog.println("  🛒 订单处理量: " + totalOrdersProcessed.get() + " 个");
+        AsyncLog.println("  💳 支付处理量: " + totalPaymentsProcessed.get() + " 个");
+        AsyncLog.println("  📧 通知发送量: " + totalNotificationsSent.get() + " 条");
+        RevenueLedger.Snapshot revenue = revenueLedger.snapshot();
+        AsyncLog.println("  💰 营业额: " + revenue.format());
+        AsyncLog.println("    （" + revenueLedger.getStripeCount() + " 个条带，排队写入 " +
+                         revenueLedger.getContendedWriteCount() + " 次）");
+        AsyncLog.println("  🏆 营业额Top" + TOP_K + "客户: " +
+                         formatTopK(topCustomersByRevenue, customerDictionary, TOP_K, true));
+        AsyncLog.println("  🏆 订单数Top" + TOP_K + " SKU: " + formatTopK(topSkusByOrders, skuDictionary, TOP_K, false));
+        AsyncLog.println("    （Space-Saving每条带 " + topCustomersByRevenue.getCapacity() + " 个计数器 × " +
+                         topCustomersByRevenue.getStripeCount() + " 个条带，括号内为估计值可能偏高的上限）");
+        AsyncLog.println("  ⏰ 超时取消量: " + totalOrdersTimedOut.get() + " 个（截止时间 " + ORDER_DEADLINE_MILLIS + "ms）");
+        AsyncLog.println("  🔤 字典编号: " + skuDictionary.size() + " 个SKU，" + customerDictionary.size() +
+                         " 个客户（订单只保存编号，字符串各存一份）");
+        notificationHub.printChannelStats("    • ");
         
-        long totalTime = totalProcessingTime.get();
-        double avgProcessingTime = totalOrdersProcessed.get() > 0 ? 
-            (double) totalTime / totalOrdersProcessed.get() : 0;
+        LatencyHistogram.Snapshot orderSnapshot = orderLatency.snapshot();
+        long totalTime = orderSnapshot.getTotalMicros() / 1000;
         
-        System.out.println("  ⏱️ 总处理时间: " + totalTime + "ms");
-        System.out.println("  📈 平均处理时间: " + String.format("%.2f", avgProcessingTime) + "ms");
+        AsyncLog.println("  ⏱️ 总处理时间: " + totalTime + "ms");
+        AsyncLog.println("  📈 平均处理时间: " + String.format("%.2f", orderSnapshot.getMeanMicros() / 1000.0) + "ms");
+        AsyncLog.println("  ⏱️ 延迟分布（累计）:");
+        for (LatencyHistogram histogram : latencyHistograms) {
+            AsyncLog.println("    • " + padEnd(histogram.getName(), 6, ' ') + histogram.snapshot().format());
+        }
         
         double throughput = totalOrdersProcessed.get() / (totalTime / 1000.0);
-        System.out.println("  🚀 系统吞吐量: " + String.format("%.2f", throughput) + " 订单/秒");
+        AsyncLog.println("  🚀 系统吞吐量: " + String.format("%.2f", throughput) + " 订单/秒");
+        AsyncLog.println("  📦 库存限流: " + inventoryLimiter.formatStats());
+        if (orderJournal != null) {
+            AsyncLog.println("  💾 订单日志: " + orderJournal.formatStats());
+        }
+        AsyncLog.println("  📝 异步日志: " + AsyncLog.shared().formatStats());
     }
     
     /**
      * 演示5: 最佳实践
      */
     private static void demonstrateBestPractices() {
-        System.out.println("\n" + padEnd("🔸 演示5: 多线程编程最佳实践", 70, ' '));
-        System.out.println(repeat("-", 70));
+        AsyncLog.println("\n" + padEnd("🔸 演示5: 多线程编程最佳实践", 70, ' '));
+        AsyncLog.println(repeat("-", 70));
         
-        System.out.println("🎯 选择合适的线程创建方式:");
-        System.out.println("  • 简单任务 → 优先考虑Lambda表达式");
-        System.out.println("  • 复杂逻辑 → 使用Runnable接口");
-        System.out.println("  • 简单继承 → 继承Thread类（不推荐）");
-        System.out.println("  • 批量任务 → 使用线程池");
+        AsyncLog.println("🎯 选择合适的线程创建方式:");
+        AsyncLog.println("  • 简单任务 → 优先考虑Lambda表达式");
+        AsyncLog.println("  • 复杂逻辑 → 使用Runnable接口");
+        AsyncLog.println("  • 简单继承 → 继承Thread类（不推荐）");
+        AsyncLog.println("  • 批量任务 → 使用线程池");
         
-        System.out.println("\n💡 性能优化建议:");
-        System.out.println("  • CPU密集型任务: 线程数 = CPU核心数");
-        System.out.println("  • I/O密集型任务: 线程数 = CPU核心数 × 2");
-        System.out.println("  • 使用线程池避免频繁创建/销毁线程");
-        System.out.println("  • 合理设置队列大小防止OOM");
+        AsyncLog.println("\n💡 性能优化建议:");
+        AsyncLog.println("  • CPU密集型任务: 线程数 = CPU核心数");
+        AsyncLog.println("  • I/O密集型任务: 线程数 = CPU核心数 × 2");
+        AsyncLog.println("  • 使用线程池避免频繁创建/销毁线程");
+        AsyncLog.println("  • 合理设置队列大小防止OOM");
         
-        System.out.println("\n⚠️ 常见陷阱和解决方案:");
-        System.out.println("  • 死锁 → 使用超时机制和锁顺序");
-        System.out.println("  • 内存泄漏 → 正确关闭线程池");
-        System.out.println("  • 线程安全 → 使用同步机制或并发集合");
-        System.out.println("  • 资源竞争 → 合理使用锁和并发工具");
+        AsyncLog.println("\n⚠️ 常见陷阱和解决方案:");
+        AsyncLog.println("  • 死锁 → 使用超时机制和锁顺序");
+        AsyncLog.println("  • 内存泄漏 → 正确关闭线程池");
+        AsyncLog.println("  • 线程安全 → 使用同步机制或并发集合");
+        AsyncLog.println("  • 资源竞争 → 合理使用锁和并发工具");
         
-        System.out.println("\n🛠️ 调试和监控技巧:");
-        System.out.println("  • 使用线程ID和命名");
-        System.out.println("  • 添加详细的日志记录");
-        System.out.println("  • 监控线程状态和资源使用");
-        System.out.println("  • 使用性能分析工具");
+        AsyncLog.println("\n🛠️ 调试和监控技巧:");
+        AsyncLog.println("  • 使用线程ID和命名");
+        AsyncLog.println("  • 添加详细的日志记录");
+        AsyncLog.println("  • 监控线程状态和资源使用");
+        AsyncLog.println("  • 使用性能分析工具");
     }
     
     /**
-     * 创建测试订单
+     * 全局订单状态计数器（供监控和基准测试读取）
      */
-    private static List<Order> createTestOrders(int count) {
-        List<Order> orders = new ArrayList<>();
-        String[] customers = {"张三", "李四", "王五", "赵六", "钱七", "孙八", "周九", "吴十", "郑十一", "王十二"};
-        String[][] productLists = {
-            {"iPhone 15", "AirPods Pro"},
-            {"MacBook Pro", "iPad Air"},
-            {"小米13", "小米耳机"},
-            {"华为P60", "华为手表"},
-            {"Switch游戏机", "塞尔达传说"},
-            {"PS5主机", "FIFA 24"},
-            {"戴尔笔记本", "戴尔显示器"},
-            {"联想台式机", "机械键盘"},
-            {"索尼相机", "索尼镜头"},
-            {"Apple Watch", "iPad Pro"}
-        };
-        
-        for (int i = 0; i < count; i++) {
-            String customer = customers[i % customers.length];
-            String[] products = productLists[i % productLists.length];
-            double amount = 1000 + Math.random() * 9000;
-            
-            List<String> productList = Arrays.asList(products);
-            Order order = new Order(i + 1, customer, productList, amount);
-            orders.add(order);
+    static OrderStatusCounters getOrderStatusCounters() {
+        return orderStatusCounters;
+    }
+    
+    /**
+     * 从订单日志恢复历史订单：各状态的订单数计入全局计数器，已支付订单计入营业额台账和Top-K
+     * 已支付后又取消的订单在日志中只剩CANCELLED状态，台账中收入与退款相抵，这里不计入；Top-K同样不计
+     */
+    private static OrderJournalRecovery.Result recoverOrders() {
+        OrderJournalRecovery.Result result = OrderJournalRecovery.recoverFromSystemProperties();
+        if (result != null) {
+            for (Map.Entry<OrderStatus, Long> entry : result.getStatusCounts().entrySet()) {
+                orderStatusCounters.restore(entry.getKey(), entry.getValue());
+            }
+            OrderStore store = result.getStore();
+            for (int index = 0; index < store.size(); index++) {
+                if (store.getStatus(index).isPaid()) {
+                    Order order = store.toOrder(index);
+                    revenueLedger.recordPayment(order);
+                    recordHeavyHitters(order);
+                }
+            }
         }
-        
-        return orders;
+        return result;
+    }
+    
+    /**
+     * 取消订单并归还其预留的库存
+     */
+    static void cancelOrder(Order order) {
+        order.transitionTo(OrderStatus.CANCELLED);
+        if (stockEngine.release(order)) {
+            AsyncLog.println("↩️ 订单 #" + order.getOrderId() + " 已取消，预留库存已归还");
+        }
+    }
+    
+    /**
+     * 创建通知中心：-Dnotify.hedge.percentile=95 设置对冲阈值（0关闭对冲）；
+     * -Dnotify.failureRate.SMS=0.5、-Dnotify.stallRate.EMAIL=0.1、-Dnotify.stallMillis=2000 为渠道注入模拟故障
+     */
+    private static NotificationHub newNotificationHub() {
+        NotificationHub hub = new NotificationHub(2, 64,
+            Double.parseDouble(System.getProperty("notify.hedge.percentile", "95")));
+        long stallMillis = Long.getLong("notify.stallMillis", 2000);
+        for (NotificationChannel channel : NotificationChannel.values()) {
+            double failureRate = Double.parseDouble(System.getProperty("notify.failureRate." + channel, "0"));
+            double stallRate = Double.parseDouble(System.getProperty("notify.stallRate." + channel, "0"));
+            if (failureRate > 0 || stallRate > 0) {
+                hub.injectFaults(channel, failureRate, stallRate, stallMillis);
+            }
+        }
+        return hub;
+    }
+    
+    private static ScheduledThreadPoolExecutor newDeadlineTimer() {
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "OrderDeadline-Timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 大多数订单在截止时间之前完成，取消的定时任务立即移出队列，不在堆中堆积
+        timer.setRemoveOnCancelPolicy(true);
+        return timer;
+    }
+    
+    /**
+     * 订单进入系统：从现在起ORDER_DEADLINE_MILLIS后仍未处理完的订单由定时器取消
+     */
+    static void armDeadline(Order order) {
+        order.armDeadline(ORDER_DEADLINE_MILLIS, TimeUnit.MILLISECONDS, deadlineTimer,
+                          () -> expireOrder(order, "截止时间到达"));
+    }
+    
+    /**
+     * 订单超过截止时间：转为CANCELLED并归还库存，取消其未完成的子任务，计入超时订单数
+     * @param stage 发现超时的阶段，只用于日志
+     * @return 本次调用使订单超时取消返回true；订单已处理完、已取消或已被其他线程超时返回false
+     */
+    static boolean expireOrder(Order order, String stage) {
+        if (!order.markTimedOut()) {
+            return false;
+        }
+        // 先转为CANCELLED再取消子任务，被取消的子任务检查状态时已能看到取消
+        cancelOrder(order);
+        order.cancelSubTasks();
+        totalOrdersTimedOut.incrementAndGet();
+        AsyncLog.println("⏰ 订单 #" + order.getOrderId() + " 超过截止时间（" + stage + "），已取消");
+        return true;
+    }
+    
+    /**
+     * 在截止时间内执行一段模拟耗时操作，截止时间先到则使订单超时取消
+     * @return 操作按时完成返回true，调用方应在返回false时停止处理该订单
+     */
+    static boolean workBeforeDeadline(Order order, long millis, String stage) throws InterruptedException {
+        if (order.sleepBeforeDeadline(millis)) {
+            return true;
+        }
+        expireOrder(order, stage);
+        return false;
+    }
+    
+    /**
+     * 订单处理结束：停止截止时间定时器并记录端到端延迟
+     */
+    static void finishOrder(Order order) {
+        order.finish();
+        orderLatency.recordMillis(order.getEndTime() - order.getStartTime());
+    }
+    
+    /**
+     * 初始化商品库存 - PS5主机只备1台，用于演示缺货时订单被取消
+     */
+    private static void initializeStock() {
+        for (String product : PRODUCT_CATALOG) {
+            stockEngine.restock(product, "PS5主机".equals(product) ? 1 : 20);
+        }
+    }
+    
+    // 商品目录 - 按热度从高到低排列，负载生成器按Zipf分布选取
+    private static final String[] PRODUCT_CATALOG = {
+        "iPhone 15", "AirPods Pro", "小米13", "Switch游戏机", "PS5主机",
+        "MacBook Pro", "iPad Air", "华为P60", "小米耳机", "Apple Watch",
+        "塞尔达传说", "FIFA 24", "华为手表", "iPad Pro", "机械键盘",
+        "戴尔笔记本", "戴尔显示器", "联想台式机", "索尼相机", "索尼镜头"
+    };
+    
+    // 演示订单生成器 - 固定种子，每次运行生成相同的订单序列
+    private static final OrderLoadGenerator demoLoadGenerator = newOrderGenerator(10, 42L);
+    
+    /**
+     * 创建订单生成器；恢复过历史订单时，新订单号从恢复到的最大订单号之后开始，避免与日志中的订单重复
+     */
+    private static OrderLoadGenerator newOrderGenerator(int customerCount, long seed) {
+        OrderLoadGenerator generator = new OrderLoadGenerator(PRODUCT_CATALOG, 1.0, customerCount, seed);
+        if (recoveredOrders != null) {
+            generator.skipOrderIdsThrough(recoveredOrders.getMaxOrderId());
+        }
+        return generator;
+    }
+    
+    /**
+     * 创建测试订单 - 商品热度服从Zipf分布
+     */
+    private static List<Order> createTestOrders(int count) {
+        return demoLoadGenerator.generateOrders(count);
     }
     
     /**
      * 打印订单统计信息
      */
     private static void printOrderStatistics(List<Order> orders) {
-        System.out.println("\n📊 订单处理统计:");
+        AsyncLog.println("\n📊 订单处理统计:");
         
         Map<OrderStatus, Long> statusCount = orders.stream()
             .collect(Collectors.groupingBy(Order::getStatus, Collectors.counting()));
         
         statusCount.forEach((status, count) -> 
-            System.out.println("  " + status + ": " + count + " 个"));
+            AsyncLog.println("  " + status + ": " + count + " 个"));
+        long timedOut = orders.stream().filter(Order::isTimedOut).count();
+        if (timedOut > 0) {
+            AsyncLog.println("  其中超过截止时间被取消: " + timedOut + " 个");
+        }
         
         double avgTime = orders.stream()
             .mapToLong(o -> o.getEndTime() - o.getStartTime())
             .average()
             .orElse(0);
         
-        System.out.println("  平均处理时间: " + String.format("%.2f", avgTime) + "ms");
+        AsyncLog.println("  平均处理时间: " + String.format("%.2f", avgTime) + "ms");
     }
     
     /**
      * 打印最终总结
      */
     private static void printFinalSummary() {
-        System.out.println("\n" + padEnd("🎉 ComprehensiveThreadDemo 演示总结", 70, ' '));
-        System.out.println(repeat("-", 70));
-        
-        System.out.println("✅ 完成的功能演示:");
-        System.out.println("  1. 📚 多线程理论知识整合");
-        System.out.println("  2. 🔧 三种线程创建方式对比");
-        System.out.println("  3. 🏪 真实电商系统模拟");
-        System.out.println("  4. 📊 性能监控和统计");
-        System.out.println("  5. 💡 最佳实践指南");
-        
-        System.out.println("\n🎯 学习要点:");
-        System.out.println("  • 理解进程与线程的区别");
-        System.out.println("  • 掌握三种线程创建方式");
-        System.out.println("  • 学会使用线程池管理并发任务");
-        System.out.println("  • 了解线程安全和同步机制");
-        System.out.println("  • 实践真实项目的多线程架构");
-        
-        System.out.println("\n📈 性能表现:");
-        System.out.println("  • 处理订单: " + totalOrdersProcessed.get() + " 个");
-        System.out.println("  • 处理支付: " + totalPaymentsProcessed.get() + " 个");
-        System.out.println("  • 发送通知: " + totalNotificationsSent.get() + " 条");
-        
-        System.out.println("\n🚀 持续改进建议:");
-        System.out.println("  • 添加更多的错误处理机制");
-        System.out.println("  • 实现更复杂的业务逻辑");
-        System.out.println("  • 使用更高级的并发工具");
-        System.out.println("  • 集成数据库和外部服务");
-        
-        System.out.println("\n" + repeat("=", 70));
-        System.out.println("🎓 感谢使用 Java多线程综合学习系统！");
-        System.out.println("希望这个演示能帮助您深入理解多线程编程");
-        System.out.println(repeat("=", 70));
+        AsyncLog.println("\n" + padEnd("🎉 ComprehensiveThreadDemo 演示总结", 70, ' '));
+        AsyncLog.println(repeat("-", 70));
+        
+        AsyncLog.println("✅ 完成的功能演示:");
+        AsyncLog.println("  1. 📚 多线程理论知识整合");
+        AsyncLog.println("  2. 🔧 三种线程创建方式对比");
+        AsyncLog.println("  3. 🏪 真实电商系统模拟");
+        AsyncLog.println("  4. 📊 性能监控和统计");
+        AsyncLog.println("  5. 💡 最佳实践指南");
+        
+        AsyncLog.println("\n🎯 学习要点:");
+        AsyncLog.println("  • 理解进程与线程的区别");
+        AsyncLog.println("  • 掌握三种线程创建方式");
+        AsyncLog.println("  • 学会使用线程池管理并发任务");
+        AsyncLog.println("  • 了解线程安全和同步机制");
+        AsyncLog.println("  • 实践真实项目的多线程架构");
+        
+        AsyncLog.println("\n📈 性能表现:");
+        AsyncLog.println("  • 处理订单: " + totalOrdersProcessed.get() + " 个");
+        AsyncLog.println("  • 处理支付: " + totalPaymentsProcessed.get() + " 个");
+        AsyncLog.println("  • 发送通知: " + totalNotificationsSent.get() + " 条");
+        AsyncLog.println("  • 超时取消: " + totalOrdersTimedOut.get() + " 个");
+        
+        AsyncLog.println("\n🚀 持续改进建议:");
+        AsyncLog.println("  • 添加更多的错误处理机制");
+        AsyncLog.println("  • 实现更复杂的业务逻辑");
+        AsyncLog.println("  • 使用更高级的并发工具");
+        AsyncLog.println("  • 集成数据库和外部服务");
+        
+        AsyncLog.println("\n" + repeat("=", 70));
+        AsyncLog.println("🎓 感谢使用 Java多线程综合学习系统！");
+        AsyncLog.println("希望这个演示能帮助您深入理解多线程编程");
+        AsyncLog.println(repeat("=", 70));
     }
 }
\ No newline at end of file
@@ -0,0 +1,173 @@
+/**
+ * FlightEvents - Java Flight Recorder自定义事件（订单各阶段、线程池任务）
+ *
+ * 录制时在JMC或`jfr print`中按订单号/任务号关联事件，看清每个订单的时间花在哪里：
+ *   shop.OrderStage       验证、库存检查、支付三个阶段的总耗时和结果
+ *   shop.InventoryLockWait 等待库存条带锁的时间
+ *   shop.InventoryLockHold 持有库存条带锁的时间
+ *   shop.PaymentStep      等待支付锁、扣款以及支付流程中的每一步
+ *   shop.NotificationSend 每个通知渠道的每次发送尝试（含对冲请求）
+ *   shop.PoolTask         ThreadPoolDemo中计算、I/O、定时任务的执行
+ *
+ * 开销：未录制（或事件被禁用）时，begin/end只读取一次时钟，shouldCommit()返回false，
+ * 字段赋值和commit都被跳过；事件对象不逃逸，通常被JIT的标量替换消除，不产生分配
+ *
+ * 用法：
+ *   java -XX:StartFlightRecording=filename=orders.jfr,settings=profile ComprehensiveThreadDemo workflow
+ *   jfr print --events shop.OrderStage,shop.InventoryLockWait orders.jfr
+ *   jfr summary orders.jfr
+ *
+ * 需要JDK 11+（或带JFR的JDK 8u262+）
+ *
+ * @author Java Learning Tutorial
+ * @version 1.0
+ * @date 2024
+ */
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.MetadataDefinition;
+import jdk.jfr.Name;
+import jdk.jfr.Relational;
+import jdk.jfr.StackTrace;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+public final class FlightEvents {
+
+    private FlightEvents() {
+    }
+
+    /**
+     * 订单号 - 关系型字段，JMC可以把同一订单的全部事件关联起来
+     */
+    @MetadataDefinition
+    @Relational
+    @Name("shop.OrderId")
+    @Label("订单号")
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target(ElementType.FIELD)
+    public @interface OrderId {
+    }
+
+    /**
+     * 任务号 - 关系型字段
+     */
+    @MetadataDefinition
+    @Relational
+    @Name("shop.TaskId")
+    @Label("任务号")
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target(ElementType.FIELD)
+    public @interface TaskId {
+    }
+
+    // ==================== 订单事件 ====================
+
+    @Name("shop.OrderStage")
+    @Label("订单阶段")
+    @Description("订单处理的一个阶段：验证、库存检查或支付")
+    @Category({"电商订单系统", "订单"})
+    @StackTrace(false)
+    public static final class OrderStage extends Event {
+        @Label("订单号")
+        @OrderId
+        public int orderId;
+
+        @Label("阶段")
+        public String stage;
+
+        @Label("成功")
+        @Description("订单通过该阶段；取消、超时或跳过时为false")
+        public boolean succeeded;
+    }
+
+    @Name("shop.InventoryLockWait")
+    @Label("等待库存锁")
+    @Description("按SKU条带加锁时等待的时间")
+    @Category({"电商订单系统", "库存"})
+    @StackTrace(false)
+    public static final class InventoryLockWait extends Event {
+        @Label("订单号")
+        @OrderId
+        public int orderId;
+
+        @Label("条带数")
+        public int stripeCount;
+    }
+
+    @Name("shop.InventoryLockHold")
+    @Label("持有库存锁")
+    @Description("从锁住全部条带到释放的时间")
+    @Category({"电商订单系统", "库存"})
+    @StackTrace(false)
+    public static final class InventoryLockHold extends Event {
+        @Label("订单号")
+        @OrderId
+        public int orderId;
+
+        @Label("条带数")
+        public int stripeCount;
+    }
+
+    @Name("shop.PaymentStep")
+    @Label("支付步骤")
+    @Description("等待支付锁、扣款，或支付流程中的一步；批量结算时orderId为批次中第一个订单")
+    @Category({"电商订单系统", "支付"})
+    @StackTrace(false)
+    public static final class PaymentStep extends Event {
+        @Label("订单号")
+        @OrderId
+        public int orderId;
+
+        @Label("步骤")
+        public String step;
+
+        @Label("批量大小")
+        public int batchSize;
+    }
+
+    @Name("shop.NotificationSend")
+    @Label("通知发送")
+    @Description("一个渠道上的一次发送尝试，从线程池开始执行到结束")
+    @Category({"电商订单系统", "通知"})
+    @StackTrace(false)
+    public static final class NotificationSend extends Event {
+        @Label("订单号")
+        @OrderId
+        public int orderId;
+
+        @Label("渠道")
+        public String channel;
+
+        @Label("对冲请求")
+        public boolean hedge;
+
+        @Label("结果")
+        public String outcome;
+    }
+
+    // ==================== 线程池任务事件 ====================
+
+    @Name("shop.PoolTask")
+    @Label("线程池任务")
+    @Description("ThreadPoolDemo中一个任务的执行")
+    @Category({"电商订单系统", "线程池"})
+    @StackTrace(false)
+    public static final class PoolTask extends Event {
+        @Label("任务号")
+        @TaskId
+        public int taskId;
+
+        @Label("任务名")
+        public String taskName;
+
+        @Label("任务类型")
+        public String taskType;
+    }
+}
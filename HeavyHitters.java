@@ -0,0 +1,313 @@
+/**
+ * HeavyHitters - 固定内存的并发Top-K统计（加权Space-Saving算法）
+ *
+ * 持续找出"营业额最高的客户""订单最多的商品"，不需要保存每个客户/商品的计数，也不需要扫描订单列表：
+ *   1. 每个条带只保存capacity个计数器（编号、计数、误差），内存固定，与出现过的编号数量无关
+ *   2. 新编号到来而计数器已满时，替换计数最小的计数器：新计数 = 最小计数 + 权重，误差 = 最小计数
+ *      因此估计值只会偏高，且偏高不超过记录的误差；真实权重超过 总权重/capacity 的编号一定在计数器中
+ *   3. 并发：写入线程从按线程号选定的条带开始tryLock，条带被占用就换下一个，多个线程几乎不互相等待
+ *   4. 读取：依次短暂锁住各条带复制计数器，把各条带中同一编号的计数相加得到估计值；
+ *      某条带中没有该编号时，它在该条带的权重不超过该条带的最小计数，计入误差上界
+ *
+ * 条带内部：计数器按计数组成最小堆（替换最小值O(log capacity)），编号到堆位置用开放寻址表查找
+ *
+ * @author Java Learning Tutorial
+ * @version 1.0
+ * @date 2024
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class HeavyHitters {
+
+    /**
+     * 一个估计结果：真实权重在 [estimate - maxError, estimate] 之间
+     */
+    public static final class Entry {
+        private final int id;
+        private final long estimate;
+        private final long maxError;
+
+        Entry(int id, long estimate, long maxError) {
+            this.id = id;
+            this.estimate = estimate;
+            this.maxError = maxError;
+        }
+
+        public int getId() { return id; }
+        public long getEstimate() { return estimate; }
+        public long getMaxError() { return maxError; }
+        public long getGuaranteedWeight() { return estimate - maxError; }
+    }
+
+    /**
+     * 一个条带：capacity个计数器组成的最小堆 + 编号到堆位置的开放寻址表，由lock保护
+     */
+    private static final class Stripe {
+        final ReentrantLock lock = new ReentrantLock();
+        final int[] heapIds;
+        final long[] heapCounts;
+        final long[] heapErrors;
+        int size;
+
+        // 开放寻址表：键为编号+1（0表示空），值为堆中的位置
+        final int[] tableKeys;
+        final int[] tableSlots;
+        final int tableMask;
+
+        long totalWeight;
+
+        Stripe(int capacity) {
+            heapIds = new int[capacity];
+            heapCounts = new long[capacity];
+            heapErrors = new long[capacity];
+            int tableSize = Integer.highestOneBit(capacity * 2 - 1) << 1;
+            tableKeys = new int[tableSize];
+            tableSlots = new int[tableSize];
+            tableMask = tableSize - 1;
+        }
+
+        void add(int id, long weight) {
+            totalWeight += weight;
+            int index = find(id);
+            if (index >= 0) {
+                int slot = tableSlots[index];
+                heapCounts[slot] += weight;
+                siftDown(slot);
+            } else if (size < heapIds.length) {
+                int slot = size++;
+                heapIds[slot] = id;
+                heapCounts[slot] = weight;
+                heapErrors[slot] = 0;
+                insert(id, slot);
+                siftUp(slot);
+            } else {
+                // 替换计数最小的计数器（堆顶）
+                long minimum = heapCounts[0];
+                remove(heapIds[0]);
+                heapIds[0] = id;
+                heapCounts[0] = minimum + weight;
+                heapErrors[0] = minimum;
+                insert(id, 0);
+                siftDown(0);
+            }
+        }
+
+        long minimumCount() {
+            return size < heapIds.length ? 0 : heapCounts[0];
+        }
+
+        // ==================== 开放寻址表 ====================
+
+        private int indexFor(int id) {
+            int h = id * 0x9E3779B9;
+            return (h ^ (h >>> 16)) & tableMask;
+        }
+
+        private int find(int id) {
+            int key = id + 1;
+            for (int index = indexFor(id); ; index = (index + 1) & tableMask) {
+                if (tableKeys[index] == key) {
+                    return index;
+                }
+                if (tableKeys[index] == 0) {
+                    return -1;
+                }
+            }
+        }
+
+        private void insert(int id, int slot) {
+            int index = indexFor(id);
+            while (tableKeys[index] != 0) {
+                index = (index + 1) & tableMask;
+            }
+            tableKeys[index] = id + 1;
+            tableSlots[index] = slot;
+        }
+
+        /**
+         * 删除后把同一探测链上后面的键前移，保持线性探测可以找到所有键
+         */
+        private void remove(int id) {
+            int hole = find(id);
+            int index = hole;
+            while (true) {
+                index = (index + 1) & tableMask;
+                if (tableKeys[index] == 0) {
+                    break;
+                }
+                int home = indexFor(tableKeys[index] - 1);
+                // home不在 (hole, index] 循环区间内时，该键可以移到空位
+                if (((index - home) & tableMask) >= ((index - hole) & tableMask)) {
+                    tableKeys[hole] = tableKeys[index];
+                    tableSlots[hole] = tableSlots[index];
+                    hole = index;
+                }
+            }
+            tableKeys[hole] = 0;
+        }
+
+        // ==================== 最小堆 ====================
+
+        private void siftUp(int slot) {
+            while (slot > 0) {
+                int parent = (slot - 1) >>> 1;
+                if (heapCounts[parent] <= heapCounts[slot]) {
+                    break;
+                }
+                swap(slot, parent);
+                slot = parent;
+            }
+        }
+
+        private void siftDown(int slot) {
+            while (true) {
+                int smallest = slot;
+                int left = slot * 2 + 1;
+                int right = left + 1;
+                if (left < size && heapCounts[left] < heapCounts[smallest]) {
+                    smallest = left;
+                }
+                if (right < size && heapCounts[right] < heapCounts[smallest]) {
+                    smallest = right;
+                }
+                if (smallest == slot) {
+                    return;
+                }
+                swap(slot, smallest);
+                slot = smallest;
+            }
+        }
+
+        private void swap(int a, int b) {
+            int id = heapIds[a];
+            long count = heapCounts[a];
+            long error = heapErrors[a];
+            heapIds[a] = heapIds[b];
+            heapCounts[a] = heapCounts[b];
+            heapErrors[a] = heapErrors[b];
+            heapIds[b] = id;
+            heapCounts[b] = count;
+            heapErrors[b] = error;
+            tableSlots[find(heapIds[a])] = a;
+            tableSlots[find(heapIds[b])] = b;
+        }
+    }
+
+    private final String name;
+    private final Stripe[] stripes;
+    private final int mask;
+    private final int capacity;
+    private final LongAdder contendedUpdates = new LongAdder();
+
+    /**
+     * @param capacity 每个条带的计数器数，决定精度：权重超过 总权重/capacity 的编号一定被统计到
+     * @param stripeCount 条带数，向上取整为2的幂；通常取CPU核数的2倍
+     */
+    public HeavyHitters(String name, int capacity, int stripeCount) {
+        this.name = name;
+        this.capacity = capacity;
+        int size = Integer.highestOneBit(Math.max(2, stripeCount) - 1) << 1;
+        this.stripes = new Stripe[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new Stripe(capacity);
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * 为编号id累加权重（权重必须为正，例如营业额的分，或订单数1）
+     */
+    public void add(int id, long weight) {
+        if (weight <= 0) {
+            return;
+        }
+        int h = (int) Thread.currentThread().getId() * 0x9E3779B9;
+        int start = h ^ (h >>> 16);
+        for (int i = 0; i <= mask; i++) {
+            Stripe stripe = stripes[(start + i) & mask];
+            if (stripe.lock.tryLock()) {
+                try {
+                    stripe.add(id, weight);
+                } finally {
+                    stripe.lock.unlock();
+                }
+                return;
+            }
+        }
+        // 所有条带都被占用，在首选条带上排队
+        contendedUpdates.increment();
+        Stripe stripe = stripes[start & mask];
+        stripe.lock.lock();
+        try {
+            stripe.add(id, weight);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * 当前估计值最大的k个编号，按估计值降序
+     */
+    public List<Entry> top(int k) {
+        // 编号 -> {计数之和, 误差之和, 出现过的条带的最小计数之和}
+        Map<Integer, long[]> merged = new HashMap<>();
+        long minimumSum = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                long minimum = stripe.minimumCount();
+                for (int slot = 0; slot < stripe.size; slot++) {
+                    long[] values = merged.computeIfAbsent(stripe.heapIds[slot], id -> new long[3]);
+                    values[0] += stripe.heapCounts[slot];
+                    values[1] += stripe.heapErrors[slot];
+                    values[2] += minimum;
+                }
+                minimumSum += minimum;
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+
+        List<Entry> entries = new ArrayList<>(merged.size());
+        for (Map.Entry<Integer, long[]> item : merged.entrySet()) {
+            long[] values = item.getValue();
+            // 没有出现的条带中，该编号的权重至多为那个条带的最小计数
+            long absentBound = minimumSum - values[2];
+            entries.add(new Entry(item.getKey(), values[0] + absentBound, values[1] + absentBound));
+        }
+        Collections.sort(entries, (a, b) -> Long.compare(b.estimate, a.estimate));
+        return entries.size() > k ? new ArrayList<>(entries.subList(0, k)) : entries;
+    }
+
+    /**
+     * 全部编号的权重之和（精确值）
+     */
+    public long getTotalWeight() {
+        long total = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                total += stripe.totalWeight;
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return total;
+    }
+
+    public String getName() { return name; }
+    public int getCapacity() { return capacity; }
+    public int getStripeCount() { return stripes.length; }
+
+    /**
+     * 所有条带都被占用、只能排队等待的写入次数
+     */
+    public long getContendedUpdateCount() { return contendedUpdates.sum(); }
+}
@@ -0,0 +1,152 @@
+/**
+ * InstrumentedScheduledThreadPool - 自带预聚合统计的调度线程池
+ *
+ * 与InstrumentedThreadPool使用同一套计数（ThreadPoolStats），读取不获取mainLock或延迟队列的锁。
+ * 调度线程池的schedule/submit/execute都经过decorateTask，在这里计入已提交：
+ *   1. 一次性任务：提交时 +1，执行时计入已开始和已完成
+ *   2. 周期任务：每次执行完成后重新进入延迟队列，此时再计一次已提交，
+ *      因此排队任务数 = 正在延迟队列中等待下一次执行的任务数
+ *   3. 在队列中等待时被取消（包括shutdown时取消的延迟任务）的任务不会再执行，计入被丢弃
+ *
+ * 注意：调度任务的异常被ScheduledFutureTask捕获，不计入失败数；排队任务包括尚未到期的延迟任务
+ *
+ * @author Java Learning Tutorial
+ * @version 1.0
+ * @date 2024
+ */
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.RunnableScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+public class InstrumentedScheduledThreadPool extends ScheduledThreadPoolExecutor {
+
+    private final ThreadPoolStats stats;
+
+    /**
+     * 包装调度任务：在队列中等待时被取消的任务计入被丢弃，其余方法原样委托
+     */
+    private final class CountedTask<V> implements RunnableScheduledFuture<V> {
+        private final RunnableScheduledFuture<V> task;
+        private volatile boolean running;
+
+        CountedTask(RunnableScheduledFuture<V> task) {
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            running = true;
+            try {
+                task.run();
+            } finally {
+                running = false;
+            }
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = task.cancel(mayInterruptIfRunning);
+            // 执行中被取消时这次执行已计入已开始；周期任务随后不会再进入队列
+            if (cancelled && !running) {
+                stats.onDiscarded(1);
+            }
+            return cancelled;
+        }
+
+        @Override public boolean isPeriodic() { return task.isPeriodic(); }
+        @Override public boolean isCancelled() { return task.isCancelled(); }
+        @Override public boolean isDone() { return task.isDone(); }
+        @Override public V get() throws InterruptedException, ExecutionException { return task.get(); }
+
+        @Override
+        public V get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+            return task.get(timeout, unit);
+        }
+
+        @Override public long getDelay(TimeUnit unit) { return task.getDelay(unit); }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return task.compareTo(other instanceof CountedTask ? ((CountedTask<?>) other).task : other);
+        }
+    }
+
+    /**
+     * @param poolName 线程池名称，同时用作监控指标的pool标签，建议只用字母、数字和连字符
+     */
+    public InstrumentedScheduledThreadPool(String poolName, int corePoolSize,
+                                           ThreadFactory threadFactory, RejectedExecutionHandler handler) {
+        super(corePoolSize, threadFactory, handler);
+        this.stats = new ThreadPoolStats(poolName);
+        // 构造后再包装：包装对象需要访问本实例的计数器
+        setThreadFactory(stats.countingFactory(threadFactory));
+        setRejectedExecutionHandler(stats.countingHandler(handler));
+    }
+
+    /**
+     * 与Executors.newScheduledThreadPool相同的配置
+     */
+    public InstrumentedScheduledThreadPool(String poolName, int corePoolSize) {
+        this(poolName, corePoolSize, InstrumentedThreadPool.namedFactory(poolName),
+             new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    // ==================== 生命周期钩子 ====================
+
+    @Override
+    protected <V> RunnableScheduledFuture<V> decorateTask(Runnable runnable, RunnableScheduledFuture<V> task) {
+        stats.onSubmit();
+        return new CountedTask<>(task);
+    }
+
+    @Override
+    protected <V> RunnableScheduledFuture<V> decorateTask(Callable<V> callable, RunnableScheduledFuture<V> task) {
+        stats.onSubmit();
+        return new CountedTask<>(task);
+    }
+
+    @Override
+    protected void beforeExecute(Thread t, Runnable r) {
+        stats.beforeExecute();
+        super.beforeExecute(t, r);
+    }
+
+    @Override
+    protected void afterExecute(Runnable r, Throwable t) {
+        super.afterExecute(r, t);
+        stats.afterExecute(t);
+        // 周期任务执行完后未结束即已重新进入延迟队列，等同于又提交了一次
+        if (r instanceof RunnableScheduledFuture && ((RunnableScheduledFuture<?>) r).isPeriodic() &&
+            !((RunnableScheduledFuture<?>) r).isDone()) {
+            stats.onSubmit();
+        }
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        List<Runnable> drained = super.shutdownNow();
+        // 已取消的任务在取消时已计入被丢弃
+        int pending = 0;
+        for (Runnable r : drained) {
+            if (!(r instanceof RunnableScheduledFuture) || !((RunnableScheduledFuture<?>) r).isDone()) {
+                pending++;
+            }
+        }
+        stats.onDiscarded(pending);
+        return drained;
+    }
+
+    // ==================== 预聚合统计（无锁读取） ====================
+
+    public ThreadPoolStats getStats() { return stats; }
+    public String getPoolName() { return stats.getPoolName(); }
+}
@@ -0,0 +1,141 @@
+/**
+ * InstrumentedThreadPool - 自带预聚合统计的线程池
+ *
+ * ThreadPoolExecutor的getPoolSize()、getActiveCount()、getCompletedTaskCount()、getTaskCount()
+ * 每次调用都要获取线程池的mainLock，监控线程频繁读取时会和提交任务、创建/回收线程的线程抢同一把锁；
+ * ArrayBlockingQueue.size()同样要获取队列锁。
+ * 本类在任务生命周期的钩子中维护计数（见ThreadPoolStats），读取只是对LongAdder求和：
+ *   1. execute：已提交 +1；被拒绝时（拒绝策略被调用）已拒绝 +1
+ *   2. beforeExecute：已开始 +1，记录开始时间
+ *   3. afterExecute：已完成 +1（抛出异常时另计失败），记录任务耗时到直方图
+ *   4. 线程工厂包装：工作线程启动时存活线程 +1，退出时 -1
+ * 由此可以无锁地推算：活跃线程 = 已开始 - 已完成，排队任务 = 已提交 - 已拒绝 - 已开始 - 被丢弃
+ *
+ * 注意：通过submit提交的任务异常被FutureTask捕获，不计入失败数
+ *
+ * @author Java Learning Tutorial
+ * @version 1.0
+ * @date 2024
+ */
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class InstrumentedThreadPool extends ThreadPoolExecutor {
+
+    private final ThreadPoolStats stats;
+
+    /**
+     * @param poolName 线程池名称，同时用作监控指标的pool标签，建议只用字母、数字和连字符
+     */
+    public InstrumentedThreadPool(String poolName, int corePoolSize, int maximumPoolSize,
+                                  long keepAliveTime, TimeUnit unit, BlockingQueue<Runnable> workQueue,
+                                  ThreadFactory threadFactory, RejectedExecutionHandler handler) {
+        super(corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue,
+              threadFactory, handler);
+        this.stats = new ThreadPoolStats(poolName);
+        // 构造后再包装：包装对象需要访问本实例的计数器
+        setThreadFactory(stats.countingFactory(threadFactory));
+        setRejectedExecutionHandler(stats.countingHandler(handler));
+    }
+
+    public InstrumentedThreadPool(String poolName, int corePoolSize, int maximumPoolSize,
+                                  long keepAliveTime, TimeUnit unit, BlockingQueue<Runnable> workQueue,
+                                  ThreadFactory threadFactory) {
+        this(poolName, corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue,
+             threadFactory, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public InstrumentedThreadPool(String poolName, int corePoolSize, int maximumPoolSize,
+                                  long keepAliveTime, TimeUnit unit, BlockingQueue<Runnable> workQueue) {
+        this(poolName, corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue,
+             namedFactory(poolName), new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * 与Executors.newFixedThreadPool相同的配置
+     */
+    public static InstrumentedThreadPool newFixed(String poolName, int threads) {
+        return new InstrumentedThreadPool(poolName, threads, threads, 0L, TimeUnit.MILLISECONDS,
+                                          new LinkedBlockingQueue<>());
+    }
+
+    /**
+     * 与Executors.newCachedThreadPool相同的配置
+     */
+    public static InstrumentedThreadPool newCached(String poolName) {
+        return new InstrumentedThreadPool(poolName, 0, Integer.MAX_VALUE, 60L, TimeUnit.SECONDS,
+                                          new SynchronousQueue<>());
+    }
+
+    static ThreadFactory namedFactory(String poolName) {
+        ThreadFactory defaults = Executors.defaultThreadFactory();
+        AtomicInteger counter = new AtomicInteger(0);
+        return r -> {
+            Thread thread = defaults.newThread(r);
+            thread.setName(poolName + "-" + counter.incrementAndGet());
+            return thread;
+        };
+    }
+
+    // ==================== 生命周期钩子 ====================
+
+    @Override
+    public void execute(Runnable command) {
+        stats.onSubmit();
+        super.execute(command);
+    }
+
+    @Override
+    protected void beforeExecute(Thread t, Runnable r) {
+        stats.beforeExecute();
+        super.beforeExecute(t, r);
+    }
+
+    @Override
+    protected void afterExecute(Runnable r, Throwable t) {
+        super.afterExecute(r, t);
+        stats.afterExecute(t);
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        List<Runnable> drained = super.shutdownNow();
+        stats.onDiscarded(drained.size());
+        return drained;
+    }
+
+    // ==================== 预聚合统计（无锁读取） ====================
+
+    public ThreadPoolStats getStats() { return stats; }
+    public String getPoolName() { return stats.getPoolName(); }
+    public long getSubmittedCount() { return stats.getSubmittedCount(); }
+    public long getRejectedCount() { return stats.getRejectedCount(); }
+    public long getStartedCount() { return stats.getStartedCount(); }
+    public long getFinishedCount() { return stats.getFinishedCount(); }
+    public long getFailedCount() { return stats.getFailedCount(); }
+    public long getLiveThreadCount() { return stats.getLiveThreadCount(); }
+
+    /**
+     * 任务执行耗时分布（从beforeExecute到afterExecute）
+     */
+    public LatencyHistogram getTaskTime() { return stats.getTaskTime(); }
+
+    /**
+     * 正在执行任务的线程数；各计数分别求和，并发时是近似值，不会为负
+     */
+    public long getBusyThreadCount() { return stats.getBusyThreadCount(); }
+
+    /**
+     * 排队等待执行的任务数，不读取队列本身
+     */
+    public long getQueuedCount() { return stats.getQueuedCount(); }
+}
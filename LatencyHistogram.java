@@ -0,0 +1,203 @@
+/**
+ * LatencyHistogram - 并发对数分桶延迟直方图
+ *
+ * 用固定数量的桶记录延迟分布，计算p50/p90/p99/p99.9等分位数，弥补平均值掩盖长尾的问题
+ *
+ * 分桶方式（以微秒为单位）：
+ *   0 ~ 31µs 每个值一个桶（精确）；
+ *   更大的值按2的幂分组，每组再均分为32个子桶，相对误差不超过约3%
+ *   共1888个桶即可覆盖0 ~ 2^62µs，内存固定约15KB
+ *
+ * 并发设计：
+ *   1. 记录：计算桶下标后对AtomicLongArray做一次原子加，不分配任何对象
+ *   2. 读取：桶计数只增不减，快照复制一份计数；两次快照相减即为一个周期内的分布
+ *
+ * @author Java Learning Tutorial
+ * @version 1.0
+ * @date 2024
+ */
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 62;
+    private static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKET_COUNT;
+
+    private final String name;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder totalMicros = new LongAdder();
+    private final AtomicLong maxMicros = new AtomicLong(0);
+
+    // 周期快照的起点，只由周期性报告线程使用
+    private long[] intervalBase = new long[BUCKET_COUNT];
+    private long intervalBaseTotal;
+
+    public LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 记录一次延迟（微秒），负值按0处理
+     */
+    public void record(long micros) {
+        long value = Math.max(0, micros);
+        counts.incrementAndGet(bucketIndex(value));
+        totalMicros.add(value);
+        long currentMax = maxMicros.get();
+        while (value > currentMax && !maxMicros.compareAndSet(currentMax, value)) {
+            currentMax = maxMicros.get();
+        }
+    }
+
+    public void recordNanos(long nanos) {
+        record(nanos / 1000);
+    }
+
+    public void recordMillis(long millis) {
+        record(millis * 1000);
+    }
+
+    /**
+     * 自创建以来的累计分布
+     */
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            copy[i] = counts.get(i);
+        }
+        return new Snapshot(name, copy, totalMicros.sum(), maxMicros.get());
+    }
+
+    /**
+     * 上次调用以来（一个报告周期内）的分布
+     * 周期内的最大值取最高非空桶的上界；应只由一个周期性报告线程调用
+     */
+    public synchronized Snapshot intervalSnapshot() {
+        long[] current = new long[BUCKET_COUNT];
+        long[] delta = new long[BUCKET_COUNT];
+        int highest = -1;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            current[i] = counts.get(i);
+            delta[i] = current[i] - intervalBase[i];
+            if (delta[i] > 0) {
+                highest = i;
+            }
+        }
+        long total = totalMicros.sum();
+        Snapshot snapshot = new Snapshot(name, delta, total - intervalBaseTotal,
+                                         highest < 0 ? 0 : Math.min(bucketUpperBound(highest), maxMicros.get()));
+        intervalBase = current;
+        intervalBaseTotal = total;
+        return snapshot;
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int mantissa = (int) (value >>> shift);
+        return (shift + 1) * SUB_BUCKET_COUNT + (mantissa - SUB_BUCKET_COUNT);
+    }
+
+    static long bucketLowerBound(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKET_COUNT - 1;
+        long mantissa = SUB_BUCKET_COUNT + index % SUB_BUCKET_COUNT;
+        return mantissa << shift;
+    }
+
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKET_COUNT - 1;
+        long mantissa = SUB_BUCKET_COUNT + index % SUB_BUCKET_COUNT;
+        return ((mantissa + 1) << shift) - 1;
+    }
+
+    /**
+     * 直方图快照 - 不可变，可在任意线程读取分位数
+     */
+    public static final class Snapshot {
+        private final String name;
+        private final long[] counts;
+        private final long count;
+        private final long totalMicros;
+        private final long maxMicros;
+
+        Snapshot(String name, long[] counts, long totalMicros, long maxMicros) {
+            this.name = name;
+            this.counts = counts;
+            long sum = 0;
+            for (long c : counts) {
+                sum += c;
+            }
+            this.count = sum;
+            this.totalMicros = totalMicros;
+            this.maxMicros = maxMicros;
+        }
+
+        public String getName() { return name; }
+        public long getCount() { return count; }
+        public long getMaxMicros() { return maxMicros; }
+        public long getTotalMicros() { return totalMicros; }
+
+        public double getMeanMicros() {
+            return count > 0 ? (double) totalMicros / count : 0;
+        }
+
+        /**
+         * 分位数对应的延迟（微秒），取所在桶的上界（不超过最大值）
+         * @param percentile 0 ~ 100，例如99.9
+         */
+        public long valueAtPercentile(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(bucketUpperBound(i), maxMicros);
+                }
+            }
+            return maxMicros;
+        }
+
+        /**
+         * 上界不超过micros的桶中的记录数，即一定不超过micros的记录数（用于导出累计分布）
+         */
+        public long countAtOrBelow(long micros) {
+            long seen = 0;
+            for (int i = 0; i < counts.length && bucketUpperBound(i) <= micros; i++) {
+                seen += counts[i];
+            }
+            return seen;
+        }
+
+        /**
+         * 格式化为"n=… p50=…ms p90=… p99=… p99.9=… max=…"
+         */
+        public String format() {
+            return String.format("n=%d p50=%.1fms p90=%.1fms p99=%.1fms p99.9=%.1fms max=%.1fms",
+                                 count,
+                                 valueAtPercentile(50) / 1000.0, valueAtPercentile(90) / 1000.0,
+                                 valueAtPercentile(99) / 1000.0, valueAtPercentile(99.9) / 1000.0,
+                                 maxMicros / 1000.0);
+        }
+    }
+}
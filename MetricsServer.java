@@ -0,0 +1,325 @@
+/**
+ * MetricsServer - Prometheus文本格式的指标端点（JDK内置HttpServer，只监听本机回环地址）
+ *
+ * 各组件启动时把计数器、仪表、直方图和线程池登记到注册表，指标值以函数形式登记，抓取时才读取：
+ *   1. 计数器/仪表：函数只读取LongAdder、AtomicLong或volatile字段等预聚合的值
+ *   2. 直方图：LatencyHistogram.snapshot()逐个读取原子计数，不加锁，不影响正在记录的线程
+ *   3. 线程池：读取InstrumentedThreadPool/InstrumentedScheduledThreadPool在任务钩子中维护的计数（ThreadPoolStats），
+ *      不调用需要mainLock的getter
+ * 抓取在HttpServer自己的单个后台线程上完成，格式化产生的对象都在该线程上分配，
+ * 工作线程既不等待抓取，也不为抓取多做任何事
+ *
+ * 用法：
+ *   java -Dmetrics.port=9464 ComprehensiveThreadDemo
+ *   curl http://127.0.0.1:9464/metrics
+ *
+ * @author Java Learning Tutorial
+ * @version 1.0
+ * @date 2024
+ */
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+
+public class MetricsServer {
+
+    /**
+     * 指标类型，对应Prometheus的TYPE行
+     */
+    enum Type {
+        COUNTER("counter"), GAUGE("gauge"), HISTOGRAM("histogram");
+
+        private final String text;
+
+        Type(String text) {
+            this.text = text;
+        }
+    }
+
+    // 直方图导出的桶上界（秒）；LatencyHistogram的桶宽约为3%，只计入上界不超过le的桶
+    private static final double[] BUCKET_SECONDS = {
+        0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10
+    };
+
+    private static final MetricsServer SHARED = new MetricsServer();
+
+    /**
+     * 同名指标：类型、说明和按标签区分的样本
+     */
+    private static final class Family {
+        final String name;
+        final String help;
+        final Type type;
+        final Map<String, Object> samples = new LinkedHashMap<>();  // 标签 -> LongSupplier/DoubleSupplier/LatencyHistogram
+
+        Family(String name, String help, Type type) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+        }
+    }
+
+    // 登记和抓取时复制家族列表都在this上同步；只有登记线程和抓取线程会竞争
+    private final Map<String, Family> families = new LinkedHashMap<>();
+    private HttpServer server;
+    private ExecutorService scrapeExecutor;
+
+    /**
+     * 进程内共享的注册表
+     */
+    public static MetricsServer shared() {
+        return SHARED;
+    }
+
+    // ==================== 登记 ====================
+
+    /**
+     * 登记只增不减的计数器
+     * @param labels 标签名和标签值交替排列，例如 "stage", "payment"
+     */
+    public void counter(String name, String help, LongSupplier value, String... labels) {
+        register(name, help, Type.COUNTER, labels, value);
+    }
+
+    public void counter(String name, String help, DoubleSupplier value, String... labels) {
+        register(name, help, Type.COUNTER, labels, value);
+    }
+
+    /**
+     * 登记可增可减的仪表
+     */
+    public void gauge(String name, String help, LongSupplier value, String... labels) {
+        register(name, help, Type.GAUGE, labels, value);
+    }
+
+    public void gauge(String name, String help, DoubleSupplier value, String... labels) {
+        register(name, help, Type.GAUGE, labels, value);
+    }
+
+    /**
+     * 登记延迟直方图，以秒为单位导出累计分布
+     */
+    public void histogram(String name, String help, LatencyHistogram histogram, String... labels) {
+        register(name, help, Type.HISTOGRAM, labels, histogram);
+    }
+
+    /**
+     * 登记线程池的全部指标，pool标签为线程池名称
+     */
+    public void threadPool(InstrumentedThreadPool pool) {
+        threadPool(pool.getStats(), () -> (long) pool.getMaximumPoolSize());
+    }
+
+    /**
+     * 登记调度线程池的全部指标；调度线程池的线程数不超过核心线程数
+     */
+    public void threadPool(InstrumentedScheduledThreadPool pool) {
+        threadPool(pool.getStats(), () -> (long) pool.getCorePoolSize());
+    }
+
+    private void threadPool(ThreadPoolStats stats, LongSupplier maxThreads) {
+        String name = stats.getPoolName();
+        counter("threadpool_tasks_submitted_total", "提交到线程池的任务数", stats::getSubmittedCount, "pool", name);
+        counter("threadpool_tasks_rejected_total", "被拒绝策略处理的任务数", stats::getRejectedCount, "pool", name);
+        counter("threadpool_tasks_completed_total", "执行完毕的任务数", stats::getFinishedCount, "pool", name);
+        counter("threadpool_tasks_failed_total", "抛出异常的任务数（不含submit提交的任务）", stats::getFailedCount,
+                "pool", name);
+        gauge("threadpool_queued_tasks", "排队等待执行的任务数", stats::getQueuedCount, "pool", name);
+        gauge("threadpool_busy_threads", "正在执行任务的线程数", stats::getBusyThreadCount, "pool", name);
+        gauge("threadpool_live_threads", "存活的工作线程数", stats::getLiveThreadCount, "pool", name);
+        gauge("threadpool_max_threads", "最大线程数配置", maxThreads, "pool", name);
+        histogram("threadpool_task_seconds", "任务执行耗时", stats.getTaskTime(), "pool", name);
+    }
+
+    private synchronized void register(String name, String help, Type type, String[] labels, Object sample) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("标签名和标签值必须成对出现: " + name);
+        }
+        Family family = families.get(name);
+        if (family == null) {
+            family = new Family(name, help, type);
+            families.put(name, family);
+        } else if (family.type != type) {
+            throw new IllegalArgumentException("指标 " + name + " 已登记为 " + family.type.text);
+        }
+        // 同一组标签重复登记时以最后一次为准，例如同一个组件被重新创建
+        family.samples.put(formatLabels(labels), sample);
+    }
+
+    private static String formatLabels(String[] labels) {
+        if (labels.length == 0) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < labels.length; i += 2) {
+            sb.append(i == 0 ? "" : ",").append(labels[i]).append("=\"");
+            String value = labels[i + 1];
+            for (int j = 0; j < value.length(); j++) {
+                char c = value.charAt(j);
+                if (c == '\\' || c == '"') {
+                    sb.append('\\').append(c);
+                } else if (c == '\n') {
+                    sb.append("\\n");
+                } else {
+                    sb.append(c);
+                }
+            }
+            sb.append('"');
+        }
+        return sb.toString();
+    }
+
+    // ==================== 抓取 ====================
+
+    /**
+     * 以Prometheus文本格式（0.0.4）输出当前全部指标
+     */
+    public String scrape() {
+        List<Family> snapshot = new ArrayList<>();
+        List<List<Map.Entry<String, Object>>> samples = new ArrayList<>();
+        synchronized (this) {
+            for (Family family : families.values()) {
+                snapshot.add(family);
+                List<Map.Entry<String, Object>> copy = new ArrayList<>(family.samples.size());
+                for (Map.Entry<String, Object> sample : family.samples.entrySet()) {
+                    copy.add(new AbstractMap.SimpleImmutableEntry<>(sample));
+                }
+                samples.add(copy);
+            }
+        }
+
+        StringBuilder sb = new StringBuilder(8192);
+        for (int i = 0; i < snapshot.size(); i++) {
+            Family family = snapshot.get(i);
+            sb.append("# HELP ").append(family.name).append(' ').append(family.help).append('\n');
+            sb.append("# TYPE ").append(family.name).append(' ').append(family.type.text).append('\n');
+            for (Map.Entry<String, Object> sample : samples.get(i)) {
+                String labels = sample.getKey();
+                Object source = sample.getValue();
+                if (source instanceof LatencyHistogram) {
+                    appendHistogram(sb, family.name, labels, ((LatencyHistogram) source).snapshot());
+                } else if (source instanceof LongSupplier) {
+                    appendSample(sb, family.name, labels, null, String.valueOf(((LongSupplier) source).getAsLong()));
+                } else {
+                    appendSample(sb, family.name, labels, null, formatDouble(((DoubleSupplier) source).getAsDouble()));
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    private static void appendHistogram(StringBuilder sb, String name, String labels,
+                                        LatencyHistogram.Snapshot snapshot) {
+        for (double bound : BUCKET_SECONDS) {
+            long micros = Math.round(bound * 1_000_000);
+            appendSample(sb, name + "_bucket", labels, "le=\"" + formatDouble(bound) + "\"",
+                         String.valueOf(snapshot.countAtOrBelow(micros)));
+        }
+        appendSample(sb, name + "_bucket", labels, "le=\"+Inf\"", String.valueOf(snapshot.getCount()));
+        appendSample(sb, name + "_sum", labels, null, formatDouble(snapshot.getTotalMicros() / 1e6));
+        appendSample(sb, name + "_count", labels, null, String.valueOf(snapshot.getCount()));
+    }
+
+    private static void appendSample(StringBuilder sb, String name, String labels, String extraLabel, String value) {
+        sb.append(name);
+        if (!labels.isEmpty() || extraLabel != null) {
+            sb.append('{').append(labels);
+            if (extraLabel != null) {
+                sb.append(labels.isEmpty() ? "" : ",").append(extraLabel);
+            }
+            sb.append('}');
+        }
+        sb.append(' ').append(value).append('\n');
+    }
+
+    private static String formatDouble(double value) {
+        if (Double.isNaN(value)) {
+            return "NaN";
+        }
+        if (Double.isInfinite(value)) {
+            return value > 0 ? "+Inf" : "-Inf";
+        }
+        return value == Math.rint(value) && Math.abs(value) < 1e15 ? String.valueOf((long) value) : String.valueOf(value);
+    }
+
+    // ==================== HTTP端点 ====================
+
+    /**
+     * 在127.0.0.1:port上启动/metrics端点；已启动时不做任何事
+     * @param port 0表示由系统分配端口
+     * @return 实际监听的端口
+     */
+    public synchronized int start(int port) throws IOException {
+        if (server != null) {
+            return server.getAddress().getPort();
+        }
+        HttpServer created = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        created.createContext("/metrics", exchange -> {
+            try {
+                byte[] body = scrape().getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            } catch (RuntimeException e) {
+                System.err.println("❌ 指标抓取失败: " + e);
+                exchange.sendResponseHeaders(500, -1);
+            } finally {
+                exchange.close();
+            }
+        });
+        // 单个后台线程处理抓取请求，抓取之间互相排队，不占用任何业务线程
+        scrapeExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "Metrics-Scrape");
+            thread.setDaemon(true);
+            return thread;
+        });
+        created.setExecutor(scrapeExecutor);
+        created.start();
+        server = created;
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * 按系统属性metrics.port启动端点，未设置时不启动
+     * @return 启动时返回说明文字，否则返回null
+     */
+    public String startFromSystemProperty() {
+        Integer port = Integer.getInteger("metrics.port");
+        if (port == null) {
+            return null;
+        }
+        try {
+            return "http://127.0.0.1:" + start(port) + "/metrics";
+        } catch (IOException e) {
+            System.err.println("❌ 指标端点启动失败（端口 " + port + "）: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 停止端点；HttpServer的分发线程不是守护线程，不停止会阻止JVM退出
+     */
+    public synchronized void stop() {
+        if (server != null) {
+            server.stop(0);
+            scrapeExecutor.shutdownNow();
+            server = null;
+        }
+    }
+}
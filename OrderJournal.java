@@ -0,0 +1,554 @@
+/**
+ * OrderJournal - 内存映射的订单预写日志（WAL）
+ *
+ * 订单创建和每次状态转换都追加一条记录，重启后按顺序重放即可恢复订单状态
+ *
+ * 文件布局：
+ *   日志目录下按编号排列的段文件 orders-000000.journal、orders-000001.journal ...
+ *   每个段固定大小，通过FileChannel映射到内存后直接写入，不经过write系统调用
+ *   记录格式：int 正文长度 | int 正文CRC32 | 正文；长度为0表示本段后面没有记录
+ *   正文：byte 类型 | int 订单号 | long 时间戳 | 类型相关字段
+ *     CREATED    long 金额（分）| 客户名 | byte 商品数量 | 商品名...（字符串为short长度 + UTF-8）
+ *     TRANSITION byte 原状态 | byte 新状态
+ *   快照文件 orders-snapshot-000005.snapshot 保存段0 ~ 5重放后的全部订单，被覆盖的段随后删除，
+ *   格式和恢复过程见OrderJournalRecovery
+ *
+ * 并发设计：
+ *   1. 序列化和CRC计算在调用线程的本地缓冲区中完成，只有复制到映射区的那一步持有锁
+ *   2. 每条记录的结束位置（全局字节偏移）即其日志序号LSN，刷盘进度用flushedLsn表示
+ *   3. 组提交：等待持久化的线程只唤醒刷盘线程，一次force()覆盖此前写入的全部记录，
+ *      force期间到达的记录由下一次force一并处理
+ *   4. 切换段时不在appendLock下force旧段：旧段交给刷盘线程，下一次刷盘先force旧段再force当前段
+ *
+ * 刷盘策略（FsyncPolicy）：
+ *   NONE        只写入映射内存，由操作系统择机回写；进程崩溃不丢数据，机器掉电可能丢失
+ *   INTERVAL    后台线程每隔固定时间force一次，写入线程不等待；掉电最多丢失一个间隔的数据
+ *   GROUP       写入线程等待包含自己记录的那次force完成（组提交），返回即持久化
+ *   EVERY_WRITE 每条记录单独force，用于对照组提交的收益
+ *
+ * 压缩：每写满若干个段，后台线程把已写满的段与上一个快照合并为新快照，
+ *   重启时只需重放最新快照之后的段
+ *
+ * @author Java Learning Tutorial
+ * @version 1.0
+ * @date 2024
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+public class OrderJournal {
+
+    /**
+     * 刷盘策略，持久性从低到高
+     */
+    public enum FsyncPolicy { NONE, INTERVAL, GROUP, EVERY_WRITE }
+
+    static final byte RECORD_CREATED = 1;
+    static final byte RECORD_TRANSITION = 2;
+    static final int RECORD_HEADER_BYTES = 8;
+    static final int MAX_RECORD_BYTES = 4096;
+    static final String SEGMENT_PREFIX = "orders-";
+    static final String SEGMENT_SUFFIX = ".journal";
+    static final String SNAPSHOT_PREFIX = "orders-snapshot-";
+    static final String SNAPSHOT_SUFFIX = ".snapshot";
+
+    public static final long DEFAULT_SEGMENT_BYTES = 64L * 1024 * 1024;
+    public static final long DEFAULT_INTERVAL_MILLIS = 10;
+    public static final int DEFAULT_COMPACT_SEGMENTS = 4;
+
+    private static final ThreadLocal<ByteBuffer> SCRATCH =
+        ThreadLocal.withInitial(() -> ByteBuffer.allocate(MAX_RECORD_BYTES));
+    private static final ThreadLocal<CRC32> CRC = ThreadLocal.withInitial(CRC32::new);
+
+    private final File directory;
+    private final long segmentBytes;
+    private final FsyncPolicy policy;
+    private final long intervalMillis;
+
+    // 追加：只有复制记录和切换段时持有appendLock
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private volatile MappedByteBuffer currentSegment;
+    private int currentSegmentIndex;
+    private volatile long writtenLsn;
+
+    // 刷盘：组提交的等待与唤醒
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final Condition flushRequested = flushLock.newCondition();
+    private final Condition flushCompleted = flushLock.newCondition();
+    private boolean flushPending;
+    // 已切换出去、尚未force的段，由flushLock保护
+    private final ArrayDeque<MappedByteBuffer> sealedSegments = new ArrayDeque<>();
+    private volatile long flushedLsn;
+    private final Thread flusher;
+    private volatile boolean running = true;
+
+    // 统计指标
+    private final LongAdder records = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final AtomicLong forces = new AtomicLong(0);
+    private final AtomicLong forceNanos = new AtomicLong(0);
+    private final LongAdder durableWaits = new LongAdder();
+    private final LongAdder rejectedRecords = new LongAdder();
+
+    // 压缩：已写满的段在后台合并进快照，compactor按需创建
+    private volatile int compactEverySegments;
+    private int lastCompactedSegment;
+    private ExecutorService compactor;
+    private final AtomicLong compactions = new AtomicLong(0);
+
+    /**
+     * 打开日志目录，从已有段（以及快照已覆盖的段）之后的新段开始追加，已有段保持不变
+     */
+    public OrderJournal(File directory, FsyncPolicy policy, long segmentBytes, long intervalMillis) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("无法创建日志目录: " + directory);
+        }
+        this.directory = directory;
+        this.policy = policy;
+        this.segmentBytes = segmentBytes;
+        this.intervalMillis = intervalMillis;
+
+        // 快照覆盖的段可能已被删除，新段编号也不能落入快照范围，否则恢复时会被跳过
+        int lastSnapshot = -1;
+        for (int index : listSnapshotIndexes(directory)) {
+            lastSnapshot = Math.max(lastSnapshot, index);
+        }
+        int lastIndex = lastSnapshot;
+        for (int index : listSegmentIndexes(directory)) {
+            lastIndex = Math.max(lastIndex, index);
+        }
+        this.lastCompactedSegment = lastSnapshot;
+        this.currentSegmentIndex = lastIndex + 1;
+        this.currentSegment = mapSegment(currentSegmentIndex);
+        this.writtenLsn = (long) currentSegmentIndex * segmentBytes;
+        this.flushedLsn = writtenLsn;
+
+        if (policy == FsyncPolicy.INTERVAL || policy == FsyncPolicy.GROUP) {
+            flusher = new Thread(this::flushLoop, "OrderJournal-Flusher");
+            flusher.setDaemon(true);
+            flusher.start();
+        } else {
+            flusher = null;
+        }
+    }
+
+    public OrderJournal(File directory, FsyncPolicy policy) throws IOException {
+        this(directory, policy, DEFAULT_SEGMENT_BYTES, DEFAULT_INTERVAL_MILLIS);
+    }
+
+    /**
+     * 按系统属性打开日志，未配置 -Dorder.journal=目录 时返回null（不记录日志）
+     * 刷盘策略由 -Dorder.journal.fsync=NONE|INTERVAL|GROUP|EVERY_WRITE 指定，默认GROUP
+     * 每写满 -Dorder.journal.compactSegments=4 个段压缩一次，0表示不自动压缩
+     */
+    static OrderJournal openFromSystemProperties() {
+        String dir = System.getProperty("order.journal");
+        if (dir == null) {
+            return null;
+        }
+        FsyncPolicy policy = FsyncPolicy.valueOf(
+            System.getProperty("order.journal.fsync", FsyncPolicy.GROUP.name()).toUpperCase());
+        try {
+            OrderJournal journal = new OrderJournal(new File(dir), policy);
+            journal.setCompactionInterval(Integer.getInteger("order.journal.compactSegments", DEFAULT_COMPACT_SEGMENTS));
+            return journal;
+        } catch (IOException e) {
+            System.err.println("⚠️ 无法打开订单日志 " + dir + "，本次运行不记录日志: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // ==================== 写入 ====================
+
+    /**
+     * 记录订单创建，按刷盘策略等待持久化后返回
+     * @return 该记录的LSN
+     * @throws IllegalArgumentException 商品超过127个或记录超过MAX_RECORD_BYTES时拒绝写入，不截断记录
+     */
+    public long logCreated(ComprehensiveThreadDemo.Order order) {
+        ByteBuffer body = beginRecord(RECORD_CREATED, order.getOrderId(), order.getStartTime());
+        body.putLong(order.getTotalAmountCents());
+        boolean fits = order.getProductCount() <= Byte.MAX_VALUE && putString(body, order.getCustomerName());
+        if (fits) {
+            body.put((byte) order.getProductCount());
+            for (String product : order.getProducts()) {
+                if (!putString(body, product)) {
+                    fits = false;
+                    break;
+                }
+            }
+        }
+        if (!fits) {
+            rejectedRecords.increment();
+            throw new IllegalArgumentException("订单 #" + order.getOrderId() + " 的创建记录超出日志记录上限（" +
+                                               order.getProductCount() + " 个商品，最大 " + MAX_RECORD_BYTES + " 字节）");
+        }
+        return appendAndWait(body);
+    }
+
+    /**
+     * 记录一次状态转换，按刷盘策略等待持久化后返回
+     * @return 该记录的LSN
+     */
+    public long logTransition(ComprehensiveThreadDemo.Order order, ComprehensiveThreadDemo.OrderStatus from,
+                              ComprehensiveThreadDemo.OrderStatus to) {
+        ByteBuffer body = beginRecord(RECORD_TRANSITION, order.getOrderId(), System.currentTimeMillis());
+        body.put((byte) from.ordinal());
+        body.put((byte) to.ordinal());
+        return appendAndWait(body);
+    }
+
+    private static ByteBuffer beginRecord(byte type, int orderId, long timestamp) {
+        ByteBuffer buffer = SCRATCH.get();
+        buffer.clear();
+        buffer.position(RECORD_HEADER_BYTES);
+        buffer.put(type);
+        buffer.putInt(orderId);
+        buffer.putLong(timestamp);
+        return buffer;
+    }
+
+    /**
+     * 写入short长度 + UTF-8字节
+     * @return 缓冲区剩余空间不足时不写入并返回false
+     */
+    private static boolean putString(ByteBuffer buffer, String value) {
+        byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+        if (buffer.remaining() < 2 + encoded.length) {
+            return false;
+        }
+        buffer.putShort((short) encoded.length);
+        buffer.put(encoded);
+        return true;
+    }
+
+    private long appendAndWait(ByteBuffer record) {
+        int bodyLength = record.position() - RECORD_HEADER_BYTES;
+        CRC32 crc = CRC.get();
+        crc.reset();
+        crc.update(record.array(), RECORD_HEADER_BYTES, bodyLength);
+        record.putInt(0, bodyLength);
+        record.putInt(4, (int) crc.getValue());
+        record.flip();
+
+        long lsn = append(record);
+        records.increment();
+        bytes.add(record.limit());
+
+        switch (policy) {
+            case GROUP:
+                awaitDurable(lsn);
+                break;
+            case EVERY_WRITE:
+                forceCurrentSegment(lsn);
+                break;
+            default:
+                break;
+        }
+        return lsn;
+    }
+
+    /**
+     * 把记录复制到当前段，空间不足时先切换到新段
+     */
+    private long append(ByteBuffer record) {
+        appendLock.lock();
+        try {
+            MappedByteBuffer segment = currentSegment;
+            // 记录之后至少留出4字节的0作为段结束标记
+            if (segment.remaining() < record.limit() + 4) {
+                segment = rollSegment();
+            }
+            segment.put(record);
+            long lsn = (long) currentSegmentIndex * segmentBytes + segment.position();
+            writtenLsn = lsn;
+            return lsn;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private MappedByteBuffer rollSegment() {
+        MappedByteBuffer previous = currentSegment;
+        if (policy != FsyncPolicy.NONE) {
+            // 旧段交给刷盘线程force，不在appendLock下等待；必须在更新currentSegment之前登记，
+            // 刷盘时读到新段就一定能取到旧段
+            flushLock.lock();
+            try {
+                sealedSegments.add(previous);
+                flushPending = true;
+                flushRequested.signal();
+            } finally {
+                flushLock.unlock();
+            }
+        }
+        try {
+            currentSegmentIndex++;
+            currentSegment = mapSegment(currentSegmentIndex);
+        } catch (IOException e) {
+            throw new UncheckedIOException("无法创建日志段 " + currentSegmentIndex, e);
+        }
+        int sealed = currentSegmentIndex - 1;
+        int every = compactEverySegments;
+        if (every > 0 && sealed - lastCompactedSegment >= every) {
+            lastCompactedSegment = sealed;
+            scheduleCompaction(sealed);
+        }
+        return currentSegment;
+    }
+
+    private MappedByteBuffer mapSegment(int index) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(segmentFile(directory, index), "rw");
+             FileChannel channel = file.getChannel()) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        }
+    }
+
+    // ==================== 压缩 ====================
+
+    /**
+     * 每写满everySegments个段自动压缩一次，0表示不自动压缩
+     */
+    public void setCompactionInterval(int everySegments) {
+        this.compactEverySegments = Math.max(0, everySegments);
+    }
+
+    /**
+     * 在后台把段0 ~ sealed（均已写满，不再修改）合并进快照，同一时刻只有一个压缩任务
+     * 调用时持有appendLock
+     */
+    private void scheduleCompaction(int sealed) {
+        if (compactor == null) {
+            compactor = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, "OrderJournal-Compactor");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        compactor.execute(() -> {
+            try {
+                OrderJournalRecovery.compact(directory, sealed, 1);
+                compactions.incrementAndGet();
+            } catch (IOException | RuntimeException e) {
+                System.err.println("⚠️ 订单日志压缩失败（段0 ~ " + sealed + "）: " + e.getMessage());
+            }
+        });
+    }
+
+    // ==================== 刷盘 ====================
+
+    /**
+     * 组提交：等待包含lsn的那次force完成
+     */
+    private void awaitDurable(long lsn) {
+        if (flushedLsn >= lsn) {
+            return;
+        }
+        durableWaits.increment();
+        flushLock.lock();
+        try {
+            flushPending = true;
+            flushRequested.signal();
+            while (flushedLsn < lsn && running) {
+                flushCompleted.awaitUninterruptibly();
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flushLoop() {
+        while (running) {
+            flushLock.lock();
+            try {
+                if (policy == FsyncPolicy.GROUP) {
+                    while (!flushPending && running) {
+                        flushRequested.awaitUninterruptibly();
+                    }
+                } else {
+                    flushRequested.await(intervalMillis, TimeUnit.MILLISECONDS);
+                }
+                flushPending = false;
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                flushLock.unlock();
+            }
+            if (writtenLsn > flushedLsn) {
+                forceCurrentSegment(writtenLsn);
+            }
+        }
+    }
+
+    /**
+     * 先force切换时交来的旧段，再force当前段，完成后把flushedLsn推进到target并唤醒等待者
+     * target必须在获取段引用之前读取，当前段必须在取出旧段之前读取：若其间切换了段，
+     * target所在的旧段已登记在sealedSegments中
+     */
+    private void forceCurrentSegment(long target) {
+        MappedByteBuffer segment = currentSegment;
+        MappedByteBuffer[] sealed;
+        flushLock.lock();
+        try {
+            sealed = sealedSegments.toArray(new MappedByteBuffer[0]);
+            sealedSegments.clear();
+        } finally {
+            flushLock.unlock();
+        }
+        for (MappedByteBuffer previous : sealed) {
+            long begin = System.nanoTime();
+            previous.force();
+            forceNanos.addAndGet(System.nanoTime() - begin);
+            forces.incrementAndGet();
+        }
+        long begin = System.nanoTime();
+        segment.force();
+        forceNanos.addAndGet(System.nanoTime() - begin);
+        forces.incrementAndGet();
+
+        flushLock.lock();
+        try {
+            if (target > flushedLsn) {
+                flushedLsn = target;
+            }
+            flushCompleted.signalAll();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * 把已写入的记录全部落盘后停止刷盘线程，并等待进行中的压缩完成
+     */
+    public void close() {
+        if (policy != FsyncPolicy.NONE && writtenLsn > flushedLsn) {
+            forceCurrentSegment(writtenLsn);
+        }
+        running = false;
+        if (flusher != null) {
+            flushLock.lock();
+            try {
+                flushRequested.signalAll();
+                flushCompleted.signalAll();
+            } finally {
+                flushLock.unlock();
+            }
+            try {
+                flusher.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        ExecutorService pendingCompaction;
+        appendLock.lock();
+        try {
+            pendingCompaction = compactor;
+        } finally {
+            appendLock.unlock();
+        }
+        if (pendingCompaction != null) {
+            pendingCompaction.shutdown();
+            try {
+                pendingCompaction.awaitTermination(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // ==================== 段文件 ====================
+
+    static File segmentFile(File directory, int index) {
+        return new File(directory, String.format("%s%06d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX));
+    }
+
+    /**
+     * 覆盖段0 ~ coveredSegment的快照文件
+     */
+    static File snapshotFile(File directory, int coveredSegment) {
+        return new File(directory, String.format("%s%06d%s", SNAPSHOT_PREFIX, coveredSegment, SNAPSHOT_SUFFIX));
+    }
+
+    /**
+     * 目录中已有段文件的编号（升序）
+     */
+    static int[] listSegmentIndexes(File directory) {
+        return listIndexes(directory, SEGMENT_PREFIX, SEGMENT_SUFFIX);
+    }
+
+    /**
+     * 目录中已有快照覆盖到的段号（升序）
+     */
+    static int[] listSnapshotIndexes(File directory) {
+        return listIndexes(directory, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+    }
+
+    private static int[] listIndexes(File directory, String prefix, String suffix) {
+        String[] names = directory.list((dir, name) -> name.startsWith(prefix) && name.endsWith(suffix));
+        if (names == null) {
+            return new int[0];
+        }
+        int[] indexes = new int[names.length];
+        int count = 0;
+        for (String name : names) {
+            try {
+                indexes[count] = Integer.parseInt(name.substring(prefix.length(), name.length() - suffix.length()));
+                count++;
+            } catch (NumberFormatException e) {
+                // 忽略不符合命名规则的文件
+            }
+        }
+        int[] result = Arrays.copyOf(indexes, count);
+        Arrays.sort(result);
+        return result;
+    }
+
+    // ==================== 统计指标 ====================
+
+    public FsyncPolicy getPolicy() { return policy; }
+    public File getDirectory() { return directory; }
+    public long getRecordCount() { return records.sum(); }
+    public long getByteCount() { return bytes.sum(); }
+    public long getForceCount() { return forces.get(); }
+    public long getDurableWaitCount() { return durableWaits.sum(); }
+    public long getCompactionCount() { return compactions.get(); }
+
+    /**
+     * 超出记录上限而被拒绝写入的创建记录数
+     */
+    public long getRejectedRecordCount() { return rejectedRecords.sum(); }
+
+    public double getRecordsPerForce() {
+        long count = forces.get();
+        return count > 0 ? (double) records.sum() / count : 0;
+    }
+
+    public double getAverageForceMillis() {
+        long count = forces.get();
+        return count > 0 ? forceNanos.get() / 1e6 / count : 0;
+    }
+
+    public String formatStats() {
+        return String.format("%s 记录 %d 条（%.1fKB），force %d 次（平均 %.2fms，每次 %.1f 条），压缩 %d 次，拒绝 %d 条",
+                             policy, getRecordCount(), getByteCount() / 1024.0, getForceCount(),
+                             getAverageForceMillis(), getRecordsPerForce(), getCompactionCount(),
+                             getRejectedRecordCount());
+    }
+}
@@ -0,0 +1,738 @@
+/**
+ * OrderJournalRecovery - 从订单日志恢复订单
+ *
+ * 启动时读取最新快照，再重放快照之后的日志段，重建列式订单存储（OrderStore）和各状态的订单数
+ *
+ * 恢复步骤：
+ *   1. 解码：快照的每个数据块、每个日志段各是一个独立任务，在线程池中并行解码；
+ *      订单直接并发追加到OrderStore，状态转换按段收集为"订单号 -> 出现过的最高状态"
+ *   2. 建索引：订单号按取模分区，每个线程扫描一遍存储，只建立自己分区的"订单号 -> 存储下标"
+ *   3. 合并状态：各段收集的状态并行应用到存储，状态只升不降，结果与应用顺序无关
+ *   4. 压缩：把恢复结果写成新快照，删除快照已覆盖的日志段，下次只需重放之后的新段
+ *
+ * 为什么取最高状态而不是按日志顺序回放：
+ *   状态转换表只允许按生命周期前进（PENDING < PROCESSING < PAID < SHIPPED < DELIVERED < CANCELLED），
+ *   而两次转换写入日志的先后不一定与CAS成功的先后相同，各段又是并行解码的；
+ *   对每个订单取出现过的最高状态，得到的就是它最后的状态
+ *
+ * 快照格式：
+ *   文件头 int 魔数 | int 版本 | int 覆盖到的段号 | int 订单数 | int 数据块数 | int 客户数 | int SKU数 | int 字典字节数 | int 字典CRC32
+ *   字典   客户名...、SKU名...（short长度 + UTF-8），订单中以编号引用
+ *   数据块 int 订单数 | int 字节数 | int CRC32 | 订单...（每块最多65536个订单，可独立解码）
+ *   订单   int 订单号 | int 客户编号 | long 金额（分）| long 开始时间 | long 结束时间 | byte 状态 | byte 商品数 | int SKU编号...
+ *   先写入临时文件并sync，再原子重命名；崩溃时目录中要么是旧快照，要么是完整的新快照
+ *
+ * 损坏处理：
+ *   日志段遇到长度越界或CRC不符的记录即停止读取该段（崩溃时没写完的尾部），计入损坏段数；
+ *   快照校验失败则抛出IOException，因为它覆盖的日志段已被删除，无法跳过
+ *
+ * @author Java Learning Tutorial
+ * @version 1.0
+ * @date 2024
+ */
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+
+public class OrderJournalRecovery {
+
+    private static final int SNAPSHOT_MAGIC = 0x4F534E50;  // "OSNP"
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final int SNAPSHOT_HEADER_BYTES = 36;
+    private static final int BLOCK_HEADER_BYTES = 12;
+    private static final int BLOCK_ORDERS = 1 << 16;
+
+    // 记录正文的最小长度：byte 类型 | int 订单号 | long 时间戳
+    private static final int MIN_BODY_BYTES = 13;
+
+    private static final ComprehensiveThreadDemo.OrderStatus[] STATUSES =
+        ComprehensiveThreadDemo.OrderStatus.values();
+
+    private OrderJournalRecovery() {
+    }
+
+    /**
+     * 按系统属性恢复：-Dorder.journal=目录 未配置或目录不存在时返回null
+     * 恢复后立即压缩，本次重放过的段下次启动不再重放
+     */
+    static Result recoverFromSystemProperties() {
+        String dir = System.getProperty("order.journal");
+        if (dir == null || !new File(dir).isDirectory()) {
+            return null;
+        }
+        try {
+            Result result = recover(new File(dir), Runtime.getRuntime().availableProcessors());
+            compact(new File(dir), result);
+            return result;
+        } catch (IOException e) {
+            System.err.println("⚠️ 无法从订单日志恢复 " + dir + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    // ==================== 恢复 ====================
+
+    /**
+     * 恢复日志目录中的全部订单
+     * @param threads 并行解码和合并的线程数
+     */
+    public static Result recover(File directory, int threads) throws IOException {
+        return recover(directory, Integer.MAX_VALUE, threads);
+    }
+
+    /**
+     * 恢复最新快照以及段号不超过throughSegment的日志段
+     */
+    public static Result recover(File directory, int throughSegment, int threads) throws IOException {
+        long begin = System.nanoTime();
+        OrderStore store = new OrderStore();
+        Result result = new Result(store);
+
+        int snapshotSegment = -1;
+        for (int index : OrderJournal.listSnapshotIndexes(directory)) {
+            if (index <= throughSegment) {
+                snapshotSegment = Math.max(snapshotSegment, index);
+            }
+        }
+        result.lastSegmentIndex = snapshotSegment;
+
+        ExecutorService pool = newPool(Math.max(1, threads));
+        RandomAccessFile snapshotFile = null;
+        try {
+            // 1. 并行解码快照数据块和日志段
+            List<Callable<IntIntMap>> decodeTasks = new ArrayList<>();
+            if (snapshotSegment >= 0) {
+                snapshotFile = new RandomAccessFile(OrderJournal.snapshotFile(directory, snapshotSegment), "r");
+                addSnapshotTasks(snapshotFile.getChannel(), store, result, decodeTasks);
+            }
+            for (int index : OrderJournal.listSegmentIndexes(directory)) {
+                if (index > snapshotSegment && index <= throughSegment) {
+                    File segment = OrderJournal.segmentFile(directory, index);
+                    decodeTasks.add(() -> decodeSegment(segment, store, result));
+                    result.lastSegmentIndex = Math.max(result.lastSegmentIndex, index);
+                }
+            }
+            List<IntIntMap> transitions = invokeAll(pool, decodeTasks);
+
+            // 2. 按订单号分区建立索引
+            int partitions = Math.max(1, threads);
+            List<Callable<IntIntMap>> indexTasks = new ArrayList<>();
+            for (int p = 0; p < partitions; p++) {
+                final int partition = p;
+                indexTasks.add(() -> buildIndexPartition(store, partition, partitions, result));
+            }
+            List<IntIntMap> index = invokeAll(pool, indexTasks);
+
+            // 3. 并行应用各段的最高状态
+            List<Callable<IntIntMap>> applyTasks = new ArrayList<>();
+            for (IntIntMap segmentTransitions : transitions) {
+                if (segmentTransitions != null) {
+                    applyTasks.add(() -> {
+                        applyTransitions(segmentTransitions, index, store, result);
+                        return null;
+                    });
+                }
+            }
+            invokeAll(pool, applyTasks);
+        } finally {
+            pool.shutdown();
+            if (snapshotFile != null) {
+                snapshotFile.close();
+            }
+        }
+
+        result.statusCounts = store.countByStatus();
+        result.elapsedNanos = System.nanoTime() - begin;
+        return result;
+    }
+
+    /**
+     * 解码一个日志段：创建记录追加到存储，转换记录收集为"订单号 -> 最高状态序号"
+     */
+    private static IntIntMap decodeSegment(File file, OrderStore store, Result result) throws IOException {
+        MappedByteBuffer buffer;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        IntIntMap transitions = new IntIntMap(1 << 16);
+        StringCache strings = new StringCache();
+        List<String> products = new ArrayList<>();
+        CRC32 crc = new CRC32();
+        int limit = buffer.limit();
+        int position = 0;
+        long records = 0;
+        while (position + OrderJournal.RECORD_HEADER_BYTES <= limit) {
+            int length = buffer.getInt(position);
+            if (length == 0) {
+                break;  // 本段后面没有记录
+            }
+            int body = position + OrderJournal.RECORD_HEADER_BYTES;
+            if (length < MIN_BODY_BYTES || length > OrderJournal.MAX_RECORD_BYTES - OrderJournal.RECORD_HEADER_BYTES
+                    || body + length > limit || !crcMatches(buffer, body, length, buffer.getInt(position + 4), crc)) {
+                result.tornSegments.increment();
+                break;
+            }
+
+            byte type = buffer.get(body);
+            int orderId = buffer.getInt(body + 1);
+            long timestamp = buffer.getLong(body + 5);
+            int p = body + MIN_BODY_BYTES;
+            if (type == OrderJournal.RECORD_CREATED) {
+                long amountCents = buffer.getLong(p);
+                p += 8;
+                int customerLength = buffer.getShort(p) & 0xFFFF;
+                String customer = strings.decode(buffer, p + 2, customerLength);
+                p += 2 + customerLength;
+                int productCount = buffer.get(p++);
+                products.clear();
+                for (int k = 0; k < productCount; k++) {
+                    int productLength = buffer.getShort(p) & 0xFFFF;
+                    products.add(strings.decode(buffer, p + 2, productLength));
+                    p += 2 + productLength;
+                }
+                store.append(orderId, customer, products, amountCents, timestamp,
+                             ComprehensiveThreadDemo.OrderStatus.PENDING);
+            } else if (type == OrderJournal.RECORD_TRANSITION) {
+                int to = buffer.get(p + 1);
+                if (to >= 0 && to < STATUSES.length) {
+                    transitions.putMax(orderId, to);
+                }
+            }
+            records++;
+            position = body + length;
+        }
+
+        result.replayedSegments.increment();
+        result.replayedRecords.add(records);
+        result.replayedBytes.add(position);
+        return transitions;
+    }
+
+    private static boolean crcMatches(ByteBuffer buffer, int offset, int length, int expected, CRC32 crc) {
+        ByteBuffer body = buffer.duplicate();
+        body.limit(offset + length);
+        body.position(offset);
+        crc.reset();
+        crc.update(body);
+        return (int) crc.getValue() == expected;
+    }
+
+    private static IntIntMap buildIndexPartition(OrderStore store, int partition, int partitions, Result result) {
+        int size = store.size();
+        IntIntMap index = new IntIntMap(size / partitions + 16);
+        int maxOrderId = 0;
+        for (int i = 0; i < size; i++) {
+            int orderId = store.getOrderId(i);
+            if (Math.floorMod(orderId, partitions) != partition) {
+                continue;
+            }
+            // 订单号重复（来自旧版本的日志）时保留其中一个
+            if (index.putIfAbsent(orderId, i) >= 0) {
+                result.duplicateOrders.increment();
+            }
+            maxOrderId = Math.max(maxOrderId, orderId);
+        }
+        result.maxOrderId.accumulateAndGet(maxOrderId, Math::max);
+        return index;
+    }
+
+    private static void applyTransitions(IntIntMap transitions, List<IntIntMap> index, OrderStore store,
+                                         Result result) {
+        int partitions = index.size();
+        for (int slot = 0; slot < transitions.capacity(); slot++) {
+            int status = transitions.valueAt(slot);
+            if (status < 0) {
+                continue;
+            }
+            int orderId = transitions.keyAt(slot);
+            int storeIndex = index.get(Math.floorMod(orderId, partitions)).get(orderId);
+            if (storeIndex < 0) {
+                result.orphanTransitions.increment();
+            } else {
+                store.raiseStatus(storeIndex, STATUSES[status]);
+            }
+        }
+    }
+
+    // ==================== 快照 ====================
+
+    /**
+     * 读取快照的文件头和字典，为每个数据块生成一个解码任务
+     */
+    private static void addSnapshotTasks(FileChannel channel, OrderStore store, Result result,
+                                         List<Callable<IntIntMap>> tasks) throws IOException {
+        ByteBuffer header = readFully(channel, 0, SNAPSHOT_HEADER_BYTES);
+        if (header.getInt(0) != SNAPSHOT_MAGIC || header.getInt(4) != SNAPSHOT_VERSION) {
+            throw new IOException("不是有效的订单快照");
+        }
+        int orderCount = header.getInt(12);
+        int blockCount = header.getInt(16);
+        int customerCount = header.getInt(20);
+        int skuCount = header.getInt(24);
+        int dictionaryBytes = header.getInt(28);
+
+        ByteBuffer dictionary = readFully(channel, SNAPSHOT_HEADER_BYTES, dictionaryBytes);
+        CRC32 crc = new CRC32();
+        crc.update(dictionary.array(), 0, dictionaryBytes);
+        if ((int) crc.getValue() != header.getInt(32)) {
+            throw new IOException("订单快照字典校验失败");
+        }
+        String[] customers = new String[customerCount];
+        String[] skus = new String[skuCount];
+        int p = 0;
+        for (int i = 0; i < customerCount + skuCount; i++) {
+            int length = dictionary.getShort(p) & 0xFFFF;
+            String value = new String(dictionary.array(), p + 2, length, StandardCharsets.UTF_8);
+            if (i < customerCount) {
+                customers[i] = value;
+            } else {
+                skus[i - customerCount] = value;
+            }
+            p += 2 + length;
+        }
+
+        long offset = SNAPSHOT_HEADER_BYTES + (long) dictionaryBytes;
+        long totalOrders = 0;
+        for (int b = 0; b < blockCount; b++) {
+            ByteBuffer blockHeader = readFully(channel, offset, BLOCK_HEADER_BYTES);
+            int blockOrders = blockHeader.getInt(0);
+            int blockBytes = blockHeader.getInt(4);
+            int blockCrc = blockHeader.getInt(8);
+            long bodyOffset = offset + BLOCK_HEADER_BYTES;
+            if (blockOrders < 0 || blockBytes < 0 || bodyOffset + blockBytes > channel.size()) {
+                throw new IOException("订单快照数据块 " + b + " 不完整");
+            }
+            final int blockIndex = b;
+            tasks.add(() -> {
+                decodeSnapshotBlock(channel.map(FileChannel.MapMode.READ_ONLY, bodyOffset, blockBytes),
+                                    blockIndex, blockOrders, blockCrc, customers, skus, store);
+                return null;
+            });
+            offset = bodyOffset + blockBytes;
+            totalOrders += blockOrders;
+        }
+        if (totalOrders != orderCount) {
+            throw new IOException("订单快照订单数不符: " + totalOrders + " != " + orderCount);
+        }
+        result.snapshotOrders = orderCount;
+    }
+
+    private static void decodeSnapshotBlock(MappedByteBuffer block, int blockIndex, int orderCount, int expectedCrc,
+                                            String[] customers, String[] skus, OrderStore store) throws IOException {
+        CRC32 crc = new CRC32();
+        if (!crcMatches(block, 0, block.limit(), expectedCrc, crc)) {
+            throw new IOException("订单快照数据块 " + blockIndex + " 校验失败");
+        }
+        List<String> products = new ArrayList<>();
+        int p = 0;
+        for (int i = 0; i < orderCount; i++) {
+            int orderId = block.getInt(p);
+            String customer = customers[block.getInt(p + 4)];
+            long amountCents = block.getLong(p + 8);
+            long startTime = block.getLong(p + 16);
+            long endTime = block.getLong(p + 24);
+            ComprehensiveThreadDemo.OrderStatus status = STATUSES[block.get(p + 32)];
+            int productCount = block.get(p + 33);
+            p += 34;
+            products.clear();
+            for (int k = 0; k < productCount; k++) {
+                products.add(skus[block.getInt(p)]);
+                p += 4;
+            }
+            int index = store.append(orderId, customer, products, amountCents, startTime, status);
+            if (endTime != 0) {
+                store.setEndTime(index, endTime);
+            }
+        }
+    }
+
+    /**
+     * 把存储中的全部订单写成覆盖段0 ~ coveredSegment的快照
+     * 写快照期间不能有其他线程向store追加订单
+     */
+    public static File writeSnapshot(File directory, OrderStore store, int coveredSegment) throws IOException {
+        File target = OrderJournal.snapshotFile(directory, coveredSegment);
+        File temp = new File(directory, target.getName() + ".tmp");
+        int size = store.size();
+
+        ByteArrayOutputStream dictionaryBytes = new ByteArrayOutputStream();
+        DataOutputStream dictionary = new DataOutputStream(dictionaryBytes);
+        for (int id = 0; id < store.getCustomerCount(); id++) {
+            writeString(dictionary, store.lookupCustomer(id));
+        }
+        for (int id = 0; id < store.getSkuCount(); id++) {
+            writeString(dictionary, store.lookupSku(id));
+        }
+        byte[] dictionaryArray = dictionaryBytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(dictionaryArray, 0, dictionaryArray.length);
+
+        try (FileOutputStream file = new FileOutputStream(temp);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 20))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeInt(coveredSegment);
+            out.writeInt(size);
+            out.writeInt((size + BLOCK_ORDERS - 1) / BLOCK_ORDERS);
+            out.writeInt(store.getCustomerCount());
+            out.writeInt(store.getSkuCount());
+            out.writeInt(dictionaryArray.length);
+            out.writeInt((int) crc.getValue());
+            out.write(dictionaryArray);
+
+            ByteBuffer block = ByteBuffer.allocate(BLOCK_ORDERS * 42);
+            for (int start = 0; start < size; start += BLOCK_ORDERS) {
+                int end = Math.min(size, start + BLOCK_ORDERS);
+                block.clear();
+                for (int index = start; index < end; index++) {
+                    int productCount = store.getProductCount(index);
+                    block = ensureRemaining(block, 34 + 4 * productCount);
+                    block.putInt(store.getOrderId(index));
+                    block.putInt(store.getCustomerId(index));
+                    block.putLong(store.getTotalAmountCents(index));
+                    block.putLong(store.getStartTime(index));
+                    block.putLong(store.getEndTime(index));
+                    block.put((byte) store.getStatus(index).ordinal());
+                    block.put((byte) productCount);
+                    for (int k = 0; k < productCount; k++) {
+                        block.putInt(store.getSkuId(index, k));
+                    }
+                }
+                crc.reset();
+                crc.update(block.array(), 0, block.position());
+                out.writeInt(end - start);
+                out.writeInt(block.position());
+                out.writeInt((int) crc.getValue());
+                out.write(block.array(), 0, block.position());
+            }
+            out.flush();
+            file.getFD().sync();
+        }
+        Files.move(temp.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return target;
+    }
+
+    /**
+     * 把恢复结果写成快照，然后删除快照已覆盖的日志段和旧快照
+     * 结果中没有重放过日志段时无需压缩
+     * @return 写出的快照文件，无需压缩时返回null
+     */
+    public static File compact(File directory, Result result) throws IOException {
+        if (result.getReplayedSegmentCount() == 0) {
+            return null;
+        }
+        long begin = System.nanoTime();
+        int covered = result.getLastSegmentIndex();
+        File snapshot = writeSnapshot(directory, result.getStore(), covered);
+        for (int index : OrderJournal.listSegmentIndexes(directory)) {
+            if (index <= covered) {
+                OrderJournal.segmentFile(directory, index).delete();
+            }
+        }
+        for (int index : OrderJournal.listSnapshotIndexes(directory)) {
+            if (index < covered) {
+                OrderJournal.snapshotFile(directory, index).delete();
+            }
+        }
+        result.snapshotFile = snapshot;
+        result.compactNanos = System.nanoTime() - begin;
+        return snapshot;
+    }
+
+    /**
+     * 把最新快照与段号不超过throughSegment的已写满日志段合并为新快照，供日志在后台周期性调用
+     */
+    public static File compact(File directory, int throughSegment, int threads) throws IOException {
+        return compact(directory, recover(directory, throughSegment, threads));
+    }
+
+    // ==================== 内部工具 ====================
+
+    private static ExecutorService newPool(int threads) {
+        AtomicInteger counter = new AtomicInteger(0);
+        return Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "JournalRecovery-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 执行全部任务并按提交顺序返回结果，任何一个任务失败都以IOException抛出
+     */
+    private static <T> List<T> invokeAll(ExecutorService pool, List<Callable<T>> tasks) throws IOException {
+        List<T> results = new ArrayList<>(tasks.size());
+        try {
+            for (Future<T> future : pool.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("订单恢复被中断");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            }
+            throw new IOException("订单恢复失败: " + cause, cause);
+        }
+        return results;
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("订单快照不完整");
+            }
+        }
+        return buffer;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(encoded.length);
+        out.write(encoded);
+    }
+
+    private static ByteBuffer ensureRemaining(ByteBuffer buffer, int needed) {
+        if (buffer.remaining() >= needed) {
+            return buffer;
+        }
+        ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + needed));
+        buffer.flip();
+        larger.put(buffer);
+        return larger;
+    }
+
+    /**
+     * 解码UTF-8字符串的小缓存：客户名和SKU大量重复，命中时直接返回已解码的String，不分配对象
+     * 直接映射，冲突时覆盖；只由一个解码线程使用
+     */
+    private static final class StringCache {
+        private static final int SLOTS = 1 << 14;
+        private final byte[][] keys = new byte[SLOTS][];
+        private final String[] values = new String[SLOTS];
+
+        String decode(ByteBuffer buffer, int offset, int length) {
+            int hash = length;
+            for (int i = 0; i < length; i++) {
+                hash = 31 * hash + buffer.get(offset + i);
+            }
+            int slot = (hash ^ (hash >>> 16)) & (SLOTS - 1);
+            byte[] key = keys[slot];
+            if (key != null && key.length == length && matches(buffer, offset, key)) {
+                return values[slot];
+            }
+            byte[] bytes = new byte[length];
+            for (int i = 0; i < length; i++) {
+                bytes[i] = buffer.get(offset + i);
+            }
+            String value = new String(bytes, StandardCharsets.UTF_8);
+            keys[slot] = bytes;
+            values[slot] = value;
+            return value;
+        }
+
+        private static boolean matches(ByteBuffer buffer, int offset, byte[] key) {
+            for (int i = 0; i < key.length; i++) {
+                if (buffer.get(offset + i) != key[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * int -> 非负int 的开放寻址哈希表（线性探测），千万级订单号不装箱为Integer
+     * 值在内部加一保存，0表示空槽
+     */
+    static final class IntIntMap {
+        private int[] keys;
+        private int[] values;
+        private int size;
+        private int shift;
+
+        IntIntMap(int expected) {
+            int capacity = Integer.highestOneBit(Math.max(16, expected * 4 / 3) - 1) << 1;
+            allocate(capacity);
+        }
+
+        private void allocate(int capacity) {
+            keys = new int[capacity];
+            values = new int[capacity];
+            shift = 32 - Integer.numberOfTrailingZeros(capacity);
+        }
+
+        private int slotOf(int key) {
+            return (key * 0x9E3779B9) >>> shift;
+        }
+
+        /**
+         * @return key对应的值，不存在返回-1
+         */
+        int get(int key) {
+            int mask = keys.length - 1;
+            for (int slot = slotOf(key); values[slot] != 0; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    return values[slot] - 1;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * key不存在时放入value
+         * @return 已有的值，新放入时返回-1
+         */
+        int putIfAbsent(int key, int value) {
+            int slot = findSlot(key);
+            if (values[slot] != 0) {
+                return values[slot] - 1;
+            }
+            insert(slot, key, value);
+            return -1;
+        }
+
+        /**
+         * 保存key已有值与value中较大的一个
+         */
+        void putMax(int key, int value) {
+            int slot = findSlot(key);
+            if (values[slot] == 0) {
+                insert(slot, key, value);
+            } else if (value + 1 > values[slot]) {
+                values[slot] = value + 1;
+            }
+        }
+
+        private int findSlot(int key) {
+            int mask = keys.length - 1;
+            int slot = slotOf(key);
+            while (values[slot] != 0 && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private void insert(int slot, int key, int value) {
+            keys[slot] = key;
+            values[slot] = value + 1;
+            if (++size > keys.length * 3 / 4) {
+                int[] oldKeys = keys;
+                int[] oldValues = values;
+                allocate(keys.length * 2);
+                for (int i = 0; i < oldKeys.length; i++) {
+                    if (oldValues[i] != 0) {
+                        int target = findSlot(oldKeys[i]);
+                        keys[target] = oldKeys[i];
+                        values[target] = oldValues[i];
+                    }
+                }
+            }
+        }
+
+        int size() { return size; }
+        int capacity() { return keys.length; }
+        int keyAt(int slot) { return keys[slot]; }
+
+        /**
+         * 槽位中的值，空槽返回-1
+         */
+        int valueAt(int slot) { return values[slot] - 1; }
+    }
+
+    /**
+     * 一次恢复的结果：订单存储、各状态订单数和恢复过程的统计
+     */
+    public static final class Result {
+        private final OrderStore store;
+        private volatile Map<ComprehensiveThreadDemo.OrderStatus, Long> statusCounts;
+        private volatile int snapshotOrders;
+        private volatile int lastSegmentIndex = -1;
+        private final LongAdder replayedSegments = new LongAdder();
+        private final LongAdder replayedRecords = new LongAdder();
+        private final LongAdder replayedBytes = new LongAdder();
+        private final LongAdder tornSegments = new LongAdder();
+        private final LongAdder orphanTransitions = new LongAdder();
+        private final LongAdder duplicateOrders = new LongAdder();
+        private final AtomicInteger maxOrderId = new AtomicInteger(0);
+        private volatile long elapsedNanos;
+        private volatile File snapshotFile;
+        private volatile long compactNanos;
+
+        Result(OrderStore store) {
+            this.store = store;
+        }
+
+        public OrderStore getStore() { return store; }
+        public Map<ComprehensiveThreadDemo.OrderStatus, Long> getStatusCounts() { return statusCounts; }
+        public int getOrderCount() { return store.size(); }
+        public int getSnapshotOrderCount() { return snapshotOrders; }
+        public int getLastSegmentIndex() { return lastSegmentIndex; }
+        public long getReplayedSegmentCount() { return replayedSegments.sum(); }
+        public long getReplayedRecordCount() { return replayedRecords.sum(); }
+        public long getReplayedBytes() { return replayedBytes.sum(); }
+        public long getTornSegmentCount() { return tornSegments.sum(); }
+        public long getOrphanTransitionCount() { return orphanTransitions.sum(); }
+        public long getDuplicateOrderCount() { return duplicateOrders.sum(); }
+        public int getMaxOrderId() { return maxOrderId.get(); }
+        public long getElapsedNanos() { return elapsedNanos; }
+        public File getSnapshotFile() { return snapshotFile; }
+
+        public double getOrdersPerSecond() {
+            return elapsedNanos > 0 ? store.size() / (elapsedNanos / 1e9) : 0;
+        }
+
+        /**
+         * 一行恢复摘要，启动信息和基准测试使用
+         */
+        public String format() {
+            StringBuilder sb = new StringBuilder(String.format(
+                "%d 个订单（快照 %d + 重放 %d 段 %d 条记录 %.1fMB），耗时 %.0fms",
+                getOrderCount(), snapshotOrders, getReplayedSegmentCount(), getReplayedRecordCount(),
+                getReplayedBytes() / 1024.0 / 1024.0, elapsedNanos / 1e6));
+            if (getTornSegmentCount() > 0) {
+                sb.append("，").append(getTornSegmentCount()).append(" 段尾部损坏已截断");
+            }
+            if (getOrphanTransitionCount() > 0 || getDuplicateOrderCount() > 0) {
+                sb.append(String.format("，无主转换 %d 条，重复订单号 %d 个",
+                                        getOrphanTransitionCount(), getDuplicateOrderCount()));
+            }
+            if (snapshotFile != null) {
+                sb.append(String.format("；已压缩为 %s（%.0fms）", snapshotFile.getName(), compactNanos / 1e6));
+            }
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,264 @@
+/**
+ * OrderLoadGenerator - 开环订单负载生成器
+ *
+ * 按目标速率持续产生订单，用来观察系统在不同负载下的吞吐量和延迟
+ *
+ * 主要特性：
+ *   1. 开环：按预定的到达时间发送订单，不等待上一个订单完成，系统变慢时负载也不会随之降低
+ *   2. 到达模式：泊松到达（指数分布间隔），或突发到达（一批订单同时到达，批量大小服从几何分布）
+ *   3. 商品热度：SKU按Zipf分布选取，指数越大热门商品越集中
+ *   4. 避免协同遗漏：响应延迟从"计划发送时间"算起，生成器落后于计划时排队的时间也计入延迟
+ *
+ * @author Java Learning Tutorial
+ * @version 1.0
+ * @date 2024
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+public class OrderLoadGenerator {
+
+    /**
+     * 订单到达模式
+     */
+    public enum ArrivalPattern { POISSON, BURSTY }
+
+    private static final int MAX_PRODUCTS_PER_ORDER = 3;
+
+    private final String[] skus;
+    private final double[] skuCumulative;
+    private final int customerCount;
+    private final Random random;
+    private final AtomicInteger nextOrderId = new AtomicInteger(1);
+
+    /**
+     * @param skus 商品目录，下标越小越热门
+     * @param zipfExponent Zipf分布指数，0表示均匀分布，常见取值0.8 ~ 1.2
+     * @param customerCount 客户数量（均匀选取）
+     * @param seed 随机种子，相同种子产生相同的订单序列和到达时间
+     */
+    public OrderLoadGenerator(String[] skus, double zipfExponent, int customerCount, long seed) {
+        this.skus = skus.clone();
+        this.skuCumulative = new double[skus.length];
+        double total = 0;
+        for (int i = 0; i < skus.length; i++) {
+            total += 1.0 / Math.pow(i + 1, zipfExponent);
+            skuCumulative[i] = total;
+        }
+        for (int i = 0; i < skus.length; i++) {
+            skuCumulative[i] /= total;
+        }
+        this.customerCount = customerCount;
+        this.random = new Random(seed);
+    }
+
+    /**
+     * 之后生成的订单号都大于maxOrderId，例如从日志恢复历史订单后继续编号
+     */
+    public void skipOrderIdsThrough(int maxOrderId) {
+        nextOrderId.accumulateAndGet(maxOrderId + 1, Math::max);
+    }
+
+    /**
+     * 按Zipf分布选取一个SKU的下标
+     */
+    int nextSkuIndex() {
+        int index = Arrays.binarySearch(skuCumulative, random.nextDouble());
+        index = index >= 0 ? index : -index - 1;
+        return Math.min(index, skus.length - 1);
+    }
+
+    /**
+     * 生成一个订单：1 ~ 3个不重复的商品，金额100 ~ 10000元（以分为单位）
+     */
+    public ComprehensiveThreadDemo.Order nextOrder() {
+        int productCount = 1 + random.nextInt(Math.min(MAX_PRODUCTS_PER_ORDER, skus.length));
+        List<String> products = new ArrayList<>(productCount);
+        while (products.size() < productCount) {
+            String sku = skus[nextSkuIndex()];
+            if (!products.contains(sku)) {
+                products.add(sku);
+            }
+        }
+        String customer = "客户-" + (1 + random.nextInt(customerCount));
+        long amountCents = 10_000 + (long) (random.nextDouble() * 990_000);
+        return new ComprehensiveThreadDemo.Order(nextOrderId.getAndIncrement(), customer, products, amountCents);
+    }
+
+    /**
+     * 一次性生成count个订单，供不需要持续负载的演示使用
+     */
+    public List<ComprehensiveThreadDemo.Order> generateOrders(int count) {
+        List<ComprehensiveThreadDemo.Order> orders = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            orders.add(nextOrder());
+        }
+        return orders;
+    }
+
+    /**
+     * 以ratePerSecond的平均速率向系统发送订单，持续durationMillis，然后等待已发送的订单完成
+     *
+     * @param system 订单处理入口，返回订单完成时完成的future；不应阻塞调用线程，
+     *               即使阻塞，延迟仍从计划发送时间算起
+     * @param burstSize BURSTY模式下的平均批量大小，POISSON模式忽略
+     * @param drainTimeoutMillis 发送结束后等待在途订单完成的最长时间
+     */
+    public RunResult run(double ratePerSecond, ArrivalPattern pattern, double burstSize, long durationMillis,
+                         long drainTimeoutMillis,
+                         Function<ComprehensiveThreadDemo.Order, ? extends CompletableFuture<?>> system)
+            throws InterruptedException {
+        LatencyHistogram responseLatency = new LatencyHistogram("响应(计划时间起)");
+        LatencyHistogram serviceLatency = new LatencyHistogram("服务(实际发送起)");
+        AtomicInteger completed = new AtomicInteger(0);
+        AtomicInteger failed = new AtomicInteger(0);
+        AtomicLong lastCompletionNanos = new AtomicLong(0);
+        Semaphore finished = new Semaphore(0);
+
+        // 突发模式下按"批次"泊松到达，每批的订单计划在同一时刻发送
+        double meanBurst = pattern == ArrivalPattern.BURSTY ? Math.max(1, burstSize) : 1;
+        double meanGapNanos = 1_000_000_000.0 * meanBurst / ratePerSecond;
+        long durationNanos = TimeUnit.MILLISECONDS.toNanos(durationMillis);
+
+        long startNanos = System.nanoTime();
+        long intendedNanos = startNanos;
+        long maxLagNanos = 0;
+        int remainingInBurst = 0;
+        int sent = 0;
+        while (true) {
+            if (remainingInBurst == 0) {
+                intendedNanos += (long) (-Math.log(1 - random.nextDouble()) * meanGapNanos);
+                remainingInBurst = meanBurst > 1 ? nextGeometric(meanBurst) : 1;
+            }
+            remainingInBurst--;
+            if (intendedNanos - startNanos > durationNanos) {
+                break;
+            }
+
+            long waitNanos = intendedNanos - System.nanoTime();
+            while (waitNanos > 0) {
+                LockSupport.parkNanos(waitNanos);
+                waitNanos = intendedNanos - System.nanoTime();
+            }
+            maxLagNanos = Math.max(maxLagNanos, -waitNanos);
+
+            ComprehensiveThreadDemo.Order order = nextOrder();
+            final long intended = intendedNanos;
+            final long sentAt = System.nanoTime();
+            CompletableFuture<?> future;
+            try {
+                future = system.apply(order);
+            } catch (RuntimeException e) {
+                future = null;
+            }
+            if (future == null) {
+                failed.incrementAndGet();
+                finished.release();
+            } else {
+                future.whenComplete((ignored, error) -> {
+                    long now = System.nanoTime();
+                    if (error == null) {
+                        responseLatency.recordNanos(now - intended);
+                        serviceLatency.recordNanos(now - sentAt);
+                        completed.incrementAndGet();
+                    } else {
+                        // 被拒绝的订单很快失败，计入延迟会拉低分位数，只单独计数
+                        failed.incrementAndGet();
+                    }
+                    lastCompletionNanos.accumulateAndGet(now, Math::max);
+                    finished.release();
+                });
+            }
+            sent++;
+        }
+
+        boolean drained = finished.tryAcquire(sent, drainTimeoutMillis, TimeUnit.MILLISECONDS);
+        long endNanos = drained && lastCompletionNanos.get() > 0 ? lastCompletionNanos.get() : System.nanoTime();
+        return new RunResult(pattern, ratePerSecond, sent, completed.get(), failed.get(), drained,
+                             endNanos - startNanos, maxLagNanos,
+                             responseLatency.snapshot(), serviceLatency.snapshot());
+    }
+
+    private int nextGeometric(double mean) {
+        double p = 1.0 / mean;
+        return 1 + (int) (Math.log(1 - random.nextDouble()) / Math.log(1 - p));
+    }
+
+    /**
+     * 一次定速负载的结果 - 吞吐量-延迟曲线上的一个点
+     */
+    public static final class RunResult {
+        private final ArrivalPattern pattern;
+        private final double offeredRate;
+        private final int sent;
+        private final int completed;
+        private final int failed;
+        private final boolean drained;
+        private final long elapsedNanos;
+        private final long maxLagNanos;
+        private final LatencyHistogram.Snapshot responseLatency;
+        private final LatencyHistogram.Snapshot serviceLatency;
+
+        RunResult(ArrivalPattern pattern, double offeredRate, int sent, int completed, int failed, boolean drained,
+                  long elapsedNanos, long maxLagNanos,
+                  LatencyHistogram.Snapshot responseLatency, LatencyHistogram.Snapshot serviceLatency) {
+            this.pattern = pattern;
+            this.offeredRate = offeredRate;
+            this.sent = sent;
+            this.completed = completed;
+            this.failed = failed;
+            this.drained = drained;
+            this.elapsedNanos = elapsedNanos;
+            this.maxLagNanos = maxLagNanos;
+            this.responseLatency = responseLatency;
+            this.serviceLatency = serviceLatency;
+        }
+
+        public double getOfferedRate() { return offeredRate; }
+        public int getSentCount() { return sent; }
+        public int getCompletedCount() { return completed; }
+        public int getFailedCount() { return failed; }
+        public boolean isDrained() { return drained; }
+        public long getMaxLagNanos() { return maxLagNanos; }
+        public LatencyHistogram.Snapshot getResponseLatency() { return responseLatency; }
+        public LatencyHistogram.Snapshot getServiceLatency() { return serviceLatency; }
+
+        public double getThroughput() {
+            return elapsedNanos > 0 ? completed / (elapsedNanos / 1e9) : 0;
+        }
+
+        /**
+         * 曲线表头，列与formatRow对应
+         */
+        public static String formatHeader() {
+            return String.format("  %-8s %10s %10s %8s %10s %10s %10s %10s %12s",
+                                 "到达", "目标(/秒)", "实际(/秒)", "完成", "p50", "p99", "p99.9", "max",
+                                 "服务p99");
+        }
+
+        public String formatRow() {
+            return String.format("  %-8s %10.1f %10.1f %8s %10s %10s %10s %10s %12s",
+                                 pattern, offeredRate, getThroughput(),
+                                 completed + (failed > 0 ? "+" + failed + "✗" : "") + (drained ? "" : "*"),
+                                 formatMillis(responseLatency.valueAtPercentile(50)),
+                                 formatMillis(responseLatency.valueAtPercentile(99)),
+                                 formatMillis(responseLatency.valueAtPercentile(99.9)),
+                                 formatMillis(responseLatency.getMaxMicros()),
+                                 formatMillis(serviceLatency.valueAtPercentile(99)));
+        }
+
+        private static String formatMillis(long micros) {
+            return String.format("%.1fms", micros / 1000.0);
+        }
+    }
+}
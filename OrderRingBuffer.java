@@ -0,0 +1,337 @@
+/**
+ * OrderRingBuffer - 单生产者/多消费者的预分配环形缓冲（Disruptor风格）
+ *
+ * 订单在线程之间交接时，ArrayList、LinkedBlockingQueue和每订单的执行器都要为每次交接分配节点并加锁。
+ * 环形缓冲把交接拆成对序号的读写：
+ *   1. 预分配：启动时创建全部槽位对象，发布事件只是改写槽位中的字段，不产生垃圾
+ *   2. 单生产者：只有一个线程发布，申请序号不需要CAS，写完槽位后推进游标（有序写）即对消费者可见
+ *   3. 序号屏障：每个消费者只读取它依赖的消费者都已处理完的槽位，
+ *      例如 验证 → 支付 → 通知 三个消费者按依赖顺序读取同一个槽位，槽位中的订单不在队列之间搬运
+ *   4. 背压：生产者追上最慢的消费者（整整一圈）时等待，槽位不会被覆盖
+ *   5. 批量：消费者读一次屏障就取出所有可用的序号；每处理完一个事件即有序写出自己的序号，
+ *      下游消费者不必等整批处理完，慢阶段（如模拟支付）也不会拖住后面的订单
+ *
+ * 等待策略（消费者等待新事件、生产者等待空位时使用）：
+ *   BUSY_SPIN - 一直自旋，延迟最低，每个消费者独占一个CPU核心
+ *   YIELD     - 短暂自旋后Thread.yield()，让同核心的其他线程运行
+ *   PARK      - 自旋、让出之后park约1µs，空闲时几乎不占CPU，延迟最高
+ *
+ * @author Java Learning Tutorial
+ * @version 1.0
+ * @date 2024
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+public class OrderRingBuffer<E> {
+
+    /**
+     * 等待策略
+     */
+    public enum WaitStrategy {
+        BUSY_SPIN {
+            @Override
+            void idle(int attempt) {
+                // 一直自旋
+            }
+        },
+        YIELD {
+            @Override
+            void idle(int attempt) {
+                if (attempt >= SPIN_TRIES) {
+                    Thread.yield();
+                }
+            }
+        },
+        PARK {
+            @Override
+            void idle(int attempt) {
+                if (attempt >= SPIN_TRIES + YIELD_TRIES) {
+                    LockSupport.parkNanos(PARK_NANOS);
+                } else if (attempt >= SPIN_TRIES) {
+                    Thread.yield();
+                }
+            }
+        };
+
+        private static final int SPIN_TRIES = 100;
+        private static final int YIELD_TRIES = 100;
+        private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(1);
+
+        /**
+         * 第attempt次发现条件不满足时调用
+         */
+        abstract void idle(int attempt);
+    }
+
+    /**
+     * 消费者处理事件的回调，只在该消费者自己的线程上调用
+     */
+    public interface EventHandler<E> {
+        /**
+         * @param endOfBatch 本批可用事件中的最后一个，适合在此刷新批量结果
+         */
+        void onEvent(E event, long sequence, boolean endOfBatch) throws Exception;
+    }
+
+    // ==================== 序号 ====================
+
+    static class LeftPadding {
+        long p1, p2, p3, p4, p5, p6, p7;
+    }
+
+    static class SequenceValue extends LeftPadding {
+        volatile long value;
+    }
+
+    /**
+     * 前后各填充一个缓存行的序号，生产者游标和各消费者序号互不伪共享
+     */
+    public static final class Sequence extends SequenceValue {
+        private static final AtomicLongFieldUpdater<SequenceValue> VALUE =
+            AtomicLongFieldUpdater.newUpdater(SequenceValue.class, "value");
+
+        long p9, p10, p11, p12, p13, p14, p15;
+
+        Sequence(long initial) {
+            VALUE.lazySet(this, initial);
+        }
+
+        public long get() {
+            return value;
+        }
+
+        /**
+         * 有序写：之前对槽位的写入先于序号对其他线程可见，比volatile写便宜
+         */
+        void setOrdered(long newValue) {
+            VALUE.lazySet(this, newValue);
+        }
+    }
+
+    // ==================== 消费者 ====================
+
+    /**
+     * 一个消费者：独立线程 + 自己的序号 + 依赖的序号
+     */
+    public final class EventProcessor implements Runnable {
+        private final String name;
+        private final EventHandler<? super E> handler;
+        private final Sequence[] dependencies;
+        private final Sequence sequence = new Sequence(-1);
+        private final LongAdder batches = new LongAdder();
+        private volatile long maxBatchSize;
+        private Thread thread;
+
+        EventProcessor(String name, EventHandler<? super E> handler, Sequence[] dependencies) {
+            this.name = name;
+            this.handler = handler;
+            this.dependencies = dependencies;
+        }
+
+        /**
+         * 序号屏障：等待依赖的消费者（没有依赖时为生产者游标）越过sequence
+         * @return 可以读取的最大序号；缓冲区停止时可能小于sequence
+         */
+        private long waitFor(long sequence) {
+            int attempt = 0;
+            long available;
+            while ((available = minimumSequence(dependencies, cursor.get())) < sequence) {
+                if (!running) {
+                    return available;
+                }
+                waitStrategy.idle(attempt++);
+            }
+            return available;
+        }
+
+        @Override
+        public void run() {
+            long next = sequence.get() + 1;
+            while (true) {
+                long available = waitFor(next);
+                if (available < next) {
+                    return;  // 已停止，且没有新的事件
+                }
+                for (long s = next; s <= available; s++) {
+                    try {
+                        handler.onEvent(get(s), s, s == available);
+                    } catch (Exception e) {
+                        System.err.println("❌ " + name + " 处理序号 " + s + " 失败: " + e);
+                    }
+                    sequence.setOrdered(s);
+                }
+                batches.increment();
+                if (available - next + 1 > maxBatchSize) {
+                    maxBatchSize = available - next + 1;
+                }
+                next = available + 1;
+            }
+        }
+
+        public String getName() { return name; }
+        public long getSequence() { return sequence.get(); }
+        public long getBatchCount() { return batches.sum(); }
+        public long getMaxBatchSize() { return maxBatchSize; }
+
+        /**
+         * 平均每批处理的事件数
+         */
+        public double getAverageBatchSize() {
+            long count = batches.sum();
+            return count == 0 ? 0 : (sequence.get() + 1) / (double) count;
+        }
+    }
+
+    // ==================== 环形缓冲 ====================
+
+    private final Object[] slots;
+    private final int mask;
+    private final WaitStrategy waitStrategy;
+    private final Sequence cursor = new Sequence(-1);
+    private final List<EventProcessor> processors = new ArrayList<>();
+    private Sequence[] gatingSequences = new Sequence[0];
+    private volatile boolean running;
+
+    // 只由生产者线程访问
+    private long nextSequence = -1;
+    private long cachedGatingSequence = -1;
+    private long producerWaits;
+
+    /**
+     * @param capacity 槽位数，向上取整为2的幂
+     * @param factory 启动时为每个槽位创建一个事件对象
+     */
+    public OrderRingBuffer(int capacity, Supplier<E> factory, WaitStrategy waitStrategy) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.slots = new Object[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = factory.get();
+        }
+        this.mask = size - 1;
+        this.waitStrategy = waitStrategy;
+    }
+
+    /**
+     * 注册消费者，必须在start之前调用
+     * @param dependsOn 必须先处理完同一槽位的消费者，为空时直接跟随生产者
+     */
+    @SafeVarargs
+    public final EventProcessor handleEventsWith(String name, EventHandler<? super E> handler,
+                                                 EventProcessor... dependsOn) {
+        if (running) {
+            throw new IllegalStateException("环形缓冲已启动，不能再注册消费者");
+        }
+        Sequence[] dependencies = new Sequence[dependsOn.length];
+        for (int i = 0; i < dependsOn.length; i++) {
+            dependencies[i] = dependsOn[i].sequence;
+        }
+        EventProcessor processor = new EventProcessor(name, handler, dependencies);
+        processors.add(processor);
+        return processor;
+    }
+
+    /**
+     * 启动全部消费者线程；生产者只需等待全部消费者中最慢的一个
+     */
+    public void start() {
+        gatingSequences = new Sequence[processors.size()];
+        running = true;
+        for (int i = 0; i < processors.size(); i++) {
+            EventProcessor processor = processors.get(i);
+            gatingSequences[i] = processor.sequence;
+            processor.thread = new Thread(processor, "Ring-" + processor.name);
+            processor.thread.setDaemon(true);
+            processor.thread.start();
+        }
+    }
+
+    // ==================== 生产者 ====================
+
+    /**
+     * 申请下一个序号；缓冲区已满（最慢的消费者落后一整圈）时按等待策略等待
+     */
+    public long next() {
+        long sequence = ++nextSequence;
+        long wrapPoint = sequence - slots.length;
+        if (wrapPoint > cachedGatingSequence) {
+            int attempt = 0;
+            long minimum;
+            while (wrapPoint > (minimum = minimumSequence(gatingSequences, sequence))) {
+                if (attempt == 0) {
+                    producerWaits++;
+                }
+                waitStrategy.idle(attempt++);
+            }
+            cachedGatingSequence = minimum;
+        }
+        return sequence;
+    }
+
+    @SuppressWarnings("unchecked")
+    public E get(long sequence) {
+        return (E) slots[(int) sequence & mask];
+    }
+
+    /**
+     * 发布已写好的槽位，之后消费者可以读取
+     */
+    public void publish(long sequence) {
+        cursor.setOrdered(sequence);
+    }
+
+    /**
+     * 申请、写入、发布一个事件；translator不应捕获变量，避免每次发布都分配lambda对象
+     */
+    public <A> void publishEvent(BiConsumer<E, A> translator, A argument) {
+        long sequence = next();
+        translator.accept(get(sequence), argument);
+        publish(sequence);
+    }
+
+    private static long minimumSequence(Sequence[] sequences, long minimum) {
+        for (Sequence sequence : sequences) {
+            minimum = Math.min(minimum, sequence.get());
+        }
+        return minimum;
+    }
+
+    // ==================== 停止和统计 ====================
+
+    /**
+     * 等待消费者处理完已发布的全部事件后停止消费者线程
+     * @return 在超时前处理完返回true
+     */
+    public boolean shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (minimumSequence(gatingSequences, cursor.get()) < cursor.get()) {
+            if (System.nanoTime() - deadline > 0) {
+                break;
+            }
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+        }
+        boolean drained = minimumSequence(gatingSequences, cursor.get()) >= cursor.get();
+        running = false;
+        for (EventProcessor processor : processors) {
+            processor.thread.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+        }
+        return drained;
+    }
+
+    public int getCapacity() { return slots.length; }
+    public WaitStrategy getWaitStrategy() { return waitStrategy; }
+    public long getCursor() { return cursor.get(); }
+    public List<EventProcessor> getProcessors() { return processors; }
+
+    /**
+     * 生产者因缓冲区已满而等待的次数，只应由生产者线程读取
+     */
+    public long getProducerWaitCount() { return producerWaits; }
+}
@@ -0,0 +1,350 @@
+/**
+ * OrderStore - 列式订单存储
+ *
+ * 按"数组结构"(struct-of-arrays)保存订单：每个字段一列基本类型数组，
+ * 客户名和SKU先经StringDictionary映射为int编号，省去每个订单一个Order对象、一个ArrayList和多个引用的开销
+ *
+ * 存储布局（每个订单约46字节，商品按每单2个计）：
+ *   int 订单号 | int 客户编号 | long 金额（分） | long 开始时间 | long 结束时间
+ *   int 商品起始位置 | byte 商品数量 | byte 状态 | 商品SKU编号（int，集中存放在商品池）
+ *
+ * 并发设计：
+ *   1. 追加：AtomicInteger分配槽位，分段数组按需用CAS创建，多个线程可同时追加
+ *   2. 状态：每8个订单的状态字节打包在一个AtomicLongArray元素中，用CAS更新单个字节
+ *   3. 发布：状态字节最后写入（0表示尚未写完），读者先读状态即可看到该订单的其余字段
+ *
+ * @author Java Learning Tutorial
+ * @version 1.0
+ * @date 2024
+ */
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+public class OrderStore {
+
+    // 每段65536个订单，段数组按需创建，追加时无需整体扩容复制
+    private static final int SEGMENT_SHIFT = 16;
+    private static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+    private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+    private static final int MAX_SEGMENTS = 1 << (31 - SEGMENT_SHIFT);
+
+    // 单个订单最多的商品条目数（商品数量用byte保存）
+    public static final int MAX_PRODUCTS_PER_ORDER = Byte.MAX_VALUE;
+
+    private static final ComprehensiveThreadDemo.OrderStatus[] STATUSES =
+        ComprehensiveThreadDemo.OrderStatus.values();
+
+    /**
+     * 一段订单的各列数据
+     */
+    private static final class Segment {
+        final int[] orderIds = new int[SEGMENT_SIZE];
+        final int[] customerIds = new int[SEGMENT_SIZE];
+        final long[] amountCents = new long[SEGMENT_SIZE];
+        final AtomicLongArray startTimes = new AtomicLongArray(SEGMENT_SIZE);
+        final AtomicLongArray endTimes = new AtomicLongArray(SEGMENT_SIZE);
+        final int[] productOffsets = new int[SEGMENT_SIZE];
+        final byte[] productCounts = new byte[SEGMENT_SIZE];
+        // 8个状态字节打包为一个long；字节值 = 状态序号 + 1，0表示槽位尚未写完
+        final AtomicLongArray statusWords = new AtomicLongArray(SEGMENT_SIZE / 8);
+    }
+
+    private final AtomicReferenceArray<Segment> segments = new AtomicReferenceArray<>(MAX_SEGMENTS);
+    private final AtomicInteger nextIndex = new AtomicInteger(0);
+    private final AtomicReferenceArray<int[]> productChunks = new AtomicReferenceArray<>(MAX_SEGMENTS);
+    private final AtomicInteger nextProduct = new AtomicInteger(0);
+    private final StringDictionary customers = new StringDictionary("客户");
+    private final StringDictionary skus = new StringDictionary("SKU");
+
+    /**
+     * 追加一个订单，状态为PENDING
+     * @return 订单在存储中的下标，之后的访问器都以它为参数
+     */
+    public int append(int orderId, String customerName, List<String> products, long amountCents, long startTime) {
+        return append(orderId, customerName, products, amountCents, startTime, ComprehensiveThreadDemo.OrderStatus.PENDING);
+    }
+
+    /**
+     * 以指定状态追加一个订单，用于从快照或日志恢复已有订单
+     */
+    public int append(int orderId, String customerName, List<String> products, long amountCents, long startTime,
+                      ComprehensiveThreadDemo.OrderStatus status) {
+        int productCount = products.size();
+        if (productCount > MAX_PRODUCTS_PER_ORDER) {
+            throw new IllegalArgumentException("单个订单最多" + MAX_PRODUCTS_PER_ORDER + "个商品: " + productCount);
+        }
+
+        int index = nextIndex.getAndIncrement();
+        int productOffset = nextProduct.getAndAdd(productCount);
+        if (index < 0 || productOffset < 0) {
+            throw new IllegalStateException("OrderStore容量已满");
+        }
+
+        for (int k = 0; k < productCount; k++) {
+            int position = productOffset + k;
+            productChunk(position >>> SEGMENT_SHIFT)[position & SEGMENT_MASK] = skus.intern(products.get(k));
+        }
+
+        Segment segment = segment(index >>> SEGMENT_SHIFT);
+        int slot = index & SEGMENT_MASK;
+        segment.orderIds[slot] = orderId;
+        segment.customerIds[slot] = customers.intern(customerName);
+        segment.amountCents[slot] = amountCents;
+        segment.productOffsets[slot] = productOffset;
+        segment.productCounts[slot] = (byte) productCount;
+        segment.startTimes.set(slot, startTime);
+
+        // 最后写状态，发布整个订单
+        writeStatus(segment, slot, status);
+        return index;
+    }
+
+    /**
+     * 追加一个Order对象的当前内容
+     */
+    public int append(ComprehensiveThreadDemo.Order order) {
+        int index = append(order.getOrderId(), order.getCustomerName(), order.getProducts(),
+                           order.getTotalAmountCents(), order.getStartTime(), order.getStatus());
+        setEndTime(index, order.getEndTime());
+        return index;
+    }
+
+    /**
+     * 已分配的槽位数；并发追加时末尾少数槽位可能尚未写完，见isPublished
+     */
+    public int size() {
+        int allocated = nextIndex.get();
+        return allocated < 0 ? Integer.MAX_VALUE : allocated;
+    }
+
+    /**
+     * 该下标的订单是否已写完，可以安全读取
+     */
+    public boolean isPublished(int index) {
+        Segment segment = segments.get(index >>> SEGMENT_SHIFT);
+        return segment != null && readStatusByte(segment, index & SEGMENT_MASK) != 0;
+    }
+
+    // ==================== 与Order相同的访问器 ====================
+
+    public int getOrderId(int index) {
+        return published(index).orderIds[index & SEGMENT_MASK];
+    }
+
+    public String getCustomerName(int index) {
+        return customers.lookup(getCustomerId(index));
+    }
+
+    public int getCustomerId(int index) {
+        return published(index).customerIds[index & SEGMENT_MASK];
+    }
+
+    public List<String> getProducts(int index) {
+        Segment segment = published(index);
+        int slot = index & SEGMENT_MASK;
+        int offset = segment.productOffsets[slot];
+        int count = segment.productCounts[slot];
+        List<String> products = new ArrayList<>(count);
+        for (int k = 0; k < count; k++) {
+            products.add(skus.lookup(getProductId(offset + k)));
+        }
+        return products;
+    }
+
+    public int getProductCount(int index) {
+        return published(index).productCounts[index & SEGMENT_MASK];
+    }
+
+    /**
+     * 订单第k个商品的SKU编号
+     */
+    public int getSkuId(int index, int k) {
+        Segment segment = published(index);
+        int slot = index & SEGMENT_MASK;
+        if (k < 0 || k >= segment.productCounts[slot]) {
+            throw new IndexOutOfBoundsException("商品下标越界: " + k);
+        }
+        return getProductId(segment.productOffsets[slot] + k);
+    }
+
+    public long getTotalAmountCents(int index) {
+        return published(index).amountCents[index & SEGMENT_MASK];
+    }
+
+    public double getTotalAmount(int index) {
+        return getTotalAmountCents(index) / 100.0;
+    }
+
+    public ComprehensiveThreadDemo.OrderStatus getStatus(int index) {
+        return STATUSES[readStatusByte(published(index), index & SEGMENT_MASK) - 1];
+    }
+
+    /**
+     * 把状态推进到不低于status，用于重放日志
+     * 状态转换表只允许状态序号增大（CANCELLED最大），同一订单的转换记录无论以什么顺序重放，
+     * 取最大值都得到相同的最终状态
+     * @return 状态被改变返回true
+     */
+    public boolean raiseStatus(int index, ComprehensiveThreadDemo.OrderStatus status) {
+        Segment segment = published(index);
+        int slot = index & SEGMENT_MASK;
+        int word = slot >>> 3;
+        int shift = (slot & 7) << 3;
+        while (true) {
+            long current = segment.statusWords.get(word);
+            if (((current >>> shift) & 0xFF) >= status.ordinal() + 1) {
+                return false;
+            }
+            long next = (current & ~(0xFFL << shift)) | ((long) (status.ordinal() + 1) << shift);
+            if (segment.statusWords.compareAndSet(word, current, next)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 仅当当前状态为expected且状态转换表允许时改为update，规则与Order.compareAndSetStatus相同
+     */
+    public boolean compareAndSetStatus(int index, ComprehensiveThreadDemo.OrderStatus expected,
+                                       ComprehensiveThreadDemo.OrderStatus update) {
+        if (!expected.canTransitionTo(update)) {
+            return false;
+        }
+        Segment segment = published(index);
+        int slot = index & SEGMENT_MASK;
+        int word = slot >>> 3;
+        int shift = (slot & 7) << 3;
+        while (true) {
+            long current = segment.statusWords.get(word);
+            if (((current >>> shift) & 0xFF) != expected.ordinal() + 1) {
+                return false;
+            }
+            long next = (current & ~(0xFFL << shift)) | ((long) (update.ordinal() + 1) << shift);
+            if (segment.statusWords.compareAndSet(word, current, next)) {
+                return true;
+            }
+        }
+    }
+
+    public long getStartTime(int index) {
+        return published(index).startTimes.get(index & SEGMENT_MASK);
+    }
+
+    public void setStartTime(int index, long startTime) {
+        published(index).startTimes.set(index & SEGMENT_MASK, startTime);
+    }
+
+    public long getEndTime(int index) {
+        return published(index).endTimes.get(index & SEGMENT_MASK);
+    }
+
+    public void setEndTime(int index, long endTime) {
+        published(index).endTimes.set(index & SEGMENT_MASK, endTime);
+    }
+
+    /**
+     * 把某个订单还原为Order对象（用于展示或与旧代码交互）
+     * 还原不计入全局状态计数器、营业额台账和Top-K，也不写入订单日志
+     */
+    public ComprehensiveThreadDemo.Order toOrder(int index) {
+        ComprehensiveThreadDemo.Order order = new ComprehensiveThreadDemo.Order(
+            getOrderId(index), getCustomerName(index), getProducts(index), getTotalAmountCents(index), getStatus(index));
+        order.setStartTime(getStartTime(index));
+        order.setEndTime(getEndTime(index));
+        return order;
+    }
+
+    /**
+     * 统计已写完订单的状态分布
+     */
+    public Map<ComprehensiveThreadDemo.OrderStatus, Long> countByStatus() {
+        long[] counts = new long[STATUSES.length];
+        int size = size();
+        for (int index = 0; index < size; index++) {
+            Segment segment = segments.get(index >>> SEGMENT_SHIFT);
+            int value = segment == null ? 0 : readStatusByte(segment, index & SEGMENT_MASK);
+            if (value != 0) {
+                counts[value - 1]++;
+            }
+        }
+        Map<ComprehensiveThreadDemo.OrderStatus, Long> result =
+            new EnumMap<>(ComprehensiveThreadDemo.OrderStatus.class);
+        for (ComprehensiveThreadDemo.OrderStatus status : STATUSES) {
+            if (counts[status.ordinal()] > 0) {
+                result.put(status, counts[status.ordinal()]);
+            }
+        }
+        return result;
+    }
+
+    public int getCustomerCount() { return customers.size(); }
+    public int getSkuCount() { return skus.size(); }
+
+    /**
+     * 客户编号、SKU编号对应的名称（编号从0到getCustomerCount/getSkuCount减一）
+     */
+    public String lookupCustomer(int customerId) { return customers.lookup(customerId); }
+    public String lookupSku(int skuId) { return skus.lookup(skuId); }
+
+    /**
+     * 已分配的列数组占用的字节数（不含字典中的字符串本身）
+     */
+    public long estimateColumnBytes() {
+        long perOrder = 4 + 4 + 8 + 8 + 8 + 4 + 1 + 1;
+        long segmentCount = (size() + SEGMENT_SIZE - 1) / SEGMENT_SIZE;
+        long productChunkCount = (nextProduct.get() + SEGMENT_SIZE - 1) / SEGMENT_SIZE;
+        return segmentCount * SEGMENT_SIZE * perOrder + productChunkCount * SEGMENT_SIZE * 4L;
+    }
+
+    // ==================== 内部实现 ====================
+
+    private Segment published(int index) {
+        Segment segment = index >= 0 && index < size() ? segments.get(index >>> SEGMENT_SHIFT) : null;
+        if (segment == null || readStatusByte(segment, index & SEGMENT_MASK) == 0) {
+            throw new IllegalStateException("订单下标 " + index + " 不存在或尚未写完");
+        }
+        return segment;
+    }
+
+    private Segment segment(int segmentIndex) {
+        Segment segment = segments.get(segmentIndex);
+        if (segment == null) {
+            segments.compareAndSet(segmentIndex, null, new Segment());
+            segment = segments.get(segmentIndex);
+        }
+        return segment;
+    }
+
+    private int[] productChunk(int chunkIndex) {
+        int[] chunk = productChunks.get(chunkIndex);
+        if (chunk == null) {
+            productChunks.compareAndSet(chunkIndex, null, new int[SEGMENT_SIZE]);
+            chunk = productChunks.get(chunkIndex);
+        }
+        return chunk;
+    }
+
+    private int getProductId(int position) {
+        return productChunks.get(position >>> SEGMENT_SHIFT)[position & SEGMENT_MASK];
+    }
+
+    private static int readStatusByte(Segment segment, int slot) {
+        return (int) ((segment.statusWords.get(slot >>> 3) >>> ((slot & 7) << 3)) & 0xFF);
+    }
+
+    private static void writeStatus(Segment segment, int slot, ComprehensiveThreadDemo.OrderStatus status) {
+        int word = slot >>> 3;
+        int shift = (slot & 7) << 3;
+        long value = (long) (status.ordinal() + 1) << shift;
+        while (true) {
+            long current = segment.statusWords.get(word);
+            long next = (current & ~(0xFFL << shift)) | value;
+            if (segment.statusWords.compareAndSet(word, current, next)) {
+                return;
+            }
+        }
+    }
+}
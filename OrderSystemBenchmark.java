@@ -0,0 +1,1671 @@
+/**
+ * OrderSystemBenchmark - 电商订单系统并发基准测试
+ *
+ * 本类针对ComprehensiveThreadDemo中的并发组件做吞吐量和争用对比
+ * 每个测试都去掉了演示中的控制台输出，只保留被测的同步结构本身
+ *
+ * 用法：
+ *   java OrderSystemBenchmark                  运行全部测试
+ *   java OrderSystemBenchmark inventory-locks  全局库存锁 vs 按SKU条带锁
+ *   java OrderSystemBenchmark stock-reservation 无锁库存预留吞吐量与超卖检查
+ *   java OrderSystemBenchmark payment-batching 不同刷新设置下的支付组提交
+ *   java OrderSystemBenchmark virtual-threads  每订单一个平台线程 vs 虚拟线程（需JDK 21+）
+ *   java -Xmx4g OrderSystemBenchmark order-store  List<Order> vs 列式OrderStore内存占用
+ *   java OrderSystemBenchmark string-dictionary 客户名和SKU：每单一份字符串 vs 字典编号的堆占用和查找开销
+ *   java OrderSystemBenchmark status-counters  毫秒级监控采样：遍历订单列表 vs 状态计数器（CAS状态转换）
+ *   java OrderSystemBenchmark async-log        多线程打印：同步PrintStream vs AsyncLog环形缓冲
+ *   java OrderSystemBenchmark open-loop        开环负载下的吞吐量-延迟曲线（泊松/突发到达，Zipf商品热度）
+ *   java OrderSystemBenchmark inventory-limiter 过载时CallerRunsPolicy vs 自适应并发限制
+ *   java OrderSystemBenchmark notification-hedging 慢渠道下的对冲请求尾延迟，以及熔断器的快速失败与恢复
+ *   java OrderSystemBenchmark partitioned-orders 共享锁 vs 按客户分区的单写者执行
+ *   java OrderSystemBenchmark ring-buffer      订单事件交接：LinkedBlockingQueue vs 环形缓冲（三种等待策略）
+ *   java OrderSystemBenchmark revenue-ledger   营业额累加：全局锁 vs LongAdder vs 条带化台账（快照一致性）
+ *   java OrderSystemBenchmark heavy-hitters    营业额Top-K：精确ConcurrentHashMap vs 固定内存Space-Saving（召回率与误差）
+ *   java OrderSystemBenchmark journal          各刷盘策略下订单日志的状态转换吞吐量
+ *   java -Xmx4g OrderSystemBenchmark recovery  1M/10M订单的日志恢复耗时：全量重放 vs 快照 + 尾部
+ *
+ * @author Java Learning Tutorial
+ * @version 1.0
+ * @date 2024
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class OrderSystemBenchmark {
+
+    // 并发线程数 - 至少4个，保证单核机器上也能产生锁竞争
+    private static final int THREADS = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+
+    /**
+     * 字符串重复方法 - 兼容Java 8
+     */
+    private static String repeat(String str, int times) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < times; i++) {
+            sb.append(str);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 主方法 - 按名称运行基准测试
+     * @param args 命令行参数，第一个参数为测试名，缺省运行全部
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, Callable<Void>> benchmarks = new LinkedHashMap<>();
+        benchmarks.put("inventory-locks", () -> { benchmarkInventoryLocks(); return null; });
+        benchmarks.put("stock-reservation", () -> { benchmarkStockReservation(); return null; });
+        benchmarks.put("payment-batching", () -> { benchmarkPaymentBatching(); return null; });
+        benchmarks.put("virtual-threads", () -> { benchmarkVirtualThreads(); return null; });
+        benchmarks.put("order-store", () -> { benchmarkOrderStore(); return null; });
+        benchmarks.put("string-dictionary", () -> { benchmarkStringDictionary(); return null; });
+        benchmarks.put("status-counters", () -> { benchmarkStatusCounters(); return null; });
+        benchmarks.put("async-log", () -> { benchmarkAsyncLog(); return null; });
+        benchmarks.put("open-loop", () -> { benchmarkOpenLoop(); return null; });
+        benchmarks.put("inventory-limiter", () -> { benchmarkInventoryLimiter(); return null; });
+        benchmarks.put("notification-hedging", () -> { benchmarkNotificationHedging(); return null; });
+        benchmarks.put("partitioned-orders", () -> { benchmarkPartitionedOrders(); return null; });
+        benchmarks.put("ring-buffer", () -> { benchmarkRingBuffer(); return null; });
+        benchmarks.put("revenue-ledger", () -> { benchmarkRevenueLedger(); return null; });
+        benchmarks.put("heavy-hitters", () -> { benchmarkHeavyHitters(); return null; });
+        benchmarks.put("journal", () -> { benchmarkJournal(); return null; });
+        benchmarks.put("recovery", () -> { benchmarkRecovery(); return null; });
+
+        String selected = args.length > 0 ? args[0] : "all";
+        if (!"all".equals(selected) && !benchmarks.containsKey(selected)) {
+            System.err.println("❌ 未知的测试: " + selected + "，可选: " + benchmarks.keySet());
+            return;
+        }
+
+        System.out.println(repeat("=", 70));
+        System.out.println("🎓 OrderSystemBenchmark - 订单系统并发基准测试");
+        System.out.println("  💻 CPU核心数: " + Runtime.getRuntime().availableProcessors() +
+                         "，测试线程数: " + THREADS);
+        System.out.println(repeat("=", 70));
+
+        for (Map.Entry<String, Callable<Void>> entry : benchmarks.entrySet()) {
+            if ("all".equals(selected) || entry.getKey().equals(selected)) {
+                entry.getValue().call();
+            }
+        }
+    }
+
+    /**
+     * 在固定线程数上并发执行count次操作，返回耗时（纳秒）
+     */
+    private static long runConcurrently(int count, IntTask task) throws InterruptedException {
+        return runConcurrently(THREADS, count, task);
+    }
+
+    /**
+     * 在指定线程数上并发执行count次操作，返回耗时（纳秒）
+     */
+    private static long runConcurrently(int threads, int count, IntTask task) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        int perThread = (count + threads - 1) / threads;
+
+        for (int t = 0; t < threads; t++) {
+            final int from = t * perThread;
+            final int to = Math.min(count, from + perThread);
+            executor.execute(() -> {
+                try {
+                    start.await();
+                    for (int i = from; i < to; i++) {
+                        task.run(i);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        long elapsed = System.nanoTime() - begin;
+        executor.shutdown();
+        return elapsed;
+    }
+
+    /**
+     * 以下标为参数的基准操作
+     */
+    interface IntTask {
+        void run(int index) throws InterruptedException;
+    }
+
+    // ==================== 库存锁争用测试 ====================
+
+    /**
+     * 全局库存锁 vs 按SKU条带锁
+     * 每个订单随机包含2个商品，临界区用短暂park模拟库存查询的I/O等待
+     */
+    private static void benchmarkInventoryLocks() throws InterruptedException {
+        System.out.println("\n🔸 库存锁争用测试: 全局ReentrantLock vs StripedInventoryLocks(64)");
+        System.out.println(repeat("-", 70));
+        System.out.println(String.format("  %8s %8s %14s %14s %8s %10s",
+                                         "订单数", "SKU数", "全局锁(单/秒)", "条带锁(单/秒)", "加速比", "条带争用率"));
+
+        int[] orderCounts = {1000, 5000, 20000};
+        int[] skuCounts = {4, 64, 1024};
+        long holdNanos = TimeUnit.MICROSECONDS.toNanos(20);
+
+        // 预热，避免首轮测试包含JIT编译时间
+        runInventoryLockRound(2000, 64, holdNanos);
+
+        for (int orders : orderCounts) {
+            for (int skus : skuCounts) {
+                double[] result = runInventoryLockRound(orders, skus, holdNanos);
+                System.out.println(String.format("  %8d %8d %14.0f %14.0f %7.2fx %9.1f%%",
+                                                 orders, skus, result[0], result[1],
+                                                 result[1] / result[0], result[2] * 100));
+            }
+        }
+    }
+
+    /**
+     * @return {全局锁吞吐量, 条带锁吞吐量, 条带锁争用率}
+     */
+    private static double[] runInventoryLockRound(int orderCount, int skuCount, long holdNanos)
+            throws InterruptedException {
+        List<ComprehensiveThreadDemo.Order> orders = createBenchmarkOrders(orderCount, skuCount, 42);
+
+        ReentrantLock globalLock = new ReentrantLock();
+        long globalNanos = runConcurrently(orderCount, i -> {
+            globalLock.lock();
+            try {
+                LockSupport.parkNanos(holdNanos);
+            } finally {
+                globalLock.unlock();
+            }
+        });
+
+        ComprehensiveThreadDemo.StripedInventoryLocks stripedLocks =
+            new ComprehensiveThreadDemo.StripedInventoryLocks(64);
+        long stripedNanos = runConcurrently(orderCount, i -> {
+            int[] stripes = stripedLocks.lockAll(orders.get(i));
+            try {
+                LockSupport.parkNanos(holdNanos);
+            } finally {
+                stripedLocks.unlockAll(stripes);
+            }
+        });
+
+        return new double[] {
+            orderCount / (globalNanos / 1e9),
+            orderCount / (stripedNanos / 1e9),
+            (double) stripedLocks.getContendedAcquisitions() / stripedLocks.getAcquisitions()
+        };
+    }
+
+    // ==================== 库存预留测试 ====================
+
+    /**
+     * StockReservationEngine吞吐量：每次操作为一次整单预留加一次释放
+     * 随后在有限库存下并发抢购，校验没有超卖
+     */
+    private static void benchmarkStockReservation() throws InterruptedException {
+        System.out.println("\n🔸 库存预留测试: StockReservationEngine (CAS, 每单2个商品)");
+        System.out.println(repeat("-", 70));
+
+        int skuCount = 1024;
+        int orderCount = 100_000;
+        List<ComprehensiveThreadDemo.Order> orders = createBenchmarkOrders(orderCount, skuCount, 42);
+
+        ComprehensiveThreadDemo.StockReservationEngine engine = new ComprehensiveThreadDemo.StockReservationEngine();
+        for (int i = 0; i < skuCount; i++) {
+            engine.restock("SKU-" + i, Integer.MAX_VALUE / 2);
+        }
+
+        // 预热
+        runConcurrently(orderCount, i -> {
+            engine.reserve(orders.get(i));
+            engine.release(orders.get(i));
+        });
+
+        int rounds = 10;
+        long elapsed = runConcurrently(orderCount * rounds, i -> {
+            ComprehensiveThreadDemo.Order order = orders.get(i % orderCount);
+            engine.reserve(order);
+            engine.release(order);
+        });
+        System.out.println(String.format("  🚀 预留+释放: %,d 次，耗时 %dms，%.2f 百万次预留/秒",
+                                         orderCount * rounds, elapsed / 1_000_000,
+                                         orderCount * rounds / (elapsed / 1e9) / 1e6));
+
+        // 有限库存抢购：每个SKU只有5件，远少于需求
+        ComprehensiveThreadDemo.StockReservationEngine scarce = new ComprehensiveThreadDemo.StockReservationEngine();
+        int initialPerSku = 5;
+        for (int i = 0; i < skuCount; i++) {
+            scarce.restock("SKU-" + i, initialPerSku);
+        }
+        runConcurrently(orderCount, i -> scarce.reserve(orders.get(i)));
+
+        long remaining = 0;
+        for (int i = 0; i < skuCount; i++) {
+            remaining += scarce.getAvailable("SKU-" + i);
+        }
+        long consumed = (long) skuCount * initialPerSku - remaining;
+        long expected = scarce.getReservationCount() * 2;
+        System.out.println("  📦 有限库存抢购: 成功 " + scarce.getReservationCount() +
+                         " 单，缺货 " + scarce.getOutOfStockCount() + " 单");
+        System.out.println("  " + (consumed == expected ? "✅" : "❌") + " 超卖检查: 扣减 " + consumed +
+                         " 件，成功订单应扣 " + expected + " 件");
+    }
+
+    // ==================== 支付组提交测试 ====================
+
+    /**
+     * 不同刷新设置下PaymentBatcher的批量大小、批次延迟和吞吐量
+     * 64个客户端闭环提交（提交后等待结算再提交下一笔），网关每次往返2ms、每笔另加20µs
+     */
+    private static void benchmarkPaymentBatching() throws Exception {
+        System.out.println("\n🔸 支付组提交测试: PaymentBatcher (网关往返2ms + 每笔20µs)");
+        System.out.println(repeat("-", 70));
+        System.out.println(String.format("  %8s %8s %10s %14s %14s %12s",
+                                         "最大批量", "最长等待", "平均批量", "平均批次延迟", "最大批次延迟", "支付/秒"));
+
+        int clients = 64;
+        int paymentsPerClient = 50;
+        ComprehensiveThreadDemo.PaymentBatcher.PaymentGateway gateway = batch ->
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(2) + batch.size() * TimeUnit.MICROSECONDS.toNanos(20));
+
+        int[][] settings = {{1, 0}, {8, 1}, {32, 2}, {64, 5}, {128, 10}};
+        for (int[] setting : settings) {
+            // 批量提交器在结算时把订单由PROCESSING转为PAID，每轮都从PROCESSING开始
+            List<ComprehensiveThreadDemo.Order> orders = createBenchmarkOrders(clients * paymentsPerClient, 1024, 7);
+            for (ComprehensiveThreadDemo.Order order : orders) {
+                order.compareAndSetStatus(ComprehensiveThreadDemo.OrderStatus.PENDING,
+                                          ComprehensiveThreadDemo.OrderStatus.PROCESSING);
+            }
+            ComprehensiveThreadDemo.PaymentBatcher batcher = new ComprehensiveThreadDemo.PaymentBatcher(
+                setting[0], setting[1], TimeUnit.MILLISECONDS, gateway);
+
+            ExecutorService clientPool = Executors.newFixedThreadPool(clients);
+            List<Future<?>> results = new ArrayList<>();
+            long begin = System.nanoTime();
+            for (int c = 0; c < clients; c++) {
+                final int offset = c * paymentsPerClient;
+                results.add(clientPool.submit(() -> {
+                    for (int i = 0; i < paymentsPerClient; i++) {
+                        batcher.submit(orders.get(offset + i)).join();
+                    }
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+            long elapsed = System.nanoTime() - begin;
+            clientPool.shutdown();
+            batcher.shutdown();
+
+            System.out.println(String.format("  %8d %6dms %10.2f %12.2fms %12.2fms %12.0f",
+                                             setting[0], setting[1], batcher.getAverageBatchSize(),
+                                             batcher.getAverageBatchLatencyMillis(),
+                                             batcher.getMaxBatchLatencyMillis(),
+                                             batcher.getPaymentCount() / (elapsed / 1e9)));
+        }
+    }
+
+    // ==================== 虚拟线程测试 ====================
+
+    // 平台线程模式的并发上限，超过后跳过（每个平台线程都占用一块原生栈内存）
+    private static final int PLATFORM_THREAD_LIMIT = 10_000;
+
+    /**
+     * 每个订单一个线程：平台线程 vs 虚拟线程
+     * 订单步骤用sleep模拟阻塞I/O（验证50ms、支付50ms、通知20ms），库存检查走条带锁
+     * 记录吞吐量、峰值平台线程数、峰值堆内存和进程常驻内存
+     */
+    private static void benchmarkVirtualThreads() throws InterruptedException {
+        System.out.println("\n🔸 虚拟线程测试: 每订单一个平台线程 vs 每订单一个虚拟线程");
+        System.out.println(repeat("-", 70));
+        boolean virtualAvailable = ComprehensiveThreadDemo.VirtualThreadSupport.isAvailable();
+        if (!virtualAvailable) {
+            System.out.println("  ⚠️ 当前JDK " + System.getProperty("java.version") +
+                             " 不支持虚拟线程（需要JDK 21+），只运行平台线程模式");
+        }
+        System.out.println(String.format("  %8s %6s %10s %12s %12s %12s",
+                                         "并发订单", "模式", "订单/秒", "峰值平台线程", "峰值堆(MB)", "峰值RSS(MB)"));
+
+        for (int concurrency : new int[] {1_000, 10_000, 100_000}) {
+            if (concurrency <= PLATFORM_THREAD_LIMIT) {
+                printThreadModeRow(concurrency, "平台", runThreadPerOrder(concurrency,
+                    ComprehensiveThreadDemo.VirtualThreadSupport.newPlatformThreadPerTaskExecutor("Bench-Order")));
+            } else {
+                System.out.println(String.format("  %8d %6s %10s", concurrency, "平台", "跳过(超过" + PLATFORM_THREAD_LIMIT + ")"));
+            }
+            if (virtualAvailable) {
+                printThreadModeRow(concurrency, "虚拟", runThreadPerOrder(concurrency,
+                    ComprehensiveThreadDemo.VirtualThreadSupport.newThreadPerTaskExecutor("Bench-Order")));
+            }
+        }
+    }
+
+    private static void printThreadModeRow(int concurrency, String mode, long[] result) {
+        System.out.println(String.format("  %8d %6s %10.0f %12d %12.1f %12s",
+                                         concurrency, mode, concurrency / (result[0] / 1e9), result[1],
+                                         result[2] / 1024.0 / 1024.0,
+                                         result[3] >= 0 ? String.format("%.1f", result[3] / 1024.0) : "n/a"));
+    }
+
+    /**
+     * 同时提交concurrency个订单，每个订单占用一个线程直到完成
+     * @return {耗时纳秒, 峰值平台线程数, 峰值已用堆字节, 峰值RSS KB（不可用时为-1）}
+     */
+    private static long[] runThreadPerOrder(int concurrency, ExecutorService executor) throws InterruptedException {
+        ComprehensiveThreadDemo.StripedInventoryLocks locks = new ComprehensiveThreadDemo.StripedInventoryLocks(64);
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        threads.resetPeakThreadCount();
+
+        // 后台采样堆和RSS峰值
+        AtomicLong peakHeap = new AtomicLong(0);
+        AtomicLong peakRss = new AtomicLong(-1);
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        sampler.scheduleAtFixedRate(() -> {
+            peakHeap.accumulateAndGet(runtime.totalMemory() - runtime.freeMemory(), Math::max);
+            peakRss.accumulateAndGet(readResidentKilobytes(), Math::max);
+        }, 0, 20, TimeUnit.MILLISECONDS);
+
+        CountDownLatch done = new CountDownLatch(concurrency);
+        long begin = System.nanoTime();
+        for (int i = 0; i < concurrency; i++) {
+            final List<String> products = Arrays.asList("SKU-" + (i % 512), "SKU-" + ((i * 7) % 512));
+            executor.execute(() -> {
+                try {
+                    Thread.sleep(50);
+                    int[] stripes = locks.lockAll(products);
+                    locks.unlockAll(stripes);
+                    Thread.sleep(50);
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        long elapsed = System.nanoTime() - begin;
+
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+        sampler.shutdownNow();
+        return new long[] {elapsed, threads.getPeakThreadCount(), peakHeap.get(), peakRss.get()};
+    }
+
+    /**
+     * 读取Linux下进程的常驻内存（VmRSS，KB），其他系统返回-1
+     */
+    private static long readResidentKilobytes() {
+        try {
+            for (String line : Files.readAllLines(Paths.get("/proc/self/status"), StandardCharsets.UTF_8)) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("[^0-9]", ""));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // 非Linux系统
+        }
+        return -1;
+    }
+
+    // ==================== 列式订单存储测试 ====================
+
+    /**
+     * List<Order>与OrderStore在1M和10M订单下的堆占用对比，以及OrderStore的并发追加吞吐量
+     * 两种表示共用同一批客户名和SKU字符串，差异只来自订单本身的存储方式
+     */
+    private static void benchmarkOrderStore() throws InterruptedException {
+        System.out.println("\n🔸 订单存储测试: List<Order> vs OrderStore (10万客户, 5000个SKU, 每单2个商品)");
+        System.out.println(repeat("-", 70));
+        System.out.println(String.format("  %10s %16s %16s %10s %14s",
+                                         "订单数", "List<Order>(MB)", "OrderStore(MB)", "节省", "并发追加(单/秒)"));
+
+        String[] customerPool = new String[100_000];
+        for (int i = 0; i < customerPool.length; i++) {
+            customerPool[i] = "客户-" + i;
+        }
+        String[] skuPool = new String[5000];
+        for (int i = 0; i < skuPool.length; i++) {
+            skuPool[i] = "SKU-" + i;
+        }
+        long maxHeap = Runtime.getRuntime().maxMemory();
+
+        for (int count : new int[] {1_000_000, 10_000_000}) {
+            // List<Order>每单约120字节，堆不足时跳过并提示加大-Xmx
+            if (count * 160L > maxHeap) {
+                System.out.println(String.format("  %10d  跳过: 最大堆%dMB不足，请使用 java -Xmx4g OrderSystemBenchmark order-store",
+                                                 count, maxHeap / 1024 / 1024));
+                continue;
+            }
+
+            long baseline = usedHeapAfterGc();
+            List<ComprehensiveThreadDemo.Order> orders = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                orders.add(new ComprehensiveThreadDemo.Order(i + 1, customerPool[i % customerPool.length],
+                    Arrays.asList(skuPool[i % skuPool.length], skuPool[(i * 31) % skuPool.length]), 9999L));
+            }
+            long listBytes = usedHeapAfterGc() - baseline;
+            if (orders.size() != count) {
+                throw new IllegalStateException();
+            }
+            orders = null;
+
+            baseline = usedHeapAfterGc();
+            OrderStore store = new OrderStore();
+            long begin = System.nanoTime();
+            runConcurrently(count, i -> store.append(i + 1, customerPool[i % customerPool.length],
+                Arrays.asList(skuPool[i % skuPool.length], skuPool[(i * 31) % skuPool.length]), 9999, 0L));
+            long appendNanos = System.nanoTime() - begin;
+            long storeBytes = usedHeapAfterGc() - baseline;
+            if (store.size() != count) {
+                throw new IllegalStateException();
+            }
+
+            System.out.println(String.format("  %10d %16.1f %16.1f %9.1f%% %14.0f",
+                                             count, listBytes / 1024.0 / 1024.0, storeBytes / 1024.0 / 1024.0,
+                                             (1 - (double) storeBytes / listBytes) * 100,
+                                             count / (appendNanos / 1e9)));
+        }
+    }
+
+    /**
+     * 多次GC后的已用堆内存
+     */
+    private static long usedHeapAfterGc() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    // ==================== 字符串字典测试 ====================
+
+    /**
+     * 订单中的客户名和商品列表：每单各存一份字符串 vs 字典编号
+     * 字符串按订单新建（与负载生成器、日志恢复相同，内容重复但对象不同），10万客户、5000个SKU、每单2个商品
+     * 随后测量字典查找的开销：字符串 → 编号（散列查找）、编号 → 字符串（数组下标）、多线程并发查找
+     */
+    private static void benchmarkStringDictionary() throws InterruptedException {
+        int count = 1_000_000;
+        int customerCount = 100_000;
+        int skuCount = 5000;
+        System.out.println("\n🔸 字符串字典测试: " + count + " 单（10万客户, 5000个SKU, 每单2个商品）");
+        System.out.println(repeat("-", 70));
+
+        long baseline = usedHeapAfterGc();
+        List<Object> named = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            named.add(new NamedOrderFields("客户-" + (i % customerCount),
+                Arrays.asList("SKU-" + (i % skuCount), "SKU-" + ((i * 31) % skuCount))));
+        }
+        long namedBytes = usedHeapAfterGc() - baseline;
+        if (named.size() != count) {
+            throw new IllegalStateException();
+        }
+        named = null;
+
+        baseline = usedHeapAfterGc();
+        StringDictionary customers = new StringDictionary("客户");
+        StringDictionary skus = new StringDictionary("SKU");
+        List<Object> interned = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            interned.add(new InternedOrderFields(customers.intern("客户-" + (i % customerCount)),
+                new int[] {skus.intern("SKU-" + (i % skuCount)), skus.intern("SKU-" + ((i * 31) % skuCount))}));
+        }
+        long internedBytes = usedHeapAfterGc() - baseline;
+        if (interned.size() != count) {
+            throw new IllegalStateException();
+        }
+        interned = null;
+
+        System.out.println(String.format("  %-26s %10s %12s", "存储方式", "堆(MB)", "每单(字节)"));
+        System.out.println(String.format("  %-26s %10.1f %12.1f", "String + ArrayList<String>",
+                                         namedBytes / 1024.0 / 1024.0, (double) namedBytes / count));
+        System.out.println(String.format("  %-26s %10.1f %12.1f", "int + int[]（含字典）",
+                                         internedBytes / 1024.0 / 1024.0, (double) internedBytes / count));
+        System.out.println(String.format("  💾 节省 %.1fMB（%.1f%%），字典中 %d 个客户、%d 个SKU",
+                                         (namedBytes - internedBytes) / 1024.0 / 1024.0,
+                                         (1 - (double) internedBytes / namedBytes) * 100,
+                                         customers.size(), skus.size()));
+
+        // 查找开销：10万个客户名轮流查找，超出CPU缓存，接近真实订单流
+        int lookups = 5_000_000;
+        String[] names = new String[customerCount];
+        for (int i = 0; i < customerCount; i++) {
+            names[i] = "客户-" + i;
+        }
+        System.out.println(String.format("\n  %-30s %12s", "操作", "每次(ns)"));
+        printLookupCost("intern命中（字符串 → 编号）", lookups, i -> customers.intern(names[i % customerCount]));
+        printLookupCost("lookup反查（编号 → 字符串）", lookups, i -> customers.lookup(i % customerCount).length());
+        long elapsed = runConcurrently(lookups, i -> blackhole += customers.intern(names[i % customerCount]));
+        System.out.println(String.format("  %-30s %12s  %d线程共 %.1f 百万次/秒",
+                                         "并发intern命中（无锁）", "-", THREADS, lookups / (elapsed / 1e9) / 1e6));
+    }
+
+    // 保存查找结果，避免JIT把被测的查找当作无用代码删除
+    private static volatile long blackhole;
+
+    private interface IntToIntTask {
+        int apply(int index);
+    }
+
+    private static void printLookupCost(String name, int count, IntToIntTask task) {
+        long sink = 0;
+        for (int i = 0; i < count; i++) {
+            sink += task.apply(i);
+        }
+        long begin = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            sink += task.apply(i);
+        }
+        long elapsed = System.nanoTime() - begin;
+        blackhole = sink;
+        System.out.println(String.format("  %-30s %12.1f", name, elapsed / (double) count));
+    }
+
+    /**
+     * 每个订单各自保存客户名和商品列表（改用字典编号之前的Order字段）
+     */
+    private static final class NamedOrderFields {
+        final String customerName;
+        final List<String> products;
+
+        NamedOrderFields(String customerName, List<String> products) {
+            this.customerName = customerName;
+            this.products = new ArrayList<>(products);
+        }
+    }
+
+    /**
+     * 只保存字典编号
+     */
+    private static final class InternedOrderFields {
+        final int customerId;
+        final int[] productIds;
+
+        InternedOrderFields(int customerId, int[] productIds) {
+            this.customerId = customerId;
+            this.productIds = productIds;
+        }
+    }
+
+    // ==================== 状态计数器测试 ====================
+
+    /**
+     * 监控线程每1ms采样一次活跃订单数时，对订单状态转换吞吐量的影响
+     * 对比：不采样 / 遍历全部订单统计（O(n)） / 读取OrderStatusCounters（O(1)）
+     * 每轮用一批新订单，每个订单走完 PENDING→PROCESSING→PAID→SHIPPED→DELIVERED 四次CAS转换
+     */
+    private static void benchmarkStatusCounters() throws InterruptedException {
+        System.out.println("\n🔸 状态计数器测试: 1ms采样间隔下的状态转换吞吐量 (每轮50万订单 × 4次转换)");
+        System.out.println(repeat("-", 70));
+        System.out.println(String.format("  %-14s %16s %14s %14s",
+                                         "监控方式", "状态转换(次/秒)", "采样次数", "平均采样耗时"));
+
+        // 预热
+        runLifecycle(createBenchmarkOrders(500_000, 1024, 2));
+
+        String[] modes = {"不采样", "遍历订单列表", "状态计数器"};
+        for (int mode = 0; mode < modes.length; mode++) {
+            final int selected = mode;
+            List<ComprehensiveThreadDemo.Order> orders = createBenchmarkOrders(500_000, 1024, 3 + mode);
+            AtomicLong samples = new AtomicLong(0);
+            AtomicLong sampleNanos = new AtomicLong(0);
+            AtomicLong sink = new AtomicLong(0);
+            ScheduledExecutorService monitor = Executors.newSingleThreadScheduledExecutor();
+            if (selected > 0) {
+                monitor.scheduleAtFixedRate(() -> {
+                    long begin = System.nanoTime();
+                    long active = selected == 1
+                        ? orders.stream().filter(o -> o.getStatus() == ComprehensiveThreadDemo.OrderStatus.PROCESSING ||
+                                                     o.getStatus() == ComprehensiveThreadDemo.OrderStatus.PAID).count()
+                        : ComprehensiveThreadDemo.getOrderStatusCounters().getActive();
+                    sampleNanos.addAndGet(System.nanoTime() - begin);
+                    samples.incrementAndGet();
+                    sink.addAndGet(active);
+                }, 0, 1, TimeUnit.MILLISECONDS);
+            }
+
+            long[] result = runLifecycle(orders);
+            monitor.shutdownNow();
+            monitor.awaitTermination(1, TimeUnit.SECONDS);
+
+            long sampleCount = samples.get();
+            System.out.println(String.format("  %-14s %16.0f %14d %14s",
+                                             modes[mode], result[0] / (result[1] / 1e9), sampleCount,
+                                             sampleCount > 0 ? String.format("%.1fµs", sampleNanos.get() / 1e3 / sampleCount) : "-"));
+        }
+    }
+
+    private static final ComprehensiveThreadDemo.OrderStatus[] LIFECYCLE = {
+        ComprehensiveThreadDemo.OrderStatus.PENDING,
+        ComprehensiveThreadDemo.OrderStatus.PROCESSING,
+        ComprehensiveThreadDemo.OrderStatus.PAID,
+        ComprehensiveThreadDemo.OrderStatus.SHIPPED,
+        ComprehensiveThreadDemo.OrderStatus.DELIVERED
+    };
+
+    /**
+     * 并发地把每个订单推进完整个生命周期
+     * @return {成功的转换次数, 耗时纳秒}
+     */
+    private static long[] runLifecycle(List<ComprehensiveThreadDemo.Order> orders) throws InterruptedException {
+        AtomicLong transitions = new AtomicLong(0);
+        long elapsed = runConcurrently(orders.size(), i -> {
+            ComprehensiveThreadDemo.Order order = orders.get(i);
+            int succeeded = 0;
+            for (int step = 1; step < LIFECYCLE.length; step++) {
+                if (order.compareAndSetStatus(LIFECYCLE[step - 1], LIFECYCLE[step])) {
+                    succeeded++;
+                }
+            }
+            transitions.addAndGet(succeeded);
+        });
+        return new long[] {transitions.get(), elapsed};
+    }
+
+    // ==================== 异步日志测试 ====================
+
+    /**
+     * 多个线程同时打印日志行时生产者一侧的吞吐量
+     * 输出目标是丢弃所有字节的流，测得的只是打印路径本身的同步开销
+     */
+    private static void benchmarkAsyncLog() throws InterruptedException {
+        int lines = 1_000_000;
+        System.out.println("\n🔸 异步日志测试: " + THREADS + "个线程共打印" + lines + "行");
+        System.out.println(repeat("-", 70));
+        System.out.println(String.format("  %-26s %14s %12s %12s",
+                                         "输出方式", "吞吐量(行/秒)", "丢弃行数", "满时等待"));
+
+        PrintStream direct = new PrintStream(new NullOutputStream(), true);
+        long elapsed = runConcurrently(lines, i -> direct.println("📦 worker-" + (i % THREADS) + " 正在检查库存 #" + i));
+        System.out.println(String.format("  %-26s %14.0f %12s %12s",
+                                         "同步PrintStream", lines / (elapsed / 1e9), "-", "-"));
+
+        int[] capacities = {1024, 65536};
+        for (AsyncLog.OverflowPolicy policy : AsyncLog.OverflowPolicy.values()) {
+            for (int capacity : capacities) {
+                AsyncLog log = new AsyncLog(capacity, policy, new PrintStream(new NullOutputStream(), false));
+                elapsed = runConcurrently(lines, i -> log.log("📦 worker-" + (i % THREADS) + " 正在检查库存 #" + i));
+                log.shutdown();
+                System.out.println(String.format("  %-26s %14.0f %12d %12d",
+                                                 "AsyncLog " + policy + " 容量" + capacity,
+                                                 lines / (elapsed / 1e9), log.getDroppedCount(), log.getBlockedCount()));
+            }
+        }
+    }
+
+    // ==================== 开环负载测试 ====================
+
+    /**
+     * 用OrderLoadGenerator驱动一个容量已知的模拟订单服务，逐档提高到达速率
+     * 服务：2个工作线程，每单预留库存后占用约1ms，理论容量约2000单/秒
+     * 接近容量时排队开始累积，p99以上的延迟先于p50急剧上升
+     */
+    private static void benchmarkOpenLoop() throws InterruptedException {
+        System.out.println("\n🔸 开环负载测试: 2个工作线程 × 1ms服务时间，每档3秒，Zipf(1.0)商品热度");
+        System.out.println(repeat("-", 70));
+
+        String[] skus = new String[1000];
+        for (int i = 0; i < skus.length; i++) {
+            skus[i] = "SKU-" + i;
+        }
+        ComprehensiveThreadDemo.StockReservationEngine engine = new ComprehensiveThreadDemo.StockReservationEngine();
+        for (String sku : skus) {
+            engine.restock(sku, Integer.MAX_VALUE / 2);
+        }
+        ExecutorService service = Executors.newFixedThreadPool(2);
+        long serviceNanos = TimeUnit.MILLISECONDS.toNanos(1);
+        OrderLoadGenerator generator = new OrderLoadGenerator(skus, 1.0, 10_000, 11);
+
+        List<OrderLoadGenerator.RunResult> curve = new ArrayList<>();
+        double[] rates = {250, 500, 1000, 1500, 1800, 2000};
+        for (double rate : rates) {
+            curve.add(generator.run(rate, OrderLoadGenerator.ArrivalPattern.POISSON, 1, 3000, 30_000,
+                order -> CompletableFuture.runAsync(() -> {
+                    engine.reserve(order);
+                    long end = System.nanoTime() + serviceNanos;
+                    while (System.nanoTime() < end) {
+                        LockSupport.parkNanos(end - System.nanoTime());
+                    }
+                }, service)));
+        }
+        curve.add(generator.run(1000, OrderLoadGenerator.ArrivalPattern.BURSTY, 20, 3000, 30_000,
+            order -> CompletableFuture.runAsync(() -> {
+                engine.reserve(order);
+                LockSupport.parkNanos(serviceNanos);
+            }, service)));
+        service.shutdown();
+
+        System.out.println(OrderLoadGenerator.RunResult.formatHeader());
+        for (OrderLoadGenerator.RunResult point : curve) {
+            System.out.println(point.formatRow());
+        }
+        System.out.println("  （服务p99从任务提交算起，包含线程池排队；生成器最大落后 " +
+                           String.format("%.1fms", curve.get(curve.size() - 1).getMaxLagNanos() / 1e6) + "）");
+    }
+
+    // ==================== 库存限流测试 ====================
+
+    /**
+     * 库存更新服务过载时的两种处理：
+     *   CallerRunsPolicy - 队列满后任务在提交线程上执行，发送方被拖慢，排队延迟转嫁给后续所有订单
+     *   自适应限流        - 延迟升高时降低并发上限，超出上限的请求立即失败，被接受的请求延迟保持稳定
+     * 服务：2个线程 × 1ms，容量约2000/秒；先以1000/秒正常运行，再以3000/秒过载
+     */
+    private static void benchmarkInventoryLimiter() throws InterruptedException {
+        System.out.println("\n🔸 库存限流测试: 2个线程 × 1ms服务时间，队列100，每档3秒");
+        System.out.println(repeat("-", 70));
+
+        String[] skus = new String[1000];
+        for (int i = 0; i < skus.length; i++) {
+            skus[i] = "SKU-" + i;
+        }
+        long serviceNanos = TimeUnit.MILLISECONDS.toNanos(1);
+        Runnable work = () -> {
+            long end = System.nanoTime() + serviceNanos;
+            while (System.nanoTime() < end) {
+                LockSupport.parkNanos(end - System.nanoTime());
+            }
+        };
+        double[] rates = {1000, 3000};
+
+        System.out.println(String.format("  %-10s %8s %10s %8s %10s %10s %12s %10s",
+                                         "策略", "目标/秒", "完成/秒", "拒绝", "p50", "p99", "发送方最大落后", "最终上限"));
+        for (int strategy = 0; strategy < 2; strategy++) {
+            for (double rate : rates) {
+                OrderLoadGenerator generator = new OrderLoadGenerator(skus, 1.0, 10_000, 13);
+                ThreadPoolExecutor pool;
+                OrderLoadGenerator.RunResult result;
+                String limitText = "-";
+                if (strategy == 0) {
+                    pool = new ThreadPoolExecutor(2, 2, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(100),
+                                                  new ThreadPoolExecutor.CallerRunsPolicy());
+                    final ThreadPoolExecutor callerRunsPool = pool;
+                    result = generator.run(rate, OrderLoadGenerator.ArrivalPattern.POISSON, 1, 3000, 30_000,
+                        order -> CompletableFuture.runAsync(work, callerRunsPool));
+                } else {
+                    pool = new ThreadPoolExecutor(2, 2, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(100),
+                                                  new ThreadPoolExecutor.AbortPolicy());
+                    final ThreadPoolExecutor limitedPool = pool;
+                    ComprehensiveThreadDemo.AdaptiveConcurrencyLimiter limiter =
+                        new ComprehensiveThreadDemo.AdaptiveConcurrencyLimiter(4, 1, 102);
+                    result = generator.run(rate, OrderLoadGenerator.ArrivalPattern.POISSON, 1, 3000, 30_000, order -> {
+                        CompletableFuture<Void> future = new CompletableFuture<>();
+                        if (!limiter.tryAcquire()) {
+                            future.completeExceptionally(new RejectedExecutionException());
+                            return future;
+                        }
+                        long start = System.nanoTime();
+                        limitedPool.execute(() -> {
+                            work.run();
+                            limiter.release(start, true);
+                            future.complete(null);
+                        });
+                        return future;
+                    });
+                    limitText = String.valueOf(limiter.getLimit());
+                }
+                pool.shutdown();
+                pool.awaitTermination(10, TimeUnit.SECONDS);
+
+                System.out.println(String.format("  %-10s %8.0f %10.0f %8d %10s %10s %12s %10s",
+                                                 strategy == 0 ? "CallerRuns" : "自适应限流", rate,
+                                                 result.getThroughput(), result.getFailedCount(),
+                                                 String.format("%.1fms", result.getResponseLatency().valueAtPercentile(50) / 1000.0),
+                                                 String.format("%.1fms", result.getResponseLatency().valueAtPercentile(99) / 1000.0),
+                                                 String.format("%.1fms", result.getMaxLagNanos() / 1e6),
+                                                 limitText));
+            }
+        }
+    }
+
+    // ==================== 通知对冲与熔断测试 ====================
+
+    /**
+     * 单个通知渠道：4个线程，每条通知5ms，5%的尝试额外卡住100ms（模拟下游长尾）
+     * 以200条/秒开环发送，比较不对冲和按p90/p95/p99对冲时的延迟分布；对冲数上限为请求数的10%
+     * 随后让渠道全部失败1秒再恢复，观察熔断器打开期间的快速失败和恢复后的关闭
+     */
+    private static void benchmarkNotificationHedging() throws InterruptedException {
+        System.out.println("\n🔸 通知对冲测试: 4个线程 × 5ms，5%的尝试卡住100ms，200条/秒，每档3秒");
+        System.out.println(repeat("-", 70));
+
+        String[] skus = {"SKU-0"};
+        long serviceNanos = TimeUnit.MILLISECONDS.toNanos(5);
+        Runnable send = () -> LockSupport.parkNanos(serviceNanos);
+        ComprehensiveThreadDemo.NotificationChannel channel = ComprehensiveThreadDemo.NotificationChannel.EMAIL;
+
+        System.out.println(String.format("  %-8s %8s %10s %10s %10s %10s %8s %8s",
+                                         "对冲阈值", "完成", "p50", "p99", "p99.9", "max", "对冲", "胜出"));
+        double[] percentiles = {0, 90, 95, 99};
+        for (double percentile : percentiles) {
+            ComprehensiveThreadDemo.NotificationHub hub = new ComprehensiveThreadDemo.NotificationHub(4, 256, percentile);
+            hub.injectFaults(channel, 0, 0.05, 100);
+            OrderLoadGenerator generator = new OrderLoadGenerator(skus, 0, 1, 17);
+            // 先预热，让渠道积累足够的延迟样本
+            generator.run(200, OrderLoadGenerator.ArrivalPattern.POISSON, 1, 1000, 10_000,
+                          order -> hub.submit(channel, send));
+            long hedgesBefore = hub.getHedgeCount(channel);
+            long winsBefore = hub.getHedgeWinCount(channel);
+            OrderLoadGenerator.RunResult result = generator.run(200, OrderLoadGenerator.ArrivalPattern.POISSON, 1,
+                                                                3000, 10_000, order -> hub.submit(channel, send));
+            hub.shutdown();
+
+            LatencyHistogram.Snapshot latency = result.getResponseLatency();
+            System.out.println(String.format("  %-8s %8d %10s %10s %10s %10s %8d %8d",
+                                             percentile > 0 ? "p" + (int) percentile : "不对冲",
+                                             result.getCompletedCount(),
+                                             String.format("%.1fms", latency.valueAtPercentile(50) / 1000.0),
+                                             String.format("%.1fms", latency.valueAtPercentile(99) / 1000.0),
+                                             String.format("%.1fms", latency.valueAtPercentile(99.9) / 1000.0),
+                                             String.format("%.1fms", latency.getMaxMicros() / 1000.0),
+                                             hub.getHedgeCount(channel) - hedgesBefore,
+                                             hub.getHedgeWinCount(channel) - winsBefore));
+        }
+
+        System.out.println("\n🔸 熔断器测试: 渠道前1秒全部失败，之后恢复；连续5次失败打开，2秒后试探");
+        System.out.println(repeat("-", 70));
+        ComprehensiveThreadDemo.NotificationHub hub = new ComprehensiveThreadDemo.NotificationHub(4, 256, 0);
+        hub.injectFaults(channel, 1.0, 0, 0);
+        ScheduledExecutorService recovery = Executors.newSingleThreadScheduledExecutor();
+        recovery.schedule(() -> hub.injectFaults(channel, 0, 0, 0), 1, TimeUnit.SECONDS);
+        ComprehensiveThreadDemo.CircuitBreaker breaker = hub.getCircuitBreaker(channel);
+        List<String> transitions = new ArrayList<>();
+        long begin = System.nanoTime();
+        ScheduledFuture<?> sampler = recovery.scheduleAtFixedRate(new Runnable() {
+            private ComprehensiveThreadDemo.CircuitBreaker.State last;
+
+            @Override
+            public void run() {
+                ComprehensiveThreadDemo.CircuitBreaker.State state = breaker.getState();
+                if (state != last) {
+                    transitions.add(String.format("%.0fms %s", (System.nanoTime() - begin) / 1e6, state));
+                    last = state;
+                }
+            }
+        }, 0, 1, TimeUnit.MILLISECONDS);
+        OrderLoadGenerator generator = new OrderLoadGenerator(skus, 0, 1, 19);
+        OrderLoadGenerator.RunResult result = generator.run(200, OrderLoadGenerator.ArrivalPattern.POISSON, 1,
+                                                            4000, 10_000, order -> hub.submit(channel, send));
+        sampler.cancel(false);
+        recovery.shutdown();
+        hub.shutdown();
+
+        System.out.println("  发送 " + result.getSentCount() + " 条，成功 " + result.getCompletedCount() +
+                           "，失败 " + result.getFailedCount() + "（其中下游真实失败 " + hub.getFailedCount(channel) +
+                           "，熔断快速失败 " + breaker.getRejectedCount() + "）");
+        System.out.println("  熔断器打开 " + breaker.getTripCount() + " 次，状态变化: " + String.join(" → ", transitions));
+    }
+
+    // ==================== 分区执行测试 ====================
+
+    /**
+     * 共享锁模式 vs 按客户分区的单写者模式，两种模式做同样的工作：
+     * 验证（忙等2µs）→ 预留2个商品 → 支付（忙等5µs）→ 发货 → 记录通知数和客户统计
+     * 共享锁模式：线程池处理订单，库存用条带锁 + CAS预留，支付持有全局锁，通知计数持有全局锁，
+     * 客户统计写入ConcurrentHashMap；分区模式：每个分区一个线程，跨分区的库存预留通过邮箱消息完成
+     */
+    private static void benchmarkPartitionedOrders() throws InterruptedException {
+        int orderCount = 200_000;
+        int skuCount = 1024;
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.println("\n🔸 分区执行测试: 共享锁 vs 按客户分区的单写者（" + orderCount + " 单，每单2个商品）");
+        System.out.println(repeat("-", 70));
+        System.out.println(String.format("  %-10s %10s %14s %8s %12s %8s",
+                                         "模式", "线程/分区", "吞吐量(单/秒)", "加速比", "跨分区消息", "发货"));
+
+        long validateNanos = TimeUnit.MICROSECONDS.toNanos(2);
+        long paymentNanos = TimeUnit.MICROSECONDS.toNanos(5);
+
+        // 预热两种模式
+        runLockBasedOrders(createBenchmarkOrders(orderCount / 4, skuCount, 1), skuCount, validateNanos, paymentNanos);
+        runPartitionedOrders(createBenchmarkOrders(orderCount / 4, skuCount, 1), skuCount, cores,
+                             validateNanos, paymentNanos);
+
+        long[] locked = runLockBasedOrders(createBenchmarkOrders(orderCount, skuCount, 42), skuCount,
+                                           validateNanos, paymentNanos);
+        double lockedRate = orderCount / (locked[0] / 1e9);
+        System.out.println(String.format("  %-10s %10d %14.0f %8s %12s %8d",
+                                         "共享锁", THREADS, lockedRate, "1.00x", "-", locked[1]));
+
+        SortedSet<Integer> partitionCounts = new TreeSet<>(Arrays.asList(1, 2, 4, cores));
+        for (int partitions : partitionCounts) {
+            long[] result = runPartitionedOrders(createBenchmarkOrders(orderCount, skuCount, 42), skuCount,
+                                                 partitions, validateNanos, paymentNanos);
+            double rate = orderCount / (result[0] / 1e9);
+            System.out.println(String.format("  %-10s %10d %14.0f %7.2fx %12d %8d",
+                                             "分区", partitions, rate, rate / lockedRate, result[2], result[1]));
+        }
+        System.out.println("  💡 分区数超过CPU核数（" + cores + "）后不再提升；每单约有 商品数 × (N-1)/N 条跨分区预留请求（每条另有一条回复）");
+    }
+
+    /**
+     * @return {耗时纳秒, 发货数}
+     */
+    private static long[] runLockBasedOrders(List<ComprehensiveThreadDemo.Order> orders, int skuCount,
+                                             long validateNanos, long paymentNanos) throws InterruptedException {
+        ComprehensiveThreadDemo.StockReservationEngine engine = new ComprehensiveThreadDemo.StockReservationEngine();
+        for (int i = 0; i < skuCount; i++) {
+            engine.restock("SKU-" + i, Integer.MAX_VALUE / 2);
+        }
+        ComprehensiveThreadDemo.StripedInventoryLocks inventoryLocks =
+            new ComprehensiveThreadDemo.StripedInventoryLocks(64);
+        ReentrantLock paymentLock = new ReentrantLock();
+        ReentrantLock notificationLock = new ReentrantLock();
+        AtomicLong shipped = new AtomicLong();
+        long[] notifications = new long[1];
+        ConcurrentHashMap<Integer, long[]> customers = new ConcurrentHashMap<>();
+
+        long elapsed = runConcurrently(orders.size(), i -> {
+            ComprehensiveThreadDemo.Order order = orders.get(i);
+            order.compareAndSetStatus(ComprehensiveThreadDemo.OrderStatus.PENDING,
+                                      ComprehensiveThreadDemo.OrderStatus.PROCESSING);
+            spinNanos(validateNanos);
+
+            int[] stripes = inventoryLocks.lockAll(order);
+            boolean reserved;
+            try {
+                reserved = engine.reserve(order).isReserved();
+            } finally {
+                inventoryLocks.unlockAll(stripes);
+            }
+            if (!reserved) {
+                order.transitionTo(ComprehensiveThreadDemo.OrderStatus.CANCELLED);
+                return;
+            }
+
+            paymentLock.lock();
+            try {
+                spinNanos(paymentNanos);
+                order.compareAndSetStatus(ComprehensiveThreadDemo.OrderStatus.PROCESSING,
+                                          ComprehensiveThreadDemo.OrderStatus.PAID);
+            } finally {
+                paymentLock.unlock();
+            }
+            order.compareAndSetStatus(ComprehensiveThreadDemo.OrderStatus.PAID,
+                                      ComprehensiveThreadDemo.OrderStatus.SHIPPED);
+
+            notificationLock.lock();
+            try {
+                notifications[0] += ComprehensiveThreadDemo.NotificationChannel.values().length;
+            } finally {
+                notificationLock.unlock();
+            }
+            customers.compute(order.getCustomerId(), (customerId, stats) -> {
+                long[] updated = stats == null ? new long[2] : stats;
+                updated[0]++;
+                updated[1] += order.getTotalAmountCents();
+                return updated;
+            });
+            shipped.incrementAndGet();
+        });
+        return new long[] {elapsed, shipped.get()};
+    }
+
+    /**
+     * @return {耗时纳秒, 发货数, 跨分区消息数}
+     */
+    private static long[] runPartitionedOrders(List<ComprehensiveThreadDemo.Order> orders, int skuCount,
+                                               int partitions, long validateNanos, long paymentNanos)
+            throws InterruptedException {
+        ComprehensiveThreadDemo.PartitionedOrderProcessor processor =
+            new ComprehensiveThreadDemo.PartitionedOrderProcessor(partitions,
+                (order, stage) -> spinNanos("验证".equals(stage) ? validateNanos : paymentNanos));
+        for (int i = 0; i < skuCount; i++) {
+            processor.restock("SKU-" + i, Integer.MAX_VALUE / 2);
+        }
+        // 补货消息处理完后再开始计时
+        processor.getAvailable("SKU-0").join();
+
+        CountDownLatch done = new CountDownLatch(orders.size());
+        long begin = System.nanoTime();
+        for (ComprehensiveThreadDemo.Order order : orders) {
+            processor.submit(order).whenComplete((ignored, error) -> done.countDown());
+        }
+        done.await();
+        long elapsed = System.nanoTime() - begin;
+        processor.shutdown();
+        return new long[] {elapsed, processor.getShippedCount(), processor.getCrossPartitionMessageCount()};
+    }
+
+    /**
+     * 忙等模拟CPU工作，不让出处理器
+     */
+    private static void spinNanos(long nanos) {
+        long deadline = System.nanoTime() + nanos;
+        while (System.nanoTime() < deadline) {
+            // 忙等
+        }
+    }
+
+    // ==================== 环形缓冲测试 ====================
+
+    /**
+     * 订单事件依次经过 验证 → 支付 → 通知 三个消费者线程，每个消费者只做很少的工作
+     * LinkedBlockingQueue：每个订单新建一个事件对象，在三个队列之间传递（每次交接分配链表节点并加锁）
+     * OrderRingBuffer：事件槽位预分配，三个消费者按依赖顺序读取同一个槽位，分别测试三种等待策略
+     */
+    private static void benchmarkRingBuffer() throws InterruptedException {
+        int eventCount = 2_000_000;
+        List<ComprehensiveThreadDemo.Order> orders = createBenchmarkOrders(100_000, 1024, 42);
+        System.out.println("\n🔸 环形缓冲测试: 单生产者 → 验证 → 支付 → 通知（" + eventCount + " 个订单事件）");
+        System.out.println(repeat("-", 70));
+        System.out.println(String.format("  %-22s %14s %8s %8s %12s %8s",
+                                         "交接方式", "吞吐量(个/秒)", "加速比", "GC次数", "通知平均批量", "校验"));
+
+        // 预热
+        runBlockingQueueChain(orders, eventCount / 4);
+        runRingBufferChain(orders, eventCount / 4, OrderRingBuffer.WaitStrategy.YIELD);
+
+        long expected = expectedChecksum(orders, eventCount);
+        long gcBefore = gcCount();
+        long[] queue = runBlockingQueueChain(orders, eventCount);
+        long queueGc = gcCount() - gcBefore;
+        double queueRate = eventCount / (queue[0] / 1e9);
+        System.out.println(String.format("  %-22s %14.0f %8s %8d %12s %8s",
+                                         "LinkedBlockingQueue×3", queueRate, "1.00x", queueGc, "1.0",
+                                         queue[1] == expected ? "✓" : "✗"));
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        for (OrderRingBuffer.WaitStrategy strategy : OrderRingBuffer.WaitStrategy.values()) {
+            // 生产者和三个消费者各需要一个核心，否则自旋的线程会耗尽整个时间片
+            if (strategy == OrderRingBuffer.WaitStrategy.BUSY_SPIN && cores < 4) {
+                System.out.println(String.format("  %-22s %14s", "RingBuffer " + strategy, "跳过（需4个核心）"));
+                continue;
+            }
+            gcBefore = gcCount();
+            double[] ring = runRingBufferChain(orders, eventCount, strategy);
+            long ringGc = gcCount() - gcBefore;
+            double rate = eventCount / (ring[0] / 1e9);
+            System.out.println(String.format("  %-22s %14.0f %7.2fx %8d %12.1f %8s",
+                                             "RingBuffer " + strategy, rate, rate / queueRate, ringGc, ring[2],
+                                             (long) ring[1] == expected ? "✓" : "✗"));
+        }
+        System.out.println("  💡 环形缓冲不分配事件对象，消费者读一次屏障即可处理一整批；当前CPU核心数: " + cores);
+    }
+
+    /**
+     * 在环形缓冲和队列之间传递的订单事件
+     */
+    private static final class BenchmarkOrderEvent {
+        ComprehensiveThreadDemo.Order order;
+        long checksum;
+    }
+
+    private static long expectedChecksum(List<ComprehensiveThreadDemo.Order> orders, int eventCount) {
+        long checksum = 0;
+        for (int i = 0; i < eventCount; i++) {
+            ComprehensiveThreadDemo.Order order = orders.get(i % orders.size());
+            checksum += order.getProductCount() + order.getTotalAmountCents() + order.getOrderId();
+        }
+        return checksum;
+    }
+
+    /**
+     * @return {耗时纳秒, 校验和}
+     */
+    private static long[] runBlockingQueueChain(List<ComprehensiveThreadDemo.Order> orders, int eventCount)
+            throws InterruptedException {
+        BlockingQueue<BenchmarkOrderEvent> toValidation = new LinkedBlockingQueue<>(1024);
+        BlockingQueue<BenchmarkOrderEvent> toPayment = new LinkedBlockingQueue<>(1024);
+        BlockingQueue<BenchmarkOrderEvent> toNotification = new LinkedBlockingQueue<>(1024);
+        long[] checksum = new long[1];
+        CountDownLatch done = new CountDownLatch(1);
+
+        List<Thread> consumers = Arrays.asList(
+            new Thread(() -> {
+                try {
+                    for (int i = 0; i < eventCount; i++) {
+                        BenchmarkOrderEvent event = toValidation.take();
+                        event.checksum = event.order.getProductCount();
+                        toPayment.put(event);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, "Queue-验证"),
+            new Thread(() -> {
+                try {
+                    for (int i = 0; i < eventCount; i++) {
+                        BenchmarkOrderEvent event = toPayment.take();
+                        event.checksum += event.order.getTotalAmountCents();
+                        toNotification.put(event);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, "Queue-支付"),
+            new Thread(() -> {
+                try {
+                    long sum = 0;
+                    for (int i = 0; i < eventCount; i++) {
+                        BenchmarkOrderEvent event = toNotification.take();
+                        sum += event.checksum + event.order.getOrderId();
+                    }
+                    checksum[0] = sum;
+                    done.countDown();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, "Queue-通知"));
+        for (Thread consumer : consumers) {
+            consumer.start();
+        }
+
+        long begin = System.nanoTime();
+        for (int i = 0; i < eventCount; i++) {
+            BenchmarkOrderEvent event = new BenchmarkOrderEvent();
+            event.order = orders.get(i % orders.size());
+            toValidation.put(event);
+        }
+        done.await();
+        long elapsed = System.nanoTime() - begin;
+        for (Thread consumer : consumers) {
+            consumer.join();
+        }
+        return new long[] {elapsed, checksum[0]};
+    }
+
+    /**
+     * @return {耗时纳秒, 校验和, 通知消费者的平均批量}
+     */
+    private static double[] runRingBufferChain(List<ComprehensiveThreadDemo.Order> orders, int eventCount,
+                                               OrderRingBuffer.WaitStrategy strategy) throws InterruptedException {
+        OrderRingBuffer<BenchmarkOrderEvent> ring = new OrderRingBuffer<>(1024, BenchmarkOrderEvent::new, strategy);
+        long[] checksum = new long[1];
+        CountDownLatch done = new CountDownLatch(1);
+
+        OrderRingBuffer<BenchmarkOrderEvent>.EventProcessor validation = ring.handleEventsWith("验证",
+            (event, sequence, endOfBatch) -> event.checksum = event.order.getProductCount());
+        OrderRingBuffer<BenchmarkOrderEvent>.EventProcessor payment = ring.handleEventsWith("支付",
+            (event, sequence, endOfBatch) -> event.checksum += event.order.getTotalAmountCents(), validation);
+        OrderRingBuffer<BenchmarkOrderEvent>.EventProcessor notification = ring.handleEventsWith("通知",
+            (event, sequence, endOfBatch) -> {
+                checksum[0] += event.checksum + event.order.getOrderId();
+                if (sequence == eventCount - 1) {
+                    done.countDown();
+                }
+            }, payment);
+        ring.start();
+
+        long begin = System.nanoTime();
+        for (int i = 0; i < eventCount; i++) {
+            long sequence = ring.next();
+            ring.get(sequence).order = orders.get(i % orders.size());
+            ring.publish(sequence);
+        }
+        done.await();
+        long elapsed = System.nanoTime() - begin;
+        ring.shutdown(5, TimeUnit.SECONDS);
+        return new double[] {elapsed, checksum[0], notification.getAverageBatchSize()};
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+        }
+        return count;
+    }
+
+    // ==================== 营业额台账测试 ====================
+
+    /**
+     * 多个支付线程同时记入营业额（按客户、按SKU细分），另有一个线程每1ms读取一次快照
+     * 对比：全局锁 / AtomicLong总额 + ConcurrentHashMap<编号, LongAdder>细分 / 条带化RevenueLedger
+     * 检查每个快照中总额是否等于客户细分之和，以及最终总额是否精确
+     */
+    private static void benchmarkRevenueLedger() throws InterruptedException {
+        int orderCount = 500_000;
+        String[] skus = new String[1024];
+        for (int i = 0; i < skus.length; i++) {
+            skus[i] = "SKU-" + i;
+        }
+        List<ComprehensiveThreadDemo.Order> orders =
+            new OrderLoadGenerator(skus, 1.0, 10_000, 42).generateOrders(orderCount);
+        System.out.println("\n🔸 营业额台账测试: " + THREADS + " 个支付线程记入 " + orderCount +
+                           " 单（1万客户，Zipf商品热度），每1ms读取一次快照");
+        System.out.println(repeat("-", 70));
+
+        long expectedCents = 0;
+        double doubleYuan = 0;
+        for (ComprehensiveThreadDemo.Order order : orders) {
+            expectedCents += order.getTotalAmountCents();
+            doubleYuan += order.getTotalAmountCents() / 100.0;
+        }
+        System.out.println("  🧮 精确总额 " + ComprehensiveThreadDemo.formatCents(expectedCents) +
+                           "元，按double元累加得到 " + new BigDecimal(doubleYuan).toPlainString() + "元");
+
+        System.out.println(String.format("  %-24s %14s %10s %12s %8s",
+                                         "实现", "吞吐量(单/秒)", "快照次数", "不一致快照", "总额"));
+        for (int round = 0; round < 2; round++) {
+            // 第一轮为预热，不输出
+            boolean print = round == 1;
+            runLedgerRound("全局锁", new LockedLedger(), orders, expectedCents, print);
+            runLedgerRound("AtomicLong + CHM<LongAdder>", new AdderLedger(), orders, expectedCents, print);
+            runLedgerRound("RevenueLedger(条带)", new StripedLedger(), orders, expectedCents, print);
+        }
+    }
+
+    private static void runLedgerRound(String name, BenchmarkLedger ledger, List<ComprehensiveThreadDemo.Order> orders,
+                                       long expectedCents, boolean print) throws InterruptedException {
+        AtomicLong snapshots = new AtomicLong();
+        AtomicLong inconsistent = new AtomicLong();
+        CountDownLatch writersDone = new CountDownLatch(1);
+        Thread reader = new Thread(() -> {
+            try {
+                while (!writersDone.await(1, TimeUnit.MILLISECONDS)) {
+                    snapshots.incrementAndGet();
+                    if (!ledger.isConsistentSnapshot()) {
+                        inconsistent.incrementAndGet();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "Ledger-Reader");
+        reader.start();
+        long elapsed = runConcurrently(orders.size(), i -> ledger.record(orders.get(i)));
+        writersDone.countDown();
+        reader.join();
+        if (print) {
+            System.out.println(String.format("  %-24s %14.0f %10d %12d %8s",
+                                             name, orders.size() / (elapsed / 1e9), snapshots.get(), inconsistent.get(),
+                                             ledger.totalCents() == expectedCents ? "✓" : "✗"));
+        }
+    }
+
+    /**
+     * 被测的营业额累加方式
+     */
+    private interface BenchmarkLedger {
+        void record(ComprehensiveThreadDemo.Order order);
+
+        long totalCents();
+
+        /**
+         * 读取一次快照，返回总额是否等于客户细分之和
+         */
+        boolean isConsistentSnapshot();
+    }
+
+    private static final class LockedLedger implements BenchmarkLedger {
+        private long total;
+        private final Map<Integer, long[]> customers = new HashMap<>();
+        private final Map<Integer, long[]> skus = new HashMap<>();
+
+        @Override
+        public synchronized void record(ComprehensiveThreadDemo.Order order) {
+            long cents = order.getTotalAmountCents();
+            total += cents;
+            customers.computeIfAbsent(order.getCustomerId(), k -> new long[1])[0] += cents;
+            int count = order.getProductCount();
+            for (int i = 0; i < count; i++) {
+                long share = cents / count;
+                skus.computeIfAbsent(order.getProductId(i), k -> new long[1])[0] +=
+                    i == 0 ? cents - share * (count - 1) : share;
+            }
+        }
+
+        @Override
+        public synchronized long totalCents() {
+            return total;
+        }
+
+        @Override
+        public synchronized boolean isConsistentSnapshot() {
+            long sum = 0;
+            for (long[] cents : customers.values()) {
+                sum += cents[0];
+            }
+            return sum == total;
+        }
+    }
+
+    private static final class AdderLedger implements BenchmarkLedger {
+        private final AtomicLong total = new AtomicLong();
+        private final ConcurrentHashMap<Integer, LongAdder> customers = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<Integer, LongAdder> skus = new ConcurrentHashMap<>();
+
+        @Override
+        public void record(ComprehensiveThreadDemo.Order order) {
+            long cents = order.getTotalAmountCents();
+            total.addAndGet(cents);
+            customers.computeIfAbsent(order.getCustomerId(), k -> new LongAdder()).add(cents);
+            int count = order.getProductCount();
+            for (int i = 0; i < count; i++) {
+                long share = cents / count;
+                skus.computeIfAbsent(order.getProductId(i), k -> new LongAdder())
+                    .add(i == 0 ? cents - share * (count - 1) : share);
+            }
+        }
+
+        @Override
+        public long totalCents() {
+            return total.get();
+        }
+
+        @Override
+        public boolean isConsistentSnapshot() {
+            long expected = total.get();
+            long sum = 0;
+            for (LongAdder cents : customers.values()) {
+                sum += cents.sum();
+            }
+            return sum == expected;
+        }
+    }
+
+    private static final class StripedLedger implements BenchmarkLedger {
+        private final ComprehensiveThreadDemo.RevenueLedger ledger =
+            new ComprehensiveThreadDemo.RevenueLedger(Runtime.getRuntime().availableProcessors() * 2);
+
+        @Override
+        public void record(ComprehensiveThreadDemo.Order order) {
+            ledger.recordPayment(order);
+        }
+
+        @Override
+        public long totalCents() {
+            return ledger.getTotalCents();
+        }
+
+        @Override
+        public boolean isConsistentSnapshot() {
+            return ledger.snapshot().isConsistent();
+        }
+    }
+
+    // ==================== Top-K统计测试 ====================
+
+    /**
+     * 多个线程按Zipf分布为10万个客户累加营业额，对比：
+     *   精确统计：ConcurrentHashMap<编号, LongAdder>，内存随客户数增长，取Top-K要扫描全部条目
+     *   HeavyHitters：每条带固定数量的计数器，取Top-K只合并计数器
+     * 以精确统计为准，检查Top-10的召回率和估计值的最大相对误差
+     */
+    private static void benchmarkHeavyHitters() throws InterruptedException {
+        int eventCount = 2_000_000;
+        int customerCount = 100_000;
+        int k = 10;
+        String[] customers = new String[customerCount];
+        for (int i = 0; i < customerCount; i++) {
+            customers[i] = "客户-" + i;
+        }
+        // 复用负载生成器的Zipf抽样，把SKU下标当作客户编号
+        OrderLoadGenerator zipf = new OrderLoadGenerator(customers, 1.0, 1, 42);
+        Random random = new Random(42);
+        int[] ids = new int[eventCount];
+        long[] cents = new long[eventCount];
+        for (int i = 0; i < eventCount; i++) {
+            ids[i] = zipf.nextSkuIndex();
+            cents[i] = 10_000 + random.nextInt(990_000);
+        }
+        System.out.println("\n🔸 Top-K统计测试: " + THREADS + " 个线程累加 " + eventCount + " 笔营业额（" +
+                           customerCount + " 个客户，Zipf指数1.0），取Top-" + k);
+        System.out.println(repeat("-", 70));
+
+        ConcurrentHashMap<Integer, LongAdder> exact = null;
+        long exactElapsed = 0;
+        for (int round = 0; round < 2; round++) {
+            ConcurrentHashMap<Integer, LongAdder> map = new ConcurrentHashMap<>();
+            exactElapsed = runConcurrently(eventCount,
+                i -> map.computeIfAbsent(ids[i], id -> new LongAdder()).add(cents[i]));
+            exact = map;
+        }
+        long readBegin = System.nanoTime();
+        List<Map.Entry<Integer, LongAdder>> exactEntries = new ArrayList<>(exact.entrySet());
+        exactEntries.sort((a, b) -> Long.compare(b.getValue().sum(), a.getValue().sum()));
+        long exactReadMicros = (System.nanoTime() - readBegin) / 1000;
+        Map<Integer, Long> exactTop = new LinkedHashMap<>();
+        for (Map.Entry<Integer, LongAdder> entry : exactEntries.subList(0, k)) {
+            exactTop.put(entry.getKey(), entry.getValue().sum());
+        }
+
+        System.out.println(String.format("  %-26s %14s %10s %12s %8s %10s",
+                                         "实现", "吞吐量(笔/秒)", "计数器数", "取Top耗时(µs)", "召回率", "最大误差"));
+        System.out.println(String.format("  %-26s %14.0f %10d %12d %8s %10s",
+                                         "CHM<LongAdder>(精确)", eventCount / (exactElapsed / 1e9), exact.size(),
+                                         exactReadMicros, "100%", "0%"));
+
+        int stripes = Runtime.getRuntime().availableProcessors() * 2;
+        for (int capacity : new int[]{16, 64, 256}) {
+            HeavyHitters sketch = null;
+            long elapsed = 0;
+            for (int round = 0; round < 2; round++) {
+                HeavyHitters candidate = new HeavyHitters("客户营业额", capacity, stripes);
+                elapsed = runConcurrently(eventCount, i -> candidate.add(ids[i], cents[i]));
+                sketch = candidate;
+            }
+            readBegin = System.nanoTime();
+            List<HeavyHitters.Entry> top = sketch.top(k);
+            long readMicros = (System.nanoTime() - readBegin) / 1000;
+
+            int hits = 0;
+            double maxRelativeError = 0;
+            for (HeavyHitters.Entry entry : top) {
+                Long actual = exactTop.get(entry.getId());
+                if (actual != null) {
+                    hits++;
+                    maxRelativeError = Math.max(maxRelativeError,
+                                                Math.abs(entry.getEstimate() - actual) / (double) actual);
+                }
+            }
+            System.out.println(String.format("  %-26s %14.0f %10d %12d %7d%% %9.2f%%",
+                                             "HeavyHitters(" + capacity + "×" + sketch.getStripeCount() + ")",
+                                             eventCount / (elapsed / 1e9), capacity * sketch.getStripeCount(),
+                                             readMicros, hits * 100 / k, maxRelativeError * 100));
+        }
+        System.out.println("  💡 计数器数固定，与客户数无关；召回率和误差只统计同时出现在精确Top-" + k + "中的客户");
+    }
+
+    // ==================== 订单日志测试 ====================
+
+    /**
+     * 多个线程同时记录状态转换，比较各刷盘策略的吞吐量和每次force覆盖的记录数
+     * 日志写在临时目录中，测试结束后删除
+     */
+    private static void benchmarkJournal() throws Exception {
+        System.out.println("\n🔸 订单日志测试: 多个线程同时记录状态转换（内存映射段文件）");
+        System.out.println(repeat("-", 70));
+        System.out.println(String.format("  %-12s %6s %10s %14s %10s %12s %12s",
+                                         "刷盘策略", "线程", "转换数", "吞吐量(次/秒)", "force次数", "每次force记录", "平均force"));
+
+        List<ComprehensiveThreadDemo.Order> orders = createBenchmarkOrders(10_000, 1024, 5);
+        runJournalRound(OrderJournal.FsyncPolicy.NONE, THREADS, 2_000_000, orders);
+        runJournalRound(OrderJournal.FsyncPolicy.INTERVAL, THREADS, 2_000_000, orders);
+        for (int threads : new int[] {THREADS, 16, 64}) {
+            runJournalRound(OrderJournal.FsyncPolicy.GROUP, threads, 200_000, orders);
+        }
+        for (int threads : new int[] {THREADS, 64}) {
+            runJournalRound(OrderJournal.FsyncPolicy.EVERY_WRITE, threads, 50_000, orders);
+        }
+    }
+
+    private static void runJournalRound(OrderJournal.FsyncPolicy policy, int threads, int count,
+                                        List<ComprehensiveThreadDemo.Order> orders) throws Exception {
+        Path directory = Files.createTempDirectory("order-journal-");
+        OrderJournal journal = new OrderJournal(directory.toFile(), policy);
+        long elapsed = runConcurrently(threads, count, i ->
+            journal.logTransition(orders.get(i % orders.size()),
+                                  ComprehensiveThreadDemo.OrderStatus.PROCESSING,
+                                  ComprehensiveThreadDemo.OrderStatus.PAID));
+        journal.close();
+        System.out.println(String.format("  %-12s %6d %10d %14.0f %10d %12.1f %10.2fms",
+                                         policy, threads, count, count / (elapsed / 1e9), journal.getForceCount(),
+                                         journal.getRecordsPerForce(), journal.getAverageForceMillis()));
+        deleteDirectory(directory.toFile());
+    }
+
+    // ==================== 日志恢复测试 ====================
+
+    /**
+     * 写入count个订单的完整生命周期日志，再比较几种恢复方式的耗时，并核对恢复出的状态分布
+     * 每个订单：创建 → PROCESSING → PAID，之后每10单取消1单，其余发货，发货的每3单签收1单
+     */
+    private static void benchmarkRecovery() throws Exception {
+        System.out.println("\n🔸 日志恢复测试: 重建订单存储和状态计数 (10万客户, 5000个SKU, 每单2个商品)");
+        System.out.println(repeat("-", 70));
+        int cores = Runtime.getRuntime().availableProcessors();
+        long maxHeap = Runtime.getRuntime().maxMemory();
+
+        for (int count : new int[] {1_000_000, 10_000_000}) {
+            // 恢复出的OrderStore每单约50字节，加上订单号索引和压缩时的缓冲
+            if (count * 120L > maxHeap) {
+                System.out.println(String.format("  %d 个订单  跳过: 最大堆%dMB不足，请使用 java -Xmx4g OrderSystemBenchmark recovery",
+                                                 count, maxHeap / 1024 / 1024));
+                continue;
+            }
+            Path directory = Files.createTempDirectory("order-recovery-");
+            try {
+                OrderJournal journal = new OrderJournal(directory.toFile(), OrderJournal.FsyncPolicy.NONE);
+                long writeNanos = writeLifecycleJournal(journal, 0, count);
+                journal.close();
+                Map<ComprehensiveThreadDemo.OrderStatus, Long> expected = expectedLifecycleCounts(count);
+                System.out.println(String.format("  %d 个订单，日志 %d 条记录 %.0fMB，写入耗时 %.1f秒",
+                                                 count, journal.getRecordCount(), journal.getByteCount() / 1024.0 / 1024.0,
+                                                 writeNanos / 1e9));
+                System.out.println(String.format("  %-18s %6s %10s %14s %8s", "恢复方式", "线程", "耗时", "订单/秒", "状态分布"));
+
+                for (int threads : cores > 1 ? new int[] {1, cores} : new int[] {1}) {
+                    printRecovery("全量重放", threads,
+                                  OrderJournalRecovery.recover(directory.toFile(), threads), expected);
+                }
+
+                OrderJournalRecovery.Result full = OrderJournalRecovery.recover(directory.toFile(), cores);
+                long begin = System.nanoTime();
+                File snapshot = OrderJournalRecovery.compact(directory.toFile(), full);
+                long compactNanos = System.nanoTime() - begin;
+                full = null;
+                System.out.println(String.format("  %-18s %6s %9.0fms %14s %8s  (%s, %.0fMB)",
+                                                 "压缩为快照", "-", compactNanos / 1e6, "-", "-",
+                                                 snapshot.getName(), snapshot.length() / 1024.0 / 1024.0));
+                printRecovery("只读快照", cores, OrderJournalRecovery.recover(directory.toFile(), cores), expected);
+
+                // 快照之后再写10%的新订单作为尾部
+                int tail = count / 10;
+                journal = new OrderJournal(directory.toFile(), OrderJournal.FsyncPolicy.NONE);
+                writeLifecycleJournal(journal, count, tail);
+                journal.close();
+                Map<ComprehensiveThreadDemo.OrderStatus, Long> withTail = expectedLifecycleCounts(count + tail);
+                printRecovery("快照 + 10%尾部", cores, OrderJournalRecovery.recover(directory.toFile(), cores), withTail);
+            } finally {
+                deleteDirectory(directory.toFile());
+            }
+        }
+    }
+
+    /**
+     * 写入订单号 first+1 ~ first+count 的创建和状态转换记录
+     */
+    private static long writeLifecycleJournal(OrderJournal journal, int first, int count) throws InterruptedException {
+        String[] skuPool = new String[5000];
+        for (int i = 0; i < skuPool.length; i++) {
+            skuPool[i] = "SKU-" + i;
+        }
+        return runConcurrently(count, i -> {
+            int orderId = first + i + 1;
+            ComprehensiveThreadDemo.Order order = new ComprehensiveThreadDemo.Order(orderId, "客户-" + (orderId % 100_000),
+                Arrays.asList(skuPool[orderId % skuPool.length], skuPool[(orderId * 31) % skuPool.length]), 9999L);
+            journal.logCreated(order);
+            for (ComprehensiveThreadDemo.OrderStatus[] step : lifecycleOf(orderId)) {
+                journal.logTransition(order, step[0], step[1]);
+            }
+        });
+    }
+
+    private static List<ComprehensiveThreadDemo.OrderStatus[]> lifecycleOf(int orderId) {
+        List<ComprehensiveThreadDemo.OrderStatus[]> steps = new ArrayList<>(4);
+        steps.add(new ComprehensiveThreadDemo.OrderStatus[] {LIFECYCLE[0], LIFECYCLE[1]});
+        steps.add(new ComprehensiveThreadDemo.OrderStatus[] {LIFECYCLE[1], LIFECYCLE[2]});
+        if (orderId % 10 == 0) {
+            steps.add(new ComprehensiveThreadDemo.OrderStatus[] {LIFECYCLE[2], ComprehensiveThreadDemo.OrderStatus.CANCELLED});
+        } else {
+            steps.add(new ComprehensiveThreadDemo.OrderStatus[] {LIFECYCLE[2], LIFECYCLE[3]});
+            if (orderId % 3 == 0) {
+                steps.add(new ComprehensiveThreadDemo.OrderStatus[] {LIFECYCLE[3], LIFECYCLE[4]});
+            }
+        }
+        return steps;
+    }
+
+    private static Map<ComprehensiveThreadDemo.OrderStatus, Long> expectedLifecycleCounts(int count) {
+        Map<ComprehensiveThreadDemo.OrderStatus, Long> counts = new EnumMap<>(ComprehensiveThreadDemo.OrderStatus.class);
+        for (int orderId = 1; orderId <= count; orderId++) {
+            List<ComprehensiveThreadDemo.OrderStatus[]> steps = lifecycleOf(orderId);
+            counts.merge(steps.get(steps.size() - 1)[1], 1L, Long::sum);
+        }
+        return counts;
+    }
+
+    private static void printRecovery(String name, int threads, OrderJournalRecovery.Result result,
+                                      Map<ComprehensiveThreadDemo.OrderStatus, Long> expected) {
+        System.out.println(String.format("  %-18s %6d %9.0fms %14.0f %8s",
+                                         name, threads, result.getElapsedNanos() / 1e6, result.getOrdersPerSecond(),
+                                         expected.equals(result.getStatusCounts()) ? "✓" : "✗ " + result.getStatusCounts()));
+    }
+
+    private static void deleteDirectory(File directory) {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    /**
+     * 丢弃所有写入的输出流
+     */
+    private static final class NullOutputStream extends OutputStream {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    }
+
+    /**
+     * 生成基准测试订单，每单从skuCount个SKU中随机选2个
+     */
+    private static List<ComprehensiveThreadDemo.Order> createBenchmarkOrders(int count, int skuCount, long seed) {
+        List<ComprehensiveThreadDemo.Order> orders = new ArrayList<>(count);
+        Random random = new Random(seed);
+        for (int i = 0; i < count; i++) {
+            List<String> products = Arrays.asList("SKU-" + random.nextInt(skuCount), "SKU-" + random.nextInt(skuCount));
+            orders.add(new ComprehensiveThreadDemo.Order(i + 1, "客户-" + (i % 1000), products, 10_000L));
+        }
+        return orders;
+    }
+}
@@ -0,0 +1,96 @@
+/**
+ * StringDictionary - 并发字符串字典，把字符串映射为从0开始的连续int编号
+ *
+ * 同一批SKU和客户名在上百万个订单中反复出现，每个订单各自保存一份字符串（以及装它们的ArrayList）
+ * 会占用大量重复的堆内存。字典为每个不同的字符串只保存一份，订单只保存int编号：
+ *   1. 查找命中：ConcurrentHashMap.get，不加锁，也不写任何共享变量
+ *   2. 首次出现：computeIfAbsent只锁住该字符串所在的桶，分配下一个编号
+ *   3. 反查：编号直接定位到分段数组中的槽位，O(1)且不需要散列
+ *
+ * 编号连续、从0开始，可以直接作为数组下标（按SKU编号存库存、按客户编号存统计），
+ * 编号一旦分配就不会改变或回收
+ *
+ * @author Java Learning Tutorial
+ * @version 1.0
+ * @date 2024
+ */
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+public class StringDictionary {
+
+    // 反查表每段65536个字符串，按需创建
+    private static final int CHUNK_SHIFT = 16;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final int MAX_CHUNKS = 1 << (31 - CHUNK_SHIFT);
+
+    private final String name;
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private final AtomicReferenceArray<String[]> names = new AtomicReferenceArray<>(MAX_CHUNKS);
+    private final AtomicInteger nextId = new AtomicInteger(0);
+
+    /**
+     * @param name 字典名称，用于统计输出
+     */
+    public StringDictionary(String name) {
+        this.name = name;
+    }
+
+    /**
+     * 返回字符串的编号，第一次出现时分配新编号
+     */
+    public int intern(String value) {
+        Integer id = ids.get(value);
+        if (id != null) {
+            return id;
+        }
+        // 在映射函数中先写反查表，其他线程从map中拿到编号时反查表已可见
+        return ids.computeIfAbsent(value, v -> {
+            int newId = nextId.getAndIncrement();
+            if (newId < 0) {
+                throw new IllegalStateException(name + "字典容量已满");
+            }
+            chunk(newId >>> CHUNK_SHIFT)[newId & CHUNK_MASK] = v;
+            return newId;
+        });
+    }
+
+    /**
+     * 只查找不分配
+     * @return 字符串的编号，未出现过时返回-1
+     */
+    public int idOf(String value) {
+        Integer id = ids.get(value);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * 编号对应的字符串（字典中保存的唯一副本）
+     */
+    public String lookup(int id) {
+        return names.get(id >>> CHUNK_SHIFT)[id & CHUNK_MASK];
+    }
+
+    /**
+     * 已分配的编号数，编号范围为 [0, size)
+     */
+    public int size() {
+        return nextId.get();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    private String[] chunk(int index) {
+        String[] chunk = names.get(index);
+        if (chunk == null) {
+            names.compareAndSet(index, null, new String[CHUNK_SIZE]);
+            chunk = names.get(index);
+        }
+        return chunk;
+    }
+}
@@ -40,8 +40,8 @@ public class ThreadExtendsDemo {
          */
         @Override
         public void run() {
-            System.out.println("🚀 线程 " + threadName + " 开始执行");
-            System.out.println("📊 " + threadName + " 计算范围: " + start + " 到 " + end);
+            AsyncLog.println("🚀 线程 " + threadName + " 开始执行");
+            AsyncLog.println("📊 " + threadName + " 计算范围: " + start + " 到 " + end);
             
             long sum = 0; // 用于累加计算结果
             
@@ -52,22 +52,22 @@ public class ThreadExtendsDemo {
                 
                 // 每1000次迭代输出一次进度
                 if (i % 1000 == 0) {
-                    System.out.println("🔄 " + threadName + " 当前进度: " + i + ", 累加和: " + sum);
+                    AsyncLog.println("🔄 " + threadName + " 当前进度: " + i + ", 累加和: " + sum);
                     
                     // 模拟CPU密集型计算，添加短暂休眠
                     try {
                         Thread.sleep(50); // 休眠50毫秒
                     } catch (InterruptedException e) {
-                        System.err.println("❌ " + threadName + " 被中断");
+                        AsyncLog.errPrintln("❌ " + threadName + " 被中断");
                         break;
                     }
                 }
             }
             
             // 输出最终结果
-            System.out.println("✅ " + threadName + " 执行完毕");
-            System.out.println("📈 " + threadName + " 最终结果: " + sum);
-            System.out.println("🏁 线程 " + threadName + " 生命周期结束");
+            AsyncLog.println("✅ " + threadName + " 执行完毕");
+            AsyncLog.println("📈 " + threadName + " 最终结果: " + sum);
+            AsyncLog.println("🏁 线程 " + threadName + " 生命周期结束");
         }
         
         /**
@@ -101,33 +101,33 @@ public class ThreadExtendsDemo {
         
         @Override
         public void run() {
-            System.out.println("📁 " + getName() + " 开始处理文件列表");
-            System.out.println("🔍 需要处理 " + fileNames.length + " 个文件");
+            AsyncLog.println("📁 " + getName() + " 开始处理文件列表");
+            AsyncLog.println("🔍 需要处理 " + fileNames.length + " 个文件");
             
             for (int i = 0; i < fileNames.length; i++) {
                 String fileName = fileNames[i];
                 
                 // 模拟文件处理过程
-                System.out.println("📄 " + getName() + " 正在处理文件: " + fileName);
+                AsyncLog.println("📄 " + getName() + " 正在处理文件: " + fileName);
                 
                 // 模拟文件处理时间
                 try {
                     Thread.sleep(200 + (int)(Math.random() * 300)); // 随机休眠200-500ms
                 } catch (InterruptedException e) {
-                    System.err.println("❌ " + getName() + " 处理被中断");
+                    AsyncLog.errPrintln("❌ " + getName() + " 处理被中断");
                     break;
                 }
                 
                 // 模拟处理结果
                 String result = "处理完成: " + fileName;
-                System.out.println("✅ " + getName() + " - " + result);
+                AsyncLog.println("✅ " + getName() + " - " + result);
                 
                 // 显示进度
                 int progress = (i + 1) * 100 / fileNames.length;
-                System.out.println("📊 " + getName() + " 进度: " + progress + "%");
+                AsyncLog.println("📊 " + getName() + " 进度: " + progress + "%");
             }
             
-            System.out.println("🎯 " + getName() + " 任务完成！");
+            AsyncLog.println("🎯 " + getName() + " 任务完成！");
         }
     }
     
@@ -161,9 +161,9 @@ public class ThreadExtendsDemo {
      * @param args 命令行参数
      */
     public static void main(String[] args) {
-        System.out.println(repeat("=", 60));
-        System.out.println("🎓 ThreadExtendsDemo - 继承Thread类创建线程演示");
-        System.out.println(repeat("=", 60));
+        AsyncLog.println(repeat("=", 60));
+        AsyncLog.println("🎓 ThreadExtendsDemo - 继承Thread类创建线程演示");
+        AsyncLog.println(repeat("=", 60));
         
         // 展示1: 基本线程创建和执行
         demonstrateBasicThreadCreation();
@@ -183,20 +183,20 @@ public class ThreadExtendsDemo {
      * 展示如何继承Thread类创建自定义线程
      */
     private static void demonstrateBasicThreadCreation() {
-        System.out.println("\n" + padEnd("🔸 演示1: 基本线程创建和执行", 50, " "));
-        System.out.println(repeat("-", 50));
+        AsyncLog.println("\n" + padEnd("🔸 演示1: 基本线程创建和执行", 50, " "));
+        AsyncLog.println(repeat("-", 50));
         
         // 创建线程实例
         CalculatorThread thread1 = new CalculatorThread("计算器-1", 1, 5000);
         CalculatorThread thread2 = new CalculatorThread("计算器-2", 5001, 10000);
         
         // 显示线程创建后的状态信息
-        System.out.println("📋 线程创建完成，状态信息：");
-        System.out.println("  " + thread1.getThreadInfo());
-        System.out.println("  " + thread2.getThreadInfo());
+        AsyncLog.println("📋 线程创建完成，状态信息：");
+        AsyncLog.println("  " + thread1.getThreadInfo());
+        AsyncLog.println("  " + thread2.getThreadInfo());
         
         // 启动线程 - 调用start()方法而不是run()方法
-        System.out.println("\n🚀 启动线程...");
+        AsyncLog.println("\n🚀 启动线程...");
         thread1.start();
         thread2.start();
         
@@ -204,9 +204,9 @@ public class ThreadExtendsDemo {
         try {
             thread1.join(); // 等待thread1执行完毕
             thread2.join(); // 等待thread2执行完毕
-            System.out.println("\n✅ 所有计算线程执行完毕");
+            AsyncLog.println("\n✅ 所有计算线程执行完毕");
         } catch (InterruptedException e) {
-            System.err.println("❌ 主线程被中断");
+            AsyncLog.errPrintln("❌ 主线程被中断");
         }
     }
     
@@ -215,11 +215,11 @@ public class ThreadExtendsDemo {
      * 展示多个线程同时执行，提高任务处理效率
      */
     private static void demonstrateConcurrentExecution() {
-        System.out.println("\n" + padEnd("🔸 演示2: 多线程并发执行", 50, " "));
-        System.out.println(repeat("-", 50));
+        AsyncLog.println("\n" + padEnd("🔸 演示2: 多线程并发执行", 50, " "));
+        AsyncLog.println(repeat("-", 50));
         
         // 创建多个计算线程，每个处理不同的数据范围
-        System.out.println("📊 创建4个计算线程并发处理不同数据范围");
+        AsyncLog.println("📊 创建4个计算线程并发处理不同数据范围");
         
         CalculatorThread[] threads = new CalculatorThread[4];
         for (int i = 0; i < 4; i++) {
@@ -229,13 +229,13 @@ public class ThreadExtendsDemo {
         }
         
         // 显示所有线程信息
-        System.out.println("\n📋 线程信息汇总：");
+        AsyncLog.println("\n📋 线程信息汇总：");
         for (CalculatorThread thread : threads) {
-            System.out.println("  " + thread.getThreadInfo());
+            AsyncLog.println("  " + thread.getThreadInfo());
         }
         
         // 同时启动所有线程
-        System.out.println("\n🚀 启动所有并发线程...");
+        AsyncLog.println("\n🚀 启动所有并发线程...");
         for (CalculatorThread thread : threads) {
             thread.start();
         }
@@ -245,9 +245,9 @@ public class ThreadExtendsDemo {
             for (CalculatorThread thread : threads) {
                 thread.join(); // 等待每个线程完成
             }
-            System.out.println("\n✅ 所有并发计算线程执行完毕");
+            AsyncLog.println("\n✅ 所有并发计算线程执行完毕");
         } catch (InterruptedException e) {
-            System.err.println("❌ 主线程被中断");
+            AsyncLog.errPrintln("❌ 主线程被中断");
         }
     }
     
@@ -256,8 +256,8 @@ public class ThreadExtendsDemo {
      * 展示继承Thread类在实际业务中的应用
      */
     private static void demonstrateFileProcessing() {
-        System.out.println("\n" + padEnd("🔸 演示3: 文件处理应用场景", 50, " "));
-        System.out.println(repeat("-", 50));
+        AsyncLog.println("\n" + padEnd("🔸 演示3: 文件处理应用场景", 50, " "));
+        AsyncLog.println(repeat("-", 50));
         
         // 模拟文件列表
         String[] files1 = {"data1.txt", "data2.txt", "data3.txt", "data4.txt", "data5.txt"};
@@ -267,9 +267,9 @@ public class ThreadExtendsDemo {
         FileProcessorThread processor1 = new FileProcessorThread(1, files1);
         FileProcessorThread processor2 = new FileProcessorThread(2, files2);
         
-        System.out.println("📁 启动文件处理任务");
-        System.out.println("  处理线程1: " + files1.length + " 个文件");
-        System.out.println("  处理线程2: " + files2.length + " 个文件");
+        AsyncLog.println("📁 启动文件处理任务");
+        AsyncLog.println("  处理线程1: " + files1.length + " 个文件");
+        AsyncLog.println("  处理线程2: " + files2.length + " 个文件");
         
         // 启动文件处理线程
         processor1.start();
@@ -279,9 +279,9 @@ public class ThreadExtendsDemo {
         try {
             processor1.join();
             processor2.join();
-            System.out.println("\n✅ 所有文件处理任务完成");
+            AsyncLog.println("\n✅ 所有文件处理任务完成");
         } catch (InterruptedException e) {
-            System.err.println("❌ 文件处理被中断");
+            AsyncLog.errPrintln("❌ 文件处理被中断");
         }
     }
     
@@ -290,24 +290,24 @@ public class ThreadExtendsDemo {
      * 展示线程在不同状态下的行为
      */
     private static void demonstrateThreadLifecycle() {
-        System.out.println("\n" + padEnd("🔸 演示4: 线程生命周期观察", 50, " "));
-        System.out.println(repeat("-", 50));
+        AsyncLog.println("\n" + padEnd("🔸 演示4: 线程生命周期观察", 50, " "));
+        AsyncLog.println(repeat("-", 50));
         
         // 创建线程但不启动
         CalculatorThread lifecycleThread = new CalculatorThread("生命周期观察", 1, 100);
         
-        System.out.println("📋 线程状态观察：");
-        System.out.println("  1. 线程创建后状态: " + lifecycleThread.getState());
+        AsyncLog.println("📋 线程状态观察：");
+        AsyncLog.println("  1. 线程创建后状态: " + lifecycleThread.getState());
         
         // 启动线程
         lifecycleThread.start();
         
-        System.out.println("  2. 线程启动后状态: " + lifecycleThread.getState());
+        AsyncLog.println("  2. 线程启动后状态: " + lifecycleThread.getState());
         
         // 监控线程状态变化
         Thread monitorThread = new Thread(() -> {
             while (lifecycleThread.isAlive()) {
-                System.out.println("  🔄 监控: " + lifecycleThread.getName() + 
+                AsyncLog.println("  🔄 监控: " + lifecycleThread.getName() + 
                                  " 当前状态: " + lifecycleThread.getState());
                 try {
                     Thread.sleep(200); // 每200ms检查一次
@@ -315,7 +315,7 @@ public class ThreadExtendsDemo {
                     break;
                 }
             }
-            System.out.println("  ✅ 线程已终止，最终状态: " + lifecycleThread.getState());
+            AsyncLog.println("  ✅ 线程已终止，最终状态: " + lifecycleThread.getState());
         });
         
         monitorThread.start();
@@ -324,9 +324,9 @@ public class ThreadExtendsDemo {
         try {
             lifecycleThread.join();
             monitorThread.join();
-            System.out.println("\n✅ 线程生命周期观察完成");
+            AsyncLog.println("\n✅ 线程生命周期观察完成");
         } catch (InterruptedException e) {
-            System.err.println("❌ 生命周期观察被中断");
+            AsyncLog.errPrintln("❌ 生命周期观察被中断");
         }
     }
     
@@ -335,8 +335,8 @@ public class ThreadExtendsDemo {
      * 展示如何控制线程的执行优先级和命名
      */
     private static void demonstrateThreadProperties() {
-        System.out.println("\n" + padEnd("🔸 演示5: 线程属性控制", 50, " "));
-        System.out.println(repeat("-", 50));
+        AsyncLog.println("\n" + padEnd("🔸 演示5: 线程属性控制", 50, " "));
+        AsyncLog.println(repeat("-", 50));
         
         // 创建具有不同优先级的线程
         CalculatorThread lowPriority = new CalculatorThread("低优先级线程", 1, 1000);
@@ -348,13 +348,13 @@ public class ThreadExtendsDemo {
         normalPriority.setPriority(Thread.NORM_PRIORITY);  // 5  
         highPriority.setPriority(Thread.MAX_PRIORITY);     // 10
         
-        System.out.println("📋 线程优先级设置：");
-        System.out.println("  " + lowPriority.getName() + " 优先级: " + lowPriority.getPriority());
-        System.out.println("  " + normalPriority.getName() + " 优先级: " + normalPriority.getPriority());
-        System.out.println("  " + highPriority.getName() + " 优先级: " + highPriority.getPriority());
+        AsyncLog.println("📋 线程优先级设置：");
+        AsyncLog.println("  " + lowPriority.getName() + " 优先级: " + lowPriority.getPriority());
+        AsyncLog.println("  " + normalPriority.getName() + " 优先级: " + normalPriority.getPriority());
+        AsyncLog.println("  " + highPriority.getName() + " 优先级: " + highPriority.getPriority());
         
         // 启动线程
-        System.out.println("\n🚀 启动不同优先级的线程...");
+        AsyncLog.println("\n🚀 启动不同优先级的线程...");
         highPriority.start();
         normalPriority.start();
         lowPriority.start();
@@ -364,9 +364,9 @@ public class ThreadExtendsDemo {
             highPriority.join();
             normalPriority.join();
             lowPriority.join();
-            System.out.println("\n✅ 优先级演示完成");
+            AsyncLog.println("\n✅ 优先级演示完成");
         } catch (InterruptedException e) {
-            System.err.println("❌ 优先级演示被中断");
+            AsyncLog.errPrintln("❌ 优先级演示被中断");
         }
     }
     
@@ -375,19 +375,19 @@ public class ThreadExtendsDemo {
      * 对比继承Thread与其他创建方式的优缺点
      */
     public static void printMethodSummary() {
-        System.out.println("\n" + padEnd("? 继承Thread类方式总结", 50, " "));
-        System.out.println(repeat("-", 50));
-        System.out.println("✅ 优点:");
-        System.out.println("  • 代码结构清晰，易于理解");
-        System.out.println("  • 可以直接使用Thread类的方法");
-        System.out.println("  • 适合简单的线程创建需求");
-        System.out.println("\n❌ 缺点:");
-        System.out.println("  • Java单继承限制，无法继承其他类");
-        System.out.println("  • 线程代码与Thread类耦合度高");
-        System.out.println("  • 不够灵活，复用性较差");
-        System.out.println("\n💡 适用场景:");
-        System.out.println("  • 简单的线程任务");
-        System.out.println("  • 线程逻辑相对独立");
-        System.out.println("  • 不需要继承其他类的场景");
+        AsyncLog.println("\n" + padEnd("? 继承Thread类方式总结", 50, " "));
+        AsyncLog.println(repeat("-", 50));
+        AsyncLog.println("✅ 优点:");
+        AsyncLog.println("  • 代码结构清晰，易于理解");
+        AsyncLog.println("  • 可以直接使用Thread类的方法");
+        AsyncLog.println("  • 适合简单的线程创建需求");
+        AsyncLog.println("\n❌ 缺点:");
+        AsyncLog.println("  • Java单继承限制，无法继承其他类");
+        AsyncLog.println("  • 线程代码与Thread类耦合度高");
+        AsyncLog.println("  • 不够灵活，复用性较差");
+        AsyncLog.println("\n💡 适用场景:");
+        AsyncLog.println("  • 简单的线程任务");
+        AsyncLog.println("  • 线程逻辑相对独立");
+        AsyncLog.println("  • 不需要继承其他类的场景");
     }
 }
\ No newline at end of file
@@ -0,0 +1,116 @@
+/**
+ * ThreadPoolStats - 线程池的预聚合统计，由InstrumentedThreadPool和InstrumentedScheduledThreadPool共用
+ *
+ * 线程池在任务生命周期的钩子中调用对应方法维护计数，读取只是对LongAdder求和，不获取线程池的mainLock或队列锁：
+ *   1. onSubmit：已提交 +1；被拒绝时（拒绝策略被调用）已拒绝 +1
+ *   2. beforeExecute：已开始 +1，记录开始时间
+ *   3. afterExecute：已完成 +1（抛出异常时另计失败），记录任务耗时到直方图
+ *   4. 线程工厂包装：工作线程启动时存活线程 +1，退出时 -1
+ *   5. shutdownNow：队列中被丢弃的任务计入被丢弃
+ * 由此可以无锁地推算：活跃线程 = 已开始 - 已完成，排队任务 = 已提交 - 已拒绝 - 已开始 - 被丢弃
+ *
+ * @author Java Learning Tutorial
+ * @version 1.0
+ * @date 2024
+ */
+
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+public final class ThreadPoolStats {
+
+    private final String poolName;
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder started = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder discarded = new LongAdder();
+    private final LongAdder liveThreads = new LongAdder();
+    private final LatencyHistogram taskTime;
+    private final ThreadLocal<long[]> startNanos = ThreadLocal.withInitial(() -> new long[1]);
+
+    public ThreadPoolStats(String poolName) {
+        this.poolName = poolName;
+        this.taskTime = new LatencyHistogram(poolName);
+    }
+
+    // ==================== 生命周期钩子 ====================
+
+    void onSubmit() {
+        submitted.increment();
+    }
+
+    void beforeExecute() {
+        started.increment();
+        startNanos.get()[0] = System.nanoTime();
+    }
+
+    void afterExecute(Throwable t) {
+        taskTime.recordNanos(System.nanoTime() - startNanos.get()[0]);
+        if (t != null) {
+            failed.increment();
+        }
+        completed.increment();
+    }
+
+    void onDiscarded(int count) {
+        discarded.add(count);
+    }
+
+    /**
+     * 包装线程工厂：工作线程启动和退出时维护存活线程数
+     */
+    ThreadFactory countingFactory(ThreadFactory delegate) {
+        return r -> delegate.newThread(() -> {
+            liveThreads.increment();
+            try {
+                r.run();
+            } finally {
+                liveThreads.decrement();
+            }
+        });
+    }
+
+    /**
+     * 包装拒绝策略：拒绝策略被调用时计入已拒绝
+     */
+    RejectedExecutionHandler countingHandler(RejectedExecutionHandler delegate) {
+        return (r, executor) -> {
+            rejected.increment();
+            delegate.rejectedExecution(r, executor);
+        };
+    }
+
+    // ==================== 读取（无锁） ====================
+
+    public String getPoolName() { return poolName; }
+    public long getSubmittedCount() { return submitted.sum(); }
+    public long getRejectedCount() { return rejected.sum(); }
+    public long getStartedCount() { return started.sum(); }
+    public long getFinishedCount() { return completed.sum(); }
+    public long getFailedCount() { return failed.sum(); }
+    public long getLiveThreadCount() { return liveThreads.sum(); }
+
+    /**
+     * 任务执行耗时分布（从beforeExecute到afterExecute）
+     */
+    public LatencyHistogram getTaskTime() { return taskTime; }
+
+    /**
+     * 正在执行任务的线程数；各计数分别求和，并发时是近似值，不会为负
+     */
+    public long getBusyThreadCount() {
+        long finished = completed.sum();
+        return Math.max(0, started.sum() - finished);
+    }
+
+    /**
+     * 排队等待执行的任务数，不读取队列本身
+     */
+    public long getQueuedCount() {
+        long begun = started.sum() + discarded.sum();
+        return Math.max(0, submitted.sum() - rejected.sum() - begun);
+    }
+}